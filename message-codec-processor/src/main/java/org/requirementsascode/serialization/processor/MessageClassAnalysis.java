@@ -0,0 +1,445 @@
+package org.requirementsascode.serialization.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Analyzes a message class, to find out how Jackson (de)serializes it with the
+ * settings of the message serialization module: all fields and public getters
+ * are serialized, and messages are created with the constructor that has
+ * parameters, or the no argument constructor.
+ * 
+ * If a generated codec can't (de)serialize messages of the class the same way,
+ * no codec is possible, and the analysis tells the reason.
+ * 
+ * @author b_muth
+ *
+ */
+class MessageClassAnalysis {
+	private static final String JACKSON_PACKAGE_PREFIX = "com.fasterxml.jackson.";
+	private static final String LOMBOK_PACKAGE_PREFIX = "lombok.";
+
+	private final TypeElement messageClass;
+	private final DeclaredType messageType;
+	private final String packageName;
+	private final Elements elements;
+	private final Types types;
+
+	private final List<Property> serializedProperties;
+	private final List<Property> constructorParameters;
+	private final List<Property> settableProperties;
+	private String reason;
+
+	private MessageClassAnalysis(TypeElement messageClass, ProcessingEnvironment processingEnv) {
+		this.messageClass = messageClass;
+		this.messageType = (DeclaredType) messageClass.asType();
+		this.elements = processingEnv.getElementUtils();
+		this.types = processingEnv.getTypeUtils();
+		this.packageName = elements.getPackageOf(messageClass).getQualifiedName().toString();
+		this.serializedProperties = new ArrayList<>();
+		this.constructorParameters = new ArrayList<>();
+		this.settableProperties = new ArrayList<>();
+	}
+
+	/**
+	 * Analyzes the specified message class.
+	 * 
+	 * @param messageClass  the message class
+	 * @param processingEnv the environment of the annotation processor
+	 * @return the analysis
+	 */
+	static MessageClassAnalysis of(TypeElement messageClass, ProcessingEnvironment processingEnv) {
+		MessageClassAnalysis analysis = new MessageClassAnalysis(messageClass, processingEnv);
+		analysis.analyze();
+		return analysis;
+	}
+
+	TypeElement messageClass() {
+		return messageClass;
+	}
+
+	String packageName() {
+		return packageName;
+	}
+
+	boolean isCodecPossible() {
+		return reason == null;
+	}
+
+	String reason() {
+		return reason;
+	}
+
+	List<Property> serializedProperties() {
+		return Collections.unmodifiableList(serializedProperties);
+	}
+
+	List<Property> constructorParameters() {
+		return Collections.unmodifiableList(constructorParameters);
+	}
+
+	List<Property> settableProperties() {
+		return Collections.unmodifiableList(settableProperties);
+	}
+
+	private void analyze() {
+		if (!isSupportedClass() || !hasNoJacksonAnnotations() || !hasNoLombokAnnotations()) {
+			return;
+		}
+
+		List<VariableElement> fields = fieldsOf(classHierarchy());
+		Map<String, ExecutableElement> getters = accessorsOf(this::isGetter, this::propertyNameOfGetter);
+		Map<String, ExecutableElement> setters = accessorsOf(this::isSetter, method -> propertyNameOf(method, 3));
+		if (!isCodecPossible()) {
+			return;
+		}
+		ExecutableElement constructor = creatorConstructor();
+		if (constructor == null) {
+			return;
+		}
+
+		Map<String, VariableElement> fieldsByName = new LinkedHashMap<>();
+		for (VariableElement field : fields) {
+			if (fieldsByName.put(field.getSimpleName().toString(), field) != null) {
+				fail("it has more than one field named " + field.getSimpleName());
+				return;
+			}
+		}
+
+		analyzeConstructorParameters(constructor);
+		analyzeSerializedProperties(fieldsByName, getters);
+		analyzeSettableProperties(fieldsByName, setters);
+	}
+
+	private boolean isSupportedClass() {
+		if (messageClass.getKind() != ElementKind.CLASS) {
+			return fail("it isn't a class");
+		}
+		if (messageClass.getModifiers().contains(Modifier.ABSTRACT)) {
+			return fail("it's abstract");
+		}
+		if (!messageClass.getTypeParameters().isEmpty()) {
+			return fail("it's generic");
+		}
+		if (packageName.startsWith("java.") || packageName.startsWith("javax.")) {
+			return fail("it's a JDK class");
+		}
+		for (Element element = messageClass; element instanceof TypeElement; element = element
+			.getEnclosingElement()) {
+			TypeElement type = (TypeElement) element;
+			if (type.getModifiers().contains(Modifier.PRIVATE)) {
+				return fail("it isn't accessible");
+			}
+			NestingKind nestingKind = type.getNestingKind();
+			if (nestingKind == NestingKind.LOCAL || nestingKind == NestingKind.ANONYMOUS
+				|| (nestingKind == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC))) {
+				return fail("it isn't a top level or static nested class");
+			}
+		}
+		return true;
+	}
+
+	private boolean hasNoJacksonAnnotations() {
+		for (TypeElement type : classHierarchy()) {
+			if (hasJacksonAnnotation(type)) {
+				return fail("it uses Jackson annotations");
+			}
+			for (Element member : type.getEnclosedElements()) {
+				if (hasJacksonAnnotation(member)) {
+					return fail("it uses Jackson annotations");
+				}
+				if (member instanceof ExecutableElement) {
+					for (VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+						if (hasJacksonAnnotation(parameter)) {
+							return fail("it uses Jackson annotations");
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Lombok changes classes during compilation, so the processor may not see
+	 * their final constructors and accessors.
+	 */
+	private boolean hasNoLombokAnnotations() {
+		for (TypeElement type : classHierarchy()) {
+			boolean hasLombokAnnotation = hasAnnotationOf(type, LOMBOK_PACKAGE_PREFIX) || type.getEnclosedElements()
+				.stream().anyMatch(member -> hasAnnotationOf(member, LOMBOK_PACKAGE_PREFIX));
+			if (hasLombokAnnotation) {
+				return fail("it uses Lombok annotations");
+			}
+		}
+		return true;
+	}
+
+	private boolean hasJacksonAnnotation(Element element) {
+		return hasAnnotationOf(element, JACKSON_PACKAGE_PREFIX);
+	}
+
+	private boolean hasAnnotationOf(Element element, String packagePrefix) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			if (annotationType.getQualifiedName().toString().startsWith(packagePrefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private ExecutableElement creatorConstructor() {
+		List<ExecutableElement> constructors = ElementFilter.constructorsIn(messageClass.getEnclosedElements());
+		List<ExecutableElement> constructorsWithParameters = constructors.stream()
+			.filter(constructor -> !constructor.getParameters().isEmpty())
+			.collect(Collectors.toList());
+
+		ExecutableElement constructor;
+		if (constructorsWithParameters.size() > 1) {
+			fail("it has more than one constructor with parameters");
+			return null;
+		} else if (constructorsWithParameters.size() == 1) {
+			constructor = constructorsWithParameters.get(0);
+		} else {
+			constructor = constructors.get(0);
+		}
+
+		if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+			fail("its constructor is private");
+			return null;
+		}
+		for (VariableElement parameter : constructor.getParameters()) {
+			if (parameter.getSimpleName().toString().matches("arg\\d+")) {
+				fail("the names of its constructor parameters aren't available");
+				return null;
+			}
+		}
+		return constructor;
+	}
+
+	private void analyzeConstructorParameters(ExecutableElement constructor) {
+		ExecutableType constructorType = (ExecutableType) types.asMemberOf(messageType, constructor);
+		List<? extends VariableElement> parameters = constructor.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			TypeMirror parameterType = constructorType.getParameterTypes().get(i);
+			if (isSupportedType(parameterType)) {
+				constructorParameters.add(new Property(parameters.get(i).getSimpleName().toString(), parameterType, null));
+			}
+		}
+	}
+
+	private void analyzeSerializedProperties(Map<String, VariableElement> fieldsByName,
+		Map<String, ExecutableElement> getters) {
+		Map<String, Property> propertiesByName = new LinkedHashMap<>();
+		for (Property constructorParameter : constructorParameters) {
+			propertiesByName.put(constructorParameter.name(), null);
+		}
+		for (VariableElement field : fieldsByName.values()) {
+			String name = field.getSimpleName().toString();
+			ExecutableElement getter = getters.get(name);
+			if (getter != null) {
+				propertiesByName.put(name, getterProperty(name, getter));
+			} else if (isAccessible(field)) {
+				TypeMirror fieldType = types.asMemberOf(messageType, field);
+				propertiesByName.put(name, new Property(name, fieldType, name));
+			} else {
+				fail("its field " + name + " is private, and has no public getter");
+				return;
+			}
+		}
+		getters.forEach((name, getter) -> {
+			if (!fieldsByName.containsKey(name)) {
+				propertiesByName.put(name, getterProperty(name, getter));
+			}
+		});
+
+		propertiesByName.values().stream()
+			.filter(property -> property != null)
+			.filter(property -> isSupportedType(property.type()))
+			.forEach(serializedProperties::add);
+	}
+
+	private Property getterProperty(String name, ExecutableElement getter) {
+		ExecutableType getterType = (ExecutableType) types.asMemberOf(messageType, getter);
+		return new Property(name, getterType.getReturnType(), getter.getSimpleName() + "()");
+	}
+
+	private void analyzeSettableProperties(Map<String, VariableElement> fieldsByName,
+		Map<String, ExecutableElement> setters) {
+		Set<String> constructorParameterNames = constructorParameters.stream()
+			.map(Property::name)
+			.collect(Collectors.toSet());
+
+		Map<String, Property> propertiesByName = new LinkedHashMap<>();
+		for (VariableElement field : fieldsByName.values()) {
+			String name = field.getSimpleName().toString();
+			if (constructorParameterNames.contains(name) || setters.containsKey(name)) {
+				continue;
+			}
+			if (field.getModifiers().contains(Modifier.FINAL)) {
+				fail("its final field " + name + " isn't set by the constructor");
+				return;
+			}
+			if (!isAccessible(field)) {
+				fail("its field " + name + " is private, and isn't set by the constructor or a setter");
+				return;
+			}
+			propertiesByName.put(name, new Property(name, types.asMemberOf(messageType, field), name + " = %s"));
+		}
+		for (Map.Entry<String, ExecutableElement> setterEntry : setters.entrySet()) {
+			String name = setterEntry.getKey();
+			ExecutableElement setter = setterEntry.getValue();
+			if (constructorParameterNames.contains(name)) {
+				continue;
+			}
+			if (!isAccessible(setter)) {
+				fail("its setter " + setter.getSimpleName() + " isn't accessible");
+				return;
+			}
+			ExecutableType setterType = (ExecutableType) types.asMemberOf(messageType, setter);
+			TypeMirror parameterType = setterType.getParameterTypes().get(0);
+			propertiesByName.put(name, new Property(name, parameterType, setter.getSimpleName() + "(%s)"));
+		}
+
+		propertiesByName.values().stream()
+			.filter(property -> isSupportedType(property.type()))
+			.forEach(settableProperties::add);
+	}
+
+	private List<TypeElement> classHierarchy() {
+		List<TypeElement> classHierarchy = new ArrayList<>();
+		TypeElement type = messageClass;
+		while (type != null && !type.getQualifiedName().contentEquals("java.lang.Object")) {
+			classHierarchy.add(0, type);
+			TypeMirror superclass = type.getSuperclass();
+			type = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement()
+				: null;
+		}
+		return classHierarchy;
+	}
+
+	private List<VariableElement> fieldsOf(List<TypeElement> classHierarchy) {
+		List<VariableElement> fields = new ArrayList<>();
+		for (TypeElement type : classHierarchy) {
+			for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				Set<Modifier> modifiers = field.getModifiers();
+				if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+					fields.add(field);
+				}
+			}
+		}
+		return fields;
+	}
+
+	private Map<String, ExecutableElement> accessorsOf(Predicate<ExecutableElement> isAccessor,
+		Function<ExecutableElement, String> propertyNameOf) {
+		Map<String, ExecutableElement> accessors = new LinkedHashMap<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(messageClass))) {
+			TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+			if (method.getModifiers().contains(Modifier.STATIC)
+				|| declaringType.getQualifiedName().contentEquals("java.lang.Object") || !isAccessor.test(method)) {
+				continue;
+			}
+			String propertyName = propertyNameOf.apply(method);
+			if (accessors.put(propertyName, method) != null) {
+				fail("it has more than one accessor for property " + propertyName);
+			}
+		}
+		return accessors;
+	}
+
+	private boolean isGetter(ExecutableElement method) {
+		if (!method.getModifiers().contains(Modifier.PUBLIC) || !method.getParameters().isEmpty()
+			|| method.getReturnType().getKind() == TypeKind.VOID) {
+			return false;
+		}
+		String name = method.getSimpleName().toString();
+		return (name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2
+			&& isBoolean(method.getReturnType()));
+	}
+
+	private boolean isSetter(ExecutableElement method) {
+		String name = method.getSimpleName().toString();
+		return name.startsWith("set") && name.length() > 3 && method.getParameters().size() == 1;
+	}
+
+	private boolean isBoolean(TypeMirror type) {
+		return type.getKind() == TypeKind.BOOLEAN || (type.getKind() == TypeKind.DECLARED
+			&& ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.Boolean"));
+	}
+
+	private String propertyNameOfGetter(ExecutableElement getter) {
+		return propertyNameOf(getter, getter.getSimpleName().toString().startsWith("is") ? 2 : 3);
+	}
+
+	/**
+	 * Returns the property name of an accessor method like Jackson's default
+	 * naming strategy: the prefix is removed, and the leading upper case
+	 * characters are converted to lower case.
+	 */
+	private String propertyNameOf(ExecutableElement accessor, int prefixLength) {
+		String name = accessor.getSimpleName().toString().substring(prefixLength);
+		StringBuilder propertyName = new StringBuilder(name);
+		for (int i = 0; i < propertyName.length(); i++) {
+			char c = propertyName.charAt(i);
+			char lowerCase = Character.toLowerCase(c);
+			if (c == lowerCase) {
+				break;
+			}
+			propertyName.setCharAt(i, lowerCase);
+		}
+		return propertyName.toString();
+	}
+
+	private boolean isAccessible(Element member) {
+		Set<Modifier> modifiers = member.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE)) {
+			return false;
+		}
+		PackageElement declaringPackage = elements.getPackageOf(member);
+		boolean isPublicMemberOfPublicType = modifiers.contains(Modifier.PUBLIC)
+			&& member.getEnclosingElement().getModifiers().contains(Modifier.PUBLIC);
+		return isPublicMemberOfPublicType || declaringPackage.getQualifiedName().contentEquals(packageName);
+	}
+
+	private boolean isSupportedType(TypeMirror type) {
+		if (!TypeNames.isSupported(type)) {
+			fail("the type " + type + " of one of its properties is a type variable, or not resolved");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean fail(String reason) {
+		if (this.reason == null) {
+			this.reason = reason;
+		}
+		return false;
+	}
+}
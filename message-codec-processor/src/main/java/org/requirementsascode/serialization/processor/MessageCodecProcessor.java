@@ -0,0 +1,186 @@
+package org.requirementsascode.serialization.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a message codec for each message class referenced by a class
+ * annotated with <code>@GenerateMessageCodecs</code>, and registers the codecs
+ * as services in <code>META-INF/services</code>, so that the message
+ * serialization module finds them at runtime.
+ * 
+ * @author b_muth
+ *
+ */
+public class MessageCodecProcessor extends AbstractProcessor {
+	static final String GENERATE_MESSAGE_CODECS = "org.requirementsascode.serialization.GenerateMessageCodecs";
+	static final String MESSAGE_CODEC = "org.requirementsascode.serialization.MessageCodec";
+
+	private final Set<String> processedClasses;
+	private final List<String> generatedCodecs;
+	private ReferencedClassScanner referencedClassScanner;
+
+	public MessageCodecProcessor() {
+		this.processedClasses = new LinkedHashSet<>();
+		this.generatedCodecs = new ArrayList<>();
+	}
+
+	@Override
+	public synchronized void init(ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+		this.referencedClassScanner = ReferencedClassScanner.of(processingEnv);
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(GENERATE_MESSAGE_CODECS);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element annotatedElement : roundEnv.getElementsAnnotatedWith(annotation)) {
+				processAnnotatedElement(annotatedElement);
+			}
+		}
+
+		if (roundEnv.processingOver()) {
+			writeServicesFile();
+		}
+		return false;
+	}
+
+	private void processAnnotatedElement(Element annotatedElement) {
+		if (!(annotatedElement instanceof TypeElement)) {
+			return;
+		}
+		TypeElement annotatedType = (TypeElement) annotatedElement;
+
+		for (TypeElement messageClass : specifiedClassesOf(annotatedType)) {
+			processMessageClass(messageClass, annotatedType, Kind.WARNING);
+		}
+
+		if (referencedClassScanner.isAvailable()) {
+			for (TypeElement messageClass : referencedClassScanner.referencedClassesOf(annotatedType)) {
+				processMessageClass(messageClass, annotatedType, Kind.NOTE);
+			}
+		} else {
+			messager().printMessage(Kind.WARNING, "Can't scan source code for referenced message classes with this "
+				+ "compiler. Only the classes specified in the annotation get codecs.", annotatedType);
+		}
+	}
+
+	private void processMessageClass(TypeElement messageClass, TypeElement annotatedType, Kind diagnosticKind) {
+		String messageClassName = messageClass.getQualifiedName().toString();
+		if (!processedClasses.add(messageClassName)) {
+			return;
+		}
+
+		MessageClassAnalysis analysis = MessageClassAnalysis.of(messageClass, processingEnv);
+		if (analysis.isCodecPossible()) {
+			writeCodec(analysis);
+		} else {
+			messager().printMessage(diagnosticKind, "No message codec generated for " + messageClassName + ", "
+				+ analysis.reason() + ". It is (de)serialized with reflection.", annotatedType);
+		}
+	}
+
+	private void writeCodec(MessageClassAnalysis analysis) {
+		MessageCodecWriter codecWriter = new MessageCodecWriter(analysis);
+		String codecName = codecWriter.qualifiedCodecName();
+		try {
+			JavaFileObject sourceFile = filer().createSourceFile(codecName, analysis.messageClass());
+			try (Writer writer = sourceFile.openWriter()) {
+				codecWriter.write(writer);
+			}
+			generatedCodecs.add(codecName);
+		} catch (IOException e) {
+			messager().printMessage(Kind.ERROR, "Couldn't write message codec " + codecName + ": " + e.getMessage(),
+				analysis.messageClass());
+		}
+	}
+
+	private void writeServicesFile() {
+		if (generatedCodecs.isEmpty()) {
+			return;
+		}
+
+		String servicesFileName = "META-INF/services/" + MESSAGE_CODEC;
+		try {
+			FileObject servicesFile = filer().createResource(StandardLocation.CLASS_OUTPUT, "", servicesFileName);
+			try (Writer writer = servicesFile.openWriter()) {
+				for (String generatedCodec : generatedCodecs) {
+					writer.write(generatedCodec);
+					writer.write("\n");
+				}
+			}
+		} catch (IOException e) {
+			messager().printMessage(Kind.ERROR, "Couldn't write " + servicesFileName + ": " + e.getMessage());
+		}
+	}
+
+	private List<TypeElement> specifiedClassesOf(TypeElement annotatedType) {
+		List<TypeElement> specifiedClasses = new ArrayList<>();
+		for (AnnotationMirror annotationMirror : annotatedType.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+			if (!annotationType.getQualifiedName().contentEquals(GENERATE_MESSAGE_CODECS)) {
+				continue;
+			}
+			annotationMirror.getElementValues().forEach((ExecutableElement element, AnnotationValue value) -> {
+				if (element.getSimpleName().contentEquals("value")) {
+					addClassesOf(value, specifiedClasses);
+				}
+			});
+		}
+		return specifiedClasses;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addClassesOf(AnnotationValue annotationValue, List<TypeElement> classes) {
+		Object value = annotationValue.getValue();
+		if (value instanceof List) {
+			for (AnnotationValue listElement : (List<? extends AnnotationValue>) value) {
+				addClassesOf(listElement, classes);
+			}
+		} else if (value instanceof TypeMirror && ((TypeMirror) value).getKind() == TypeKind.DECLARED) {
+			classes.add((TypeElement) ((DeclaredType) value).asElement());
+		}
+	}
+
+	private Messager messager() {
+		return processingEnv.getMessager();
+	}
+
+	private Filer filer() {
+		return processingEnv.getFiler();
+	}
+}
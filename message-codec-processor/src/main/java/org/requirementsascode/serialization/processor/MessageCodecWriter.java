@@ -0,0 +1,248 @@
+package org.requirementsascode.serialization.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Writes the source code of the message codec for an analyzed message class.
+ * The codec is in the same package as the message class, so that it can access
+ * its non-private members.
+ * 
+ * All names in the source code are fully qualified, to prevent clashes with
+ * classes in the package of the message class.
+ * 
+ * @author b_muth
+ *
+ */
+class MessageCodecWriter {
+	private static final String SERIALIZATION_PACKAGE = "org.requirementsascode.serialization.";
+
+	private final MessageClassAnalysis analysis;
+	private final String messageClassName;
+	private final String codecName;
+
+	MessageCodecWriter(MessageClassAnalysis analysis) {
+		this.analysis = analysis;
+		this.messageClassName = analysis.messageClass().getQualifiedName().toString();
+		this.codecName = codecNameOf(analysis.messageClass());
+	}
+
+	/**
+	 * Returns the fully qualified name of the codec class.
+	 * 
+	 * @return the name
+	 */
+	String qualifiedCodecName() {
+		String packageName = analysis.packageName();
+		return packageName.isEmpty() ? codecName : packageName + "." + codecName;
+	}
+
+	/**
+	 * Writes the source code of the codec class.
+	 * 
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	void write(Writer writer) throws IOException {
+		List<Property> deserializedProperties = new ArrayList<>(analysis.constructorParameters());
+		deserializedProperties.addAll(analysis.settableProperties());
+
+		StringBuilder source = new StringBuilder();
+		if (!analysis.packageName().isEmpty()) {
+			source.append("package ").append(analysis.packageName()).append(";\n\n");
+		}
+		source.append("/**\n * Message codec for {@link ").append(messageClassName).append("}.\n")
+			.append(" * Generated by the message codec processor, don't edit.\n */\n")
+			.append("public final class ").append(codecName).append(" implements ")
+			.append(SERIALIZATION_PACKAGE).append("MessageCodec<").append(messageClassName).append("> {\n")
+			.append("\t@java.lang.Override\n")
+			.append("\tpublic java.lang.Class<").append(messageClassName).append("> messageClass() {\n")
+			.append("\t\treturn ").append(messageClassName).append(".class;\n")
+			.append("\t}\n\n")
+			.append("\t@java.lang.Override\n")
+			.append("\tpublic com.fasterxml.jackson.databind.JsonSerializer<").append(messageClassName)
+			.append("> serializer() {\n")
+			.append("\t\treturn new Serializer();\n")
+			.append("\t}\n\n")
+			.append("\t@java.lang.Override\n")
+			.append("\tpublic com.fasterxml.jackson.databind.JsonDeserializer<").append(messageClassName)
+			.append("> deserializer() {\n")
+			.append("\t\treturn new Deserializer();\n")
+			.append("\t}\n\n");
+
+		appendSerializer(source, analysis.serializedProperties());
+		source.append("\n");
+		appendDeserializer(source, deserializedProperties);
+		source.append("}\n");
+
+		writer.write(source.toString());
+	}
+
+	private void appendSerializer(StringBuilder source, List<Property> properties) {
+		source.append("\tstatic final class Serializer extends ").append(SERIALIZATION_PACKAGE)
+			.append("MessageCodecSerializer<").append(messageClassName).append("> {\n")
+			.append("\t\tprivate static final long serialVersionUID = 1L;\n\n")
+			.append("\t\tSerializer() {\n")
+			.append("\t\t\tsuper(").append(messageClassName).append(".class, ").append(namesOf(properties)).append(", ")
+			.append(typesOf(properties)).append(");\n")
+			.append("\t\t}\n\n")
+			.append("\t\t@java.lang.Override\n")
+			.append("\t\tprotected void writeProperties(").append(messageClassName)
+			.append(" message, com.fasterxml.jackson.core.JsonGenerator gen, ")
+			.append("com.fasterxml.jackson.databind.SerializerProvider provider) throws java.io.IOException {\n");
+		for (int i = 0; i < properties.size(); i++) {
+			source.append("\t\t\t").append(writeStatementOf(i, properties.get(i))).append("\n");
+		}
+		source.append("\t\t}\n")
+			.append("\t}\n");
+	}
+
+	private void appendDeserializer(StringBuilder source, List<Property> properties) {
+		List<Property> constructorParameters = analysis.constructorParameters();
+
+		source.append("\tstatic final class Deserializer extends ").append(SERIALIZATION_PACKAGE)
+			.append("MessageCodecDeserializer<").append(messageClassName).append("> {\n")
+			.append("\t\tprivate static final long serialVersionUID = 1L;\n\n")
+			.append("\t\tDeserializer() {\n")
+			.append("\t\t\tsuper(").append(messageClassName).append(".class, ").append(namesOf(properties)).append(", ")
+			.append(typesOf(properties)).append(");\n")
+			.append("\t\t}\n\n")
+			.append("\t\t@java.lang.Override\n")
+			.append("\t\t@java.lang.SuppressWarnings(\"unchecked\")\n")
+			.append("\t\tprotected ").append(messageClassName).append(" create(java.lang.Object[] values) {\n")
+			.append("\t\t\t").append(messageClassName).append(" message = new ").append(messageClassName).append("(");
+		List<String> arguments = new ArrayList<>();
+		for (int i = 0; i < constructorParameters.size(); i++) {
+			arguments.add(valueOf(i, constructorParameters.get(i).type()));
+		}
+		source.append(String.join(", ", arguments)).append(");\n");
+		for (int i = constructorParameters.size(); i < properties.size(); i++) {
+			Property property = properties.get(i);
+			source.append("\t\t\tif (values[").append(i).append("] != null) {\n")
+				.append("\t\t\t\tmessage.").append(String.format(property.accessor(), valueOf(i, property.type())))
+				.append(";\n")
+				.append("\t\t\t}\n");
+		}
+		source.append("\t\t\treturn message;\n")
+			.append("\t\t}\n")
+			.append("\t}\n");
+	}
+
+	private String writeStatementOf(int index, Property property) {
+		String value = "message." + property.accessor();
+		switch (property.type().getKind()) {
+		case BOOLEAN:
+			return "writeBoolean(" + index + ", " + value + ", gen);";
+		case BYTE:
+		case SHORT:
+		case INT:
+			return "writeInt(" + index + ", " + value + ", gen);";
+		case LONG:
+			return "writeLong(" + index + ", " + value + ", gen);";
+		case FLOAT:
+			return "writeFloat(" + index + ", " + value + ", gen);";
+		case DOUBLE:
+			return "writeDouble(" + index + ", " + value + ", gen);";
+		case CHAR:
+			return "writeString(" + index + ", java.lang.String.valueOf(" + value + "), gen);";
+		default:
+			if (isString(property.type())) {
+				return "writeString(" + index + ", " + value + ", gen);";
+			}
+			return "writeObject(" + index + ", " + value + ", gen, provider);";
+		}
+	}
+
+	private String valueOf(int index, TypeMirror type) {
+		String value = "values[" + index + "]";
+		TypeKind kind = type.getKind();
+		if (kind.isPrimitive()) {
+			return "(" + value + " == null ? " + defaultValueOf(kind) + " : (" + boxedNameOf(kind) + ") " + value + ")";
+		}
+		if (isClass(type, "java.lang.Object")) {
+			return value;
+		}
+		return "(" + TypeNames.nameOf(type) + ") " + value;
+	}
+
+	private String namesOf(List<Property> properties) {
+		return properties.stream()
+			.map(property -> "\"" + property.name() + "\"")
+			.collect(Collectors.joining(", ", "new java.lang.String[] { ", " }"));
+	}
+
+	private String typesOf(List<Property> properties) {
+		return properties.stream()
+			.map(property -> typeExpressionOf(property.type()))
+			.collect(Collectors.joining(", ", "new com.fasterxml.jackson.databind.JavaType[] { ", " }"));
+	}
+
+	private String typeExpressionOf(TypeMirror type) {
+		if (TypeNames.isGeneric(type)) {
+			return "typeOf(new com.fasterxml.jackson.core.type.TypeReference<" + TypeNames.nameOf(type) + ">() {})";
+		}
+		return "typeOf(" + TypeNames.rawNameOf(type) + ".class)";
+	}
+
+	private static boolean isString(TypeMirror type) {
+		return isClass(type, "java.lang.String");
+	}
+
+	private static boolean isClass(TypeMirror type, String qualifiedName) {
+		return type.getKind() == TypeKind.DECLARED
+			&& ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(qualifiedName);
+	}
+
+	private static String defaultValueOf(TypeKind kind) {
+		switch (kind) {
+		case BOOLEAN:
+			return "false";
+		case CHAR:
+			return "'\\u0000'";
+		case LONG:
+			return "0L";
+		case FLOAT:
+			return "0F";
+		case DOUBLE:
+			return "0D";
+		case BYTE:
+			return "(byte) 0";
+		case SHORT:
+			return "(short) 0";
+		default:
+			return "0";
+		}
+	}
+
+	private static String boxedNameOf(TypeKind kind) {
+		switch (kind) {
+		case BOOLEAN:
+			return "java.lang.Boolean";
+		case CHAR:
+			return "java.lang.Character";
+		case INT:
+			return "java.lang.Integer";
+		default:
+			String name = kind.name();
+			return "java.lang." + name.charAt(0) + name.substring(1).toLowerCase();
+		}
+	}
+
+	private static String codecNameOf(TypeElement messageClass) {
+		StringBuilder name = new StringBuilder(messageClass.getSimpleName());
+		for (Element enclosing = messageClass.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing
+			.getEnclosingElement()) {
+			name.insert(0, enclosing.getSimpleName() + "_");
+		}
+		return name.append("MessageCodec").toString();
+	}
+}
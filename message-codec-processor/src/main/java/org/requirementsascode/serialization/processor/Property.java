@@ -0,0 +1,44 @@
+package org.requirementsascode.serialization.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A property of a message class, as seen by the generated codec: its name, its
+ * type, and the source code to access it.
+ * 
+ * @author b_muth
+ *
+ */
+class Property {
+	private final String name;
+	private final TypeMirror type;
+	private final String accessor;
+
+	/**
+	 * Creates a property.
+	 * 
+	 * @param name     the name of the property in (de)serialized messages
+	 * @param type     the declared type of the property
+	 * @param accessor the source code that accesses it on a message (e.g.
+	 *                 <code>getName()</code>, or <code>setName(%s)</code> with a
+	 *                 placeholder for the value to set), or null if it's only a
+	 *                 constructor parameter
+	 */
+	Property(String name, TypeMirror type, String accessor) {
+		this.name = name;
+		this.type = type;
+		this.accessor = accessor;
+	}
+
+	String name() {
+		return name;
+	}
+
+	TypeMirror type() {
+		return type;
+	}
+
+	String accessor() {
+		return accessor;
+	}
+}
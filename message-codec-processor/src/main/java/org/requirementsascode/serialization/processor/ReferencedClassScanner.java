@@ -0,0 +1,201 @@
+package org.requirementsascode.serialization.processor;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * Finds the message classes referenced in the source code of a behavior model:
+ * the classes of the messages the model handles, i.e. the class arguments of
+ * <code>user(...)</code> and <code>on(...)</code>, and the types of the
+ * messages it publishes with <code>systemPublish(...)</code>. Only classes
+ * whose source code is compiled at the same time are found.
+ * 
+ * Uses the compiler tree API, which is only available with javac.
+ * 
+ * @author b_muth
+ *
+ */
+class ReferencedClassScanner {
+	private static final String MODEL_PACKAGE = "org.requirementsascode";
+
+	private final Trees trees;
+
+	private ReferencedClassScanner(Trees trees) {
+		this.trees = trees;
+	}
+
+	/**
+	 * Creates a scanner for the compiler of the specified environment.
+	 * 
+	 * @param processingEnv the environment
+	 * @return the scanner, which isn't available if the compiler doesn't support
+	 *         the tree API
+	 */
+	static ReferencedClassScanner of(ProcessingEnvironment processingEnv) {
+		Trees trees;
+		try {
+			trees = Trees.instance(processingEnv);
+		} catch (IllegalArgumentException | LinkageError e) {
+			trees = null;
+		}
+		return new ReferencedClassScanner(trees);
+	}
+
+	/**
+	 * Returns whether the scanner can be used with the current compiler.
+	 * 
+	 * @return true if available, false otherwise
+	 */
+	boolean isAvailable() {
+		return trees != null;
+	}
+
+	/**
+	 * Returns the message classes referenced in the source code of the specified
+	 * class.
+	 * 
+	 * @param type the class whose source code to scan
+	 * @return the referenced classes, in order of their first reference
+	 */
+	Set<TypeElement> referencedClassesOf(TypeElement type) {
+		Set<TypeElement> referencedClasses = new LinkedHashSet<>();
+		TreePath typePath = trees.getPath(type);
+		if (typePath != null) {
+			new ReferenceScanner(referencedClasses).scan(typePath, null);
+		}
+		return referencedClasses;
+	}
+
+	private class ReferenceScanner extends TreePathScanner<Void, Void> {
+		private final Set<TypeElement> referencedClasses;
+
+		ReferenceScanner(Set<TypeElement> referencedClasses) {
+			this.referencedClasses = referencedClasses;
+		}
+
+		@Override
+		public Void visitMethodInvocation(MethodInvocationTree methodInvocation, Void p) {
+			List<? extends ExpressionTree> arguments = methodInvocation.getArguments();
+			if (arguments.size() == 1 && isModelBuilderMethod(getCurrentPath())) {
+				TreePath argumentPath = new TreePath(getCurrentPath(), arguments.get(0));
+				String methodName = methodNameOf(methodInvocation);
+				if ("user".equals(methodName) || "on".equals(methodName)) {
+					addClassLiteral(argumentPath);
+				} else if ("systemPublish".equals(methodName)) {
+					addPublishedType(argumentPath);
+				}
+			}
+			return super.visitMethodInvocation(methodInvocation, p);
+		}
+
+		private boolean isModelBuilderMethod(TreePath methodInvocationPath) {
+			Element method = trees.getElement(methodInvocationPath);
+			if (method == null || method.getKind() != ElementKind.METHOD) {
+				return false;
+			}
+			Element enclosingType = method.getEnclosingElement();
+			return enclosingType instanceof TypeElement
+				&& ((TypeElement) enclosingType).getQualifiedName().toString().startsWith(MODEL_PACKAGE + ".");
+		}
+
+		private String methodNameOf(MethodInvocationTree methodInvocation) {
+			ExpressionTree methodSelect = methodInvocation.getMethodSelect();
+			if (methodSelect instanceof MemberSelectTree) {
+				return ((MemberSelectTree) methodSelect).getIdentifier().toString();
+			} else if (methodSelect instanceof IdentifierTree) {
+				return ((IdentifierTree) methodSelect).getName().toString();
+			}
+			return "";
+		}
+
+		private void addClassLiteral(TreePath argumentPath) {
+			Tree argument = argumentPath.getLeaf();
+			if (argument instanceof MemberSelectTree
+				&& ((MemberSelectTree) argument).getIdentifier().contentEquals("class")) {
+				addIfCompiledClass(trees.getElement(new TreePath(argumentPath,
+					((MemberSelectTree) argument).getExpression())));
+			}
+		}
+
+		private void addPublishedType(TreePath argumentPath) {
+			Tree argument = argumentPath.getLeaf();
+			if (argument instanceof LambdaExpressionTree) {
+				Tree body = ((LambdaExpressionTree) argument).getBody();
+				TreePath bodyPath = new TreePath(argumentPath, body);
+				if (body instanceof ExpressionTree) {
+					addIfCompiledClass(trees.getTypeMirror(bodyPath));
+				} else {
+					new ReturnScanner().scan(bodyPath, null);
+				}
+			} else if (argument instanceof MemberReferenceTree) {
+				Element method = trees.getElement(argumentPath);
+				if (method instanceof ExecutableElement) {
+					if (method.getKind() == ElementKind.CONSTRUCTOR) {
+						addIfCompiledClass(method.getEnclosingElement());
+					} else {
+						addIfCompiledClass(((ExecutableElement) method).getReturnType());
+					}
+				}
+			}
+		}
+
+		private void addIfCompiledClass(TypeMirror type) {
+			if (type != null && type.getKind() == TypeKind.DECLARED) {
+				addIfCompiledClass(((DeclaredType) type).asElement());
+			}
+		}
+
+		private void addIfCompiledClass(Element element) {
+			if (element != null && element.getKind() == ElementKind.CLASS && trees.getPath(element) != null) {
+				referencedClasses.add((TypeElement) element);
+			}
+		}
+
+		/**
+		 * Finds the types of the values returned by a lambda body, but not by
+		 * nested lambdas and classes.
+		 */
+		private class ReturnScanner extends TreePathScanner<Void, Void> {
+			@Override
+			public Void visitReturn(ReturnTree returnTree, Void p) {
+				if (returnTree.getExpression() != null) {
+					addIfCompiledClass(trees.getTypeMirror(new TreePath(getCurrentPath(), returnTree.getExpression())));
+				}
+				return null;
+			}
+
+			@Override
+			public Void visitLambdaExpression(LambdaExpressionTree lambdaExpression, Void p) {
+				return null;
+			}
+
+			@Override
+			public Void visitClass(ClassTree classTree, Void p) {
+				return null;
+			}
+		}
+	}
+}
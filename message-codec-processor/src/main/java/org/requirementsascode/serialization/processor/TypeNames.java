@@ -0,0 +1,110 @@
+package org.requirementsascode.serialization.processor;
+
+import java.util.stream.Collectors;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+
+/**
+ * Converts types to fully qualified names for use in generated source code.
+ * 
+ * @author b_muth
+ *
+ */
+class TypeNames {
+	private TypeNames() {
+	}
+
+	/**
+	 * Checks if the specified type can be used in generated source code, i.e. it
+	 * is a primitive, declared or array type that doesn't contain type variables.
+	 * 
+	 * @param type the type
+	 * @return true if it can be used, false otherwise
+	 */
+	static boolean isSupported(TypeMirror type) {
+		TypeKind kind = type.getKind();
+		if (kind.isPrimitive()) {
+			return true;
+		} else if (kind == TypeKind.ARRAY) {
+			return isSupported(((ArrayType) type).getComponentType());
+		} else if (kind == TypeKind.DECLARED) {
+			return ((DeclaredType) type).getTypeArguments().stream().allMatch(TypeNames::isSupported);
+		} else if (kind == TypeKind.WILDCARD) {
+			WildcardType wildcardType = (WildcardType) type;
+			TypeMirror bound = wildcardType.getExtendsBound() != null ? wildcardType.getExtendsBound()
+				: wildcardType.getSuperBound();
+			return bound == null || isSupported(bound);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the fully qualified name of the specified type, including type
+	 * arguments.
+	 * 
+	 * @param type the type
+	 * @return the name
+	 */
+	static String nameOf(TypeMirror type) {
+		TypeKind kind = type.getKind();
+		if (kind.isPrimitive()) {
+			return kind.name().toLowerCase();
+		} else if (kind == TypeKind.ARRAY) {
+			return nameOf(((ArrayType) type).getComponentType()) + "[]";
+		} else if (kind == TypeKind.WILDCARD) {
+			WildcardType wildcardType = (WildcardType) type;
+			if (wildcardType.getExtendsBound() != null) {
+				return "? extends " + nameOf(wildcardType.getExtendsBound());
+			} else if (wildcardType.getSuperBound() != null) {
+				return "? super " + nameOf(wildcardType.getSuperBound());
+			}
+			return "?";
+		}
+
+		DeclaredType declaredType = (DeclaredType) type;
+		String name = ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+		if (declaredType.getTypeArguments().isEmpty()) {
+			return name;
+		}
+		return declaredType.getTypeArguments().stream()
+			.map(TypeNames::nameOf)
+			.collect(Collectors.joining(", ", name + "<", ">"));
+	}
+
+	/**
+	 * Returns the fully qualified name of the specified type without type
+	 * arguments.
+	 * 
+	 * @param type the type
+	 * @return the raw name
+	 */
+	static String rawNameOf(TypeMirror type) {
+		TypeKind kind = type.getKind();
+		if (kind == TypeKind.ARRAY) {
+			return rawNameOf(((ArrayType) type).getComponentType()) + "[]";
+		} else if (kind == TypeKind.DECLARED) {
+			return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+		}
+		return nameOf(type);
+	}
+
+	/**
+	 * Checks if the specified type has type arguments, or is an array of such a
+	 * type.
+	 * 
+	 * @param type the type
+	 * @return true if it is generic, false otherwise
+	 */
+	static boolean isGeneric(TypeMirror type) {
+		TypeKind kind = type.getKind();
+		if (kind == TypeKind.ARRAY) {
+			return isGeneric(((ArrayType) type).getComponentType());
+		}
+		return kind == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty();
+	}
+}
@@ -0,0 +1,56 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks the waiting threads on a condition. The publisher only takes the lock
+ * to wake them up if a thread is waiting.
+ *
+ * @author b_muth
+ *
+ */
+class BlockingWaitStrategy implements WaitStrategy {
+	private final Lock lock;
+	private final Condition published;
+	private final AtomicBoolean signalNeeded;
+
+	BlockingWaitStrategy() {
+		this.lock = new ReentrantLock();
+		this.published = lock.newCondition();
+		this.signalNeeded = new AtomicBoolean();
+	}
+
+	@Override
+	public void await(BooleanSupplier condition) throws InterruptedException {
+		if (condition.getAsBoolean()) {
+			return;
+		}
+		lock.lock();
+		try {
+			// Set the flag before checking, so that a concurrent publisher sees it
+			signalNeeded.set(true);
+			while (!condition.getAsBoolean()) {
+				published.await();
+				signalNeeded.set(true);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void signalAll() {
+		if (signalNeeded.getAndSet(false)) {
+			lock.lock();
+			try {
+				published.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
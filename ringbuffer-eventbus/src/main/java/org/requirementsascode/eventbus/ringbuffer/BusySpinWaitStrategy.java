@@ -0,0 +1,24 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins until the condition is true.
+ *
+ * @author b_muth
+ *
+ */
+class BusySpinWaitStrategy implements WaitStrategy {
+	@Override
+	public void await(BooleanSupplier condition) throws InterruptedException {
+		while (!condition.getAsBoolean()) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	@Override
+	public void signalAll() {
+	}
+}
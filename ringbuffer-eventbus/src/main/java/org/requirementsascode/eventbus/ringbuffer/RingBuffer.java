@@ -0,0 +1,121 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A preallocated ring of event slots, that several threads publish to
+ * concurrently. Each publisher claims the next sequence number, waits until
+ * the slowest consumer has passed the slot of that sequence one round ago, then
+ * stores the event and marks the slot as published for the current round.
+ *
+ * @author b_muth
+ *
+ */
+class RingBuffer {
+	private final Object[] events;
+	private final int indexMask;
+	private final int indexShift;
+	private final AtomicIntegerArray publishedRounds;
+	private final AtomicLong claimedSequence;
+	private final List<AtomicLong> consumerSequences;
+	private final WaitStrategy waitStrategy;
+	private final BooleanSupplier isClosed;
+	private volatile long cachedConsumerSequence;
+
+	RingBuffer(int size, List<AtomicLong> consumerSequences, WaitStrategy waitStrategy, BooleanSupplier isClosed) {
+		this.events = new Object[size];
+		this.indexMask = size - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(size);
+		this.publishedRounds = new AtomicIntegerArray(size);
+		for (int i = 0; i < size; i++) {
+			publishedRounds.set(i, -1);
+		}
+		this.claimedSequence = new AtomicLong(-1);
+		this.consumerSequences = consumerSequences;
+		this.waitStrategy = waitStrategy;
+		this.isClosed = isClosed;
+		this.cachedConsumerSequence = -1;
+	}
+
+	/**
+	 * Publishes the specified event. If the ring is full, waits until the
+	 * slowest consumer has made room for it.
+	 *
+	 * @param event the event
+	 * @throws RejectedExecutionException if the event bus is closed while waiting
+	 */
+	void publish(Object event) {
+		long sequence = claimedSequence.incrementAndGet();
+		long wrapSequence = sequence - events.length;
+		if (wrapSequence > cachedConsumerSequence) {
+			long consumerSequence;
+			while (wrapSequence > (consumerSequence = slowestConsumerSequence())) {
+				if (isClosed.getAsBoolean()) {
+					throw new RejectedExecutionException("Event bus has been closed");
+				}
+				LockSupport.parkNanos(1);
+			}
+			cachedConsumerSequence = consumerSequence;
+		}
+
+		int index = indexOf(sequence);
+		events[index] = event;
+		publishedRounds.set(index, roundOf(sequence));
+		waitStrategy.signalAll();
+	}
+
+	/**
+	 * Checks whether the event with the specified sequence has been published.
+	 */
+	boolean isPublished(long sequence) {
+		return publishedRounds.get(indexOf(sequence)) == roundOf(sequence);
+	}
+
+	/**
+	 * Returns the highest sequence up to which all events, starting at the
+	 * specified sequence, have been published. Consumers react to all of them as
+	 * a batch.
+	 */
+	long highestPublishedSequence(long fromSequence) {
+		long claimed = claimedSequence.get();
+		for (long sequence = fromSequence; sequence <= claimed; sequence++) {
+			if (!isPublished(sequence)) {
+				return sequence - 1;
+			}
+		}
+		return claimed;
+	}
+
+	/**
+	 * Returns the event with the specified sequence, which must have been
+	 * published.
+	 */
+	Object eventAt(long sequence) {
+		return events[indexOf(sequence)];
+	}
+
+	long claimedSequence() {
+		return claimedSequence.get();
+	}
+
+	long slowestConsumerSequence() {
+		long slowest = Long.MAX_VALUE;
+		for (int i = 0; i < consumerSequences.size(); i++) {
+			slowest = Math.min(slowest, consumerSequences.get(i).get());
+		}
+		return slowest == Long.MAX_VALUE ? claimedSequence.get() : slowest;
+	}
+
+	private int indexOf(long sequence) {
+		return (int) sequence & indexMask;
+	}
+
+	private int roundOf(long sequence) {
+		return (int) (sequence >>> indexShift);
+	}
+}
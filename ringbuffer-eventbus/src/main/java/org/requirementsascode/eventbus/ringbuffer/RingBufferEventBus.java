@@ -0,0 +1,306 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.eventbus.EventBus;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.requirementsascode.spring.behavior.web.DispatchTable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * An event bus that passes the events to the specified listener behaviors via
+ * a preallocated ring buffer, instead of Spring's application event publisher
+ * and an executor with an unbounded queue.
+ *
+ * Several threads can publish events concurrently. Each listener behavior has
+ * its own thread, and reacts to the events in the order they have been
+ * published. It reacts to all events that have been published since it last
+ * looked as one batch, without waiting in between. An event is only passed to
+ * the listener behaviors whose models have a step for the event's class.
+ *
+ * If the slowest listener behavior is a full ring behind, publishing waits
+ * until there is room again. The ring keeps up to its size of events
+ * reachable, until they are overwritten. If a listener behavior throws an
+ * exception or error, it's logged, and the listener behavior goes on with the
+ * next event. If a listener's thread stops anyway, the listener is ignored, so
+ * that publishing doesn't wait for it.
+ *
+ * The listener threads call the listener behaviors directly, so they should
+ * start their own transactions, e.g. be transactional behavior beans.
+ *
+ * Create the event bus with {@link #builder(Collection)}. Call
+ * {@link #close()} to stop the threads when the event bus is no longer needed.
+ * Spring does that automatically for beans.
+ *
+ * @author b_muth
+ *
+ */
+public class RingBufferEventBus implements EventBus, AutoCloseable {
+	private static final Log log = LogFactory.getLog(RingBufferEventBus.class);
+	private static final String THREAD_NAME_PREFIX = "ringbuffer-event-listener-";
+	private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+	private final BehaviorModel behaviorModel;
+	private final WaitStrategy waitStrategy;
+	private final List<Listener> listeners;
+	private final RingBuffer ringBuffer;
+	private final List<Thread> threads;
+	private volatile boolean closed;
+
+	private RingBufferEventBus(Builder builder) {
+		this.behaviorModel = () -> Model.builder()
+			.on(Object.class).system(this::publish)
+			.build();
+		this.waitStrategy = builder.waitStrategy;
+		this.listeners = createListenersFor(builder.listenerBehaviors, builder.decorator);
+
+		List<AtomicLong> listenerSequences = new ArrayList<>(listeners.size());
+		for (Listener listener : listeners) {
+			listenerSequences.add(listener.sequence);
+		}
+		this.ringBuffer = new RingBuffer(builder.bufferSize, listenerSequences, waitStrategy, () -> closed);
+		this.threads = startThreadsOf(listeners);
+	}
+
+	/**
+	 * Starts building an event bus for the specified listener behaviors.
+	 *
+	 * @param listenerBehaviors the behaviors that react to the events, e.g.
+	 *                          transactional behavior beans
+	 * @return the builder
+	 */
+	public static Builder builder(Collection<? extends Behavior> listenerBehaviors) {
+		Objects.requireNonNull(listenerBehaviors, "listenerBehaviors must be non-null!");
+		return new Builder(listenerBehaviors);
+	}
+
+	/**
+	 * Publishes the specified event to the listener behaviors. Waits if the ring
+	 * buffer is full.
+	 *
+	 * @param event the event
+	 * @return an empty optional, since the listener behaviors react
+	 *         asynchronously
+	 * @throws RejectedExecutionException if the event bus has been closed
+	 */
+	@Override
+	public <T> Optional<T> reactTo(Object event) {
+		publish(event);
+		return Optional.empty();
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behaviorModel;
+	}
+
+	/**
+	 * Waits until the listener behaviors have reacted to all events published so
+	 * far. Useful in tests.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @return true if all events have been reacted to, false if the timeout elapsed
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting
+	 */
+	public boolean awaitCompletion(Duration timeout) throws InterruptedException {
+		Objects.requireNonNull(timeout, "timeout must be non-null!");
+		long deadline = System.nanoTime() + timeout.toNanos();
+		long publishedSequence = ringBuffer.claimedSequence();
+
+		while (ringBuffer.slowestConsumerSequence() < publishedSequence) {
+			if (System.nanoTime() - deadline > 0) {
+				return false;
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the threads of the listener behaviors, after they have reacted to the
+	 * events published so far (or 30 seconds have elapsed). Events published
+	 * afterwards are rejected.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		// Wake up the listeners that wait for events, so that they see the bus is closed
+		waitStrategy.signalAll();
+		try {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+			for (Thread thread : threads) {
+				long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remainingMillis > 0) {
+					thread.join(remainingMillis);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void publish(Object event) {
+		Objects.requireNonNull(event, "event must be non-null!");
+		if (closed) {
+			throw new RejectedExecutionException("Event bus has been closed");
+		}
+		ringBuffer.publish(event);
+	}
+
+	private List<Listener> createListenersFor(List<Behavior> listenerBehaviors, BehaviorDecorator decorator) {
+		List<Listener> listeners = new ArrayList<>(listenerBehaviors.size());
+		for (Behavior listenerBehavior : listenerBehaviors) {
+			Behavior behavior = decorator.decorate(listenerBehavior);
+			listeners.add(new Listener(behavior, DispatchTable.of(listenerBehavior.behaviorModel().model())));
+		}
+		return Collections.unmodifiableList(listeners);
+	}
+
+	private List<Thread> startThreadsOf(List<Listener> listeners) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+		List<Thread> threads = new ArrayList<>(listeners.size());
+		for (Listener listener : listeners) {
+			Thread thread = threadFactory.newThread(listener::run);
+			threads.add(thread);
+			thread.start();
+		}
+		return Collections.unmodifiableList(threads);
+	}
+
+	/**
+	 * A listener behavior, and the sequence of the last event it has reacted to.
+	 * When the listener's thread stops, the sequence is set to the maximum, so
+	 * that publishers don't wait for the listener.
+	 */
+	private class Listener {
+		private final Behavior behavior;
+		private final DispatchTable dispatchTable;
+		private final AtomicLong sequence;
+
+		Listener(Behavior behavior, DispatchTable dispatchTable) {
+			this.behavior = behavior;
+			this.dispatchTable = dispatchTable;
+			this.sequence = new AtomicLong(-1);
+		}
+
+		void run() {
+			try {
+				while (true) {
+					long nextSequence = sequence.get() + 1;
+					waitStrategy.await(() -> closed || ringBuffer.isPublished(nextSequence));
+
+					long lastSequence = ringBuffer.highestPublishedSequence(nextSequence);
+					if (lastSequence < nextSequence) {
+						// Closed, and all published events have been reacted to
+						return;
+					}
+					for (long s = nextSequence; s <= lastSequence; s++) {
+						reactTo(ringBuffer.eventAt(s));
+					}
+					sequence.set(lastSequence);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException | Error e) {
+				log.error("Listener " + behavior.behaviorModel().getClass().getName() + " stopped", e);
+			} finally {
+				sequence.set(Long.MAX_VALUE);
+			}
+		}
+
+		private void reactTo(Object event) {
+			if (dispatchTable.stepsFor(event.getClass()).isEmpty()) {
+				return;
+			}
+			try {
+				behavior.reactTo(event);
+			} catch (Throwable e) {
+				log.error("Listener " + behavior.behaviorModel().getClass().getName() + " failed to react to "
+					+ event.getClass().getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Builds a ring buffer event bus.
+	 */
+	public static class Builder {
+		private final List<Behavior> listenerBehaviors;
+		private int bufferSize;
+		private WaitStrategy waitStrategy;
+		private BehaviorDecorator decorator;
+
+		private Builder(Collection<? extends Behavior> listenerBehaviors) {
+			this.listenerBehaviors = new ArrayList<>(listenerBehaviors);
+			this.bufferSize = 1024;
+			this.waitStrategy = WaitStrategy.blocking();
+			this.decorator = behavior -> behavior;
+		}
+
+		/**
+		 * Sets the number of slots of the ring buffer (default: 1024). Publishing
+		 * waits if the slowest listener behavior is that many events behind.
+		 *
+		 * @param bufferSize the number of slots, a power of 2
+		 * @return this builder
+		 */
+		public Builder bufferSize(int bufferSize) {
+			if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+				throw new IllegalArgumentException("bufferSize must be a power of 2, but was " + bufferSize);
+			}
+			this.bufferSize = bufferSize;
+			return this;
+		}
+
+		/**
+		 * Sets how the listener threads wait for new events (default:
+		 * {@link WaitStrategy#blocking()}).
+		 *
+		 * @param waitStrategy the wait strategy
+		 * @return this builder
+		 */
+		public Builder waitStrategy(WaitStrategy waitStrategy) {
+			this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy must be non-null!");
+			return this;
+		}
+
+		/**
+		 * Sets the decorator of each listener behavior, e.g. for metrics.
+		 *
+		 * @param decorator the decorator
+		 * @return this builder
+		 */
+		public Builder decorator(BehaviorDecorator decorator) {
+			this.decorator = Objects.requireNonNull(decorator, "decorator must be non-null!");
+			return this;
+		}
+
+		/**
+		 * Builds the event bus, and starts the threads of the listener behaviors.
+		 *
+		 * @return the event bus
+		 */
+		public RingBufferEventBus build() {
+			return new RingBufferEventBus(this);
+		}
+	}
+}
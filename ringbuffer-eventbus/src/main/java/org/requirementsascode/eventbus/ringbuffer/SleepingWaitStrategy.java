@@ -0,0 +1,39 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins, then yields, then sleeps for short periods until the condition is
+ * true.
+ *
+ * @author b_muth
+ *
+ */
+class SleepingWaitStrategy implements WaitStrategy {
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long SLEEP_NANOS = 100_000;
+
+	@Override
+	public void await(BooleanSupplier condition) throws InterruptedException {
+		int tries = 0;
+		while (!condition.getAsBoolean()) {
+			if (tries < SPIN_TRIES) {
+				tries++;
+			} else if (tries < SPIN_TRIES + YIELD_TRIES) {
+				tries++;
+				Thread.yield();
+			} else {
+				LockSupport.parkNanos(SLEEP_NANOS);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void signalAll() {
+	}
+}
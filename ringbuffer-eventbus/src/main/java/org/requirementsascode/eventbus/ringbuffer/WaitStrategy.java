@@ -0,0 +1,69 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Specifies how the listener threads of a {@link RingBufferEventBus} wait for
+ * new events. The strategies trade latency for CPU usage: a busy spinning
+ * listener reacts fastest, but occupies a CPU core even if there are no
+ * events. A blocking listener doesn't use the CPU while waiting, but the
+ * publisher has to wake it up.
+ *
+ * @author b_muth
+ *
+ */
+public interface WaitStrategy {
+	/**
+	 * Waits until the specified condition is true.
+	 *
+	 * @param condition the condition, e.g. that the next event has been published
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	void await(BooleanSupplier condition) throws InterruptedException;
+
+	/**
+	 * Wakes up the waiting threads, after an event has been published.
+	 */
+	void signalAll();
+
+	/**
+	 * Returns a strategy that parks the waiting threads until an event is
+	 * published. Uses the least CPU, but has the highest latency. This is the
+	 * default.
+	 *
+	 * @return the wait strategy
+	 */
+	static WaitStrategy blocking() {
+		return new BlockingWaitStrategy();
+	}
+
+	/**
+	 * Returns a strategy that spins, then yields, then sleeps for short periods.
+	 * The publisher doesn't need to wake up the threads.
+	 *
+	 * @return the wait strategy
+	 */
+	static WaitStrategy sleeping() {
+		return new SleepingWaitStrategy();
+	}
+
+	/**
+	 * Returns a strategy that spins, then yields the CPU to other threads. Low
+	 * latency, but uses a CPU core per listener if there are few other threads.
+	 *
+	 * @return the wait strategy
+	 */
+	static WaitStrategy yielding() {
+		return new YieldingWaitStrategy();
+	}
+
+	/**
+	 * Returns a strategy that spins all the time. Lowest latency, but uses a CPU
+	 * core per listener. Only use it if there are more cores than listeners.
+	 *
+	 * @return the wait strategy
+	 */
+	static WaitStrategy busySpin() {
+		return new BusySpinWaitStrategy();
+	}
+}
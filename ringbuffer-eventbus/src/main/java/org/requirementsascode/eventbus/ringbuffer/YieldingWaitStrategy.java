@@ -0,0 +1,32 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Spins, then yields the CPU to other threads until the condition is true.
+ *
+ * @author b_muth
+ *
+ */
+class YieldingWaitStrategy implements WaitStrategy {
+	private static final int SPIN_TRIES = 100;
+
+	@Override
+	public void await(BooleanSupplier condition) throws InterruptedException {
+		int tries = 0;
+		while (!condition.getAsBoolean()) {
+			if (tries < SPIN_TRIES) {
+				tries++;
+			} else {
+				Thread.yield();
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void signalAll() {
+	}
+}
@@ -0,0 +1,181 @@
+package org.requirementsascode.eventbus.ringbuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+
+class RingBufferEventBusTest {
+	private static final int NUMBER_OF_PRODUCERS = 4;
+	private static final int EVENTS_PER_PRODUCER = 1000;
+
+	@Test
+	void eachListenerReactsToEventsOfEachProducerInPublishedOrder() throws Exception {
+		for (WaitStrategy waitStrategy : Arrays.asList(WaitStrategy.blocking(), WaitStrategy.sleeping(),
+			WaitStrategy.yielding(), WaitStrategy.busySpin())) {
+			List<Event> eventsOfListener1 = Collections.synchronizedList(new ArrayList<>());
+			List<Event> eventsOfListener2 = Collections.synchronizedList(new ArrayList<>());
+
+			try (RingBufferEventBus eventBus = RingBufferEventBus
+				.builder(behaviorsOf(listenerModel(eventsOfListener1), listenerModel(eventsOfListener2)))
+				.bufferSize(64)
+				.waitStrategy(waitStrategy)
+				.build()) {
+				publishConcurrently(eventBus);
+				assertTrue(eventBus.awaitCompletion(Duration.ofSeconds(10)));
+			}
+
+			assertPublishedOrderOfEachProducer(eventsOfListener1);
+			assertPublishedOrderOfEachProducer(eventsOfListener2);
+		}
+	}
+
+	@Test
+	void passesEventsOnlyToListenersWithStepForEventClass() throws Exception {
+		List<Object> events = Collections.synchronizedList(new ArrayList<>());
+		BehaviorModel stringListenerModel = () -> Model.builder().on(String.class).system(events::add).build();
+
+		try (RingBufferEventBus eventBus = RingBufferEventBus.builder(behaviorsOf(stringListenerModel))
+			.build()) {
+			eventBus.reactTo(1);
+			eventBus.reactTo("event");
+			assertTrue(eventBus.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		assertEquals(Collections.singletonList("event"), events);
+	}
+
+	@Test
+	void publishingWaitsIfSlowestListenerIsFullRingBehind() throws Exception {
+		CountDownLatch unblockListener = new CountDownLatch(1);
+		BehaviorModel blockedListenerModel = () -> Model.builder()
+			.on(Integer.class).system(event -> awaitUninterruptibly(unblockListener))
+			.build();
+		AtomicInteger publishedCount = new AtomicInteger();
+
+		try (RingBufferEventBus eventBus = RingBufferEventBus.builder(behaviorsOf(blockedListenerModel))
+			.bufferSize(4)
+			.build()) {
+			Thread publisher = new Thread(() -> {
+				for (int i = 0; i < 8; i++) {
+					eventBus.reactTo(i);
+					publishedCount.incrementAndGet();
+				}
+			});
+			publisher.start();
+			publisher.join(200);
+			assertEquals(4, publishedCount.get());
+
+			unblockListener.countDown();
+			publisher.join(TimeUnit.SECONDS.toMillis(10));
+			assertEquals(8, publishedCount.get());
+			assertTrue(eventBus.awaitCompletion(Duration.ofSeconds(10)));
+		}
+	}
+
+	@Test
+	void listenerReactsToNextEventsAfterError() throws Exception {
+		List<Object> events = Collections.synchronizedList(new ArrayList<>());
+		BehaviorModel failingListenerModel = () -> Model.builder()
+			.on(Integer.class).system(event -> {
+				if (event % 2 == 0) {
+					throw new ListenerError();
+				}
+				events.add(event);
+			})
+			.build();
+
+		try (RingBufferEventBus eventBus = RingBufferEventBus.builder(behaviorsOf(failingListenerModel))
+			.bufferSize(4)
+			.build()) {
+			for (int i = 0; i < 16; i++) {
+				eventBus.reactTo(i);
+			}
+			assertTrue(eventBus.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		assertEquals(Arrays.asList(1, 3, 5, 7, 9, 11, 13, 15), events);
+	}
+
+	@Test
+	void rejectsEventsAfterClose() {
+		RingBufferEventBus eventBus = RingBufferEventBus.builder(Collections.emptyList()).build();
+		eventBus.close();
+
+		assertThrows(RejectedExecutionException.class, () -> eventBus.reactTo("event"));
+	}
+
+	private List<Behavior> behaviorsOf(BehaviorModel... listenerModels) {
+		return Arrays.stream(listenerModels)
+			.map(StatelessBehavior::of)
+			.collect(Collectors.toList());
+	}
+
+	private BehaviorModel listenerModel(List<Event> events) {
+		return () -> Model.builder()
+			.on(Event.class).system(events::add)
+			.build();
+	}
+
+	private void publishConcurrently(RingBufferEventBus eventBus) throws InterruptedException {
+		List<Thread> producers = new ArrayList<>();
+		for (int producer = 0; producer < NUMBER_OF_PRODUCERS; producer++) {
+			int producerId = producer;
+			producers.add(new Thread(() -> {
+				for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+					eventBus.reactTo(new Event(producerId, i));
+				}
+			}));
+		}
+		producers.forEach(Thread::start);
+		for (Thread producer : producers) {
+			producer.join();
+		}
+	}
+
+	private void assertPublishedOrderOfEachProducer(List<Event> events) {
+		assertEquals(NUMBER_OF_PRODUCERS * EVENTS_PER_PRODUCER, events.size());
+		int[] nextNumbers = new int[NUMBER_OF_PRODUCERS];
+		for (Event event : events) {
+			assertEquals(nextNumbers[event.producerId]++, event.number);
+		}
+	}
+
+	private void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static class ListenerError extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+
+	static class Event {
+		private final int producerId;
+		private final int number;
+
+		Event(int producerId, int number) {
+			this.producerId = producerId;
+			this.number = number;
+		}
+	}
+}
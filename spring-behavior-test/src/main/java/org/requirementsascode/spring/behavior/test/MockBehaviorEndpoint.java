@@ -2,16 +2,21 @@ package org.requirementsascode.spring.behavior.test;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.IOException;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.stereotype.Component;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -27,6 +32,8 @@ public class MockBehaviorEndpoint {
 	private final String behaviorEndpointUrl;
 	private final ObjectMapper objectMapper;
 	private final HttpStatus httpStatus;
+	private final MediaType mediaType;
+	private final ObjectProvider<HttpMessageConverters> messageConverters;
 
 	/**
 	 * Creates an endpoint, and injects the dependencies necessary for testing.
@@ -34,19 +41,23 @@ public class MockBehaviorEndpoint {
 	 * @param mockMvc used for post requests
 	 * @param behaviorEndpointUrl the url used to received post requests
 	 * @param objectMapper used for (de)serializing requests
+	 * @param messageConverters used for finding the object mapper of other media types
 	 */
 	@Autowired
 	private MockBehaviorEndpoint(MockMvc mockMvc, @Value("${behavior.endpoint}") String behaviorEndpointUrl,
-		ObjectMapper objectMapper) {
-		this(mockMvc, behaviorEndpointUrl, objectMapper, HttpStatus.OK);
+		ObjectMapper objectMapper, ObjectProvider<HttpMessageConverters> messageConverters) {
+		this(mockMvc, behaviorEndpointUrl, objectMapper, HttpStatus.OK, MediaType.APPLICATION_JSON, messageConverters);
 	}
 
 	private MockBehaviorEndpoint(MockMvc mockMvc, String behaviorEndpointUrl,
-		ObjectMapper objectMapper, HttpStatus httpStatus) {
+		ObjectMapper objectMapper, HttpStatus httpStatus, MediaType mediaType,
+		ObjectProvider<HttpMessageConverters> messageConverters) {
 		this.mockMvc = mockMvc;
 		this.behaviorEndpointUrl = behaviorEndpointUrl;
 		this.objectMapper = objectMapper;
 		this.httpStatus = httpStatus;
+		this.mediaType = mediaType;
+		this.messageConverters = messageConverters;
 	}
 
 	/**
@@ -55,20 +66,34 @@ public class MockBehaviorEndpoint {
 	 * @return this endpoint, for method chaining
 	 */
 	public MockBehaviorEndpoint expectStatus(HttpStatus expectedHttpStatus) {
-		return new MockBehaviorEndpoint(mockMvc, behaviorEndpointUrl, objectMapper, expectedHttpStatus);
+		return new MockBehaviorEndpoint(mockMvc, behaviorEndpointUrl, objectMapper, expectedHttpStatus, mediaType,
+			messageConverters);
+	}
+
+	/**
+	 * Call this method to configure the media type of requests and responses. Default is MediaType.APPLICATION_JSON.
+	 * Use it to test binary formats, e.g. <code>MediaType.valueOf("application/x-jackson-smile")</code>.
+	 * 
+	 * @param mediaType the media type to send and accept
+	 * @return this endpoint, for method chaining
+	 * @throws IllegalArgumentException if there is no Jackson message converter for the media type
+	 */
+	public MockBehaviorEndpoint withMediaType(MediaType mediaType) {
+		ObjectMapper objectMapperForMediaType = objectMapperFor(mediaType);
+		return new MockBehaviorEndpoint(mockMvc, behaviorEndpointUrl, objectMapperForMediaType, httpStatus, mediaType,
+			messageConverters);
 	}
 
 	/**
 	 * Send a POST request to the url defined with the <code>behavior.endpoint</code> property.
 	 * 
 	 * @param request the request to post
-	 * @return the content of the response as string
+	 * @return the content of the response as string (only useful for textual media types, like JSON)
 	 * @throws Exception if anything goes wrong, e.g. during serialization
 	 */
 	public String postRequest(Object request) throws Exception {
 		String responseAsString = mockMvc
-			.perform(MockMvcRequestBuilders.post(behaviorEndpointUrl).content(toJson(request)).contentType(MediaType.APPLICATION_JSON)
-				.accept(MediaType.APPLICATION_JSON))
+			.perform(postRequestBuilder(request))
 			.andExpect(status().is(httpStatus.value())).andReturn().getResponse().getContentAsString();
 
 		return responseAsString;
@@ -85,17 +110,33 @@ public class MockBehaviorEndpoint {
 	 * @throws Exception if anything goes wrong, e.g. during serialization
 	 */
 	public <T> T post(Object request, Class<T> expectedResponseClass) throws Exception {
-		String resultString = postRequest(request);
-		T result = jsonToObject(resultString, expectedResponseClass);
+		byte[] responseBytes = mockMvc
+			.perform(postRequestBuilder(request))
+			.andExpect(status().is(httpStatus.value())).andReturn().getResponse().getContentAsByteArray();
+		T result = toObject(responseBytes, expectedResponseClass);
 		return result;
 	}
 
-	private String toJson(final Object obj) throws JsonProcessingException {
-		return objectMapper.writeValueAsString(obj);
+	private MockHttpServletRequestBuilder postRequestBuilder(Object request) throws JsonProcessingException {
+		return MockMvcRequestBuilders.post(behaviorEndpointUrl).content(toBytes(request)).contentType(mediaType)
+			.accept(mediaType);
+	}
+
+	private ObjectMapper objectMapperFor(MediaType mediaType) {
+		return messageConverters.getObject().getConverters().stream()
+			.filter(converter -> converter instanceof AbstractJackson2HttpMessageConverter)
+			.map(converter -> (AbstractJackson2HttpMessageConverter) converter)
+			.filter(converter -> converter.getSupportedMediaTypes().stream().anyMatch(mt -> mt.includes(mediaType)))
+			.map(AbstractJackson2HttpMessageConverter::getObjectMapper)
+			.findFirst()
+			.orElseThrow(() -> new IllegalArgumentException("No Jackson message converter for media type " + mediaType));
+	}
+
+	private byte[] toBytes(final Object obj) throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(obj);
 	}
 
-	private <T> T jsonToObject(final String json, Class<T> resultClass)
-		throws JsonMappingException, JsonProcessingException {
-		return objectMapper.readValue(json, resultClass);
+	private <T> T toObject(final byte[] bytes, Class<T> resultClass) throws IOException {
+		return objectMapper.readValue(bytes, resultClass);
 	}
 }
@@ -0,0 +1,64 @@
+package org.requirementsascode.spring.behavior.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+
+@WebMvcTest(properties = "behavior.endpoint=/behavior")
+class MockBehaviorEndpointTest {
+	@Autowired
+	private MockBehaviorEndpoint endpoint;
+
+	@Test
+	void postsJsonRequest() throws Exception {
+		ListCreated response = endpoint.post(new CreateList("list1"), ListCreated.class);
+		assertEquals("list1", response.listName);
+	}
+
+	@Test
+	void postsSmileRequest() throws Exception {
+		ListCreated response = endpoint.withMediaType(MediaType.valueOf("application/x-jackson-smile"))
+			.post(new CreateList("list1"), ListCreated.class);
+		assertEquals("list1", response.listName);
+	}
+
+	@Test
+	void postsCborRequest() throws Exception {
+		ListCreated response = endpoint.withMediaType(MediaType.valueOf("application/cbor"))
+			.post(new CreateList("list1"), ListCreated.class);
+		assertEquals("list1", response.listName);
+	}
+
+	@SpringBootConfiguration
+	static class TestApplication {
+		@Bean
+		BehaviorModel behaviorModel() {
+			return () -> Model.builder()
+				.user(CreateList.class).systemPublish(createList -> new ListCreated(createList.listName))
+				.build();
+		}
+	}
+
+	static class CreateList {
+		private final String listName;
+
+		CreateList(String listName) {
+			this.listName = listName;
+		}
+	}
+
+	static class ListCreated {
+		private final String listName;
+
+		ListCreated(String listName) {
+			this.listName = listName;
+		}
+	}
+}
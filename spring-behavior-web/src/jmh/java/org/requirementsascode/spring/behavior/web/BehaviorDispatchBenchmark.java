@@ -0,0 +1,89 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.builder.FlowlessSystemPart;
+
+/**
+ * Compares how long a stateless behavior and a compiled behavior take to react
+ * to a message, depending on the number of steps in the model.
+ * 
+ * Run with: <code>gradle :spring-behavior-web:jmh -PjmhArgs=BehaviorDispatchBenchmark</code>
+ * 
+ * @author b_muth
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BehaviorDispatchBenchmark {
+	private static final String RESPONSE = "Response";
+
+	@Param({ "10", "100", "1000" })
+	private int numberOfSteps;
+
+	private Behavior statelessBehavior;
+	private Behavior compiledBehavior;
+	private Object firstMessage;
+	private Object lastMessage;
+
+	@Setup
+	public void setup() {
+		List<Class<?>> messageClasses = GeneratedMessageClasses.generate(numberOfSteps);
+		BehaviorModel behaviorModel = behaviorModelFor(messageClasses);
+
+		statelessBehavior = StatelessBehavior.of(behaviorModel);
+		compiledBehavior = CompiledBehavior.of(behaviorModel);
+		firstMessage = GeneratedMessageClasses.newMessage(messageClasses.get(0));
+		lastMessage = GeneratedMessageClasses.newMessage(messageClasses.get(numberOfSteps - 1));
+	}
+
+	@Benchmark
+	public Optional<Object> statelessBehavior_firstStep() {
+		return statelessBehavior.reactTo(firstMessage);
+	}
+
+	@Benchmark
+	public Optional<Object> statelessBehavior_lastStep() {
+		return statelessBehavior.reactTo(lastMessage);
+	}
+
+	@Benchmark
+	public Optional<Object> compiledBehavior_firstStep() {
+		return compiledBehavior.reactTo(firstMessage);
+	}
+
+	@Benchmark
+	public Optional<Object> compiledBehavior_lastStep() {
+		return compiledBehavior.reactTo(lastMessage);
+	}
+
+	private static BehaviorModel behaviorModelFor(List<Class<?>> messageClasses) {
+		FlowlessSystemPart<?> systemPart = Model.builder().user(messageClasses.get(0)).systemPublish(() -> RESPONSE);
+		for (Class<?> messageClass : messageClasses.subList(1, messageClasses.size())) {
+			systemPart = systemPart.user(messageClass).systemPublish(() -> RESPONSE);
+		}
+		Model model = systemPart.build();
+		return () -> model;
+	}
+}
@@ -0,0 +1,55 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+/**
+ * Generates distinct message classes for benchmarks, so that models with any
+ * number of steps can be created.
+ * 
+ * @author b_muth
+ *
+ */
+class GeneratedMessageClasses {
+	private GeneratedMessageClasses() {
+	}
+
+	/**
+	 * Generates the specified number of message classes, each with a public no
+	 * argument constructor.
+	 * 
+	 * @param numberOfClasses the number of classes to generate
+	 * @return the generated classes
+	 */
+	static List<Class<?>> generate(int numberOfClasses) {
+		List<Class<?>> messageClasses = new ArrayList<>(numberOfClasses);
+		for (int i = 0; i < numberOfClasses; i++) {
+			Class<?> messageClass = new ByteBuddy()
+				.subclass(Object.class)
+				.name(GeneratedMessageClasses.class.getPackage().getName() + ".GeneratedMessage" + i)
+				.make()
+				.load(GeneratedMessageClasses.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+				.getLoaded();
+			messageClasses.add(messageClass);
+		}
+		return Collections.unmodifiableList(messageClasses);
+	}
+
+	/**
+	 * Creates an instance of the specified message class.
+	 * 
+	 * @param messageClass the class to instantiate
+	 * @return the created message
+	 */
+	static Object newMessage(Class<?> messageClass) {
+		try {
+			return messageClass.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Can't instantiate " + messageClass, e);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Model;
+import org.requirementsascode.builder.FlowlessSystemPart;
+import org.requirementsascode.serialization.MessageSerializationModule;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Measures how long it takes to serialize and deserialize a message with the
+ * message serialization module, and to decide whether a class gets a type id,
+ * depending on the number of message classes of the model.
+ * 
+ * Run with: <code>gradle :spring-behavior-web:jmh -PjmhArgs=MessageSerializationBenchmark</code>
+ * 
+ * @author b_muth
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageSerializationBenchmark {
+	@Param({ "10", "500", "1000" })
+	private int numberOfMessageClasses;
+
+	private ObjectWriter objectWriter;
+	private ObjectReader objectReader;
+	private Object message;
+	private String serializedMessage;
+	private DefaultTypeResolverBuilder typeResolverBuilder;
+	private JavaType messageType;
+	private JavaType otherType;
+
+	@Setup
+	public void setup() throws JsonProcessingException {
+		List<Class<?>> generatedClasses = GeneratedMessageClasses.generate(numberOfMessageClasses + 1);
+		List<Class<?>> messageClasses = generatedClasses.subList(0, numberOfMessageClasses);
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new MessageSerializationModule(modelFor(messageClasses)));
+
+		objectWriter = objectMapper.writerFor(Object.class);
+		objectReader = objectMapper.readerFor(Object.class);
+		message = GeneratedMessageClasses.newMessage(messageClasses.get(numberOfMessageClasses - 1));
+		serializedMessage = objectWriter.writeValueAsString(message);
+
+		// The type resolver builder decides which classes get a type id, while Jackson creates (de)serializers
+		typeResolverBuilder = (DefaultTypeResolverBuilder) objectMapper.getSerializationConfig()
+			.getDefaultTyper(objectMapper.constructType(Object.class));
+		messageType = objectMapper.constructType(message.getClass());
+		otherType = objectMapper.constructType(generatedClasses.get(numberOfMessageClasses));
+	}
+
+	@Benchmark
+	public String serialize() throws JsonProcessingException {
+		return objectWriter.writeValueAsString(message);
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException {
+		return objectReader.readValue(serializedMessage);
+	}
+
+	@Benchmark
+	public boolean useTypeId_messageClass() {
+		return typeResolverBuilder.useForType(messageType);
+	}
+
+	@Benchmark
+	public boolean useTypeId_otherClass() {
+		return typeResolverBuilder.useForType(otherType);
+	}
+
+	private static Model modelFor(List<Class<?>> messageClasses) {
+		FlowlessSystemPart<?> systemPart = Model.builder().user(messageClasses.get(0)).system(() -> {});
+		for (Class<?> messageClass : messageClasses.subList(1, messageClasses.size())) {
+			systemPart = systemPart.user(messageClass).system(() -> {});
+		}
+		return systemPart.build();
+	}
+}
@@ -0,0 +1,141 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+
+/**
+ * Compares the throughput of a plain behavior and a striped behavior, when many
+ * threads send commands, and half of the commands are for the same (hot)
+ * aggregate.
+ * 
+ * Each command simulates a load-modify-save cycle with optimistic locking: it
+ * takes a connection from a pool of 10 connections, reads the aggregate's
+ * version, waits for a simulated database round trip, and fails if another
+ * command has changed the version in the meantime. The caller then sends the
+ * command again. With the plain behavior, the conflicting commands for the hot
+ * aggregate use up connections that commands for other aggregates wait for.
+ * The striped behavior avoids the conflicts.
+ * 
+ * The <code>conflicts</code> counter shows the number of failed attempts.
+ * 
+ * Run with: <code>gradle :spring-behavior-web:jmh -PjmhArgs=StripedBehaviorBenchmark</code>
+ * 
+ * @author b_muth
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class StripedBehaviorBenchmark {
+	private static final long DATABASE_ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final int CONNECTION_POOL_SIZE = 10;
+
+	@Param({ "8", "64" })
+	private int numberOfAggregates;
+
+	private AtomicLongArray versions;
+	private Semaphore connectionPool;
+	private Behavior plainBehavior;
+	private StripedBehavior stripedBehavior;
+
+	@Setup
+	public void setup() {
+		versions = new AtomicLongArray(numberOfAggregates);
+		connectionPool = new Semaphore(CONNECTION_POOL_SIZE);
+		BehaviorModel behaviorModel = () -> Model.builder()
+			.user(ChangeAggregate.class).system(this::change)
+			.build();
+
+		plainBehavior = CompiledBehavior.of(behaviorModel);
+		stripedBehavior = StripedBehavior.builder(CompiledBehavior.of(behaviorModel))
+			.route(ChangeAggregate.class, command -> command.aggregateId)
+			.lanes(32)
+			.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		stripedBehavior.close();
+	}
+
+	@Benchmark
+	public void plainBehavior(Conflicts conflicts) {
+		sendWithRetries(plainBehavior, conflicts);
+	}
+
+	@Benchmark
+	public void stripedBehavior(Conflicts conflicts) {
+		sendWithRetries(stripedBehavior, conflicts);
+	}
+
+	private void sendWithRetries(Behavior behavior, Conflicts conflicts) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int aggregateId = random.nextBoolean() ? 0 : random.nextInt(numberOfAggregates);
+		ChangeAggregate command = new ChangeAggregate(aggregateId);
+		while (true) {
+			try {
+				behavior.reactTo(command);
+				return;
+			} catch (ConcurrentModificationException e) {
+				// Optimistic locking failed, so send the command again
+				conflicts.conflicts++;
+			}
+		}
+	}
+
+	private void change(ChangeAggregate command) {
+		connectionPool.acquireUninterruptibly();
+		try {
+			long loadedVersion = versions.get(command.aggregateId);
+			LockSupport.parkNanos(DATABASE_ROUND_TRIP_NANOS);
+			if (!versions.compareAndSet(command.aggregateId, loadedVersion, loadedVersion + 1)) {
+				throw new ConcurrentModificationException("Aggregate " + command.aggregateId + " has been changed");
+			}
+		} finally {
+			connectionPool.release();
+		}
+	}
+
+	/**
+	 * Counts the failed attempts per thread.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Conflicts {
+		public long conflicts;
+	}
+
+	static class ChangeAggregate {
+		private final int aggregateId;
+
+		ChangeAggregate(int aggregateId) {
+			this.aggregateId = aggregateId;
+		}
+	}
+}
@@ -3,6 +3,7 @@ package org.requirementsascode.serialization;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
@@ -12,11 +13,13 @@ import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 
 class ClassResolver extends TypeIdResolverBase {
-	private Map<String, String> classSimpleNameToFullNameMap;
+	private final Map<String, Class<?>> classSimpleNameToClassMap;
+	private final ClassValue<String> typeIds;
 
 	public ClassResolver(Collection<Class<?>> classes) {
 		super(TypeFactory.defaultInstance().constructType(java.lang.Object.class), TypeFactory.defaultInstance());
-		this.classSimpleNameToFullNameMap = classSimpleToFullNameMapOf(classes);
+		this.classSimpleNameToClassMap = classSimpleNameToClassMapOf(classes);
+		this.typeIds = simpleNamesOfClasses();
 	}
 
 	@Override
@@ -26,23 +29,23 @@ class ClassResolver extends TypeIdResolverBase {
 
 	@Override
 	public String idFromValueAndType(java.lang.Object currentObject, Class<?> suggestedType) {
-		String id = suggestedType.getSimpleName();
+		String id = typeIds.get(suggestedType);
 		return id;
 	}
 
 	@Override
 	public JavaType typeFromId(DatabindContext context, String simpleClassName) throws IOException {
-		JavaType subType = resolveMessageType(classSimpleNameToFullNameMap, simpleClassName, context);
+		JavaType subType = resolveMessageType(classSimpleNameToClassMap, simpleClassName, context);
 		return subType;
 	}
 
-	private JavaType resolveMessageType(Map<String, String> messageTypeSimpleNameToFullNameMap, String simpleClassName,
+	private JavaType resolveMessageType(Map<String, Class<?>> messageTypeSimpleNameToClassMap, String simpleClassName,
 		DatabindContext context) throws IOException {
-		String fullyQualifiedClassName = messageTypeSimpleNameToFullNameMap.get(simpleClassName);
+		Class<?> messageClass = messageTypeSimpleNameToClassMap.get(simpleClassName);
 
 		JavaType messageType = null;
-		if (fullyQualifiedClassName != null) {
-			messageType = context.resolveSubType(_baseType, fullyQualifiedClassName);
+		if (messageClass != null) {
+			messageType = context.constructSpecializedType(_baseType, messageClass);
 		}
 
 		return messageType;
@@ -53,9 +56,19 @@ class ClassResolver extends TypeIdResolverBase {
 		return Id.CUSTOM;
 	}
 
-	private Map<String, String> classSimpleToFullNameMapOf(Collection<Class<?>> classes) {
-		Map<String, String> classSimpleNameToFullNameMap = classes.stream()
-			.collect(Collectors.toMap(Class::getSimpleName, Class::getName));
-		return classSimpleNameToFullNameMap;
+	private Map<String, Class<?>> classSimpleNameToClassMapOf(Collection<Class<?>> classes) {
+		Map<String, Class<?>> classSimpleNameToClassMap = classes.stream()
+			.collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+		return classSimpleNameToClassMap;
 	}
-}
\ No newline at end of file
+
+	private ClassValue<String> simpleNamesOfClasses() {
+		// Class.getSimpleName() isn't cached by older JDKs, so the type ids are remembered per class
+		return new ClassValue<String>() {
+			@Override
+			protected String computeValue(Class<?> type) {
+				return type.getSimpleName();
+			}
+		};
+	}
+}
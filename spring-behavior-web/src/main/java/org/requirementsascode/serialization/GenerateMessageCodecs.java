@@ -0,0 +1,35 @@
+package org.requirementsascode.serialization;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tells the message codec processor to generate a {@link MessageCodec} at
+ * compile time for each message class referenced by the annotated class
+ * (usually a behavior model), and for the classes specified as value.
+ * 
+ * The referenced classes are the classes of class literals (e.g.
+ * <code>user(AddTaskRequest.class)</code>) and of created objects (e.g.
+ * <code>new AddTaskResponse(...)</code>) in the source code of the annotated
+ * class, if they are compiled together with it. If the processor can't generate
+ * a codec for a class (e.g. because it uses Jackson annotations), the class is
+ * (de)serialized with reflection, as without the processor.
+ * 
+ * @author b_muth
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateMessageCodecs {
+	/**
+	 * Additional classes to generate codecs for, e.g. message classes that aren't
+	 * referenced in the source code of the annotated class.
+	 * 
+	 * @return the classes
+	 */
+	Class<?>[] value() default {};
+}
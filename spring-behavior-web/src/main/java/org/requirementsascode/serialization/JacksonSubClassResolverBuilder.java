@@ -1,9 +1,5 @@
 package org.requirementsascode.serialization;
 
-import static org.requirementsascode.serialization.Classes.isSubClassOfAny;
-
-import java.util.Collection;
-
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper.DefaultTypeResolverBuilder;
 import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
@@ -17,33 +13,33 @@ import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
  */
 class JacksonSubClassResolverBuilder extends DefaultTypeResolverBuilder {
 	private static final long serialVersionUID = 1L;
-	private Collection<Class<?>> superClasses;
+	private SubClasses subClasses;
 
 	/**
 	 * Enable Jackson to resolve all types of the specified classes.
 	 * 
-	 * @param superClasses the classes whose types to resolve.
+	 * @param subClasses the sub classes of the classes whose types to resolve.
 	 * 
-	 * @param ptv          the type validator that validates all the sub classes of
-	 *                     the super classes.
+	 * @param ptv        the type validator that validates all the sub classes of
+	 *                   the super classes.
 	 */
-	public JacksonSubClassResolverBuilder(Collection<Class<?>> superClasses, PolymorphicTypeValidator ptv) {
+	public JacksonSubClassResolverBuilder(SubClasses subClasses, PolymorphicTypeValidator ptv) {
 		super(DefaultTyping.NON_FINAL, ptv);
-		setSuperClasses(superClasses);
+		setSubClasses(subClasses);
 	}
 
 	@Override
 	public boolean useForType(JavaType t) {
 		final Class<?> currentClass = t.getRawClass();
-		final boolean isSubclassOfAnySuperclass = isSubClassOfAny(currentClass, superClasses());
+		final boolean isSubclassOfAnySuperclass = subClasses().contains(currentClass);
 		return t.isJavaLangObject() || isSubclassOfAnySuperclass;
 	}
 
-	private Collection<Class<?>> superClasses() {
-		return superClasses;
+	private SubClasses subClasses() {
+		return subClasses;
 	}
 
-	private void setSuperClasses(Collection<Class<?>> superClasses) {
-		this.superClasses = superClasses;
+	private void setSubClasses(SubClasses subClasses) {
+		this.subClasses = subClasses;
 	}
 }
\ No newline at end of file
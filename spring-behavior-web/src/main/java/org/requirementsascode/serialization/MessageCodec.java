@@ -0,0 +1,42 @@
+package org.requirementsascode.serialization;
+
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+
+/**
+ * A serializer and deserializer for a single message class, that the
+ * {@link MessageSerializationModule} prefers over reflection based
+ * (de)serialization.
+ * 
+ * Message codecs are usually generated at compile time by the message codec
+ * processor for the classes referenced by a behavior model annotated with
+ * {@link GenerateMessageCodecs}, and found at runtime with the
+ * {@link java.util.ServiceLoader}.
+ * 
+ * @author b_muth
+ *
+ * @param <T> the type of message
+ */
+public interface MessageCodec<T> {
+	/**
+	 * Returns the class of messages this codec (de)serializes. Only messages of
+	 * exactly this class are (de)serialized by it, not of its sub classes.
+	 * 
+	 * @return the message class
+	 */
+	Class<T> messageClass();
+
+	/**
+	 * Returns the serializer for messages of the message class.
+	 * 
+	 * @return the serializer
+	 */
+	JsonSerializer<T> serializer();
+
+	/**
+	 * Returns the deserializer for messages of the message class.
+	 * 
+	 * @return the deserializer
+	 */
+	JsonDeserializer<T> deserializer();
+}
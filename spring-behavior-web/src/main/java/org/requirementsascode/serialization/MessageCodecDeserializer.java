@@ -0,0 +1,123 @@
+package org.requirementsascode.serialization;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * Base class of generated deserializers. The values of the properties are read
+ * like by Jackson's reflection based deserializers, including type ids where
+ * the message serialization module requires them. Generated subclasses create
+ * the message from the values, in {@link #create(Object[])}.
+ * 
+ * Unknown properties are ignored.
+ * 
+ * @author b_muth
+ *
+ * @param <T> the type of message
+ */
+public abstract class MessageCodecDeserializer<T> extends StdDeserializer<T> implements ResolvableDeserializer {
+	private static final long serialVersionUID = 1L;
+
+	private final Map<String, Integer> propertyIndexes;
+	private final JavaType[] propertyTypes;
+	private transient JsonDeserializer<?>[] valueDeserializers;
+
+	/**
+	 * Creates a deserializer for messages of the specified class.
+	 * 
+	 * @param messageClass  the class of messages
+	 * @param propertyNames the names of the properties
+	 * @param propertyTypes the declared types of the properties, at the same
+	 *                      positions as the names
+	 */
+	protected MessageCodecDeserializer(Class<T> messageClass, String[] propertyNames, JavaType[] propertyTypes) {
+		super(messageClass);
+		if (propertyNames.length != propertyTypes.length) {
+			throw new IllegalArgumentException("Number of property names and types must be equal!");
+		}
+		this.propertyIndexes = new HashMap<>();
+		for (int i = 0; i < propertyNames.length; i++) {
+			propertyIndexes.put(propertyNames[i], i);
+		}
+		this.propertyTypes = propertyTypes.clone();
+	}
+
+	/**
+	 * Returns the type of the specified class, for use as property type.
+	 * 
+	 * @param type the class
+	 * @return the type
+	 */
+	protected static JavaType typeOf(Class<?> type) {
+		return TypeFactory.defaultInstance().constructType(type);
+	}
+
+	/**
+	 * Returns the type of the specified generic type, for use as property type.
+	 * 
+	 * @param type the reference to the generic type
+	 * @return the type
+	 */
+	protected static JavaType typeOf(TypeReference<?> type) {
+		return TypeFactory.defaultInstance().constructType(type);
+	}
+
+	@Override
+	public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+		JsonDeserializer<?>[] resolvedValueDeserializers = new JsonDeserializer<?>[propertyTypes.length];
+		for (int i = 0; i < propertyTypes.length; i++) {
+			resolvedValueDeserializers[i] = ctxt.findRootValueDeserializer(propertyTypes[i]);
+		}
+		this.valueDeserializers = resolvedValueDeserializers;
+	}
+
+	@Override
+	public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+		JsonToken token = p.currentToken();
+		if (token == JsonToken.START_OBJECT) {
+			token = p.nextToken();
+		}
+
+		Object[] values = new Object[propertyTypes.length];
+		for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+			Integer index = propertyIndexes.get(p.currentName());
+			token = p.nextToken();
+			if (index == null) {
+				p.skipChildren();
+			} else if (token != JsonToken.VALUE_NULL) {
+				values[index] = valueDeserializers[index].deserialize(p, ctxt);
+			}
+		}
+
+		if (token != JsonToken.END_OBJECT) {
+			return handledMessageClass().cast(ctxt.handleUnexpectedToken(handledType(), p));
+		}
+		return create(values);
+	}
+
+	/**
+	 * Creates a message from the values of its properties.
+	 * 
+	 * @param values the values, at the positions of the property names. A value is
+	 *               null if the property is missing or null.
+	 * @return the message
+	 */
+	protected abstract T create(Object[] values);
+
+	@SuppressWarnings("unchecked")
+	private Class<T> handledMessageClass() {
+		return (Class<T>) handledType();
+	}
+}
@@ -0,0 +1,245 @@
+package org.requirementsascode.serialization;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * Base class of generated serializers. Generated subclasses write each property
+ * of a message by calling one of the <code>write...</code> methods with the
+ * property's index. The values of properties are serialized like by Jackson's
+ * reflection based serializers, including type ids where the message
+ * serialization module requires them.
+ * 
+ * @author b_muth
+ *
+ * @param <T> the type of message
+ */
+public abstract class MessageCodecSerializer<T> extends StdSerializer<T> implements ResolvableSerializer {
+	private static final long serialVersionUID = 1L;
+
+	private final SerializedString[] propertyNames;
+	private final JavaType[] propertyTypes;
+	private transient TypeSerializer[] typeSerializers;
+	private transient PropertySerializerMap[] valueSerializers;
+
+	/**
+	 * Creates a serializer for messages of the specified class.
+	 * 
+	 * @param messageClass  the class of messages
+	 * @param propertyNames the names of the properties, in the order they are
+	 *                      written
+	 * @param propertyTypes the declared types of the properties, at the same
+	 *                      positions as the names
+	 */
+	protected MessageCodecSerializer(Class<T> messageClass, String[] propertyNames, JavaType[] propertyTypes) {
+		super(messageClass);
+		if (propertyNames.length != propertyTypes.length) {
+			throw new IllegalArgumentException("Number of property names and types must be equal!");
+		}
+		this.propertyNames = Arrays.stream(propertyNames).map(SerializedString::new).toArray(SerializedString[]::new);
+		this.propertyTypes = propertyTypes.clone();
+	}
+
+	/**
+	 * Returns the type of the specified class, for use as property type.
+	 * 
+	 * @param type the class
+	 * @return the type
+	 */
+	protected static JavaType typeOf(Class<?> type) {
+		return TypeFactory.defaultInstance().constructType(type);
+	}
+
+	/**
+	 * Returns the type of the specified generic type, for use as property type.
+	 * 
+	 * @param type the reference to the generic type
+	 * @return the type
+	 */
+	protected static JavaType typeOf(TypeReference<?> type) {
+		return TypeFactory.defaultInstance().constructType(type);
+	}
+
+	@Override
+	public void resolve(SerializerProvider provider) throws JsonMappingException {
+		TypeSerializer[] resolvedTypeSerializers = new TypeSerializer[propertyTypes.length];
+		PropertySerializerMap[] resolvedValueSerializers = new PropertySerializerMap[propertyTypes.length];
+		for (int i = 0; i < propertyTypes.length; i++) {
+			resolvedTypeSerializers[i] = provider.findTypeSerializer(propertyTypes[i]);
+			resolvedValueSerializers[i] = PropertySerializerMap.emptyForProperties();
+		}
+		this.typeSerializers = resolvedTypeSerializers;
+		this.valueSerializers = resolvedValueSerializers;
+	}
+
+	@Override
+	public void serialize(T message, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		gen.writeStartObject(message);
+		writeProperties(message, gen, provider);
+		gen.writeEndObject();
+	}
+
+	@Override
+	public void serializeWithType(T message, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+		throws IOException {
+		gen.setCurrentValue(message);
+		WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(message, JsonToken.START_OBJECT));
+		writeProperties(message, gen, provider);
+		typeSer.writeTypeSuffix(gen, typeId);
+	}
+
+	/**
+	 * Writes all properties of the specified message.
+	 * 
+	 * @param message  the message
+	 * @param gen      the generator to write with
+	 * @param provider the provider of serializers for the property values
+	 * @throws IOException if writing fails
+	 */
+	protected abstract void writeProperties(T message, JsonGenerator gen, SerializerProvider provider)
+		throws IOException;
+
+	/**
+	 * Writes the property at the specified index, with the specified value.
+	 * 
+	 * @param index    the index of the property
+	 * @param value    the value, may be null
+	 * @param gen      the generator to write with
+	 * @param provider the provider of serializers for the value
+	 * @throws IOException if writing fails
+	 */
+	protected void writeObject(int index, Object value, JsonGenerator gen, SerializerProvider provider)
+		throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		if (value == null) {
+			provider.defaultSerializeNull(gen);
+			return;
+		}
+
+		JsonSerializer<Object> valueSerializer = valueSerializerFor(index, value.getClass(), provider);
+		TypeSerializer typeSerializer = typeSerializers[index];
+		if (typeSerializer == null) {
+			valueSerializer.serialize(value, gen, provider);
+		} else {
+			valueSerializer.serializeWithType(value, gen, provider, typeSerializer);
+		}
+	}
+
+	/**
+	 * Writes the string property at the specified index, with the specified value.
+	 * 
+	 * @param index the index of the property
+	 * @param value the value, may be null
+	 * @param gen   the generator to write with
+	 * @throws IOException if writing fails
+	 */
+	protected void writeString(int index, String value, JsonGenerator gen) throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		if (value == null) {
+			gen.writeNull();
+		} else {
+			gen.writeString(value);
+		}
+	}
+
+	/**
+	 * Writes the boolean property at the specified index, with the specified
+	 * value.
+	 * 
+	 * @param index the index of the property
+	 * @param value the value
+	 * @param gen   the generator to write with
+	 * @throws IOException if writing fails
+	 */
+	protected void writeBoolean(int index, boolean value, JsonGenerator gen) throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		gen.writeBoolean(value);
+	}
+
+	/**
+	 * Writes the int (or short, or byte) property at the specified index, with the
+	 * specified value.
+	 * 
+	 * @param index the index of the property
+	 * @param value the value
+	 * @param gen   the generator to write with
+	 * @throws IOException if writing fails
+	 */
+	protected void writeInt(int index, int value, JsonGenerator gen) throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		gen.writeNumber(value);
+	}
+
+	/**
+	 * Writes the long property at the specified index, with the specified value.
+	 * 
+	 * @param index the index of the property
+	 * @param value the value
+	 * @param gen   the generator to write with
+	 * @throws IOException if writing fails
+	 */
+	protected void writeLong(int index, long value, JsonGenerator gen) throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		gen.writeNumber(value);
+	}
+
+	/**
+	 * Writes the float property at the specified index, with the specified value.
+	 * 
+	 * @param index the index of the property
+	 * @param value the value
+	 * @param gen   the generator to write with
+	 * @throws IOException if writing fails
+	 */
+	protected void writeFloat(int index, float value, JsonGenerator gen) throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		gen.writeNumber(value);
+	}
+
+	/**
+	 * Writes the double property at the specified index, with the specified value.
+	 * 
+	 * @param index the index of the property
+	 * @param value the value
+	 * @param gen   the generator to write with
+	 * @throws IOException if writing fails
+	 */
+	protected void writeDouble(int index, double value, JsonGenerator gen) throws IOException {
+		gen.writeFieldName(propertyNames[index]);
+		gen.writeNumber(value);
+	}
+
+	private JsonSerializer<Object> valueSerializerFor(int index, Class<?> valueClass, SerializerProvider provider)
+		throws JsonMappingException {
+		PropertySerializerMap serializerMap = valueSerializers[index];
+		JsonSerializer<Object> valueSerializer = serializerMap.serializerFor(valueClass);
+		if (valueSerializer == null) {
+			JavaType propertyType = propertyTypes[index];
+			PropertySerializerMap.SerializerAndMapResult result;
+			if (propertyType.hasGenericTypes()) {
+				JavaType valueType = provider.constructSpecializedType(propertyType, valueClass);
+				result = serializerMap.findAndAddSecondarySerializer(valueType, provider, null);
+			} else {
+				result = serializerMap.findAndAddSecondarySerializer(valueClass, provider, null);
+			}
+			valueSerializers[index] = result.map;
+			valueSerializer = result.serializer;
+		}
+		return valueSerializer;
+	}
+}
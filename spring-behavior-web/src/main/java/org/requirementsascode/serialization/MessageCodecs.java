@@ -0,0 +1,107 @@
+package org.requirementsascode.serialization;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.ser.Serializers;
+
+/**
+ * The message codecs that (de)serialize messages of exactly their message
+ * class, instead of reflection based (de)serialization.
+ * 
+ * @author b_muth
+ *
+ */
+class MessageCodecs {
+	private final Map<Class<?>, MessageCodec<?>> codecsByMessageClass;
+
+	private MessageCodecs(Collection<MessageCodec<?>> codecs) {
+		this.codecsByMessageClass = new HashMap<>();
+		for (MessageCodec<?> codec : codecs) {
+			codecsByMessageClass.put(codec.messageClass(), codec);
+		}
+	}
+
+	/**
+	 * Creates the specified codecs.
+	 * 
+	 * @param codecs the codecs
+	 * @return the message codecs
+	 */
+	public static MessageCodecs of(Collection<MessageCodec<?>> codecs) {
+		Objects.requireNonNull(codecs, "codecs must not be null!");
+		return new MessageCodecs(codecs);
+	}
+
+	/**
+	 * Loads the codecs that are registered as services in
+	 * <code>META-INF/services</code>, using the context class loader of the current
+	 * thread (or the class loader of this class, if there is none).
+	 * 
+	 * @return the message codecs
+	 */
+	@SuppressWarnings("rawtypes")
+	public static MessageCodecs load() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if (classLoader == null) {
+			classLoader = MessageCodecs.class.getClassLoader();
+		}
+
+		Map<Class<?>, MessageCodec<?>> codecs = new HashMap<>();
+		for (MessageCodec codec : ServiceLoader.load(MessageCodec.class, classLoader)) {
+			codecs.put(codec.messageClass(), codec);
+		}
+		return new MessageCodecs(codecs.values());
+	}
+
+	/**
+	 * Returns the number of codecs.
+	 * 
+	 * @return the number of codecs
+	 */
+	public int size() {
+		return codecsByMessageClass.size();
+	}
+
+	/**
+	 * Returns the serializers of the codecs.
+	 * 
+	 * @return the serializers
+	 */
+	public Serializers serializers() {
+		return new Serializers.Base() {
+			@Override
+			public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type,
+				BeanDescription beanDesc) {
+				MessageCodec<?> codec = codecsByMessageClass.get(type.getRawClass());
+				return codec == null ? null : codec.serializer();
+			}
+		};
+	}
+
+	/**
+	 * Returns the deserializers of the codecs.
+	 * 
+	 * @return the deserializers
+	 */
+	public Deserializers deserializers() {
+		return new Deserializers.Base() {
+			@Override
+			public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config,
+				BeanDescription beanDesc) {
+				MessageCodec<?> codec = codecsByMessageClass.get(type.getRawClass());
+				return codec == null ? null : codec.deserializer();
+			}
+		};
+	}
+}
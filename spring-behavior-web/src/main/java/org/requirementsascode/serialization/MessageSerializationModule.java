@@ -26,6 +26,13 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
  * from/to JSON using a Jackson ObjectMapper, even if the messages are immutable
  * objects and even if java.lang.Object is used as class for serialization.
  * 
+ * The module works the same way for binary Jackson data formats like Smile or
+ * CBOR, if it is registered with an ObjectMapper for that format.
+ * 
+ * If there are {@link MessageCodec}s for message classes, e.g. generated at
+ * compile time because of {@link GenerateMessageCodecs}, the module uses them
+ * instead of reflection to (de)serialize messages of those classes.
+ * 
  * @author b_muth
  *
  */
@@ -39,17 +46,38 @@ public class MessageSerializationModule extends SimpleModule {
 	 * The classes of messages to serialize
 	 */
 	private final Collection<Class<?>> messageClasses;
+	/**
+	 * The codecs to use instead of reflection
+	 */
+	private final MessageCodecs messageCodecs;
 
 	/**
 	 * Crestes a new instance of the module that enables serialization of the
-	 * specified message classes.
+	 * specified message classes. Uses the message codecs registered as services in
+	 * <code>META-INF/services</code>.
 	 * 
 	 * @param behaviorModel the classes of messages to serialize
 	 */
 	public MessageSerializationModule(Model behaviorModel) {
+		this(behaviorModel, MessageCodecs.load());
+	}
+
+	/**
+	 * Crestes a new instance of the module that enables serialization of the
+	 * specified message classes. Uses only the specified message codecs.
+	 * 
+	 * @param behaviorModel the classes of messages to serialize
+	 * @param messageCodecs the codecs to use instead of reflection, may be empty
+	 */
+	public MessageSerializationModule(Model behaviorModel, Collection<MessageCodec<?>> messageCodecs) {
+		this(behaviorModel, MessageCodecs.of(messageCodecs));
+	}
+
+	private MessageSerializationModule(Model behaviorModel, MessageCodecs messageCodecs) {
 		super(PackageVersion.VERSION);
 		Objects.requireNonNull(behaviorModel, "behaviorModel must not be null!");
 		this.messageClasses = messageClassesOf(behaviorModel);
+		this.messageCodecs = messageCodecs;
 	}
 
 	private Set<Class<?>> messageClassesOf(Model behaviorModel) {
@@ -69,6 +97,7 @@ public class MessageSerializationModule extends SimpleModule {
 		dontFailOnEmptyBeans(objectMapper);
 		registerClassesForJsonDeserialization(objectMapper, messageClasses);
 		serializeObjectProperties(context);
+		registerMessageCodecs(context);
 	}
 
 	private void makeAllClassFieldsVisible(ObjectMapper objectMapper) {
@@ -84,15 +113,23 @@ public class MessageSerializationModule extends SimpleModule {
 	}
 
 	private void registerClassesForJsonDeserialization(ObjectMapper objectMapper, Collection<Class<?>> messageClasses) {
-		PolymorphicTypeValidator ptv = SubClassValidator.forSubclassesOf(messageClasses);
+		SubClasses messageSubClasses = SubClasses.of(messageClasses);
+		PolymorphicTypeValidator ptv = SubClassValidator.forSubclasses(messageSubClasses);
 
-		StdTypeResolverBuilder typeResolverBuilder = new JacksonSubClassResolverBuilder(messageClasses, ptv)
+		StdTypeResolverBuilder typeResolverBuilder = new JacksonSubClassResolverBuilder(messageSubClasses, ptv)
 			.init(Id.CUSTOM, new ClassResolver(messageClasses)).inclusion(As.PROPERTY).typeIdVisibility(false)
 			.typeProperty(TYPE_PROPERTY_NAME);
 
 		objectMapper.setDefaultTyping(typeResolverBuilder);
 	}
 
+	private void registerMessageCodecs(SetupContext context) {
+		if (messageCodecs.size() > 0) {
+			context.addSerializers(messageCodecs.serializers());
+			context.addDeserializers(messageCodecs.deserializers());
+		}
+	}
+
 	private void serializeObjectProperties(SetupContext context) {
 		final ParameterExtractor parameterExtractor = new ParameterExtractor();
 		final AnnotationIntrospector ai = new AdaptedParameterNamesAnnotationIntrospector(parameterExtractor);
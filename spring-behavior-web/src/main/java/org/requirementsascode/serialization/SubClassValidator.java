@@ -1,9 +1,5 @@
 package org.requirementsascode.serialization;
 
-import static org.requirementsascode.serialization.Classes.isSubClassOfAny;
-
-import java.util.Collection;
-
 import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator.TypeMatcher;
@@ -12,21 +8,21 @@ import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 class SubClassValidator {
 	private PolymorphicTypeValidator polymorphicTypeValidator;
 
-	public static PolymorphicTypeValidator forSubclassesOf(Collection<Class<?>> superClasses) {
-		return new SubClassValidator(superClasses).polymorphicTypeValidator();
+	public static PolymorphicTypeValidator forSubclasses(SubClasses subClasses) {
+		return new SubClassValidator(subClasses).polymorphicTypeValidator();
 	}
 
-	private SubClassValidator(Collection<Class<?>> superClasses) {
+	private SubClassValidator(SubClasses subClasses) {
 		PolymorphicTypeValidator ptv = BasicPolymorphicTypeValidator.builder()
-			.allowIfSubType(isSubClassOfAnySuperClass(superClasses)).build();
+			.allowIfSubType(isSubClassOfAnySuperClass(subClasses)).build();
 		setPolymorphicTypeValidator(ptv);
 	}
 
-	private TypeMatcher isSubClassOfAnySuperClass(Collection<Class<?>> superClasses) {
+	private TypeMatcher isSubClassOfAnySuperClass(SubClasses subClasses) {
 		return new TypeMatcher() {
 			@Override
 			public boolean match(MapperConfig<?> config, Class<?> potentialSubclass) {
-				return isSubClassOfAny(potentialSubclass, superClasses);
+				return subClasses.contains(potentialSubclass);
 			}
 		};
 	}
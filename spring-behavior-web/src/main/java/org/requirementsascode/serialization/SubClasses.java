@@ -0,0 +1,61 @@
+package org.requirementsascode.serialization;
+
+import static org.requirementsascode.serialization.Classes.isSubClassOfAny;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The sub classes of specified super classes. Whether a class is a sub class is
+ * decided once per class, and then remembered, so that the decision doesn't
+ * depend on the number of super classes after the first time. The super
+ * classes themselves are found without comparing them to each super class.
+ * 
+ * @author b_muth
+ *
+ */
+class SubClasses implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final Set<Class<?>> superClasses;
+	private final transient ClassValue<Boolean> isSubClass;
+
+	private SubClasses(Collection<Class<?>> superClasses) {
+		this.superClasses = new HashSet<>(Objects.requireNonNull(superClasses, "superClasses must not be null!"));
+		this.isSubClass = new ClassValue<Boolean>() {
+			@Override
+			protected Boolean computeValue(Class<?> potentialSubclass) {
+				return SubClasses.this.superClasses.contains(potentialSubclass)
+					|| isSubClassOfAny(potentialSubclass, SubClasses.this.superClasses);
+			}
+		};
+	}
+
+	/**
+	 * Creates the sub classes of the specified super classes.
+	 * 
+	 * @param superClasses the super classes
+	 * @return the sub classes
+	 */
+	public static SubClasses of(Collection<Class<?>> superClasses) {
+		return new SubClasses(superClasses);
+	}
+
+	/**
+	 * Checks if the specified class is a sub class of any of the super classes
+	 * (or one of the super classes itself).
+	 * 
+	 * @param potentialSubclass the class to check
+	 * @return true if it's a sub class, false otherwise
+	 */
+	public boolean contains(Class<?> potentialSubclass) {
+		return isSubClass.get(potentialSubclass);
+	}
+
+	private Object readResolve() {
+		return new SubClasses(superClasses);
+	}
+}
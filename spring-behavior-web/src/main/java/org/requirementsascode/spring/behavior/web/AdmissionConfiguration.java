@@ -0,0 +1,105 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * This class registers the admission control of the endpoint, if the
+ * <code>behavior.admission.enabled</code> property is true. The properties
+ * are:
+ * <ul>
+ * <li><code>behavior.admission.max-concurrency</code>: the maximum number of
+ * concurrent requests</li>
+ * <li><code>behavior.admission.max-concurrent-queries</code> and
+ * <code>behavior.admission.max-concurrent-commands</code>: the maximum number
+ * of concurrent queries (as specified by <code>behavior.queries</code>), and of
+ * all other requests</li>
+ * <li><code>behavior.admission.message-max-concurrency.[MessageClass]</code>:
+ * the maximum number of concurrent requests of a message class, specified like
+ * a query class</li>
+ * <li><code>behavior.admission.retry-after</code>: the value of the
+ * <code>Retry-After</code> header of rejected requests (default: 1s)</li>
+ * </ul>
+ * All limits are unlimited by default.
+ * 
+ * @author b_muth
+ *
+ */
+@Configuration
+@ConditionalOnBean(Behavior.class)
+@ConditionalOnProperty(prefix = "behavior", name = "admission.enabled", havingValue = "true")
+@AutoConfigureAfter(BehaviorConfiguration.class)
+class AdmissionConfiguration {
+	private static final String PREFIX = "behavior.admission.";
+
+	/**
+	 * Registers the admission control, based on the properties.
+	 * 
+	 * @param behavior    the behavior whose model contains the message classes
+	 * @param environment the environment with the properties
+	 * @return the registered admission control
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	AdmissionControl admissionControl(Behavior behavior, Environment environment) {
+		BehaviorModel behaviorModel = behavior.behaviorModel();
+		Binder binder = Binder.get(environment);
+		AdmissionControl.Builder builder = AdmissionControl.builder();
+
+		binder.bind(PREFIX + "max-concurrency", Integer.class).ifBound(builder::maxConcurrency);
+		binder.bind(PREFIX + "max-concurrent-queries", Integer.class).ifBound(builder::maxConcurrentQueries);
+		binder.bind(PREFIX + "max-concurrent-commands", Integer.class).ifBound(builder::maxConcurrentCommands);
+		binder.bind(PREFIX + "retry-after", Duration.class).ifBound(builder::retryAfter);
+
+		Map<String, Integer> messageMaxConcurrency = binder
+			.bind(PREFIX + "message-max-concurrency", Bindable.mapOf(String.class, Integer.class))
+			.orElse(Collections.emptyMap());
+		messageMaxConcurrency.forEach((className, maxConcurrency) -> builder
+			.maxConcurrency(BehaviorConfiguration.messageClassOf(behaviorModel, className), maxConcurrency));
+
+		String[] queryClassNames = binder.bind("behavior.queries", String[].class).orElse(new String[0]);
+		List<Class<?>> queryClasses = new ArrayList<>();
+		for (String queryClassName : queryClassNames) {
+			queryClasses.add(BehaviorConfiguration.messageClassOf(behaviorModel, queryClassName));
+		}
+		builder.queryClasses(queryClasses);
+
+		return builder.build();
+	}
+
+	/**
+	 * Records the statistics of the admission control, if Micrometer is on the
+	 * classpath and a meter registry bean exists.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+	@ConditionalOnProperty(prefix = "behavior", name = "metrics.enabled", havingValue = "true", matchIfMissing = true)
+	static class AdmissionMetricsConfiguration {
+		@Bean
+		AdmissionMetrics admissionMetrics(AdmissionControl admissionControl,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+			AdmissionMetrics admissionMetrics = AdmissionMetrics.of(admissionControl);
+			meterRegistry.ifUnique(admissionMetrics::bindTo);
+			return admissionMetrics;
+		}
+	}
+}
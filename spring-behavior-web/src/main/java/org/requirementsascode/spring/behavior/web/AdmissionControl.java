@@ -0,0 +1,305 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Limits the number of messages that are reacted to concurrently, and rejects
+ * excess messages immediately, instead of letting them wait for threads and
+ * database connections until they time out.
+ *
+ * There are several budgets, each with a maximum number of concurrent
+ * messages:
+ * <ul>
+ * <li>a global budget for all messages</li>
+ * <li>a budget for query messages, and a separate budget for all other
+ * (command) messages, so that a flood of queries can't starve the commands</li>
+ * <li>a budget for each specified message class</li>
+ * </ul>
+ * A message is admitted if there's room in all of its budgets. Otherwise, an
+ * {@link AdmissionRejectedException} is thrown, which the endpoint of
+ * spring-behavior-web translates into the status 503 (Service Unavailable)
+ * with a <code>Retry-After</code> header.
+ *
+ * Create an admission control with {@link #builder()}. Without any budgets,
+ * all messages are admitted.
+ *
+ * @author b_muth
+ *
+ */
+public class AdmissionControl {
+	static final String GLOBAL = "global";
+	static final String QUERIES = "queries";
+	static final String COMMANDS = "commands";
+
+	private final List<Budget> allBudgets;
+	private final ClassValue<List<Budget>> budgetsByMessageClass;
+	private final Duration retryAfter;
+
+	private AdmissionControl(Builder builder) {
+		List<Budget> messageBudgets = builder.messageBudgets.stream()
+			.map(messageBudget -> new Budget(messageBudget.messageClass.getSimpleName(), messageBudget.maxConcurrency))
+			.collect(Collectors.toList());
+		List<Class<?>> messageClasses = builder.messageBudgets.stream()
+			.map(messageBudget -> messageBudget.messageClass)
+			.collect(Collectors.toList());
+		List<Class<?>> queryClasses = new ArrayList<>(builder.queryClasses);
+		Budget queries = budget(QUERIES, builder.maxConcurrentQueries);
+		Budget commands = budget(COMMANDS, builder.maxConcurrentCommands);
+		Budget global = budget(GLOBAL, builder.maxConcurrency);
+
+		List<Budget> allBudgets = new ArrayList<>(messageBudgets);
+		addIfPresent(queries, allBudgets);
+		addIfPresent(commands, allBudgets);
+		addIfPresent(global, allBudgets);
+		this.allBudgets = Collections.unmodifiableList(allBudgets);
+		this.retryAfter = builder.retryAfter;
+
+		this.budgetsByMessageClass = new ClassValue<List<Budget>>() {
+			@Override
+			protected List<Budget> computeValue(Class<?> messageClass) {
+				List<Budget> budgets = new ArrayList<>();
+				for (int i = 0; i < messageClasses.size(); i++) {
+					if (messageClasses.get(i).isAssignableFrom(messageClass)) {
+						budgets.add(messageBudgets.get(i));
+						break;
+					}
+				}
+				boolean isQuery = queryClasses.stream().anyMatch(queryClass -> queryClass.isAssignableFrom(messageClass));
+				addIfPresent(isQuery ? queries : commands, budgets);
+				addIfPresent(global, budgets);
+				return Collections.unmodifiableList(budgets);
+			}
+		};
+	}
+
+	/**
+	 * Starts building an admission control.
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Admits the specified message, if there's room in all of its budgets. Close
+	 * the returned permit after reacting to the message.
+	 *
+	 * @param message the message to be reacted to
+	 * @return the permit that makes room in the budgets again when it's closed
+	 * @throws AdmissionRejectedException if a budget is exhausted
+	 */
+	public Permit admit(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		List<Budget> budgets = budgetsByMessageClass.get(message.getClass());
+		for (int i = 0; i < budgets.size(); i++) {
+			Budget budget = budgets.get(i);
+			if (!budget.semaphore.tryAcquire()) {
+				budget.rejectedCount.increment();
+				release(budgets, i);
+				throw new AdmissionRejectedException(budget.name, retryAfter);
+			}
+		}
+		return new Permit(budgets);
+	}
+
+	/**
+	 * Returns a snapshot of the statistics of each budget.
+	 *
+	 * @return the statistics
+	 */
+	public List<AdmissionStatistics> statistics() {
+		return allBudgets.stream()
+			.map(Budget::statistics)
+			.collect(Collectors.toList());
+	}
+
+	private static void release(List<Budget> budgets, int count) {
+		for (int i = 0; i < count; i++) {
+			budgets.get(i).semaphore.release();
+		}
+	}
+
+	private static Budget budget(String name, int maxConcurrency) {
+		return maxConcurrency == Integer.MAX_VALUE ? null : new Budget(name, maxConcurrency);
+	}
+
+	private static void addIfPresent(Budget budget, List<Budget> budgets) {
+		if (budget != null) {
+			budgets.add(budget);
+		}
+	}
+
+	/**
+	 * Makes room in the budgets of an admitted message again, when it's closed.
+	 */
+	public static class Permit implements AutoCloseable {
+		private List<Budget> budgets;
+
+		private Permit(List<Budget> budgets) {
+			this.budgets = budgets;
+		}
+
+		@Override
+		public void close() {
+			if (budgets != null) {
+				release(budgets, budgets.size());
+				budgets = null;
+			}
+		}
+	}
+
+	/**
+	 * Builds an admission control.
+	 */
+	public static class Builder {
+		private final List<MessageBudget> messageBudgets;
+		private final List<Class<?>> queryClasses;
+		private int maxConcurrency;
+		private int maxConcurrentQueries;
+		private int maxConcurrentCommands;
+		private Duration retryAfter;
+
+		private Builder() {
+			this.messageBudgets = new ArrayList<>();
+			this.queryClasses = new ArrayList<>();
+			this.maxConcurrency = Integer.MAX_VALUE;
+			this.maxConcurrentQueries = Integer.MAX_VALUE;
+			this.maxConcurrentCommands = Integer.MAX_VALUE;
+			this.retryAfter = Duration.ofSeconds(1);
+		}
+
+		/**
+		 * Sets the maximum number of messages that are reacted to concurrently
+		 * (default: unlimited).
+		 *
+		 * @param maxConcurrency the maximum number of concurrent messages
+		 * @return this builder
+		 */
+		public Builder maxConcurrency(int maxConcurrency) {
+			this.maxConcurrency = checkMaxConcurrency(maxConcurrency);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of query messages that are reacted to concurrently
+		 * (default: unlimited).
+		 *
+		 * @param maxConcurrentQueries the maximum number of concurrent queries
+		 * @return this builder
+		 */
+		public Builder maxConcurrentQueries(int maxConcurrentQueries) {
+			this.maxConcurrentQueries = checkMaxConcurrency(maxConcurrentQueries);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of messages that are not queries, and are reacted
+		 * to concurrently (default: unlimited).
+		 *
+		 * @param maxConcurrentCommands the maximum number of concurrent commands
+		 * @return this builder
+		 */
+		public Builder maxConcurrentCommands(int maxConcurrentCommands) {
+			this.maxConcurrentCommands = checkMaxConcurrency(maxConcurrentCommands);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of messages of the specified class (or its
+		 * subclasses) that are reacted to concurrently. If several message classes
+		 * match, the first one specified is used.
+		 *
+		 * @param messageClass   the class of messages
+		 * @param maxConcurrency the maximum number of concurrent messages of that class
+		 * @return this builder
+		 */
+		public Builder maxConcurrency(Class<?> messageClass, int maxConcurrency) {
+			messageBudgets.add(new MessageBudget(messageClass, checkMaxConcurrency(maxConcurrency)));
+			return this;
+		}
+
+		/**
+		 * Specifies the classes (or interfaces) of query messages. All other messages
+		 * are commands.
+		 *
+		 * @param queryClasses the query classes
+		 * @return this builder
+		 */
+		public Builder queryClasses(Collection<Class<?>> queryClasses) {
+			Objects.requireNonNull(queryClasses, "queryClasses must not be null!");
+			this.queryClasses.addAll(queryClasses);
+			return this;
+		}
+
+		/**
+		 * Sets how long clients should wait before sending a rejected message again
+		 * (default: 1 second).
+		 *
+		 * @param retryAfter the time to wait
+		 * @return this builder
+		 */
+		public Builder retryAfter(Duration retryAfter) {
+			Objects.requireNonNull(retryAfter, "retryAfter must not be null!");
+			if (retryAfter.isNegative()) {
+				throw new IllegalArgumentException("retryAfter must not be negative, but was " + retryAfter);
+			}
+			this.retryAfter = retryAfter;
+			return this;
+		}
+
+		/**
+		 * Builds the admission control.
+		 *
+		 * @return the admission control
+		 */
+		public AdmissionControl build() {
+			return new AdmissionControl(this);
+		}
+
+		private static int checkMaxConcurrency(int maxConcurrency) {
+			if (maxConcurrency < 1) {
+				throw new IllegalArgumentException("maxConcurrency must be positive, but was " + maxConcurrency);
+			}
+			return maxConcurrency;
+		}
+	}
+
+	private static class MessageBudget {
+		private final Class<?> messageClass;
+		private final int maxConcurrency;
+
+		MessageBudget(Class<?> messageClass, int maxConcurrency) {
+			this.messageClass = Objects.requireNonNull(messageClass, "messageClass must not be null!");
+			this.maxConcurrency = maxConcurrency;
+		}
+	}
+
+	private static class Budget {
+		private final String name;
+		private final int maxConcurrency;
+		private final Semaphore semaphore;
+		private final LongAdder rejectedCount;
+
+		Budget(String name, int maxConcurrency) {
+			this.name = name;
+			this.maxConcurrency = maxConcurrency;
+			this.semaphore = new Semaphore(maxConcurrency);
+			this.rejectedCount = new LongAdder();
+		}
+
+		AdmissionStatistics statistics() {
+			return new AdmissionStatistics(name, maxConcurrency, maxConcurrency - semaphore.availablePermits(),
+				rejectedCount.sum());
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.List;
+import java.util.Objects;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Records the statistics of each budget of an {@link AdmissionControl}: the
+ * in-flight messages in the <code>behavior.admission.in-flight</code> gauge,
+ * and the rejected messages in the <code>behavior.admission.rejected</code>
+ * counter. Both are tagged with the name of the <code>budget</code>.
+ *
+ * @author b_muth
+ *
+ */
+public class AdmissionMetrics implements MeterBinder {
+	private final AdmissionControl admissionControl;
+
+	private AdmissionMetrics(AdmissionControl admissionControl) {
+		this.admissionControl = admissionControl;
+	}
+
+	/**
+	 * Creates the metrics of the specified admission control.
+	 *
+	 * @param admissionControl the admission control
+	 * @return the created metrics, to be bound to a registry
+	 */
+	public static AdmissionMetrics of(AdmissionControl admissionControl) {
+		Objects.requireNonNull(admissionControl, "admissionControl must not be null!");
+		return new AdmissionMetrics(admissionControl);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry meterRegistry) {
+		List<AdmissionStatistics> budgets = admissionControl.statistics();
+		for (int i = 0; i < budgets.size(); i++) {
+			int budgetIndex = i;
+			String budget = budgets.get(i).getBudget();
+			Gauge.builder("behavior.admission.in-flight", admissionControl,
+				ac -> ac.statistics().get(budgetIndex).getInFlightCount())
+				.description("Messages that are currently reacted to")
+				.tag("budget", budget)
+				.register(meterRegistry);
+			FunctionCounter.builder("behavior.admission.rejected", admissionControl,
+				ac -> ac.statistics().get(budgetIndex).getRejectedCount())
+				.description("Messages rejected because the budget was exhausted")
+				.tag("budget", budget)
+				.register(meterRegistry);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.time.Duration;
+
+/**
+ * Thrown by an {@link AdmissionControl} if a message can't be admitted, because
+ * a budget is exhausted.
+ *
+ * @author b_muth
+ *
+ */
+public class AdmissionRejectedException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final String budget;
+	private final Duration retryAfter;
+
+	/**
+	 * Creates an exception for the specified budget.
+	 *
+	 * @param budget     the name of the exhausted budget
+	 * @param retryAfter how long the client should wait before sending the message
+	 *                   again
+	 */
+	public AdmissionRejectedException(String budget, Duration retryAfter) {
+		super("Too many concurrent messages in budget " + budget);
+		this.budget = budget;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Returns the name of the exhausted budget.
+	 *
+	 * @return the budget name
+	 */
+	public String getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns how long the client should wait before sending the message again.
+	 *
+	 * @return the time to wait
+	 */
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
@@ -0,0 +1,73 @@
+package org.requirementsascode.spring.behavior.web;
+
+/**
+ * A snapshot of the statistics of a budget of an {@link AdmissionControl}.
+ *
+ * @author b_muth
+ *
+ */
+public class AdmissionStatistics {
+	private final String budget;
+	private final int maxConcurrency;
+	private final int inFlightCount;
+	private final long rejectedCount;
+
+	/**
+	 * Creates a snapshot of budget statistics.
+	 *
+	 * @param budget         the name of the budget
+	 * @param maxConcurrency the maximum number of concurrent messages
+	 * @param inFlightCount  the number of messages that are currently reacted to
+	 * @param rejectedCount  the number of messages rejected so far
+	 */
+	public AdmissionStatistics(String budget, int maxConcurrency, int inFlightCount, long rejectedCount) {
+		this.budget = budget;
+		this.maxConcurrency = maxConcurrency;
+		this.inFlightCount = inFlightCount;
+		this.rejectedCount = rejectedCount;
+	}
+
+	/**
+	 * Returns the name of the budget: <code>global</code>, <code>queries</code>,
+	 * <code>commands</code>, or the simple name of a message class.
+	 *
+	 * @return the budget name
+	 */
+	public String getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the maximum number of messages that are reacted to concurrently.
+	 *
+	 * @return the maximum concurrency
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * Returns the number of messages that are currently reacted to.
+	 *
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount() {
+		return inFlightCount;
+	}
+
+	/**
+	 * Returns the number of messages that have been rejected, because this budget
+	 * was exhausted.
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	@Override
+	public String toString() {
+		return "AdmissionStatistics [budget=" + budget + ", maxConcurrency=" + maxConcurrency + ", inFlightCount="
+			+ inFlightCount + ", rejectedCount=" + rejectedCount + "]";
+	}
+}
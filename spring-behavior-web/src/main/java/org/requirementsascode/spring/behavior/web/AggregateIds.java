@@ -0,0 +1,71 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Maps message classes to the functions that return the id of the aggregate
+ * that a message reads or changes. The first function whose message class is
+ * the same as, or a superclass of, a concrete message class is looked up once,
+ * and then remembered.
+ *
+ * @author b_muth
+ *
+ */
+class AggregateIds {
+	private final ClassValue<Optional<AggregateIdOf<?>>> aggregateIdsByMessageClass;
+
+	private AggregateIds(List<AggregateIdOf<?>> aggregateIds) {
+		this.aggregateIdsByMessageClass = new ClassValue<Optional<AggregateIdOf<?>>>() {
+			@Override
+			protected Optional<AggregateIdOf<?>> computeValue(Class<?> messageClass) {
+				return aggregateIds.stream()
+					.filter(aggregateIdOf -> aggregateIdOf.messageClass.isAssignableFrom(messageClass))
+					.findFirst();
+			}
+		};
+	}
+
+	/**
+	 * Creates the mapping for the specified functions, in their order.
+	 *
+	 * @param aggregateIds the functions, by message class
+	 * @return the created mapping
+	 */
+	static AggregateIds of(List<AggregateIdOf<?>> aggregateIds) {
+		Objects.requireNonNull(aggregateIds, "aggregateIds must not be null!");
+		return new AggregateIds(new ArrayList<>(aggregateIds));
+	}
+
+	/**
+	 * Returns the function for the specified message class.
+	 *
+	 * @param messageClass the concrete class of a message
+	 * @return the function, or an empty optional if no function has been specified
+	 *         for the message class or its superclasses
+	 */
+	Optional<AggregateIdOf<?>> of(Class<?> messageClass) {
+		return aggregateIdsByMessageClass.get(messageClass);
+	}
+
+	/**
+	 * The function that returns the id of the aggregate that messages of a class
+	 * (or its subclasses) read or change.
+	 */
+	static class AggregateIdOf<T> {
+		private final Class<T> messageClass;
+		private final Function<? super T, ?> aggregateId;
+
+		AggregateIdOf(Class<T> messageClass, Function<? super T, ?> aggregateId) {
+			this.messageClass = Objects.requireNonNull(messageClass, "messageClass must not be null!");
+			this.aggregateId = Objects.requireNonNull(aggregateId, "aggregateId must not be null!");
+		}
+
+		Object apply(Object message) {
+			return aggregateId.apply(messageClass.cast(message));
+		}
+	}
+}
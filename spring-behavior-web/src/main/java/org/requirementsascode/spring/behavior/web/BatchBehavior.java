@@ -0,0 +1,79 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.requirementsascode.Behavior;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Passes several messages to a behavior, one after the other, in the order of
+ * the specified list. Returns a response for each message, at the same position
+ * in the list of responses.
+ *
+ * @author b_muth
+ *
+ */
+public class BatchBehavior {
+	private final Behavior behavior;
+
+	/**
+	 * Creates a batch behavior that passes each message to the specified behavior.
+	 *
+	 * @param behavior the behavior that reacts to each message
+	 */
+	public BatchBehavior(Behavior behavior) {
+		this.behavior = Objects.requireNonNull(behavior, "behavior must not be null!");
+	}
+
+	/**
+	 * Passes each message to the behavior on its own. If the behavior throws an
+	 * exception for a message, the response for that message is a
+	 * {@link BatchErrorResponse}, and the remaining messages are still processed.
+	 *
+	 * @param messages the messages to react to
+	 * @return the responses, one per message (empty if the behavior didn't respond)
+	 */
+	public List<Optional<Object>> reactToEach(List<?> messages) {
+		Objects.requireNonNull(messages, "messages must not be null!");
+
+		List<Optional<Object>> responses = new ArrayList<>(messages.size());
+		for (Object message : messages) {
+			responses.add(reactToOrRespondWithError(message));
+		}
+		return responses;
+	}
+
+	/**
+	 * Passes all messages to the behavior within a single transaction. If the
+	 * behavior throws an exception for any of the messages, the remaining messages
+	 * are not processed, the transaction is rolled back, and the exception is
+	 * rethrown.
+	 *
+	 * @param messages the messages to react to
+	 * @return the responses, one per message (empty if the behavior didn't respond)
+	 */
+	@Transactional
+	public List<Optional<Object>> reactToAll(List<?> messages) {
+		Objects.requireNonNull(messages, "messages must not be null!");
+
+		List<Optional<Object>> responses = new ArrayList<>(messages.size());
+		for (Object message : messages) {
+			Optional<Object> response = behavior.reactTo(message);
+			responses.add(response);
+		}
+		return responses;
+	}
+
+	private Optional<Object> reactToOrRespondWithError(Object message) {
+		Optional<Object> response;
+		try {
+			response = behavior.reactTo(message);
+		} catch (RuntimeException e) {
+			response = Optional.of(BatchErrorResponse.of(message, e));
+		}
+		return response;
+	}
+}
@@ -0,0 +1,33 @@
+package org.requirementsascode.spring.behavior.web;
+
+import org.requirementsascode.Behavior;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class registers a batch behavior (if there isn't any yet). The batch
+ * behavior passes the messages of a batch to the registered behavior.
+ *
+ * @author b_muth
+ *
+ */
+@Configuration
+@ConditionalOnBean(Behavior.class)
+@AutoConfigureAfter(BehaviorConfiguration.class)
+class BatchConfiguration {
+	/**
+	 * Registers a batch behavior based on the specified behavior.
+	 *
+	 * @param behavior the behavior that reacts to each message of a batch
+	 * @return the registered batch behavior
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	BatchBehavior batchBehavior(Behavior behavior) {
+		BatchBehavior batchBehavior = new BatchBehavior(behavior);
+		return batchBehavior;
+	}
+}
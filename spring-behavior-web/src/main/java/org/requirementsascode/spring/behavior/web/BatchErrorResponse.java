@@ -0,0 +1,89 @@
+package org.requirementsascode.spring.behavior.web;
+
+/**
+ * The response for a message of a batch that the behavior couldn't react to,
+ * because an exception was thrown.
+ *
+ * @author b_muth
+ *
+ */
+public class BatchErrorResponse {
+	private final String messageType;
+	private final String error;
+	private final String message;
+	private final Integer index;
+
+	/**
+	 * Creates an error response.
+	 *
+	 * @param messageType the simple class name of the message that caused the error
+	 * @param error       the simple class name of the exception that was thrown
+	 * @param message     the message of the exception that was thrown
+	 */
+	public BatchErrorResponse(String messageType, String error, String message) {
+		this(messageType, error, message, null);
+	}
+
+	/**
+	 * Creates an error response for the message at the specified index of a
+	 * stream.
+	 *
+	 * @param messageType the simple class name of the message that caused the error
+	 * @param error       the simple class name of the exception that was thrown
+	 * @param message     the message of the exception that was thrown
+	 * @param index       the index of the message in the stream, starting at 0
+	 */
+	public BatchErrorResponse(String messageType, String error, String message, Integer index) {
+		this.messageType = messageType;
+		this.error = error;
+		this.message = message;
+		this.index = index;
+	}
+
+	static BatchErrorResponse of(Object message, Exception exception) {
+		return of(message, exception, null);
+	}
+
+	static BatchErrorResponse of(Object message, Exception exception, Integer index) {
+		String messageType = message == null ? null : message.getClass().getSimpleName();
+		String error = exception.getClass().getSimpleName();
+		return new BatchErrorResponse(messageType, error, exception.getMessage(), index);
+	}
+
+	/**
+	 * Returns the type of message that caused the error.
+	 *
+	 * @return the simple class name of the message
+	 */
+	public String getMessageType() {
+		return messageType;
+	}
+
+	/**
+	 * Returns the type of exception that was thrown.
+	 *
+	 * @return the simple class name of the exception
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Returns the message of the exception that was thrown.
+	 *
+	 * @return the exception message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Returns the index of the message that caused the error, if it's a message of
+	 * a stream. For a batch, the index is the position of the response instead.
+	 *
+	 * @return the index of the message in the stream, or null for a batch
+	 */
+	public Integer getIndex() {
+		return index;
+	}
+}
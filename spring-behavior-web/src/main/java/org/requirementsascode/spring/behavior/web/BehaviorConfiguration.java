@@ -1,11 +1,36 @@
 package org.requirementsascode.spring.behavior.web;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import org.requirementsascode.Behavior;
 import org.requirementsascode.BehaviorModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.Context;
 
 /**
  * This class registers a behavior (if there isn't any yet). The behavior is
@@ -20,14 +45,210 @@ import org.springframework.context.annotation.Configuration;
 class BehaviorConfiguration {
 	/**
 	 * Registers a transactional behavior based on the specified behavior model.
+	 * If possible, the model is compiled, so that the step that reacts to a
+	 * message is looked up in a dispatch table. The compiled behavior is decorated
+	 * by the behavior decorators that run inside of the transaction.
 	 * 
 	 * @param behaviorModel the behavior model specifying the behavior to be
 	 *                      registered
+	 * @param decorators    the behavior decorators, in their order
 	 * @return the registered behavior
 	 */
 	@Bean
-	Behavior behavior(BehaviorModel behaviorModel) {
-		TransactionalBehavior transactionalBehavior = new TransactionalBehavior(behaviorModel);
+	TransactionalBehavior transactionalBehavior(BehaviorModel behaviorModel,
+		ObjectProvider<BehaviorDecorator> decorators) {
+		Behavior compiledBehavior = CompiledBehavior.of(behaviorModel);
+		Behavior decoratedBehavior = decorate(compiledBehavior, decorators, true);
+		TransactionalBehavior transactionalBehavior = new TransactionalBehavior(decoratedBehavior);
 		return transactionalBehavior;
 	}
+
+	/**
+	 * Registers the behavior that is called by the endpoint. It's the
+	 * transactional behavior, decorated by the behavior decorator beans that run
+	 * outside of the transaction (if there are any). The transactional behavior
+	 * is a separate bean, so that Spring starts a transaction when it's called by
+	 * a decorator.
+	 * 
+	 * If the <code>behavior.queries</code> property is set, the messages of the
+	 * specified query classes are reacted to in read-only transactions. Each query
+	 * class is either the simple name of a message class of the model, or the
+	 * fully qualified name of a class or interface (e.g. a marker interface that
+	 * all query classes implement).
+	 * 
+	 * If the <code>behavior.lazy-transactions</code> property is true, a
+	 * transaction is only started for messages that a step of the model can
+	 * react to (see {@link LazyTransactionalBehavior}).
+	 * 
+	 * @param transactionalBehavior the registered transactional behavior
+	 * @param decorators            the behavior decorators, in their order
+	 * @param queryClassNames       the names of the query classes
+	 * @param lazyTransactions      whether transactions are only started for
+	 *                              messages with a matching step
+	 * @return the registered behavior
+	 */
+	@Bean
+	@Primary
+	Behavior behavior(TransactionalBehavior transactionalBehavior, ObjectProvider<BehaviorDecorator> decorators,
+		@Value("${behavior.queries:}") String[] queryClassNames,
+		@Value("${behavior.lazy-transactions:false}") boolean lazyTransactions) {
+		Behavior readOnlyQueryBehavior = queryClassNames.length == 0 ? transactionalBehavior
+			: ReadOnlyQueryBehavior.of(transactionalBehavior, queryClassesOf(transactionalBehavior, queryClassNames));
+		Behavior lazyTransactionalBehavior = lazyTransactions ? LazyTransactionalBehavior.of(readOnlyQueryBehavior)
+			: readOnlyQueryBehavior;
+		Behavior behavior = decorate(lazyTransactionalBehavior, decorators, false);
+		return behavior;
+	}
+
+	private List<Class<?>> queryClassesOf(Behavior behavior, String[] queryClassNames) {
+		List<Class<?>> queryClasses = new ArrayList<>();
+		for (String queryClassName : queryClassNames) {
+			queryClasses.add(messageClassOf(behavior.behaviorModel(), queryClassName));
+		}
+		return queryClasses;
+	}
+
+	/**
+	 * Returns the message class of the model with the specified simple name, or
+	 * else the class with the specified fully qualified name.
+	 */
+	static Class<?> messageClassOf(BehaviorModel behaviorModel, String className) {
+		String trimmedName = className.trim();
+		Set<Class<?>> messageClasses = DispatchTable.of(behaviorModel.model()).messageClasses();
+		Optional<Class<?>> messageClass = messageClasses.stream()
+			.filter(mc -> mc.getSimpleName().equals(trimmedName))
+			.findFirst();
+		return messageClass.isPresent() ? messageClass.get()
+			: loadClass(trimmedName, behaviorModel.getClass().getClassLoader());
+	}
+
+	private static Class<?> loadClass(String className, ClassLoader classLoader) {
+		try {
+			return ClassUtils.forName(className, classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			throw new IllegalStateException("Class " + className
+				+ " is neither a message class of the model, nor a class on the classpath", e);
+		}
+	}
+
+	private Behavior decorate(Behavior behavior, ObjectProvider<BehaviorDecorator> decorators,
+		boolean insideTransaction) {
+		List<BehaviorDecorator> orderedDecorators = decorators.orderedStream()
+			.filter(decorator -> decorator.insideTransaction() == insideTransaction)
+			.collect(Collectors.toList());
+		Behavior decoratedBehavior = behavior;
+		for (BehaviorDecorator decorator : orderedDecorators) {
+			decoratedBehavior = decorator.decorate(decoratedBehavior);
+		}
+		return decoratedBehavior;
+	}
+
+	/**
+	 * Records the metrics of the behavior, if Micrometer is on the classpath and
+	 * a meter registry bean exists (e.g. via Spring Boot Actuator). To disable
+	 * that, set the <code>behavior.metrics.enabled</code> property to false.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+	@ConditionalOnProperty(prefix = "behavior", name = "metrics.enabled", havingValue = "true", matchIfMissing = true)
+	static class MetricsConfiguration {
+		@Bean
+		BehaviorDecorator instrumentedBehaviorDecorator(ObjectProvider<MeterRegistry> meterRegistry) {
+			return behavior -> {
+				MeterRegistry registry = meterRegistry.getIfUnique();
+				return registry == null ? behavior : InstrumentedBehavior.of(behavior, registry);
+			};
+		}
+
+		@Bean
+		RetryListener retryMetrics(BehaviorModel behaviorModel, ObjectProvider<MeterRegistry> meterRegistry) {
+			MeterRegistry registry = meterRegistry.getIfUnique();
+			return registry == null ? new RetryListener() {} : RetryMetrics.of(behaviorModel, registry);
+		}
+	}
+
+	/**
+	 * Reacts to a message again after an optimistic locking failure, in a new
+	 * transaction, if the <code>behavior.retry.max-attempts</code> property is
+	 * set. The properties are:
+	 * <ul>
+	 * <li><code>behavior.retry.max-attempts</code>: the maximum number of
+	 * attempts, including the first one</li>
+	 * <li><code>behavior.retry.initial-backoff</code> and
+	 * <code>behavior.retry.max-backoff</code>: the backoff before the first retry,
+	 * and the maximum backoff (default: 10ms and 200ms)</li>
+	 * <li><code>behavior.retry.message-max-attempts.[MessageClass]</code>: the
+	 * maximum number of attempts for a message class, specified like a query
+	 * class</li>
+	 * </ul>
+	 * The retrying behavior is the first decorator outside of the transaction.
+	 * The retries are notified to the {@link RetryListener} beans, e.g. for
+	 * metrics.
+	 */
+	@Configuration
+	@ConditionalOnProperty(prefix = "behavior", name = "retry.max-attempts")
+	static class RetryConfiguration {
+		private static final String PREFIX = "behavior.retry.";
+
+		@Bean
+		@Order(Ordered.HIGHEST_PRECEDENCE)
+		BehaviorDecorator retryingBehaviorDecorator(Environment environment, ObjectProvider<RetryListener> listeners) {
+			Binder binder = Binder.get(environment);
+			int maxAttempts = binder.bind(PREFIX + "max-attempts", Integer.class).get();
+			Duration initialBackoff = binder.bind(PREFIX + "initial-backoff", Duration.class)
+				.orElse(Duration.ofMillis(10));
+			Duration maxBackoff = binder.bind(PREFIX + "max-backoff", Duration.class).orElse(Duration.ofMillis(200));
+			Map<String, Integer> messageMaxAttempts = binder
+				.bind(PREFIX + "message-max-attempts", Bindable.mapOf(String.class, Integer.class))
+				.orElse(Collections.emptyMap());
+
+			return behavior -> {
+				RetryingBehavior.Builder builder = RetryingBehavior.builder(behavior)
+					.maxAttempts(maxAttempts)
+					.backoff(initialBackoff, maxBackoff);
+				messageMaxAttempts.forEach((className, attempts) -> builder
+					.maxAttempts(messageClassOf(behavior.behaviorModel(), className), attempts));
+				listeners.orderedStream().forEach(builder::listener);
+				return builder.build();
+			};
+		}
+	}
+
+	/**
+	 * Creates an OpenTelemetry span whenever the behavior reacts to a message, if
+	 * OpenTelemetry is on the classpath and an <code>OpenTelemetry</code> bean
+	 * exists. To disable that, set the <code>behavior.tracing.enabled</code>
+	 * property to false. Without tracing, no decorators are registered, so there's
+	 * no overhead.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "io.opentelemetry.api.OpenTelemetry")
+	@ConditionalOnBean(type = "io.opentelemetry.api.OpenTelemetry")
+	@ConditionalOnProperty(prefix = "behavior", name = "tracing.enabled", havingValue = "true", matchIfMissing = true)
+	static class TracingConfiguration {
+		static final String INSTRUMENTATION_NAME = "org.requirementsascode.spring.behavior.web";
+
+		@Bean
+		BehaviorDecorator tracingBehaviorDecorator(OpenTelemetry openTelemetry) {
+			return TracingBehavior.decorator(openTelemetry.getTracer(INSTRUMENTATION_NAME));
+		}
+
+		@Bean
+		@ConditionalOnClass(name = "org.springframework.transaction.support.TransactionSynchronizationManager")
+		BehaviorDecorator transactionEventsDecorator() {
+			return TracingBehavior.transactionEvents();
+		}
+
+		/**
+		 * Propagates the current span to the tasks of Spring's task executor, e.g. to
+		 * asynchronous event listeners.
+		 * 
+		 * @return the task decorator
+		 */
+		@Bean
+		@ConditionalOnMissingBean
+		TaskDecorator tracingTaskDecorator() {
+			return runnable -> Context.current().wrap(runnable);
+		}
+	}
 }
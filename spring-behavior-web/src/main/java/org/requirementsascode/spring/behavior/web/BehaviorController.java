@@ -1,25 +1,114 @@
 package org.requirementsascode.spring.behavior.web;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.requirementsascode.Behavior;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 @RestController
 @ConditionalOnProperty(prefix = "behavior", name = "endpoint")
+@ConditionalOnWebApplication(type = Type.SERVLET)
 class BehaviorController {
 	private static final String EMPTY_STRING_RESPONSE = "";
 
 	private final Behavior behavior;
+	private final Optional<VersionedBehavior> versionedBehavior;
+	private final BatchBehavior batchBehavior;
+	private final boolean isBatchAtomic;
+	private final MessageStream messageStream;
+	private final AdmissionControl admissionControl;
 
-	public BehaviorController(Behavior behavior) {
+	public BehaviorController(Behavior behavior, BatchBehavior batchBehavior,
+		@Value("${behavior.batch.atomic:false}") boolean isBatchAtomic, ObjectMapper objectMapper,
+		@Value("${behavior.stream.commit-interval:100}") int streamCommitInterval,
+		ObjectProvider<VersionedBehavior> versionedBehavior, ObjectProvider<AdmissionControl> admissionControl) {
 		this.behavior = behavior;
+		this.versionedBehavior = Optional.ofNullable(versionedBehavior.getIfUnique());
+		this.batchBehavior = batchBehavior;
+		this.isBatchAtomic = isBatchAtomic;
+		this.messageStream = new MessageStream(batchBehavior, objectMapper, streamCommitInterval);
+		this.admissionControl = admissionControl.getIfUnique(() -> AdmissionControl.builder().build());
 	}
 
 	@PostMapping("${behavior.endpoint}")
-	public Object handleRequest(@RequestBody Object request) {		
-		Object response = behavior.reactTo(request).orElse(EMPTY_STRING_RESPONSE);
-		return response;
+	public ResponseEntity<Object> handleRequest(@RequestBody Object request,
+		@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		Optional<String> entityTag = versionedBehavior.flatMap(versioned -> versioned.versionOf(request)).map(EntityTags::of);
+		if (entityTag.isPresent() && EntityTags.matches(ifNoneMatch, entityTag.get())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag.get()).build();
+		}
+
+		AdmissionControl.Permit permit = admissionControl.admit(request);
+		try {
+			Object response = behavior.reactTo(request).orElse(EMPTY_STRING_RESPONSE);
+			ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+			entityTag.ifPresent(responseBuilder::eTag);
+			return responseBuilder.body(response);
+		} finally {
+			permit.close();
+		}
+	}
+
+	@PostMapping("${behavior.endpoint}/batch")
+	public List<Object> handleBatchRequest(@RequestBody List<Object> requests) {
+		List<Optional<Object>> optionalResponses;
+		AdmissionControl.Permit permit = admissionControl.admit(requests);
+		try {
+			optionalResponses = isBatchAtomic ? batchBehavior.reactToAll(requests) : batchBehavior.reactToEach(requests);
+		} finally {
+			permit.close();
+		}
+
+		List<Object> responses = optionalResponses.stream()
+			.map(r -> r.orElse(EMPTY_STRING_RESPONSE))
+			.collect(Collectors.toList());
+		return responses;
+	}
+
+	@PostMapping(path = "${behavior.endpoint}/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public void handleStreamRequest(InputStream requests, HttpServletResponse response) throws IOException {
+		AdmissionControl.Permit permit = admissionControl.admit(requests);
+		try {
+			response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+			messageStream.reactTo(requests, response.getOutputStream());
+		} finally {
+			permit.close();
+		}
+	}
+
+	/**
+	 * Rejects a request that the admission control hasn't admitted. A batch or a
+	 * stream of requests is admitted as a single command.
+	 * 
+	 * @param exception the exception of the admission control
+	 * @return the response with status 503 (Service Unavailable)
+	 */
+	@ExceptionHandler(AdmissionRejectedException.class)
+	public ResponseEntity<Object> rejectRequest(AdmissionRejectedException exception) {
+		long retryAfterSeconds = Math.max(1, (exception.getRetryAfter().toMillis() + 999) / 1000);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+			.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+			.build();
 	}
 }
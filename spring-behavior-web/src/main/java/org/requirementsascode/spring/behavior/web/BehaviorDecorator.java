@@ -0,0 +1,52 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.Objects;
+
+import org.requirementsascode.Behavior;
+
+/**
+ * Wraps a behavior in another behavior that adds a cross-cutting concern, e.g.
+ * metrics.
+ *
+ * The behavior that spring-behavior-web registers is decorated by all beans of
+ * this type, in their order (see <code>@Order</code>). The first decorator
+ * wraps the transactional behavior, the last decorator's behavior is called
+ * first. Decorators that need to run inside of the transaction return true
+ * from {@link #insideTransaction()}.
+ *
+ * @author b_muth
+ *
+ */
+@FunctionalInterface
+public interface BehaviorDecorator {
+	/**
+	 * Wraps the specified behavior.
+	 *
+	 * @param behavior the behavior to be decorated
+	 * @return the decorated behavior
+	 */
+	Behavior decorate(Behavior behavior);
+
+	/**
+	 * Returns whether this decorator wraps the behavior inside of the transaction
+	 * that is started for each message. By default, the decorator wraps the
+	 * transactional behavior.
+	 *
+	 * @return true if the decorated behavior is called inside of the transaction
+	 */
+	default boolean insideTransaction() {
+		return false;
+	}
+
+	/**
+	 * Returns a decorator that first applies this decorator, and then wraps the
+	 * result with the specified decorator.
+	 *
+	 * @param after the decorator of the behavior that this decorator returns
+	 * @return the combined decorator
+	 */
+	default BehaviorDecorator andThen(BehaviorDecorator after) {
+		Objects.requireNonNull(after, "after must not be null!");
+		return behavior -> after.decorate(decorate(behavior));
+	}
+}
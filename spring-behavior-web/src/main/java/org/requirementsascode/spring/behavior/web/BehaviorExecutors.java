@@ -0,0 +1,82 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Creates the executors that call the behavior. Virtual threads are used if the
+ * JDK supports them. Otherwise, a bounded pool of platform threads is used.
+ * 
+ * @author b_muth
+ *
+ */
+final class BehaviorExecutors {
+	static final String THREAD_NAME_PREFIX = "behavior-";
+
+	private BehaviorExecutors() {
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task, if the
+	 * JDK supports virtual threads. Otherwise, creates a bounded pool of platform
+	 * threads.
+	 * 
+	 * @param poolSize      the maximum number of platform threads, if virtual
+	 *                      threads are not supported
+	 * @param queueCapacity the maximum number of tasks waiting for a platform
+	 *                      thread, if virtual threads are not supported
+	 * @return the created executor
+	 */
+	static ExecutorService newVirtualThreadOrBoundedExecutor(int poolSize, int queueCapacity) {
+		return newVirtualThreadPerTaskExecutor().orElseGet(() -> newBoundedExecutor(poolSize, queueCapacity));
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task. The JDK
+	 * method is looked up reflectively, so that this class still runs on Java 8.
+	 * 
+	 * @return the created executor, or an empty optional if the JDK doesn't
+	 *         support virtual threads
+	 */
+	static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+		try {
+			Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			ExecutorService executor = (ExecutorService) factoryMethod.invoke(null);
+			return Optional.of(executor);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Creates a pool of at most the specified number of platform threads. Tasks
+	 * are queued while all threads are busy. If the queue is full as well, tasks
+	 * are rejected with a {@link RejectedExecutionException}. Idle threads are
+	 * terminated after a minute.
+	 * 
+	 * @param poolSize      the maximum number of threads
+	 * @param queueCapacity the maximum number of tasks waiting for a thread
+	 * @return the created executor
+	 */
+	static ExecutorService newBoundedExecutor(int poolSize, int queueCapacity) {
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("poolSize must be positive, but was " + poolSize);
+		}
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queueCapacity must be positive, but was " + queueCapacity);
+		}
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(THREAD_NAME_PREFIX),
+			new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
@@ -0,0 +1,74 @@
+package org.requirementsascode.spring.behavior.web;
+
+/**
+ * A snapshot of the statistics of a {@link CachingBehavior}.
+ *
+ * @author b_muth
+ *
+ */
+public class CacheStatistics {
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long size;
+
+	/**
+	 * Creates a snapshot of cache statistics.
+	 *
+	 * @param hitCount      the number of queries answered from the cache
+	 * @param missCount     the number of queries passed to the behavior
+	 * @param evictionCount the number of responses removed from the cache because
+	 *                      it was full, or they were expired
+	 * @param size          the current number of responses in the cache
+	 */
+	public CacheStatistics(long hitCount, long missCount, long evictionCount, long size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the number of queries answered from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of queries that have been passed to the behavior, because
+	 * there was no valid response in the cache.
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of responses removed from the cache because it was full,
+	 * or they were expired.
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Returns the current number of responses in the cache.
+	 *
+	 * @return the size
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount="
+			+ evictionCount + ", size=" + size + "]";
+	}
+}
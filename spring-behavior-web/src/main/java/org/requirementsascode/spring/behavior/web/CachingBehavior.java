@@ -0,0 +1,415 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.AggregateIds.AggregateIdOf;
+import org.requirementsascode.serialization.MessageSerializationModule;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Wraps any behavior so that the responses to query messages are cached. A
+ * cached response is returned for a query message if an equal query message has
+ * been received before, the response hasn't expired, and no command message for
+ * the same aggregate has been received since then.
+ *
+ * The version of the response to a query message changes whenever a command
+ * message for the same aggregate is received, see {@link #versionOf(Object)}.
+ *
+ * So all changes of an aggregate must go through this caching behavior. If an
+ * aggregate is changed in another way, e.g. by an event listener, call
+ * {@link #invalidate(Object)} with its id afterwards. Otherwise, stale
+ * responses are returned, and clients are told that their responses are still
+ * up to date.
+ *
+ * If a command message is reacted to inside of a transaction that has been
+ * started outside of the caching behavior, e.g. by a batch behavior, the
+ * versions change again after the transaction has completed.
+ *
+ * Query messages are compared with <code>equals()</code>, so their classes must
+ * implement <code>equals()</code> and <code>hashCode()</code>.
+ *
+ * Create a caching behavior with {@link #builder(Behavior)}.
+ *
+ * @author b_muth
+ *
+ */
+public class CachingBehavior implements VersionedBehavior {
+	private static final int NUMBER_OF_AGGREGATE_STRIPES = 1024;
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final boolean IS_TRANSACTION_SYNCHRONIZATION_PRESENT = ClassUtils.isPresent(
+		"org.springframework.transaction.support.TransactionSynchronizationManager",
+		CachingBehavior.class.getClassLoader());
+
+	private final Behavior behavior;
+	private final AggregateIds queryAggregateIds;
+	private final AggregateIds commandAggregateIds;
+	private final Map<Object, CachedResponse> cachedResponses;
+	private final AtomicLongArray aggregateGenerations;
+	private final long timeToLiveNanos;
+	private final LongSupplier nanoTime;
+	private final ObjectWriter queryWriter;
+	private final String instanceId;
+
+	private final LongAdder hitCount;
+	private final LongAdder missCount;
+	private final LongAdder evictionCount;
+
+	private CachingBehavior(Builder builder) {
+		this.behavior = builder.behavior;
+		this.queryAggregateIds = AggregateIds.of(builder.queries);
+		this.commandAggregateIds = AggregateIds.of(builder.commands);
+		this.cachedResponses = new BoundedLinkedHashMap(builder.maximumSize);
+		this.aggregateGenerations = new AtomicLongArray(NUMBER_OF_AGGREGATE_STRIPES);
+		this.timeToLiveNanos = builder.timeToLive.toNanos();
+		this.nanoTime = builder.nanoTime;
+		this.queryWriter = builder.objectMapper.writerFor(Object.class);
+		this.instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+		this.hitCount = new LongAdder();
+		this.missCount = new LongAdder();
+		this.evictionCount = new LongAdder();
+	}
+
+	/**
+	 * Starts building a caching behavior that wraps the specified behavior.
+	 *
+	 * @param behavior the behavior whose responses to queries are cached
+	 * @return the builder
+	 */
+	public static Builder builder(Behavior behavior) {
+		return new Builder(behavior);
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		Optional<T> response;
+		Optional<AggregateIdOf<?>> queryAggregateId = queryAggregateIds.of(message.getClass());
+		if (queryAggregateId.isPresent()) {
+			response = reactToQuery(message, queryAggregateId.get());
+		} else {
+			response = reactToOtherMessage(message);
+		}
+		return response;
+	}
+
+	/**
+	 * Returns the current version of the response to the specified query message.
+	 * The version consists of a SHA-256 digest of the serialized query message,
+	 * and of the aggregate's generation, which changes whenever a command message
+	 * for the same aggregate is received. It's unique for this caching behavior
+	 * instance, so it changes after a restart of the application.
+	 *
+	 * The version is determined without reacting to the query message.
+	 *
+	 * @param message the query message
+	 * @return the version, or an empty optional if the message isn't a query
+	 *         message of this caching behavior, or can't be serialized
+	 */
+	@Override
+	public Optional<String> versionOf(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+		return queryAggregateIds.of(message.getClass()).flatMap(aggregateIdOf -> {
+			int aggregateStripe = aggregateStripeOf(aggregateIdOf.apply(message));
+			long generation = aggregateGenerations.get(aggregateStripe);
+			return digestOf(message).map(digest -> message.getClass().getSimpleName() + "-" + digest + "-"
+				+ instanceId + "-" + Long.toHexString(generation));
+		});
+	}
+
+	/**
+	 * Invalidates the cached responses of query messages for the specified
+	 * aggregate, and changes their versions. Call this method after an aggregate
+	 * has been changed without a command message passing through this caching
+	 * behavior.
+	 *
+	 * @param aggregateId the id of the changed aggregate
+	 */
+	public void invalidate(Object aggregateId) {
+		aggregateGenerations.incrementAndGet(aggregateStripeOf(aggregateId));
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	/**
+	 * Returns a snapshot of the statistics of this caching behavior.
+	 *
+	 * @return the statistics
+	 */
+	public CacheStatistics statistics() {
+		long size;
+		synchronized (cachedResponses) {
+			size = cachedResponses.size();
+		}
+		return new CacheStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), size);
+	}
+
+	/**
+	 * Removes all responses from the cache.
+	 */
+	public void clear() {
+		synchronized (cachedResponses) {
+			cachedResponses.clear();
+		}
+	}
+
+	private <T> Optional<T> reactToQuery(Object query, AggregateIdOf<?> aggregateIdOf) {
+		int aggregateStripe = aggregateStripeOf(aggregateIdOf.apply(query));
+		long now = nanoTime.getAsLong();
+
+		CachedResponse cachedResponse;
+		synchronized (cachedResponses) {
+			cachedResponse = cachedResponses.get(query);
+			if (cachedResponse != null && cachedResponse.isExpired(now)) {
+				cachedResponses.remove(query);
+				evictionCount.increment();
+				cachedResponse = null;
+			}
+		}
+
+		if (cachedResponse != null && cachedResponse.generation == aggregateGenerations.get(aggregateStripe)) {
+			hitCount.increment();
+			return cachedResponse.response();
+		}
+
+		missCount.increment();
+		// The generation is read before reacting, so that a response based on data
+		// that a concurrent command changes is never valid
+		long generation = aggregateGenerations.get(aggregateStripe);
+		Optional<T> response = behavior.reactTo(query);
+		synchronized (cachedResponses) {
+			cachedResponses.put(query, new CachedResponse(response, generation, now + timeToLiveNanos));
+		}
+		return response;
+	}
+
+	private <T> Optional<T> reactToOtherMessage(Object message) {
+		Optional<AggregateIdOf<?>> commandAggregateId = commandAggregateIds.of(message.getClass());
+		try {
+			return behavior.reactTo(message);
+		} finally {
+			if (commandAggregateId.isPresent()) {
+				int aggregateStripe = aggregateStripeOf(commandAggregateId.get().apply(message));
+				aggregateGenerations.incrementAndGet(aggregateStripe);
+				// Inside of a transaction, a query may read the old data with the new
+				// generation until the commit, so the generation changes again afterwards
+				if (IS_TRANSACTION_SYNCHRONIZATION_PRESENT) {
+					AfterCompletion.incrementGeneration(aggregateGenerations, aggregateStripe);
+				}
+			}
+		}
+	}
+
+	private Optional<String> digestOf(Object query) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+			byte[] digest = messageDigest.digest(queryWriter.writeValueAsBytes(query));
+			return Optional.of(Base64.getUrlEncoder().withoutPadding().encodeToString(digest));
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static int aggregateStripeOf(Object aggregateId) {
+		int hash = Objects.hashCode(aggregateId);
+		int spreadHash = hash ^ (hash >>> 16);
+		return spreadHash & (NUMBER_OF_AGGREGATE_STRIPES - 1);
+	}
+
+	/**
+	 * Changes the generation of an aggregate after the current transaction has
+	 * completed. Only loaded if Spring's transaction support is on the classpath.
+	 */
+	private static class AfterCompletion {
+		static void incrementGeneration(AtomicLongArray aggregateGenerations, int aggregateStripe) {
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						aggregateGenerations.incrementAndGet(aggregateStripe);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Builds a caching behavior.
+	 */
+	public static class Builder {
+		private final Behavior behavior;
+		private final List<AggregateIdOf<?>> queries;
+		private final List<AggregateIdOf<?>> commands;
+		private int maximumSize;
+		private Duration timeToLive;
+		private LongSupplier nanoTime;
+		private ObjectMapper objectMapper;
+
+		private Builder(Behavior behavior) {
+			this.behavior = Objects.requireNonNull(behavior, "behavior must not be null!");
+			this.queries = new ArrayList<>();
+			this.commands = new ArrayList<>();
+			this.maximumSize = 1000;
+			this.timeToLive = Duration.ofMinutes(10);
+			this.nanoTime = System::nanoTime;
+		}
+
+		/**
+		 * Sets the object mapper that serializes query messages for their versions
+		 * (default: an object mapper with a {@link MessageSerializationModule} for the
+		 * model of the wrapped behavior).
+		 *
+		 * @param objectMapper the object mapper
+		 * @return this builder
+		 */
+		public Builder objectMapper(ObjectMapper objectMapper) {
+			this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null!");
+			return this;
+		}
+
+		/**
+		 * Caches the responses to query messages of the specified class (or its
+		 * subclasses).
+		 *
+		 * @param <T>         the type of query message
+		 * @param queryClass  the class of query messages
+		 * @param aggregateId the function that returns the id of the aggregate that a
+		 *                    query message reads from
+		 * @return this builder
+		 */
+		public <T> Builder cache(Class<T> queryClass, Function<? super T, ?> aggregateId) {
+			queries.add(new AggregateIdOf<>(queryClass, aggregateId));
+			return this;
+		}
+
+		/**
+		 * Invalidates the cached responses of query messages for the same aggregate,
+		 * whenever a command message of the specified class (or its subclasses) is
+		 * received.
+		 *
+		 * @param <T>          the type of command message
+		 * @param commandClass the class of command messages
+		 * @param aggregateId  the function that returns the id of the aggregate that a
+		 *                     command message changes
+		 * @return this builder
+		 */
+		public <T> Builder invalidateOn(Class<T> commandClass, Function<? super T, ?> aggregateId) {
+			commands.add(new AggregateIdOf<>(commandClass, aggregateId));
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of cached responses (default: 1000). If the cache is
+		 * full, the least recently used response is removed.
+		 *
+		 * @param maximumSize the maximum number of cached responses
+		 * @return this builder
+		 */
+		public Builder maximumSize(int maximumSize) {
+			if (maximumSize < 1) {
+				throw new IllegalArgumentException("maximumSize must be positive, but was " + maximumSize);
+			}
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Sets how long a response stays valid after it has been cached (default: 10
+		 * minutes).
+		 *
+		 * @param timeToLive the time to live of cached responses
+		 * @return this builder
+		 */
+		public Builder timeToLive(Duration timeToLive) {
+			Objects.requireNonNull(timeToLive, "timeToLive must not be null!");
+			if (timeToLive.isNegative() || timeToLive.isZero()) {
+				throw new IllegalArgumentException("timeToLive must be positive, but was " + timeToLive);
+			}
+			this.timeToLive = timeToLive;
+			return this;
+		}
+
+		Builder nanoTime(LongSupplier nanoTime) {
+			this.nanoTime = Objects.requireNonNull(nanoTime, "nanoTime must not be null!");
+			return this;
+		}
+
+		/**
+		 * Builds the caching behavior.
+		 *
+		 * @return the caching behavior
+		 */
+		public CachingBehavior build() {
+			if (objectMapper == null) {
+				objectMapper = new ObjectMapper()
+					.registerModule(new MessageSerializationModule(behavior.behaviorModel().model()));
+			}
+			return new CachingBehavior(this);
+		}
+	}
+
+	private static class CachedResponse {
+		private final Optional<?> response;
+		private final long generation;
+		private final long expiresAtNanos;
+
+		CachedResponse(Optional<?> response, long generation, long expiresAtNanos) {
+			this.response = response;
+			this.generation = generation;
+			this.expiresAtNanos = expiresAtNanos;
+		}
+
+		boolean isExpired(long nowNanos) {
+			return nowNanos - expiresAtNanos >= 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> Optional<T> response() {
+			return (Optional<T>) response;
+		}
+	}
+
+	private class BoundedLinkedHashMap extends LinkedHashMap<Object, CachedResponse> {
+		private static final long serialVersionUID = 1L;
+		private final int maximumSize;
+
+		BoundedLinkedHashMap(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, CachedResponse> eldest) {
+			boolean isFull = size() > maximumSize;
+			if (isFull) {
+				evictionCount.increment();
+			}
+			return isFull;
+		}
+	}
+}
@@ -0,0 +1,358 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.AggregateIds.AggregateIdOf;
+
+/**
+ * Wraps a behavior so that concurrent command messages for the same aggregate
+ * are coalesced into a group, and reacted to in a single transaction. Within the
+ * transaction, the commands are reacted to in the order they have been
+ * received. With JPA, the aggregate is loaded only once for the whole group,
+ * and the changes are flushed only once at the end of the transaction.
+ *
+ * The first command for an aggregate starts a group, and waits for the
+ * specified window. All commands for the same aggregate that are received in
+ * the meantime join the group. Then the thread of the first command reacts to
+ * all commands of the group, and each caller receives the response to its own
+ * command.
+ *
+ * If the behavior throws an exception for a command of the group, the
+ * transaction is rolled back, and the caller of the failing command receives
+ * the exception. The commands before the failing one haven't been committed,
+ * so they are reacted to again in a new transaction, and the commands after
+ * the failing one in another one. If the behavior has side effects outside of
+ * the transaction that must not happen twice, use
+ * {@link Builder#failRolledBackCommands()} instead.
+ *
+ * All other messages are passed to the behavior directly.
+ *
+ * Create a coalescing behavior with {@link #builder(Behavior, BatchBehavior)}.
+ *
+ * @author b_muth
+ *
+ */
+public class CoalescingBehavior implements Behavior {
+	private final Behavior behavior;
+	private final BatchBehavior batchBehavior;
+	private final AggregateIds commandAggregateIds;
+	private final ConcurrentMap<Object, Group> openGroups;
+	private final long windowNanos;
+	private final int maximumGroupSize;
+	private final boolean isFailingRolledBackCommands;
+
+	private CoalescingBehavior(Builder builder) {
+		this.behavior = builder.behavior;
+		this.batchBehavior = builder.batchBehavior;
+		this.commandAggregateIds = AggregateIds.of(builder.commands);
+		this.openGroups = new ConcurrentHashMap<>();
+		this.windowNanos = builder.window.toNanos();
+		this.maximumGroupSize = builder.maximumGroupSize;
+		this.isFailingRolledBackCommands = builder.isFailingRolledBackCommands;
+	}
+
+	/**
+	 * Starts building a coalescing behavior.
+	 *
+	 * @param behavior      the transactional behavior that reacts to single
+	 *                      messages
+	 * @param batchBehavior the batch behavior that reacts to a group of commands in
+	 *                      a single transaction. It must pass the commands to the
+	 *                      transactional behavior, not to the coalescing behavior.
+	 * @return the builder
+	 */
+	public static Builder builder(Behavior behavior, BatchBehavior batchBehavior) {
+		return new Builder(behavior, batchBehavior);
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		Optional<AggregateIdOf<?>> commandAggregateId = commandAggregateIds.of(message.getClass());
+		if (!commandAggregateId.isPresent()) {
+			return behavior.reactTo(message);
+		}
+		Object aggregateId = commandAggregateId.get().apply(message);
+		return aggregateId == null ? behavior.reactTo(message) : reactToCommand(message, aggregateId);
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	private <T> Optional<T> reactToCommand(Object command, Object aggregateId) {
+		PendingCommand pendingCommand = new PendingCommand(command);
+		Group group = openGroups.compute(aggregateId,
+			(id, openGroup) -> openGroup != null && openGroup.add(pendingCommand) ? openGroup
+				: new Group(pendingCommand));
+
+		if (group.isStartedBy(pendingCommand)) {
+			group.awaitWindow();
+			openGroups.remove(aggregateId, group);
+			group.close();
+			reactTo(group);
+		}
+		return pendingCommand.response();
+	}
+
+	private void reactTo(Group group) {
+		List<PendingCommand> pendingCommands = group.pendingCommands();
+		try {
+			if (pendingCommands.size() == 1) {
+				reactToSingle(pendingCommands.get(0));
+			} else {
+				reactToAllUntilDone(pendingCommands);
+			}
+		} finally {
+			for (PendingCommand pendingCommand : pendingCommands) {
+				pendingCommand.fail(new IllegalStateException("Command hasn't been reacted to"));
+			}
+		}
+	}
+
+	private void reactToSingle(PendingCommand pendingCommand) {
+		try {
+			pendingCommand.complete(behavior.reactTo(pendingCommand.command));
+		} catch (Throwable e) {
+			pendingCommand.fail(e);
+		}
+	}
+
+	/**
+	 * Reacts to the commands in as few transactions as possible. Each failing
+	 * command ends a transaction.
+	 */
+	private void reactToAllUntilDone(List<PendingCommand> pendingCommands) {
+		int reactedTo = 0;
+		while (reactedTo < pendingCommands.size()) {
+			reactedTo += reactToAll(pendingCommands.subList(reactedTo, pendingCommands.size()));
+		}
+	}
+
+	/**
+	 * Reacts to the commands in a single transaction, until a command fails.
+	 *
+	 * @return the number of commands that have been reacted to, including the
+	 *         failing command
+	 */
+	private int reactToAll(List<PendingCommand> pendingCommands) {
+		List<Object> commands = new ArrayList<>(pendingCommands.size());
+		for (PendingCommand pendingCommand : pendingCommands) {
+			commands.add(pendingCommand.command);
+		}
+
+		ReadPositionList readCommands = new ReadPositionList(commands);
+		try {
+			List<Optional<Object>> responses = batchBehavior.reactToAll(readCommands);
+			for (int i = 0; i < pendingCommands.size(); i++) {
+				pendingCommands.get(i).complete(responses.get(i));
+			}
+			return pendingCommands.size();
+		} catch (Throwable e) {
+			int failedPosition = readCommands.lastReadPosition();
+			pendingCommands.get(failedPosition).fail(e);
+			List<PendingCommand> rolledBackCommands = pendingCommands.subList(0, failedPosition);
+			if (isFailingRolledBackCommands) {
+				for (PendingCommand rolledBackCommand : rolledBackCommands) {
+					rolledBackCommand.fail(new GroupRolledBackException(rolledBackCommand.command, e));
+				}
+			} else {
+				reactToAllUntilDone(rolledBackCommands);
+			}
+			return failedPosition + 1;
+		}
+	}
+
+	/**
+	 * Builds a coalescing behavior.
+	 */
+	public static class Builder {
+		private final Behavior behavior;
+		private final BatchBehavior batchBehavior;
+		private final List<AggregateIdOf<?>> commands;
+		private Duration window;
+		private int maximumGroupSize;
+		private boolean isFailingRolledBackCommands;
+
+		private Builder(Behavior behavior, BatchBehavior batchBehavior) {
+			this.behavior = Objects.requireNonNull(behavior, "behavior must not be null!");
+			this.batchBehavior = Objects.requireNonNull(batchBehavior, "batchBehavior must not be null!");
+			this.commands = new ArrayList<>();
+			this.window = Duration.ofMillis(1);
+			this.maximumGroupSize = 100;
+		}
+
+		/**
+		 * Coalesces command messages of the specified class (or its subclasses) with
+		 * other commands for the same aggregate.
+		 *
+		 * @param <T>          the type of command message
+		 * @param commandClass the class of command messages
+		 * @param aggregateId  the function that returns the id of the aggregate that a
+		 *                     command message changes
+		 * @return this builder
+		 */
+		public <T> Builder coalesce(Class<T> commandClass, Function<? super T, ?> aggregateId) {
+			commands.add(new AggregateIdOf<>(commandClass, aggregateId));
+			return this;
+		}
+
+		/**
+		 * Sets how long the first command of a group waits for other commands to join
+		 * the group (default: 1 millisecond).
+		 *
+		 * @param window the time to wait
+		 * @return this builder
+		 */
+		public Builder window(Duration window) {
+			Objects.requireNonNull(window, "window must not be null!");
+			if (window.isNegative()) {
+				throw new IllegalArgumentException("window must not be negative, but was " + window);
+			}
+			this.window = window;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of commands in a group (default: 100). When a group
+		 * is full, it's reacted to without waiting for the rest of the window.
+		 *
+		 * @param maximumGroupSize the maximum number of commands in a group
+		 * @return this builder
+		 */
+		public Builder maximumGroupSize(int maximumGroupSize) {
+			if (maximumGroupSize < 1) {
+				throw new IllegalArgumentException("maximumGroupSize must be positive, but was " + maximumGroupSize);
+			}
+			this.maximumGroupSize = maximumGroupSize;
+			return this;
+		}
+
+		/**
+		 * Makes the callers of the commands before a failing command of a group
+		 * receive a {@link GroupRolledBackException}, instead of the commands being
+		 * reacted to again in a new transaction. So no command is reacted to twice.
+		 * Use this if the behavior has side effects outside of the transaction, like
+		 * sent emails, that must not happen twice.
+		 *
+		 * @return this builder
+		 */
+		public Builder failRolledBackCommands() {
+			this.isFailingRolledBackCommands = true;
+			return this;
+		}
+
+		/**
+		 * Builds the coalescing behavior.
+		 *
+		 * @return the coalescing behavior
+		 */
+		public CoalescingBehavior build() {
+			return new CoalescingBehavior(this);
+		}
+	}
+
+	private static class PendingCommand {
+		private final Object command;
+		private final CompletableFuture<Optional<Object>> response;
+
+		PendingCommand(Object command) {
+			this.command = command;
+			this.response = new CompletableFuture<>();
+		}
+
+		void complete(Optional<Object> response) {
+			this.response.complete(response);
+		}
+
+		void fail(Throwable exception) {
+			this.response.completeExceptionally(exception);
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> Optional<T> response() {
+			try {
+				return (Optional<T>) response.join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * The commands for the same aggregate. Commands are added while the map of
+	 * open groups is locked for the aggregate, so they're in the order received.
+	 */
+	private class Group {
+		private final PendingCommand firstCommand;
+		private final List<PendingCommand> pendingCommands;
+		private boolean isClosed;
+
+		Group(PendingCommand firstCommand) {
+			this.firstCommand = firstCommand;
+			this.pendingCommands = new ArrayList<>();
+			this.pendingCommands.add(firstCommand);
+		}
+
+		boolean isStartedBy(PendingCommand pendingCommand) {
+			return firstCommand == pendingCommand;
+		}
+
+		synchronized boolean add(PendingCommand pendingCommand) {
+			if (isClosed || pendingCommands.size() >= maximumGroupSize) {
+				return false;
+			}
+			pendingCommands.add(pendingCommand);
+			if (pendingCommands.size() >= maximumGroupSize) {
+				notifyAll();
+			}
+			return true;
+		}
+
+		synchronized void awaitWindow() {
+			long deadline = System.nanoTime() + windowNanos;
+			long remainingNanos = windowNanos;
+			boolean isInterrupted = false;
+			while (remainingNanos > 0 && pendingCommands.size() < maximumGroupSize) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+				} catch (InterruptedException e) {
+					isInterrupted = true;
+					break;
+				}
+				remainingNanos = deadline - System.nanoTime();
+			}
+			if (isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized void close() {
+			isClosed = true;
+		}
+
+		synchronized List<PendingCommand> pendingCommands() {
+			return new ArrayList<>(pendingCommands);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.requirementsascode.AbstractActor;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Condition;
+import org.requirementsascode.FlowlessStep;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.Step;
+import org.requirementsascode.SystemReaction;
+import org.requirementsascode.exception.InfiniteRepetition;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+
+/**
+ * A behavior that reacts to messages like a {@link StatelessBehavior}, but
+ * looks up the step that reacts to a message in a {@link DispatchTable},
+ * instead of checking all steps of the model for each message.
+ *
+ * Only models whose steps are all flowless (i.e. defined with
+ * <code>user(...)</code> or <code>on(...)</code>, not in a flow) can be
+ * compiled. For all other models, {@link #of(BehaviorModel)} returns a
+ * stateless behavior.
+ *
+ * @author b_muth
+ *
+ */
+public class CompiledBehavior implements Behavior {
+	private final BehaviorModel behaviorModel;
+	private final Model model;
+	private final Object defaultResponse;
+	private final Collection<Step> steps;
+	private final DispatchTable dispatchTable;
+
+	private CompiledBehavior(BehaviorModel behaviorModel, Model model) {
+		this.behaviorModel = behaviorModel;
+		this.model = model;
+		this.defaultResponse = behaviorModel.defaultResponse();
+		this.steps = model.getSteps();
+		this.dispatchTable = DispatchTable.of(model);
+	}
+
+	/**
+	 * Creates a compiled behavior for the specified behavior model, if its model
+	 * can be compiled. Otherwise, creates a stateless behavior.
+	 *
+	 * @param behaviorModel the behavior model
+	 * @return the created behavior
+	 */
+	public static Behavior of(BehaviorModel behaviorModel) {
+		Objects.requireNonNull(behaviorModel, "behaviorModel must not be null!");
+		Model model = Objects.requireNonNull(behaviorModel.model(), "behavior must not be null!");
+
+		Behavior behavior = canCompile(model) ? new CompiledBehavior(behaviorModel, model)
+			: StatelessBehavior.of(behaviorModel);
+		return behavior;
+	}
+
+	/**
+	 * Checks whether the specified model can be compiled. That's the case if all
+	 * of its steps are flowless and complete, and no step reacts autonomously
+	 * (i.e. without a message).
+	 *
+	 * @param model the model to check
+	 * @return true if the model can be compiled, false otherwise
+	 */
+	public static boolean canCompile(Model model) {
+		Objects.requireNonNull(model, "model must not be null!");
+		for (Step step : model.getSteps()) {
+			if (!(step instanceof FlowlessStep) || step.getMessageClass() == null
+				|| ModelRunner.class.equals(step.getMessageClass()) || step.getSystemReaction() == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reacts to the specified message like a stateless behavior would. If the
+	 * model repeats infinitely, throws an {@link InfiniteRepetitionException}
+	 * with the same message as the exception of a stateless behavior.
+	 */
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message);
+		try {
+			Reaction reaction = new Reaction();
+			reaction.reactToSingleOrSeveralMessages(message);
+			@SuppressWarnings("unchecked")
+			T response = (T) reaction.latestPublishedMessage().orElse(defaultResponse);
+			return Optional.ofNullable(response);
+		} catch (InfiniteRepetition e) {
+			throw new InfiniteRepetitionException(message, e);
+		}
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behaviorModel;
+	}
+
+	/**
+	 * Returns the dispatch table this behavior looks up the steps in.
+	 *
+	 * @return the dispatch table
+	 */
+	public DispatchTable dispatchTable() {
+		return dispatchTable;
+	}
+
+	/**
+	 * The state of a single call of {@link CompiledBehavior#reactTo(Object)}.
+	 */
+	private class Reaction {
+		private Step latestStep;
+		private Object latestPublishedMessage;
+
+		void reactToSingleOrSeveralMessages(Object message) {
+			if (message instanceof Collection) {
+				reactToMessages(((Collection<?>) message).toArray(new Object[0]));
+			} else if (message instanceof Object[]) {
+				reactToMessages((Object[]) message);
+			} else {
+				reactToSingleMessage(message);
+			}
+		}
+
+		private void reactToMessages(Object[] messages) {
+			for (Object message : messages) {
+				reactToSingleMessage(message);
+			}
+		}
+
+		private void reactToSingleMessage(Object message) {
+			try {
+				Step stepThatWillReact = null;
+				List<Step> stepsThatCanReact = dispatchTable.stepsFor(message.getClass());
+				for (Step step : stepsThatCanReact) {
+					if (isConditionTrue(step)) {
+						if (stepThatWillReact != null) {
+							throw new MoreThanOneStepCanReact(steps);
+						}
+						stepThatWillReact = step;
+					}
+				}
+
+				if (stepThatWillReact != null) {
+					triggerSystemReaction(message, stepThatWillReact);
+				} else if (message instanceof RuntimeException) {
+					throw (RuntimeException) message;
+				}
+			} catch (StackOverflowError err) {
+				throw new InfiniteRepetition(latestStep);
+			}
+		}
+
+		private boolean isConditionTrue(Step step) {
+			Optional<Condition> condition = step.getCondition();
+			return !condition.isPresent() || condition.get().evaluate();
+		}
+
+		private void triggerSystemReaction(Object message, Step step) {
+			latestStep = step;
+			try {
+				Optional<Condition> isTheCase = step.getCase();
+				if (!isTheCase.isPresent() || isTheCase.get().evaluate()) {
+					@SuppressWarnings("unchecked")
+					SystemReaction<Object> systemReaction = (SystemReaction<Object>) step.getSystemReaction();
+					Object messageToBePublished = systemReaction.apply(message);
+					if (messageToBePublished != null) {
+						publish(messageToBePublished, step);
+					}
+				}
+			} catch (Exception e) {
+				reactToSingleMessage(e);
+			}
+		}
+
+		private void publish(Object message, Step step) {
+			latestPublishedMessage = message;
+
+			Optional<Behavior> targetBehavior = step.getPublishTo();
+			if (!targetBehavior.isPresent()) {
+				reactToSingleOrSeveralMessages(message);
+			} else if (targetBehavior.get() instanceof AbstractActor) {
+				((AbstractActor) targetBehavior.get()).reactTo(message, model.getUserActor());
+			} else {
+				targetBehavior.get().reactTo(message);
+			}
+		}
+
+		Optional<Object> latestPublishedMessage() {
+			return Optional.ofNullable(latestPublishedMessage);
+		}
+	}
+}
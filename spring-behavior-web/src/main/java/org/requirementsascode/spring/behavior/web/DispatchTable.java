@@ -0,0 +1,128 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.requirementsascode.AbstractActor;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+
+/**
+ * Maps message classes to the steps of a model that can react to them. A step
+ * can react to a message class if the step's message class is the same class or
+ * a superclass, and if the step's actor is the model's user or system actor.
+ *
+ * The steps are looked up once per concrete message class, and then remembered.
+ *
+ * @author b_muth
+ *
+ */
+public class DispatchTable {
+	private static final Class<?> SYSTEM_EVENT_CLASS = ModelRunner.class;
+
+	private final Model model;
+	private final List<Step> steps;
+	private final ClassValue<List<Step>> stepsByMessageClass;
+
+	private DispatchTable(Model model) {
+		this.model = Objects.requireNonNull(model, "model must not be null!");
+		this.steps = stepsWithUserOrSystemActor(model);
+		this.stepsByMessageClass = new ClassValue<List<Step>>() {
+			@Override
+			protected List<Step> computeValue(Class<?> messageClass) {
+				return stepsThatCanReactTo(messageClass);
+			}
+		};
+	}
+
+	/**
+	 * Creates a dispatch table for the specified model.
+	 *
+	 * @param model the model whose steps are dispatched to
+	 * @return the created dispatch table
+	 */
+	public static DispatchTable of(Model model) {
+		return new DispatchTable(model);
+	}
+
+	/**
+	 * Returns the steps that can react to messages of the specified class, in the
+	 * order of the model. Some of the steps may have a condition that must be
+	 * evaluated before they react.
+	 *
+	 * @param messageClass the concrete class of a message
+	 * @return the steps, or an empty list if no step can react
+	 */
+	public List<Step> stepsFor(Class<?> messageClass) {
+		Objects.requireNonNull(messageClass, "messageClass must not be null!");
+		return stepsByMessageClass.get(messageClass);
+	}
+
+	/**
+	 * Returns the message classes of the steps, in the order of the model.
+	 *
+	 * @return the message classes
+	 */
+	public Set<Class<?>> messageClasses() {
+		Set<Class<?>> messageClasses = new LinkedHashSet<>();
+		for (Step step : steps) {
+			messageClasses.add(step.getMessageClass());
+		}
+		return Collections.unmodifiableSet(messageClasses);
+	}
+
+	/**
+	 * Returns the model that this dispatch table has been created for.
+	 *
+	 * @return the model
+	 */
+	public Model model() {
+		return model;
+	}
+
+	private List<Step> stepsThatCanReactTo(Class<?> messageClass) {
+		List<Step> stepsThatCanReact = new ArrayList<>(1);
+		for (Step step : steps) {
+			if (canReactTo(step.getMessageClass(), messageClass)) {
+				stepsThatCanReact.add(step);
+			}
+		}
+		return Collections.unmodifiableList(stepsThatCanReact);
+	}
+
+	private static boolean canReactTo(Class<?> stepMessageClass, Class<?> messageClass) {
+		// Like the model runner, only steps for system events react to system events
+		if (SYSTEM_EVENT_CLASS.equals(messageClass) || SYSTEM_EVENT_CLASS.equals(stepMessageClass)) {
+			return SYSTEM_EVENT_CLASS.equals(messageClass) && SYSTEM_EVENT_CLASS.equals(stepMessageClass);
+		}
+		return stepMessageClass.isAssignableFrom(messageClass);
+	}
+
+	private static List<Step> stepsWithUserOrSystemActor(Model model) {
+		Collection<AbstractActor> userOrSystemActor = Arrays.asList(model.getUserActor(), model.getSystemActor());
+
+		List<Step> stepsWithUserOrSystemActor = new ArrayList<>();
+		for (Step step : model.getSteps()) {
+			if (step.getMessageClass() != null && hasAnyOf(step, userOrSystemActor)) {
+				stepsWithUserOrSystemActor.add(step);
+			}
+		}
+		return stepsWithUserOrSystemActor;
+	}
+
+	private static boolean hasAnyOf(Step step, Collection<AbstractActor> actors) {
+		for (AbstractActor stepActor : step.getActors()) {
+			if (actors.contains(stepActor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,51 @@
+package org.requirementsascode.spring.behavior.web;
+
+/**
+ * Creates and compares the entity tags of the <code>ETag</code> and
+ * <code>If-None-Match</code> headers.
+ * 
+ * @author b_muth
+ *
+ */
+final class EntityTags {
+	private static final String WEAK_PREFIX = "W/";
+
+	private EntityTags() {
+	}
+
+	/**
+	 * Creates a strong entity tag for the specified version.
+	 * 
+	 * @param version the version
+	 * @return the quoted entity tag
+	 */
+	static String of(String version) {
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * Checks whether the <code>If-None-Match</code> header value contains the
+	 * specified entity tag (using weak comparison). The wildcard <code>*</code>
+	 * isn't supported, since it doesn't identify the response to a message.
+	 * 
+	 * @param ifNoneMatch the header value, or null if there is no such header
+	 * @param entityTag   the quoted entity tag
+	 * @return true if it contains the entity tag, false otherwise
+	 */
+	static boolean matches(String ifNoneMatch, String entityTag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String requestedEntityTag : ifNoneMatch.split(",")) {
+			String trimmedEntityTag = requestedEntityTag.trim();
+			if (withoutWeakPrefix(trimmedEntityTag).equals(entityTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String withoutWeakPrefix(String entityTag) {
+		return entityTag.startsWith(WEAK_PREFIX) ? entityTag.substring(WEAK_PREFIX.length()) : entityTag;
+	}
+}
@@ -0,0 +1,91 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.catalina.startup.Tomcat;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * This class registers the executor that calls the behavior, if the
+ * <code>behavior.execution</code> property is set to
+ * <code>virtual-threads</code>. The executor starts a new virtual thread for
+ * each call, if the JDK supports virtual threads. Otherwise, it uses a bounded
+ * pool of platform threads, with a bounded queue.
+ * 
+ * The executor handles the requests received by the embedded Tomcat, and the
+ * events passed to asynchronous event listeners.
+ * 
+ * @author b_muth
+ *
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "behavior", name = "execution", havingValue = "virtual-threads")
+@AutoConfigureBefore(TaskExecutionAutoConfiguration.class)
+class ExecutionConfiguration {
+	static final String BEHAVIOR_EXECUTOR = "behaviorExecutor";
+
+	/**
+	 * Registers the executor that calls the behavior.
+	 * 
+	 * @param poolSize      the maximum number of platform threads, if the JDK
+	 *                      doesn't support virtual threads
+	 * @param queueCapacity the maximum number of calls waiting for a platform
+	 *                      thread, if the JDK doesn't support virtual threads
+	 * @return the registered executor
+	 */
+	@Bean(name = BEHAVIOR_EXECUTOR)
+	@ConditionalOnMissingBean(name = BEHAVIOR_EXECUTOR)
+	ExecutorService behaviorExecutor(@Value("${behavior.execution-pool-size:200}") int poolSize,
+		@Value("${behavior.execution-queue-capacity:10000}") int queueCapacity) {
+		ExecutorService executor = BehaviorExecutors.newVirtualThreadOrBoundedExecutor(poolSize, queueCapacity);
+		return executor;
+	}
+
+	/**
+	 * Registers the task executor that Spring uses for methods annotated with
+	 * <code>@Async</code>, e.g. asynchronous event listeners.
+	 * 
+	 * @param behaviorExecutor the executor that calls the behavior
+	 * @param taskDecorator    the decorator of each task (if there is one), e.g.
+	 *                         to propagate the tracing context
+	 * @return the registered task executor
+	 */
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	@ConditionalOnMissingBean(TaskExecutor.class)
+	TaskExecutor taskExecutor(@Qualifier(BEHAVIOR_EXECUTOR) ExecutorService behaviorExecutor,
+		ObjectProvider<TaskDecorator> taskDecorator) {
+		TaskExecutorAdapter taskExecutor = new TaskExecutorAdapter(behaviorExecutor);
+		taskDecorator.ifUnique(taskExecutor::setTaskDecorator);
+		return taskExecutor;
+	}
+
+	/**
+	 * Makes the embedded Tomcat handle each request with the executor that calls
+	 * the behavior.
+	 */
+	@Configuration
+	@ConditionalOnClass(Tomcat.class)
+	@ConditionalOnWebApplication(type = Type.SERVLET)
+	static class TomcatExecutionConfiguration {
+		@Bean
+		TomcatProtocolHandlerCustomizer<?> behaviorExecutorCustomizer(
+			@Qualifier(BEHAVIOR_EXECUTOR) ExecutorService behaviorExecutor) {
+			return protocolHandler -> protocolHandler.setExecutor(behaviorExecutor);
+		}
+	}
+}
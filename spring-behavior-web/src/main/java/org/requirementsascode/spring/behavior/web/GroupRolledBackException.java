@@ -0,0 +1,39 @@
+package org.requirementsascode.spring.behavior.web;
+
+/**
+ * Thrown by a {@link CoalescingBehavior} to the caller of a command that has
+ * been reacted to, but whose transaction has been rolled back because another
+ * command of the same group failed, if the coalescing behavior has been built
+ * with {@link CoalescingBehavior.Builder#failRolledBackCommands()}. The command
+ * isn't reacted to again, so its side effects outside of the transaction don't
+ * happen twice. The caller may send the command again.
+ *
+ * @author b_muth
+ *
+ */
+public class GroupRolledBackException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final transient Object command;
+
+	/**
+	 * Creates an exception for the specified command.
+	 *
+	 * @param command the command that has been rolled back
+	 * @param cause   the exception of the command that failed
+	 */
+	public GroupRolledBackException(Object command, Throwable cause) {
+		super("Command of type " + command.getClass().getName()
+			+ " rolled back, because another command of its group failed", cause);
+		this.command = command;
+	}
+
+	/**
+	 * Returns the command that has been rolled back.
+	 *
+	 * @return the command
+	 */
+	public Object getCommand() {
+		return command;
+	}
+}
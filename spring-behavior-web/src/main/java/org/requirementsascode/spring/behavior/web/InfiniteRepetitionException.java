@@ -0,0 +1,28 @@
+package org.requirementsascode.spring.behavior.web;
+
+import org.requirementsascode.exception.InfiniteRepetition;
+
+/**
+ * Thrown by a {@link CompiledBehavior} if a message's response is reacted to
+ * again and again, e.g. because the request type is one of the response types.
+ * Where a stateless behavior throws a <code>BehaviorException</code>, a
+ * compiled behavior throws this exception, with the same message. Its cause is
+ * the {@link InfiniteRepetition} of the model.
+ *
+ * @author b_muth
+ *
+ */
+public class InfiniteRepetitionException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates an exception for the specified message.
+	 *
+	 * @param message            the message the behavior reacted to
+	 * @param infiniteRepetition the infinite repetition of the model
+	 */
+	public InfiniteRepetitionException(Object message, InfiniteRepetition infiniteRepetition) {
+		super("Request type must be different from all response types (current request type: "
+			+ message.getClass().getName() + "), and there mustn't be an always true condition", infiniteRepetition);
+	}
+}
@@ -0,0 +1,142 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Step;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Wraps any behavior so that the time it takes to react to each message is
+ * recorded by a Micrometer timer, with a percentile histogram.
+ *
+ * The timers are tagged with:
+ * <ul>
+ * <li><code>message</code>: the simple name of the model's message class that
+ * the message is an instance of, or <code>other</code> if no step of the model
+ * can react to it</li>
+ * <li><code>outcome</code>: <code>handled</code> if a step of the model can
+ * react to the message, <code>unhandled</code> if not, and <code>failed</code>
+ * if the behavior has thrown an exception</li>
+ * </ul>
+ * So the number of timers is bounded by the number of message classes of the
+ * model. The count of each timer is the number of messages with that outcome.
+ *
+ * @author b_muth
+ *
+ */
+public class InstrumentedBehavior implements Behavior {
+	/**
+	 * The default name of the timers.
+	 */
+	public static final String DEFAULT_METRIC_NAME = "behavior.messages";
+
+	static final String OTHER_MESSAGE_CLASS = "other";
+	static final String HANDLED = "handled";
+	static final String UNHANDLED = "unhandled";
+	static final String FAILED = "failed";
+
+	private final Behavior behavior;
+	private final Clock clock;
+	private final ClassValue<MessageTimers> timersByMessageClass;
+
+	private InstrumentedBehavior(Behavior behavior, MeterRegistry meterRegistry, String metricName, Tags tags) {
+		this.behavior = behavior;
+		this.clock = meterRegistry.config().clock();
+
+		DispatchTable dispatchTable = DispatchTable.of(behavior.behaviorModel().model());
+		this.timersByMessageClass = new ClassValue<MessageTimers>() {
+			@Override
+			protected MessageTimers computeValue(Class<?> messageClass) {
+				List<Step> steps = dispatchTable.stepsFor(messageClass);
+				return steps.isEmpty() ? new MessageTimers(meterRegistry, metricName, tags, OTHER_MESSAGE_CLASS, UNHANDLED)
+					: new MessageTimers(meterRegistry, metricName, tags, steps.get(0).getMessageClass().getSimpleName(),
+						HANDLED);
+			}
+		};
+	}
+
+	/**
+	 * Wraps the specified behavior, and records its timers in the specified
+	 * registry, with the default name.
+	 *
+	 * @param behavior      the behavior to be instrumented
+	 * @param meterRegistry the registry of the timers
+	 * @return the instrumented behavior
+	 */
+	public static InstrumentedBehavior of(Behavior behavior, MeterRegistry meterRegistry) {
+		return of(behavior, meterRegistry, DEFAULT_METRIC_NAME, Tags.empty());
+	}
+
+	/**
+	 * Wraps the specified behavior, and records its timers in the specified
+	 * registry.
+	 *
+	 * @param behavior      the behavior to be instrumented
+	 * @param meterRegistry the registry of the timers
+	 * @param metricName    the name of the timers
+	 * @param tags          additional tags of the timers, e.g. to distinguish
+	 *                      several instrumented behaviors
+	 * @return the instrumented behavior
+	 */
+	public static InstrumentedBehavior of(Behavior behavior, MeterRegistry meterRegistry, String metricName,
+		Iterable<Tag> tags) {
+		Objects.requireNonNull(behavior, "behavior must not be null!");
+		Objects.requireNonNull(meterRegistry, "meterRegistry must not be null!");
+		Objects.requireNonNull(metricName, "metricName must not be null!");
+		Objects.requireNonNull(tags, "tags must not be null!");
+		return new InstrumentedBehavior(behavior, meterRegistry, metricName, Tags.of(tags));
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		MessageTimers timers = timersByMessageClass.get(message.getClass());
+		long start = clock.monotonicTime();
+		Timer timer = timers.failed;
+		try {
+			Optional<T> response = behavior.reactTo(message);
+			timer = timers.reacted;
+			return response;
+		} finally {
+			timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	private static class MessageTimers {
+		private final Timer reacted;
+		private final Timer failed;
+
+		MessageTimers(MeterRegistry meterRegistry, String metricName, Tags tags, String messageClassName,
+			String outcome) {
+			this.reacted = timer(meterRegistry, metricName, tags, messageClassName, outcome);
+			this.failed = timer(meterRegistry, metricName, tags, messageClassName, FAILED);
+		}
+
+		private static Timer timer(MeterRegistry meterRegistry, String metricName, Tags tags, String messageClassName,
+			String outcome) {
+			return Timer.builder(metricName)
+				.description("Time taken to react to messages")
+				.tags(tags)
+				.tag("message", messageClassName)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		}
+	}
+}
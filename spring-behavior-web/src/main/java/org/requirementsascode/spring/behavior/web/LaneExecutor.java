@@ -0,0 +1,96 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Executes tasks one after the other, in the order they have been passed to
+ * it, in a single daemon thread with a bounded queue.
+ *
+ * If the queue is full, the caller waits until there is space again, instead
+ * of the task being rejected. But if the lane's own thread passes a task to
+ * its full lane, it runs the task directly, because it would wait for itself
+ * forever otherwise. Use {@link #executeWithoutWaiting(Runnable)} to reject a
+ * task instead of waiting, e.g. when another lane's thread passes it.
+ *
+ * @author b_muth
+ *
+ */
+public class LaneExecutor extends ThreadPoolExecutor {
+	private static final ThreadLocal<Boolean> isWithoutWaiting = ThreadLocal.withInitial(() -> false);
+
+	private volatile Thread thread;
+
+	/**
+	 * Creates a lane executor, whose thread is started with the first task.
+	 *
+	 * @param threadNamePrefix the prefix of the name of the lane's thread
+	 * @param queueCapacity    the maximum number of tasks waiting in the lane
+	 */
+	public LaneExecutor(String threadNamePrefix, int queueCapacity) {
+		super(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), new WaitForSpace());
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+		threadFactory.setDaemon(true);
+		setThreadFactory(runnable -> {
+			Thread laneThread = threadFactory.newThread(runnable);
+			thread = laneThread;
+			return laneThread;
+		});
+	}
+
+	/**
+	 * Returns whether the current thread is the lane's thread.
+	 *
+	 * @return true if called by a task of this lane, false otherwise
+	 */
+	public boolean isCurrentThread() {
+		return thread == Thread.currentThread();
+	}
+
+	/**
+	 * Executes the task like {@link #execute(Runnable)}, but rejects it instead of
+	 * waiting if the queue is full.
+	 *
+	 * @param task the task to execute
+	 * @throws RejectedExecutionException if the queue is full, or the lane has been
+	 *                                    shut down
+	 */
+	public void executeWithoutWaiting(Runnable task) {
+		isWithoutWaiting.set(true);
+		try {
+			execute(task);
+		} finally {
+			isWithoutWaiting.remove();
+		}
+	}
+
+	/**
+	 * Makes the caller wait until there is space in the queue, instead of
+	 * rejecting the task.
+	 */
+	private static class WaitForSpace implements RejectedExecutionHandler {
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			LaneExecutor lane = (LaneExecutor) executor;
+			if (lane.isShutdown()) {
+				throw new RejectedExecutionException("Lane has been closed");
+			} else if (lane.isCurrentThread()) {
+				task.run();
+				return;
+			} else if (isWithoutWaiting.get()) {
+				throw new RejectedExecutionException("Lane is full");
+			}
+			try {
+				lane.getQueue().put(task);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for space in lane", e);
+			}
+		}
+	}
+}
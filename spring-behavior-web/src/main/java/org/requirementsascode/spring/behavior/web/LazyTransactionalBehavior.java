@@ -0,0 +1,84 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+
+/**
+ * Wraps a transactional behavior so that a transaction is only started if the
+ * model has a step that can react to the message. For all other messages, the
+ * model's default response is returned right away, without acquiring a
+ * database connection.
+ *
+ * The steps are looked up in a {@link DispatchTable}. Only compiled models (see
+ * {@link CompiledBehavior#canCompile(Model)}) are checked, because for other
+ * models a step may react without a message. Several messages in a collection
+ * or array, and exceptions, are always passed to the transactional behavior.
+ *
+ * @author b_muth
+ *
+ */
+public class LazyTransactionalBehavior implements Behavior {
+	private final Behavior transactionalBehavior;
+	private final DispatchTable dispatchTable;
+	private final Object defaultResponse;
+
+	private LazyTransactionalBehavior(Behavior transactionalBehavior, DispatchTable dispatchTable) {
+		this.transactionalBehavior = transactionalBehavior;
+		this.dispatchTable = dispatchTable;
+		this.defaultResponse = transactionalBehavior.behaviorModel().defaultResponse();
+	}
+
+	/**
+	 * Wraps the specified transactional behavior, if its model can be compiled.
+	 * Otherwise, returns the transactional behavior itself.
+	 *
+	 * @param transactionalBehavior the transactional behavior (e.g. a
+	 *                              {@link TransactionalBehavior} bean, or a
+	 *                              {@link ReadOnlyQueryBehavior})
+	 * @return the created behavior
+	 */
+	public static Behavior of(Behavior transactionalBehavior) {
+		Objects.requireNonNull(transactionalBehavior, "transactionalBehavior must not be null!");
+		Model model = Objects.requireNonNull(transactionalBehavior.behaviorModel().model(), "model must not be null!");
+
+		Behavior behavior = CompiledBehavior.canCompile(model)
+			? new LazyTransactionalBehavior(transactionalBehavior, DispatchTable.of(model))
+			: transactionalBehavior;
+		return behavior;
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+		if (!canReactTo(message)) {
+			@SuppressWarnings("unchecked")
+			T response = (T) defaultResponse;
+			return Optional.ofNullable(response);
+		}
+		return transactionalBehavior.reactTo(message);
+	}
+
+	/**
+	 * Checks whether the model has a step that can react to the specified
+	 * message, so that a transaction is started for it.
+	 *
+	 * @param message the message to check
+	 * @return true if the message is passed to the transactional behavior, false
+	 *         otherwise
+	 */
+	public boolean canReactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+		return message instanceof Collection || message instanceof Object[] || message instanceof RuntimeException
+			|| !dispatchTable.stepsFor(message.getClass()).isEmpty();
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return transactionalBehavior.behaviorModel();
+	}
+}
@@ -0,0 +1,152 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Reads a stream of newline delimited JSON messages, passes them to a batch
+ * behavior, and writes the responses as newline delimited JSON, in the order of
+ * the messages.
+ * 
+ * The messages are read and passed to the behavior one chunk at a time, so that
+ * the memory used doesn't depend on the length of the stream. Each chunk is
+ * handled in a single transaction. If the behavior throws an exception for a
+ * message of the chunk, the chunk's transaction is rolled back, a
+ * {@link BatchErrorResponse} with the index of the failed message is written,
+ * and the remaining stream is ignored. The messages are never passed to the
+ * behavior again, so side effects outside of the transaction (e.g. events
+ * published synchronously) don't happen twice. The client can send the
+ * messages again, starting after the last message it received a response for.
+ * 
+ * @author b_muth
+ *
+ */
+class MessageStream {
+	private static final String EMPTY_STRING_RESPONSE = "";
+	private static final char LINE_SEPARATOR = '\n';
+
+	private final BatchBehavior batchBehavior;
+	private final ObjectMapper objectMapper;
+	private final ObjectReader messageReader;
+	private final ObjectWriter responseWriter;
+	private final int commitInterval;
+
+	/**
+	 * Creates a message stream.
+	 * 
+	 * @param batchBehavior  the batch behavior that reacts to the messages
+	 * @param objectMapper   the object mapper that reads messages and writes
+	 *                       responses
+	 * @param commitInterval the maximum number of messages handled in a single
+	 *                       transaction
+	 */
+	MessageStream(BatchBehavior batchBehavior, ObjectMapper objectMapper, int commitInterval) {
+		this.batchBehavior = Objects.requireNonNull(batchBehavior, "batchBehavior must not be null!");
+		this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null!");
+		if (commitInterval < 1) {
+			throw new IllegalArgumentException("commitInterval must be positive, but was " + commitInterval);
+		}
+		this.messageReader = objectMapper.readerFor(Object.class);
+		this.responseWriter = objectMapper.writerFor(Object.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.commitInterval = commitInterval;
+	}
+
+	/**
+	 * Reads the messages from the input stream until its end, and writes a response
+	 * line for each message to the output stream. The output stream is flushed
+	 * after each chunk, but not closed.
+	 * 
+	 * If a message can't be read, or the behavior throws an exception, a
+	 * {@link BatchErrorResponse} with the index of the message is written, and the
+	 * remaining stream is ignored. The messages read before an unreadable message
+	 * are still handled.
+	 * 
+	 * @param messageStream  the newline delimited JSON messages
+	 * @param responseStream the stream the newline delimited JSON responses are
+	 *                       written to
+	 * @throws IOException if reading or writing fails
+	 */
+	void reactTo(InputStream messageStream, OutputStream responseStream) throws IOException {
+		List<Object> chunk = new ArrayList<>(commitInterval);
+		int chunkIndex = 0;
+
+		try (MappingIterator<Object> messages = messageReader.readValues(messageStream);
+			JsonGenerator generator = createGenerator(responseStream)) {
+			while (true) {
+				Object message;
+				try {
+					if (!messages.hasNextValue()) {
+						break;
+					}
+					message = messages.nextValue();
+				} catch (JsonProcessingException e) {
+					if (reactToChunk(chunk, chunkIndex, generator)) {
+						writeResponse(BatchErrorResponse.of(null, e, chunkIndex + chunk.size()), generator);
+						generator.flush();
+					}
+					return;
+				}
+				chunk.add(message);
+				if (chunk.size() == commitInterval) {
+					if (!reactToChunk(chunk, chunkIndex, generator)) {
+						return;
+					}
+					chunkIndex += chunk.size();
+					chunk.clear();
+				}
+			}
+			reactToChunk(chunk, chunkIndex, generator);
+		}
+	}
+
+	private JsonGenerator createGenerator(OutputStream responseStream) throws IOException {
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(responseStream);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.setRootValueSeparator(null);
+		return generator;
+	}
+
+	/**
+	 * Passes the messages of the chunk to the behavior in a single transaction,
+	 * and writes the responses. If the behavior throws an exception, writes an
+	 * error response for the message that the behavior reacted to last instead
+	 * (the last message of the chunk, if committing the transaction failed).
+	 * 
+	 * @return true if the behavior reacted to all messages, false otherwise
+	 */
+	private boolean reactToChunk(List<Object> chunk, int chunkIndex, JsonGenerator generator) throws IOException {
+		boolean hasReactedToAll = true;
+		if (!chunk.isEmpty()) {
+			ReadPositionList messages = new ReadPositionList(chunk);
+			try {
+				for (Optional<Object> response : batchBehavior.reactToAll(messages)) {
+					writeResponse(response.orElse(EMPTY_STRING_RESPONSE), generator);
+				}
+			} catch (RuntimeException e) {
+				int position = messages.lastReadPosition();
+				writeResponse(BatchErrorResponse.of(chunk.get(position), e, chunkIndex + position), generator);
+				hasReactedToAll = false;
+			}
+		}
+		generator.flush();
+		return hasReactedToAll;
+	}
+
+	private void writeResponse(Object response, JsonGenerator generator) throws IOException {
+		responseWriter.writeValue(generator, response);
+		generator.writeRaw(LINE_SEPARATOR);
+	}
+}
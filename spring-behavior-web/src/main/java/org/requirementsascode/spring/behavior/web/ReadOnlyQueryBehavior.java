@@ -0,0 +1,74 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+
+/**
+ * Wraps a transactional behavior so that query messages are reacted to in a
+ * read-only transaction (see {@link TransactionalBehavior#reactToQuery(Object)}),
+ * and all other messages in a read-write transaction.
+ *
+ * A message is a query message if its class is one of the specified query
+ * classes, or a subclass. So a query class may also be an interface that all
+ * query messages implement.
+ *
+ * @author b_muth
+ *
+ */
+public class ReadOnlyQueryBehavior implements Behavior {
+	private final TransactionalBehavior transactionalBehavior;
+	private final ClassValue<Boolean> isQueryClass;
+
+	private ReadOnlyQueryBehavior(TransactionalBehavior transactionalBehavior, List<Class<?>> queryClasses) {
+		this.transactionalBehavior = transactionalBehavior;
+		this.isQueryClass = new ClassValue<Boolean>() {
+			@Override
+			protected Boolean computeValue(Class<?> messageClass) {
+				return queryClasses.stream().anyMatch(queryClass -> queryClass.isAssignableFrom(messageClass));
+			}
+		};
+	}
+
+	/**
+	 * Wraps the specified transactional behavior. For the transactions to be
+	 * started, it must be a Spring bean.
+	 *
+	 * @param transactionalBehavior the transactional behavior
+	 * @param queryClasses          the classes (or interfaces) of query messages
+	 * @return the created behavior
+	 */
+	public static ReadOnlyQueryBehavior of(TransactionalBehavior transactionalBehavior,
+		Collection<Class<?>> queryClasses) {
+		Objects.requireNonNull(transactionalBehavior, "transactionalBehavior must not be null!");
+		Objects.requireNonNull(queryClasses, "queryClasses must not be null!");
+		return new ReadOnlyQueryBehavior(transactionalBehavior, new ArrayList<>(queryClasses));
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+		return isQuery(message) ? transactionalBehavior.reactToQuery(message) : transactionalBehavior.reactTo(message);
+	}
+
+	/**
+	 * Checks whether the specified message is a query message.
+	 *
+	 * @param message the message to check
+	 * @return true if it's reacted to in a read-only transaction, false otherwise
+	 */
+	public boolean isQuery(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+		return isQueryClass.get(message.getClass());
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return transactionalBehavior.behaviorModel();
+	}
+}
@@ -0,0 +1,59 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A data source that gets its connections from a read replica in read-only
+ * transactions (e.g. for query messages, see {@link ReadOnlyQueryBehavior}),
+ * and from the primary data source otherwise.
+ *
+ * Create it with {@link #of(DataSource, DataSource)}.
+ *
+ * @author b_muth
+ *
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+	private static final String PRIMARY = "primary";
+	private static final String REPLICA = "replica";
+
+	private ReadOnlyRoutingDataSource(DataSource primary, DataSource replica) {
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		targetDataSources.put(PRIMARY, primary);
+		targetDataSources.put(REPLICA, replica);
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Creates a data source that routes to the specified data sources.
+	 *
+	 * The transaction manager asks for a connection when a transaction begins,
+	 * before it's known whether the transaction is read-only. So the routing data
+	 * source is wrapped in a data source proxy that asks for a connection only
+	 * when it's first used.
+	 *
+	 * @param primary the data source for read-write transactions, and for calls
+	 *                outside of transactions
+	 * @param replica the data source for read-only transactions
+	 * @return the created data source
+	 */
+	public static DataSource of(DataSource primary, DataSource replica) {
+		Objects.requireNonNull(primary, "primary must not be null!");
+		Objects.requireNonNull(replica, "replica must not be null!");
+		return new LazyConnectionDataSourceProxy(new ReadOnlyRoutingDataSource(primary, replica));
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+	}
+}
@@ -0,0 +1,38 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A view of a list of messages that remembers the position of the message that
+ * has been read last, i.e. the message a behavior reacts to. If the behavior
+ * throws an exception while reacting to the messages one after the other, that's
+ * the message that caused it.
+ *
+ * @author b_muth
+ *
+ */
+class ReadPositionList extends AbstractList<Object> {
+	private final List<?> messages;
+	private int lastReadPosition;
+
+	ReadPositionList(List<?> messages) {
+		this.messages = messages;
+	}
+
+	@Override
+	public Object get(int position) {
+		Object message = messages.get(position);
+		lastReadPosition = position;
+		return message;
+	}
+
+	@Override
+	public int size() {
+		return messages.size();
+	}
+
+	int lastReadPosition() {
+		return lastReadPosition;
+	}
+}
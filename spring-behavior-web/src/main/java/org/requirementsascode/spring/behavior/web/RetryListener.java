@@ -0,0 +1,42 @@
+package org.requirementsascode.spring.behavior.web;
+
+/**
+ * Is notified when a {@link RetryingBehavior} reacts to a message again, e.g.
+ * to record metrics (see {@link RetryMetrics}). All methods are called by the
+ * thread that reacts to the message, and do nothing by default.
+ *
+ * @author b_muth
+ *
+ */
+public interface RetryListener {
+	/**
+	 * Called before the behavior reacts to the message again.
+	 *
+	 * @param message   the message
+	 * @param attempt   the number of the attempt that has failed, starting with 1
+	 * @param exception the exception of the failed attempt
+	 */
+	default void onRetry(Object message, int attempt, RuntimeException exception) {
+	}
+
+	/**
+	 * Called when the behavior has reacted to the message successfully, after at
+	 * least one failed attempt.
+	 *
+	 * @param message  the message
+	 * @param attempts the number of attempts, including the successful one
+	 */
+	default void onRecovered(Object message, int attempts) {
+	}
+
+	/**
+	 * Called when the last attempt has failed with a retryable exception. That
+	 * exception is then thrown to the caller.
+	 *
+	 * @param message   the message
+	 * @param attempts  the number of attempts
+	 * @param exception the exception of the last attempt
+	 */
+	default void onExhausted(Object message, int attempts, RuntimeException exception) {
+	}
+}
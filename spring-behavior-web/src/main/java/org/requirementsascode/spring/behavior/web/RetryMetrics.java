@@ -0,0 +1,99 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Step;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the retries of a {@link RetryingBehavior} in the
+ * <code>behavior.retries</code> counter.
+ *
+ * The counters are tagged with:
+ * <ul>
+ * <li><code>message</code>: the simple name of the model's message class that
+ * the message is an instance of, or <code>other</code> if no step of the model
+ * can react to it</li>
+ * <li><code>outcome</code>: <code>retried</code> for each retry,
+ * <code>recovered</code> for each message that has been reacted to after a
+ * retry, and <code>exhausted</code> for each message whose last attempt has
+ * failed</li>
+ * </ul>
+ *
+ * @author b_muth
+ *
+ */
+public class RetryMetrics implements RetryListener {
+	/**
+	 * The name of the counters.
+	 */
+	public static final String METRIC_NAME = "behavior.retries";
+
+	private final ClassValue<MessageCounters> countersByMessageClass;
+
+	private RetryMetrics(BehaviorModel behaviorModel, MeterRegistry meterRegistry) {
+		DispatchTable dispatchTable = DispatchTable.of(behaviorModel.model());
+		this.countersByMessageClass = new ClassValue<MessageCounters>() {
+			@Override
+			protected MessageCounters computeValue(Class<?> messageClass) {
+				List<Step> steps = dispatchTable.stepsFor(messageClass);
+				String messageClassName = steps.isEmpty() ? InstrumentedBehavior.OTHER_MESSAGE_CLASS
+					: steps.get(0).getMessageClass().getSimpleName();
+				return new MessageCounters(meterRegistry, messageClassName);
+			}
+		};
+	}
+
+	/**
+	 * Creates a listener that records the retries of messages of the specified
+	 * behavior model in the specified registry.
+	 *
+	 * @param behaviorModel the behavior model of the retrying behavior
+	 * @param meterRegistry the registry of the counters
+	 * @return the created listener
+	 */
+	public static RetryMetrics of(BehaviorModel behaviorModel, MeterRegistry meterRegistry) {
+		Objects.requireNonNull(behaviorModel, "behaviorModel must not be null!");
+		Objects.requireNonNull(meterRegistry, "meterRegistry must not be null!");
+		return new RetryMetrics(behaviorModel, meterRegistry);
+	}
+
+	@Override
+	public void onRetry(Object message, int attempt, RuntimeException exception) {
+		countersByMessageClass.get(message.getClass()).retried.increment();
+	}
+
+	@Override
+	public void onRecovered(Object message, int attempts) {
+		countersByMessageClass.get(message.getClass()).recovered.increment();
+	}
+
+	@Override
+	public void onExhausted(Object message, int attempts, RuntimeException exception) {
+		countersByMessageClass.get(message.getClass()).exhausted.increment();
+	}
+
+	private static class MessageCounters {
+		private final Counter retried;
+		private final Counter recovered;
+		private final Counter exhausted;
+
+		MessageCounters(MeterRegistry meterRegistry, String messageClassName) {
+			this.retried = counter(meterRegistry, messageClassName, "retried");
+			this.recovered = counter(meterRegistry, messageClassName, "recovered");
+			this.exhausted = counter(meterRegistry, messageClassName, "exhausted");
+		}
+
+		private static Counter counter(MeterRegistry meterRegistry, String messageClassName, String outcome) {
+			return Counter.builder(METRIC_NAME)
+				.description("Retries after optimistic locking failures")
+				.tag("message", messageClassName)
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+		}
+	}
+}
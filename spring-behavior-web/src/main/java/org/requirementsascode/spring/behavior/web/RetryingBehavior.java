@@ -0,0 +1,300 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Wraps a transactional behavior so that it reacts to a message again if an
+ * optimistic locking failure has occurred. So concurrent commands for the same
+ * aggregate are retried on the server, instead of the client having to resend
+ * the request.
+ *
+ * Each attempt must run in a fresh transaction, so the wrapped behavior must
+ * start the transaction (e.g. be the transactional behavior bean). If the
+ * retrying behavior is called inside of a transaction, e.g. of a batch, it
+ * reacts to the message only once: a retry would join the outer transaction,
+ * which the failure has marked as rollback-only.
+ *
+ * Before each retry, the thread waits for a random time between zero and the
+ * backoff. The backoff starts with the initial backoff, and doubles with each
+ * retry, up to the maximum backoff. The random jitter spreads the retries of
+ * conflicting commands, so that they don't conflict again.
+ *
+ * By default, an exception is retryable if it, or one of its causes, is a
+ * Spring <code>OptimisticLockingFailureException</code>, a JPA
+ * <code>OptimisticLockException</code> or a Hibernate
+ * <code>StaleStateException</code>. All other exceptions are thrown to the
+ * caller immediately.
+ *
+ * Create a retrying behavior with {@link #builder(Behavior)}.
+ *
+ * @author b_muth
+ *
+ */
+public class RetryingBehavior implements Behavior {
+	private static final Set<String> OPTIMISTIC_LOCKING_FAILURES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+		"org.springframework.dao.OptimisticLockingFailureException",
+		"javax.persistence.OptimisticLockException",
+		"org.hibernate.StaleStateException")));
+	private static final boolean IS_TRANSACTION_SYNCHRONIZATION_PRESENT = ClassUtils.isPresent(
+		"org.springframework.transaction.support.TransactionSynchronizationManager",
+		RetryingBehavior.class.getClassLoader());
+
+	private final Behavior behavior;
+	private final ClassValue<Integer> maxAttemptsByMessageClass;
+	private final long initialBackoffNanos;
+	private final long maxBackoffNanos;
+	private final Predicate<? super RuntimeException> isRetryable;
+	private final List<RetryListener> listeners;
+
+	private RetryingBehavior(Builder builder) {
+		this.behavior = builder.behavior;
+		this.maxAttemptsByMessageClass = maxAttemptsByMessageClass(builder.maxAttempts,
+			new ArrayList<>(builder.messagePolicies));
+		this.initialBackoffNanos = builder.initialBackoff.toNanos();
+		this.maxBackoffNanos = builder.maxBackoff.toNanos();
+		this.isRetryable = builder.isRetryable;
+		this.listeners = new ArrayList<>(builder.listeners);
+	}
+
+	/**
+	 * Starts building a retrying behavior that wraps the specified behavior.
+	 *
+	 * @param behavior the behavior that starts a transaction for each message
+	 * @return the builder
+	 */
+	public static Builder builder(Behavior behavior) {
+		return new Builder(behavior);
+	}
+
+	/**
+	 * Checks whether the specified exception, or one of its causes, is an
+	 * optimistic locking failure.
+	 *
+	 * @param exception the exception to check
+	 * @return true if it's an optimistic locking failure, false otherwise
+	 */
+	public static boolean isOptimisticLockingFailure(Throwable exception) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			for (Class<?> c = cause.getClass(); c != null; c = c.getSuperclass()) {
+				if (OPTIMISTIC_LOCKING_FAILURES.contains(c.getName())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		if (isInsideTransaction()) {
+			return behavior.reactTo(message);
+		}
+
+		int maxAttempts = maxAttemptsByMessageClass.get(message.getClass());
+		for (int attempt = 1;; attempt++) {
+			try {
+				Optional<T> response = behavior.reactTo(message);
+				if (attempt > 1) {
+					int attempts = attempt;
+					listeners.forEach(listener -> listener.onRecovered(message, attempts));
+				}
+				return response;
+			} catch (RuntimeException e) {
+				if (!isRetryable.test(e)) {
+					throw e;
+				}
+				if (attempt >= maxAttempts || !waitBeforeRetry(attempt)) {
+					int attempts = attempt;
+					listeners.forEach(listener -> listener.onExhausted(message, attempts, e));
+					throw e;
+				}
+				int failedAttempt = attempt;
+				listeners.forEach(listener -> listener.onRetry(message, failedAttempt, e));
+			}
+		}
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	private static boolean isInsideTransaction() {
+		return IS_TRANSACTION_SYNCHRONIZATION_PRESENT && OuterTransaction.isActive();
+	}
+
+	private boolean waitBeforeRetry(int failedAttempt) {
+		int doublings = Math.min(failedAttempt - 1, 62);
+		long backoffNanos = initialBackoffNanos > (maxBackoffNanos >> doublings) ? maxBackoffNanos
+			: initialBackoffNanos << doublings;
+		if (backoffNanos == 0) {
+			return true;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(backoffNanos + 1));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static ClassValue<Integer> maxAttemptsByMessageClass(int maxAttempts, List<MessagePolicy> messagePolicies) {
+		return new ClassValue<Integer>() {
+			@Override
+			protected Integer computeValue(Class<?> messageClass) {
+				return messagePolicies.stream()
+					.filter(policy -> policy.messageClass.isAssignableFrom(messageClass))
+					.map(policy -> policy.maxAttempts)
+					.findFirst()
+					.orElse(maxAttempts);
+			}
+		};
+	}
+
+	/**
+	 * Checks for a transaction that the behavior's transaction would join. Only
+	 * loaded if Spring's transaction support is on the classpath.
+	 */
+	private static class OuterTransaction {
+		static boolean isActive() {
+			return TransactionSynchronizationManager.isActualTransactionActive();
+		}
+	}
+
+	/**
+	 * Builds a retrying behavior.
+	 */
+	public static class Builder {
+		private final Behavior behavior;
+		private final List<MessagePolicy> messagePolicies;
+		private final List<RetryListener> listeners;
+		private int maxAttempts;
+		private Duration initialBackoff;
+		private Duration maxBackoff;
+		private Predicate<? super RuntimeException> isRetryable;
+
+		private Builder(Behavior behavior) {
+			this.behavior = Objects.requireNonNull(behavior, "behavior must not be null!");
+			this.messagePolicies = new ArrayList<>();
+			this.listeners = new ArrayList<>();
+			this.maxAttempts = 3;
+			this.initialBackoff = Duration.ofMillis(10);
+			this.maxBackoff = Duration.ofMillis(200);
+			this.isRetryable = RetryingBehavior::isOptimisticLockingFailure;
+		}
+
+		/**
+		 * Sets the maximum number of attempts to react to a message, including the
+		 * first one (default: 3).
+		 *
+		 * @param maxAttempts the maximum number of attempts
+		 * @return this builder
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			this.maxAttempts = checkMaxAttempts(maxAttempts);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of attempts to react to messages of the specified
+		 * class (or its subclasses). If several message classes match, the first one
+		 * specified is used. Specify 1 to never retry these messages.
+		 *
+		 * @param messageClass the class of messages
+		 * @param maxAttempts  the maximum number of attempts, including the first one
+		 * @return this builder
+		 */
+		public Builder maxAttempts(Class<?> messageClass, int maxAttempts) {
+			messagePolicies.add(new MessagePolicy(messageClass, checkMaxAttempts(maxAttempts)));
+			return this;
+		}
+
+		/**
+		 * Sets the backoff before the first retry (default: 10 milliseconds), and the
+		 * maximum backoff (default: 200 milliseconds).
+		 *
+		 * @param initialBackoff the backoff before the first retry
+		 * @param maxBackoff     the maximum backoff
+		 * @return this builder
+		 */
+		public Builder backoff(Duration initialBackoff, Duration maxBackoff) {
+			Objects.requireNonNull(initialBackoff, "initialBackoff must not be null!");
+			Objects.requireNonNull(maxBackoff, "maxBackoff must not be null!");
+			if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+				throw new IllegalArgumentException("Backoff must be between 0 and " + maxBackoff + ", but was "
+					+ initialBackoff);
+			}
+			this.initialBackoff = initialBackoff;
+			this.maxBackoff = maxBackoff;
+			return this;
+		}
+
+		/**
+		 * Sets which exceptions cause a retry (default: optimistic locking failures,
+		 * see {@link RetryingBehavior#isOptimisticLockingFailure(Throwable)}).
+		 *
+		 * @param isRetryable the predicate that returns true for retryable exceptions
+		 * @return this builder
+		 */
+		public Builder retryOn(Predicate<? super RuntimeException> isRetryable) {
+			this.isRetryable = Objects.requireNonNull(isRetryable, "isRetryable must not be null!");
+			return this;
+		}
+
+		/**
+		 * Adds a listener that is notified of retries.
+		 *
+		 * @param listener the listener
+		 * @return this builder
+		 */
+		public Builder listener(RetryListener listener) {
+			listeners.add(Objects.requireNonNull(listener, "listener must not be null!"));
+			return this;
+		}
+
+		/**
+		 * Builds the retrying behavior.
+		 *
+		 * @return the retrying behavior
+		 */
+		public RetryingBehavior build() {
+			return new RetryingBehavior(this);
+		}
+
+		private static int checkMaxAttempts(int maxAttempts) {
+			if (maxAttempts < 1) {
+				throw new IllegalArgumentException("maxAttempts must be positive, but was " + maxAttempts);
+			}
+			return maxAttempts;
+		}
+	}
+
+	private static class MessagePolicy {
+		private final Class<?> messageClass;
+		private final int maxAttempts;
+
+		MessagePolicy(Class<?> messageClass, int maxAttempts) {
+			this.messageClass = Objects.requireNonNull(messageClass, "messageClass must not be null!");
+			this.maxAttempts = maxAttempts;
+		}
+	}
+}
@@ -1,15 +1,38 @@
 package org.requirementsascode.spring.behavior.web;
 
+import java.util.concurrent.TimeUnit;
+
 import org.requirementsascode.BehaviorModel;
 import org.requirementsascode.serialization.MessageSerializationModule;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
  * This class scans a registered behavior for its request classes, and those are
  * made serializable by Jackson (even if they are immutable value types).
  * 
+ * If the Jackson Smile or CBOR data format is on the classpath, requests and
+ * responses can be sent in that binary format as well.
+ * 
+ * If the <code>behavior.warm-up.enabled</code> property is true, the
+ * serialization of the request classes is warmed up when the application
+ * starts.
+ * 
  * @author b_muth
  *
  */
@@ -30,4 +53,93 @@ class SerializationConfiguration {
 		MessageSerializationModule serializationModule = new MessageSerializationModule(behaviorModel.model());
 		return serializationModule;
 	}
+
+	/**
+	 * Registers a message converter for the Smile binary format
+	 * (<code>application/x-jackson-smile</code>), if Smile is on the classpath.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.SmileFactory")
+	static class SmileConfiguration {
+		/**
+		 * Provides a Smile message converter whose object mapper is configured like
+		 * Spring's JSON object mapper, including the message serialization module.
+		 * 
+		 * @param objectMapperBuilder Spring's preconfigured object mapper builder
+		 * @return the message converter that is automatically registered by Spring
+		 */
+		@Bean
+		@ConditionalOnMissingBean
+		MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+			Jackson2ObjectMapperBuilder objectMapperBuilder) {
+			ObjectMapper objectMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+			return new MappingJackson2SmileHttpMessageConverter(objectMapper);
+		}
+	}
+
+	/**
+	 * Registers a message converter for the CBOR binary format
+	 * (<code>application/cbor</code>), if CBOR is on the classpath.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.cbor.CBORFactory")
+	static class CborConfiguration {
+		/**
+		 * Provides a CBOR message converter whose object mapper is configured like
+		 * Spring's JSON object mapper, including the message serialization module.
+		 * 
+		 * @param objectMapperBuilder Spring's preconfigured object mapper builder
+		 * @return the message converter that is automatically registered by Spring
+		 */
+		@Bean
+		@ConditionalOnMissingBean
+		MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+			Jackson2ObjectMapperBuilder objectMapperBuilder) {
+			ObjectMapper objectMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+			return new MappingJackson2CborHttpMessageConverter(objectMapper);
+		}
+	}
+
+	/**
+	 * Warms up the serialization of the request classes when the application
+	 * starts, if the <code>behavior.warm-up.enabled</code> property is true.
+	 */
+	@Configuration
+	@ConditionalOnProperty(name = "behavior.warm-up.enabled", havingValue = "true")
+	static class WarmUpConfiguration {
+		/**
+		 * Provides the warm-up that Spring runs before the application is ready.
+		 * 
+		 * @param objectMapper  Spring's object mapper for JSON
+		 * @param behaviorModel the behavior model whose request classes to warm up
+		 * @param roundTrips    the number of synthetic round trips per request class
+		 * @return the warm-up
+		 */
+		@Bean
+		SerializationWarmUp serializationWarmUp(ObjectMapper objectMapper, BehaviorModel behaviorModel,
+			@Value("${behavior.warm-up.round-trips:0}") int roundTrips) {
+			return new SerializationWarmUp(objectMapper, behaviorModel.model(), roundTrips);
+		}
+
+		/**
+		 * Exposes the warm-up duration as a metric, if Micrometer is on the classpath.
+		 */
+		@Configuration
+		@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+		static class WarmUpMetricsConfiguration {
+			/**
+			 * Provides the <code>behavior.warm-up.duration</code> metric.
+			 * 
+			 * @param serializationWarmUp the warm-up whose duration to expose
+			 * @return the binder that is automatically bound to the meter registry by Spring
+			 */
+			@Bean
+			MeterBinder serializationWarmUpMetrics(SerializationWarmUp serializationWarmUp) {
+				return registry -> TimeGauge.builder("behavior.warm-up.duration", serializationWarmUp,
+					TimeUnit.MILLISECONDS, warmUp -> warmUp.duration().toMillis())
+					.description("How long the warm-up of the serialization took at startup")
+					.register(registry);
+			}
+		}
+	}
 }
@@ -0,0 +1,118 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Warms up the serialization of the message classes of a model when the
+ * application starts, before it's ready to receive requests. So the first
+ * request of each message class doesn't pay for creating Jackson's serializers
+ * and deserializers.
+ * 
+ * For each message class, the serializer and deserializer are created. If round
+ * trips are specified, a message of each class is additionally deserialized from
+ * a document that only contains its type id, and serialized again, that many
+ * times. The messages are not passed to the behavior.
+ * 
+ * @author b_muth
+ *
+ */
+class SerializationWarmUp implements ApplicationRunner {
+	private static final Log log = LogFactory.getLog(SerializationWarmUp.class);
+	private static final String TYPE_PROPERTY_NAME = "@type";
+
+	private final ObjectMapper objectMapper;
+	private final List<Class<?>> messageClasses;
+	private final int roundTrips;
+	private volatile Duration duration;
+
+	/**
+	 * Creates a warm-up for the message classes of the specified model.
+	 * 
+	 * @param objectMapper the object mapper to warm up
+	 * @param model        the model whose message classes to warm up
+	 * @param roundTrips   the number of round trips per message class
+	 */
+	SerializationWarmUp(ObjectMapper objectMapper, Model model, int roundTrips) {
+		this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null!");
+		this.messageClasses = messageClassesOf(Objects.requireNonNull(model, "model must not be null!"));
+		if (roundTrips < 0) {
+			throw new IllegalArgumentException("roundTrips must not be negative, but was " + roundTrips);
+		}
+		this.roundTrips = roundTrips;
+		this.duration = Duration.ZERO;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		warmUp();
+	}
+
+	/**
+	 * Warms up the serialization of each message class.
+	 * 
+	 * @return the number of message classes that have been warmed up successfully
+	 */
+	int warmUp() {
+		long startNanos = System.nanoTime();
+		int warmedUpClasses = 0;
+		for (Class<?> messageClass : messageClasses) {
+			if (warmUp(messageClass)) {
+				warmedUpClasses++;
+			}
+		}
+		duration = Duration.ofNanos(System.nanoTime() - startNanos);
+
+		log.info("Warmed up serialization of " + warmedUpClasses + " of " + messageClasses.size()
+			+ " message classes in " + duration.toMillis() + " ms");
+		return warmedUpClasses;
+	}
+
+	/**
+	 * Returns how long the last warm-up took.
+	 * 
+	 * @return the duration, or zero if there hasn't been a warm-up yet
+	 */
+	Duration duration() {
+		return duration;
+	}
+
+	private boolean warmUp(Class<?> messageClass) {
+		try {
+			objectMapper.writerFor(messageClass);
+			objectMapper.readerFor(messageClass);
+
+			String document = objectMapper.createObjectNode().put(TYPE_PROPERTY_NAME, messageClass.getSimpleName())
+				.toString();
+			for (int i = 0; i < roundTrips; i++) {
+				Object message = objectMapper.readValue(document, Object.class);
+				objectMapper.writeValueAsBytes(message);
+			}
+			return true;
+		} catch (Exception e) {
+			log.debug("Couldn't warm up serialization of " + messageClass.getName(), e);
+			return false;
+		}
+	}
+
+	private static List<Class<?>> messageClassesOf(Model model) {
+		return model.getSteps().stream()
+			.map(Step::getMessageClass)
+			.filter(Objects::nonNull)
+			.filter(messageClass -> !ModelRunner.class.equals(messageClass))
+			.distinct()
+			.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,303 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.AggregateIds.AggregateIdOf;
+
+/**
+ * Wraps a behavior so that messages for the same aggregate are reacted to one
+ * after the other, in the order they have been received, while messages for
+ * different aggregates are reacted to in parallel.
+ *
+ * Each message whose class has been specified with
+ * {@link Builder#route(Class, Function)} is passed to one of a fixed number of
+ * lanes, based on the hash of its aggregate id. Each lane has a single thread
+ * that reacts to the messages of its lane. The caller waits for the response.
+ * All other messages are passed to the behavior directly.
+ *
+ * So concurrent commands for the same aggregate don't wait for each other's
+ * database locks, and don't cause lost updates. But since each lane has its own
+ * thread, the wrapped behavior must start its own transactions (e.g. be a
+ * transactional behavior bean).
+ *
+ * If a lane's thread reacts to a message that is routed to the same lane, it
+ * reacts to the message directly, so that it doesn't wait for itself. A lane's
+ * thread must not wait for the response to a message in another lane, or for
+ * space in another lane, because the other lane's thread may be waiting for it
+ * at the same time: then both would wait forever. So in that case,
+ * {@link #reactTo(Object)} throws an exception. Use
+ * {@link #reactToLater(Object)} instead, which rejects the message if the other
+ * lane is full.
+ *
+ * To keep the order of messages that are received asynchronously, e.g. events,
+ * pass them to {@link #reactToLater(Object)} in the thread that receives them,
+ * before any asynchronous hand-off.
+ *
+ * Call {@link #close()} to stop the threads when the behavior is no longer
+ * needed. Spring does that automatically for beans. Create a striped behavior
+ * with {@link #builder(Behavior)}.
+ *
+ * @author b_muth
+ *
+ */
+public class StripedBehavior implements Behavior, AutoCloseable {
+	private static final String THREAD_NAME_PREFIX = "behavior-lane-";
+	private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+	private final Behavior behavior;
+	private final AggregateIds routedAggregateIds;
+	private final List<LaneExecutor> lanes;
+
+	private StripedBehavior(Builder builder) {
+		this.behavior = builder.behavior;
+		this.routedAggregateIds = AggregateIds.of(builder.routes);
+		this.lanes = createLanes(builder.numberOfLanes, builder.queueCapacity);
+	}
+
+	/**
+	 * Starts building a striped behavior that wraps the specified behavior.
+	 *
+	 * @param behavior the behavior that reacts to the messages
+	 * @return the builder
+	 */
+	public static Builder builder(Behavior behavior) {
+		return new Builder(behavior);
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		Optional<AggregateIdOf<?>> aggregateIdOf = routedAggregateIds.of(message.getClass());
+		if (!aggregateIdOf.isPresent()) {
+			return behavior.reactTo(message);
+		}
+
+		LaneExecutor lane = laneOf(aggregateIdOf.get().apply(message));
+		if (lane.isCurrentThread()) {
+			return behavior.reactTo(message);
+		} else if (isLaneThread()) {
+			throw new IllegalStateException("Lane must not wait for a message of type " + message.getClass().getName()
+				+ " in another lane, as that may deadlock. Use reactToLater() instead.");
+		}
+		Future<Optional<T>> response = lane.submit(() -> behavior.reactTo(message));
+		return await(response);
+	}
+
+	/**
+	 * Passes the message to the lane of its aggregate, and returns without waiting
+	 * for the response. Messages for the same aggregate are reacted to in the
+	 * order this method has been called. If the lane is full, waits until there
+	 * is space again.
+	 *
+	 * Messages that aren't routed to a lane, or that a lane's thread routes to its
+	 * own lane, are reacted to directly. If a lane's thread routes a message to
+	 * another lane that is full, the message is rejected instead of waiting.
+	 *
+	 * @param <T>     the type of response
+	 * @param message the message to react to
+	 * @return the future response, completed exceptionally if the behavior throws
+	 *         an exception, or with a {@link RejectedExecutionException} if the
+	 *         message has been rejected
+	 */
+	public <T> CompletableFuture<Optional<T>> reactToLater(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		Optional<AggregateIdOf<?>> aggregateIdOf = routedAggregateIds.of(message.getClass());
+		if (!aggregateIdOf.isPresent()) {
+			return reactToNow(message);
+		}
+
+		LaneExecutor lane = laneOf(aggregateIdOf.get().apply(message));
+		if (lane.isCurrentThread()) {
+			return reactToNow(message);
+		}
+		Executor executor = isLaneThread() ? lane::executeWithoutWaiting : lane;
+		try {
+			return CompletableFuture.supplyAsync(() -> behavior.reactTo(message), executor);
+		} catch (RejectedExecutionException e) {
+			CompletableFuture<Optional<T>> response = new CompletableFuture<>();
+			response.completeExceptionally(e);
+			return response;
+		}
+	}
+
+	/**
+	 * Returns whether the message is routed to a lane.
+	 *
+	 * @param message the message
+	 * @return true if the message's class has been specified with
+	 *         {@link Builder#route(Class, Function)}, false otherwise
+	 */
+	public boolean isRouted(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+		return routedAggregateIds.of(message.getClass()).isPresent();
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	/**
+	 * Stops the threads of the lanes, after they have reacted to the messages
+	 * received so far (or 30 seconds have elapsed).
+	 */
+	@Override
+	public void close() {
+		for (LaneExecutor lane : lanes) {
+			lane.shutdown();
+		}
+		try {
+			for (LaneExecutor lane : lanes) {
+				lane.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private <T> CompletableFuture<Optional<T>> reactToNow(Object message) {
+		CompletableFuture<Optional<T>> response = new CompletableFuture<>();
+		try {
+			response.complete(behavior.reactTo(message));
+		} catch (RuntimeException | Error e) {
+			response.completeExceptionally(e);
+		}
+		return response;
+	}
+
+	private LaneExecutor laneOf(Object aggregateId) {
+		int hash = Objects.hashCode(aggregateId);
+		int spreadHash = hash ^ (hash >>> 16);
+		return lanes.get(Math.floorMod(spreadHash, lanes.size()));
+	}
+
+	private boolean isLaneThread() {
+		for (LaneExecutor lane : lanes) {
+			if (lane.isCurrentThread()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private <T> Optional<T> await(Future<Optional<T>> response) {
+		boolean isInterrupted = false;
+		try {
+			while (true) {
+				try {
+					return response.get();
+				} catch (InterruptedException e) {
+					// The message has been passed to the lane, so wait for the response anyway
+					isInterrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			if (isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static List<LaneExecutor> createLanes(int numberOfLanes, int queueCapacity) {
+		List<LaneExecutor> lanes = new ArrayList<>(numberOfLanes);
+		for (int i = 0; i < numberOfLanes; i++) {
+			lanes.add(new LaneExecutor(THREAD_NAME_PREFIX + i + "-", queueCapacity));
+		}
+		return Collections.unmodifiableList(lanes);
+	}
+
+	/**
+	 * Builds a striped behavior.
+	 */
+	public static class Builder {
+		private final Behavior behavior;
+		private final List<AggregateIdOf<?>> routes;
+		private int numberOfLanes;
+		private int queueCapacity;
+
+		private Builder(Behavior behavior) {
+			this.behavior = Objects.requireNonNull(behavior, "behavior must not be null!");
+			this.routes = new ArrayList<>();
+			this.numberOfLanes = Runtime.getRuntime().availableProcessors() * 2;
+			this.queueCapacity = 1000;
+		}
+
+		/**
+		 * Routes messages of the specified class (or its subclasses) to the lane of
+		 * their aggregate.
+		 *
+		 * @param <T>          the type of message
+		 * @param messageClass the class of messages
+		 * @param aggregateId  the function that returns the id of the aggregate that a
+		 *                     message reads or changes
+		 * @return this builder
+		 */
+		public <T> Builder route(Class<T> messageClass, Function<? super T, ?> aggregateId) {
+			routes.add(new AggregateIdOf<>(messageClass, aggregateId));
+			return this;
+		}
+
+		/**
+		 * Sets the number of lanes (default: twice the number of processors). Messages
+		 * for different aggregates in the same lane wait for each other, so more lanes
+		 * allow more parallelism.
+		 *
+		 * @param numberOfLanes the number of lanes
+		 * @return this builder
+		 */
+		public Builder lanes(int numberOfLanes) {
+			if (numberOfLanes < 1) {
+				throw new IllegalArgumentException("numberOfLanes must be positive, but was " + numberOfLanes);
+			}
+			this.numberOfLanes = numberOfLanes;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of messages waiting in each lane (default: 1000). If
+		 * a lane is full, callers wait until there is space again.
+		 *
+		 * @param queueCapacity the maximum number of waiting messages per lane
+		 * @return this builder
+		 */
+		public Builder queueCapacity(int queueCapacity) {
+			if (queueCapacity < 1) {
+				throw new IllegalArgumentException("queueCapacity must be positive, but was " + queueCapacity);
+			}
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		/**
+		 * Builds the striped behavior, and starts the threads of its lanes.
+		 *
+		 * @return the striped behavior
+		 */
+		public StripedBehavior build() {
+			return new StripedBehavior(this);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Step;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+
+/**
+ * Wraps any behavior so that an OpenTelemetry span is created whenever
+ * {@link #reactTo(Object)} is called. The span is the current span while the
+ * wrapped behavior reacts, so spans created by the steps (or by listeners of
+ * events published by the steps) become its children.
+ *
+ * The span is named after the model's message class that the message is an
+ * instance of (or <code>other</code>, if no step of the model can react to
+ * it), and has these attributes:
+ * <ul>
+ * <li><code>behavior.message.class</code>: the name of the message's
+ * class</li>
+ * <li><code>behavior.step</code>: the names of the steps that can react to the
+ * message</li>
+ * </ul>
+ * 
+ * Use {@link #transactionEvents()} to add the boundaries of the transaction to
+ * the current span.
+ *
+ * @author b_muth
+ *
+ */
+public class TracingBehavior implements Behavior {
+	static final AttributeKey<String> MESSAGE_CLASS = AttributeKey.stringKey("behavior.message.class");
+	static final AttributeKey<String> STEP = AttributeKey.stringKey("behavior.step");
+	static final String TRANSACTION_BEGIN = "transaction.begin";
+	static final String TRANSACTION_COMMIT = "transaction.commit";
+	static final String TRANSACTION_ROLLBACK = "transaction.rollback";
+
+	private static final String OTHER_MESSAGE_CLASS = "other";
+
+	private final Behavior behavior;
+	private final Tracer tracer;
+	private final ClassValue<SpanTemplate> spanTemplatesByMessageClass;
+
+	private TracingBehavior(Behavior behavior, Tracer tracer) {
+		this.behavior = behavior;
+		this.tracer = tracer;
+
+		DispatchTable dispatchTable = DispatchTable.of(behavior.behaviorModel().model());
+		this.spanTemplatesByMessageClass = new ClassValue<SpanTemplate>() {
+			@Override
+			protected SpanTemplate computeValue(Class<?> messageClass) {
+				return new SpanTemplate(messageClass, dispatchTable.stepsFor(messageClass));
+			}
+		};
+	}
+
+	/**
+	 * Wraps the specified behavior, and creates its spans with the specified
+	 * tracer.
+	 *
+	 * @param behavior the behavior to be traced
+	 * @param tracer   the tracer that creates the spans
+	 * @return the tracing behavior
+	 */
+	public static TracingBehavior of(Behavior behavior, Tracer tracer) {
+		Objects.requireNonNull(behavior, "behavior must not be null!");
+		Objects.requireNonNull(tracer, "tracer must not be null!");
+		return new TracingBehavior(behavior, tracer);
+	}
+
+	/**
+	 * Creates a decorator that wraps a behavior in a tracing behavior.
+	 *
+	 * @param tracer the tracer that creates the spans
+	 * @return the decorator
+	 */
+	public static BehaviorDecorator decorator(Tracer tracer) {
+		Objects.requireNonNull(tracer, "tracer must not be null!");
+		return behavior -> of(behavior, tracer);
+	}
+
+	/**
+	 * Creates a decorator that runs inside of the transaction, and adds the
+	 * <code>transaction.begin</code> event and the
+	 * <code>transaction.commit</code> or <code>transaction.rollback</code> event
+	 * to the current span. If there is no recording span or no transaction, the
+	 * decorator's behavior just calls the decorated behavior.
+	 *
+	 * @return the decorator
+	 */
+	public static BehaviorDecorator transactionEvents() {
+		return new BehaviorDecorator() {
+			@Override
+			public Behavior decorate(Behavior behavior) {
+				return new TransactionEventsBehavior(behavior);
+			}
+
+			@Override
+			public boolean insideTransaction() {
+				return true;
+			}
+		};
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object message) {
+		Objects.requireNonNull(message, "message must not be null!");
+
+		SpanTemplate spanTemplate = spanTemplatesByMessageClass.get(message.getClass());
+		Span span = tracer.spanBuilder(spanTemplate.name)
+			.setAttribute(MESSAGE_CLASS, spanTemplate.messageClassName)
+			.setAttribute(STEP, spanTemplate.stepNames)
+			.startSpan();
+		Scope scope = span.makeCurrent();
+		try {
+			return behavior.reactTo(message);
+		} catch (RuntimeException | Error e) {
+			span.recordException(e);
+			span.setStatus(StatusCode.ERROR);
+			throw e;
+		} finally {
+			scope.close();
+			span.end();
+		}
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	private static class SpanTemplate {
+		private final String name;
+		private final String messageClassName;
+		private final String stepNames;
+
+		SpanTemplate(Class<?> messageClass, List<Step> steps) {
+			this.name = steps.isEmpty() ? OTHER_MESSAGE_CLASS : steps.get(0).getMessageClass().getSimpleName();
+			this.messageClassName = messageClass.getName();
+			this.stepNames = steps.stream().map(Step::getName).collect(Collectors.joining(","));
+		}
+	}
+
+	private static class TransactionEventsBehavior implements Behavior {
+		private final Behavior behavior;
+
+		TransactionEventsBehavior(Behavior behavior) {
+			this.behavior = Objects.requireNonNull(behavior, "behavior must not be null!");
+		}
+
+		@Override
+		public <T> Optional<T> reactTo(Object message) {
+			Span span = Span.current();
+			if (span.isRecording() && TransactionSynchronizationManager.isSynchronizationActive()) {
+				span.addEvent(TRANSACTION_BEGIN);
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						span.addEvent(status == STATUS_COMMITTED ? TRANSACTION_COMMIT : TRANSACTION_ROLLBACK);
+					}
+				});
+			}
+			return behavior.reactTo(message);
+		}
+
+		@Override
+		public BehaviorModel behaviorModel() {
+			return behavior.behaviorModel();
+		}
+	}
+}
@@ -10,7 +10,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Wraps any behavior so that a new transaction is started whenever
- * {@link #reactTo(Object)} is called.
+ * {@link #reactTo(Object)} is called. For query messages that don't change
+ * data, call {@link #reactToQuery(Object)} instead, to start a read-only
+ * transaction.
  * 
  * @author b_muth
  *
@@ -45,6 +47,20 @@ public class TransactionalBehavior implements Behavior {
 		return behavior.reactTo(message);
 	}
 
+	/**
+	 * Reacts to the specified query message in a new read-only transaction. That
+	 * enables optimizations of the transaction manager, e.g. JPA skips flushing
+	 * the changes at the end of the transaction.
+	 * 
+	 * @param <T>   the type of response
+	 * @param query the query message, which must not change any data
+	 * @return the response
+	 */
+	@Transactional(readOnly = true)
+	public <T> Optional<T> reactToQuery(Object query) {
+		return behavior.reactTo(query);
+	}
+
 	@Override
 	public BehaviorModel behaviorModel() {
 		return behavior.behaviorModel();
@@ -0,0 +1,27 @@
+package org.requirementsascode.spring.behavior.web;
+
+import java.util.Optional;
+
+import org.requirementsascode.Behavior;
+
+/**
+ * A behavior that knows the version of the response to a message, without
+ * reacting to it. The version changes whenever the response may change.
+ * 
+ * If a registered behavior bean implements this interface, the endpoint sends
+ * the version as <code>ETag</code> header, and answers requests with a matching
+ * <code>If-None-Match</code> header with status 304 (Not Modified), without
+ * calling the behavior.
+ * 
+ * @author b_muth
+ *
+ */
+public interface VersionedBehavior extends Behavior {
+	/**
+	 * Returns the current version of the response to the specified message.
+	 * 
+	 * @param message the message
+	 * @return the version, or an empty optional if the message isn't versioned
+	 */
+	Optional<String> versionOf(Object message);
+}
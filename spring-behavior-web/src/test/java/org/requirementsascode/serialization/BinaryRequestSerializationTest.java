@@ -0,0 +1,48 @@
+package org.requirementsascode.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestBehaviorModel;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+public class BinaryRequestSerializationTest {
+	@Test
+	public void readsAndWrites_smile() throws Exception {
+		assertReadsAndWritesListOfRequests(new SmileFactory());
+	}
+
+	@Test
+	public void readsAndWrites_cbor() throws Exception {
+		assertReadsAndWritesListOfRequests(new CBORFactory());
+	}
+
+	private void assertReadsAndWritesListOfRequests(JsonFactory jsonFactory) throws Exception {
+		ObjectMapper objectMapper = objectMapperFor(jsonFactory);
+		List<Object> requests = Arrays.asList(new TestCreateListRequest(), new TestAddTaskRequest());
+		TypeReference<List<Object>> listOfObjects = new TypeReference<List<Object>>() {};
+
+		byte[] bytes = objectMapper.writerFor(listOfObjects).writeValueAsBytes(requests);
+		List<Object> readRequests = objectMapper.readValue(bytes, listOfObjects);
+
+		assertTrue(readRequests.get(0) instanceof TestCreateListRequest);
+		assertTrue(readRequests.get(1) instanceof TestAddTaskRequest);
+	}
+
+	private ObjectMapper objectMapperFor(JsonFactory jsonFactory) {
+		Model behaviorModel = new TestBehaviorModel().model();
+		MessageSerializationModule serializationModule = new MessageSerializationModule(behaviorModel);
+		return new ObjectMapper(jsonFactory).registerModule(serializationModule);
+	}
+}
@@ -0,0 +1,86 @@
+package org.requirementsascode.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel.AnnotatedRequest;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel.ImmutableRequest;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel.Item;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel.MutableRequest;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel.Response;
+import org.requirementsascode.spring.codecbehavior.CodecTestBehaviorModel.ResponseFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageCodecTest {
+	private final ObjectMapper codecObjectMapper;
+	private final ObjectMapper reflectionObjectMapper;
+
+	public MessageCodecTest() {
+		Model model = new CodecTestBehaviorModel().model();
+		this.codecObjectMapper = new ObjectMapper().registerModule(new MessageSerializationModule(model));
+		this.reflectionObjectMapper = new ObjectMapper()
+			.registerModule(new MessageSerializationModule(model, Collections.emptyList()));
+	}
+
+	@Test
+	public void generatesCodecsForReferencedAndSpecifiedClasses() {
+		@SuppressWarnings("rawtypes")
+		ServiceLoader<MessageCodec> codecs = ServiceLoader.load(MessageCodec.class);
+		Set<Class<?>> messageClasses = StreamSupport.stream(codecs.spliterator(), false)
+			.map(codec -> (Class<?>) codec.messageClass())
+			.collect(Collectors.toSet());
+
+		assertTrue(messageClasses.containsAll(Arrays.asList(ImmutableRequest.class, MutableRequest.class,
+			Response.class, Item.class)));
+		assertFalse(messageClasses.contains(AnnotatedRequest.class));
+		assertFalse(messageClasses.contains(ResponseFactory.class));
+	}
+
+	@Test
+	public void readsAndWrites_immutableRequest() throws Exception {
+		ImmutableRequest request = new ImmutableRequest("Name", 3, 'N', Arrays.asList(new Item("Item")),
+			MutableRequest.of("Payload", null, null));
+		assertWritesLikeReflectionAndReads(request);
+	}
+
+	@Test
+	public void readsAndWrites_immutableRequestWithNullValues() throws Exception {
+		ImmutableRequest request = new ImmutableRequest(null, 0, 'N', null, null);
+		assertWritesLikeReflectionAndReads(request);
+	}
+
+	@Test
+	public void readsAndWrites_mutableRequest() throws Exception {
+		assertWritesLikeReflectionAndReads(MutableRequest.of("Name", new long[] { 1, 2 }, 0.5));
+	}
+
+	@Test
+	public void writes_response() throws Exception {
+		assertWritesLikeReflection(new Response("Name", true));
+	}
+
+	private void assertWritesLikeReflectionAndReads(Object message) throws Exception {
+		String codecJson = assertWritesLikeReflection(message);
+		Object readMessage = codecObjectMapper.readValue(codecJson, Object.class);
+		assertEquals(message, readMessage);
+	}
+
+	private String assertWritesLikeReflection(Object message) throws Exception {
+		String codecJson = codecObjectMapper.writerFor(Object.class).writeValueAsString(message);
+		String reflectionJson = reflectionObjectMapper.writerFor(Object.class).writeValueAsString(message);
+		assertEquals(reflectionJson, codecJson);
+		return codecJson;
+	}
+}
@@ -1,6 +1,9 @@
 package org.requirementsascode.serialization;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.requirementsascode.Model;
@@ -9,6 +12,7 @@ import org.requirementsascode.spring.testbehavior.TestBehaviorModel;
 import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
@@ -36,6 +40,18 @@ public class RequestSerializationTest {
 		assertEquals(jsonAddTask, writeToJson(objectMapper(), addTask));
 	}
 
+	@Test
+	public void readsAndWrites_listOfRequests() throws Exception {
+		String jsonCreateListRequest = jsonWithType("{%s}", TestCreateListRequest.class);
+		String jsonAddTask = jsonWithType("{%s}", TestAddTaskRequest.class);
+		String jsonRequests = "[" + jsonCreateListRequest + "," + jsonAddTask + "]";
+
+		List<Object> requests = objectMapper().readValue(jsonRequests, new TypeReference<List<Object>>() {});
+		assertTrue(requests.get(0) instanceof TestCreateListRequest);
+		assertTrue(requests.get(1) instanceof TestAddTaskRequest);
+		assertEquals(jsonRequests, objectMapper().writerFor(new TypeReference<List<Object>>() {}).writeValueAsString(requests));
+	}
+
 	private String jsonWithType(String jsonWithPlaceholder, Class<?> type) {
 		String typeSubstring = "\"@type\":\"" + type.getSimpleName() + "\"";
 		String jsonWithType = String.format(jsonWithPlaceholder, typeSubstring);
@@ -0,0 +1,91 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCompleteTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+
+class AdmissionControlTest {
+	private AdmissionControl admissionControl;
+
+	@BeforeEach
+	void setup() {
+		admissionControl = AdmissionControl.builder()
+			.maxConcurrency(3)
+			.maxConcurrentQueries(2)
+			.maxConcurrentCommands(2)
+			.maxConcurrency(TestAddTaskRequest.class, 1)
+			.queryClasses(Collections.singletonList(TestCreateListRequest.class))
+			.retryAfter(Duration.ofSeconds(2))
+			.build();
+	}
+
+	@Test
+	void rejectsQueriesWithoutStarvingCommands() {
+		admissionControl.admit(new TestCreateListRequest());
+		admissionControl.admit(new TestCreateListRequest());
+
+		AdmissionRejectedException exception = assertThrows(AdmissionRejectedException.class,
+			() -> admissionControl.admit(new TestCreateListRequest()));
+		assertEquals(AdmissionControl.QUERIES, exception.getBudget());
+		assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+
+		admissionControl.admit(new TestCompleteTaskRequest(null, null, null));
+		assertEquals(1, statisticsOf(AdmissionControl.COMMANDS).getInFlightCount());
+		assertEquals(1, statisticsOf(AdmissionControl.QUERIES).getRejectedCount());
+	}
+
+	@Test
+	void rejectsMessagesOfClassWithExhaustedBudget() {
+		admissionControl.admit(new TestAddTaskRequest());
+
+		assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit(new TestAddTaskRequest()));
+		assertEquals(1, statisticsOf(AdmissionControl.COMMANDS).getInFlightCount());
+		assertEquals(1, statisticsOf(AdmissionControl.GLOBAL).getInFlightCount());
+		assertEquals(1, statisticsOf("TestAddTaskRequest").getRejectedCount());
+	}
+
+	@Test
+	void rejectsMessagesIfGlobalBudgetIsExhausted() {
+		admissionControl.admit(new TestCreateListRequest());
+		admissionControl.admit(new TestCreateListRequest());
+		admissionControl.admit(new TestCompleteTaskRequest(null, null, null));
+
+		assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit(new TestAddTaskRequest()));
+		assertEquals(0, statisticsOf("TestAddTaskRequest").getInFlightCount());
+		assertEquals(1, statisticsOf(AdmissionControl.COMMANDS).getInFlightCount());
+		assertEquals(1, statisticsOf(AdmissionControl.GLOBAL).getRejectedCount());
+	}
+
+	@Test
+	void admitsMessagesAgainAfterPermitsAreClosed() {
+		AdmissionControl.Permit firstPermit = admissionControl.admit(new TestAddTaskRequest());
+		try {
+			assertEquals(1, statisticsOf("TestAddTaskRequest").getInFlightCount());
+		} finally {
+			firstPermit.close();
+		}
+		AdmissionControl.Permit permit = admissionControl.admit(new TestAddTaskRequest());
+		permit.close();
+		permit.close();
+
+		List<AdmissionStatistics> statistics = admissionControl.statistics();
+		assertEquals(4, statistics.size());
+		statistics.forEach(budgetStatistics -> assertEquals(0, budgetStatistics.getInFlightCount()));
+	}
+
+	private AdmissionStatistics statisticsOf(String budget) {
+		return admissionControl.statistics().stream()
+			.filter(statistics -> statistics.getBudget().equals(budget))
+			.findFirst()
+			.get();
+	}
+}
@@ -0,0 +1,73 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCompleteTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListResponse;
+
+class BatchBehaviorTest {
+	private BatchBehavior batchBehavior;
+
+	@BeforeEach
+	void setup() {
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).systemPublish(createList -> new TestCreateListResponse())
+			.user(TestAddTaskRequest.class).system(addTask -> {
+				throw new IllegalStateException("Task can't be added");
+			})
+			.user(TestCompleteTaskRequest.class).system(() -> {})
+			.build();
+		this.batchBehavior = new BatchBehavior(StatelessBehavior.of(() -> model));
+	}
+
+	@Test
+	void reactsToEachMessageInOrder() {
+		List<Optional<Object>> responses = batchBehavior
+			.reactToEach(Arrays.asList(new TestCreateListRequest(), new TestCompleteTaskRequest(null, null, null)));
+
+		assertEquals(2, responses.size());
+		assertTrue(responses.get(0).get() instanceof TestCreateListResponse);
+		assertFalse(responses.get(1).isPresent());
+	}
+
+	@Test
+	void respondsWithErrorAndContinues() {
+		List<Optional<Object>> responses = batchBehavior
+			.reactToEach(Arrays.asList(new TestAddTaskRequest(), new TestCreateListRequest()));
+
+		BatchErrorResponse errorResponse = (BatchErrorResponse) responses.get(0).get();
+		assertEquals("TestAddTaskRequest", errorResponse.getMessageType());
+		assertEquals("IllegalStateException", errorResponse.getError());
+		assertEquals("Task can't be added", errorResponse.getMessage());
+		assertTrue(responses.get(1).get() instanceof TestCreateListResponse);
+	}
+
+	@Test
+	void reactsToAllMessagesInOrder() {
+		List<Optional<Object>> responses = batchBehavior
+			.reactToAll(Arrays.asList(new TestCreateListRequest(), new TestCreateListRequest()));
+
+		assertEquals(2, responses.size());
+		assertTrue(responses.get(0).get() instanceof TestCreateListResponse);
+		assertTrue(responses.get(1).get() instanceof TestCreateListResponse);
+	}
+
+	@Test
+	void throwsWhenReactingToAllFails() {
+		List<Object> messages = Arrays.asList(new TestCreateListRequest(), new TestAddTaskRequest());
+		assertThrows(IllegalStateException.class, () -> batchBehavior.reactToAll(messages));
+	}
+}
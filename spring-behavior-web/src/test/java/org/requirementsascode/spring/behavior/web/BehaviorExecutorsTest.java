@@ -0,0 +1,76 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class BehaviorExecutorsTest {
+	@Test
+	void boundedExecutorUsesAtMostPoolSizeThreads() throws Exception {
+		ExecutorService executor = BehaviorExecutors.newBoundedExecutor(2, 10);
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		CountDownLatch latch = new CountDownLatch(10);
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(executor.submit(() -> {
+				threadNames.add(Thread.currentThread().getName());
+				latch.countDown();
+			}));
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		executor.shutdown();
+
+		assertTrue(threadNames.size() <= 2);
+		assertTrue(threadNames.stream().allMatch(name -> name.startsWith(BehaviorExecutors.THREAD_NAME_PREFIX)));
+	}
+
+	@Test
+	void createsExecutorOnAnyJdk() throws Exception {
+		ExecutorService executor = BehaviorExecutors.newVirtualThreadOrBoundedExecutor(1, 1);
+		String result = executor.submit(() -> "done").get(10, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		assertEquals("done", result);
+	}
+
+	@Test
+	void boundedExecutorRejectsTasksIfQueueIsFull() throws Exception {
+		ExecutorService executor = BehaviorExecutors.newBoundedExecutor(1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			executor.submit(() -> {
+				release.await();
+				return null;
+			});
+			executor.submit(() -> {});
+
+			assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> {}));
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsNonPositivePoolSize() {
+		assertThrows(IllegalArgumentException.class, () -> BehaviorExecutors.newBoundedExecutor(0, 1));
+	}
+
+	@Test
+	void rejectsNonPositiveQueueCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> BehaviorExecutors.newBoundedExecutor(1, 0));
+	}
+}
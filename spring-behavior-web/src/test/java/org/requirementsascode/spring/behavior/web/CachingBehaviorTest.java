@@ -0,0 +1,205 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class CachingBehaviorTest {
+	private AtomicInteger listQueryCount;
+	private AtomicLong nanoTime;
+	private CachingBehavior cachingBehavior;
+
+	@BeforeEach
+	void setup() {
+		listQueryCount = new AtomicInteger();
+		nanoTime = new AtomicLong();
+
+		Model model = Model.builder()
+			.user(ListTasks.class).systemPublish(listTasks -> listQueryCount.incrementAndGet())
+			.user(FilterTasks.class).systemPublish(filterTasks -> filterTasks.filter)
+			.user(AddTask.class).system(addTask -> {})
+			.build();
+
+		cachingBehavior = CachingBehavior.builder(StatelessBehavior.of(() -> model))
+			.cache(ListTasks.class, ListTasks::getListId)
+			.cache(FilterTasks.class, FilterTasks::getListId)
+			.invalidateOn(AddTask.class, AddTask::getListId)
+			.maximumSize(2)
+			.timeToLive(Duration.ofSeconds(10))
+			.nanoTime(nanoTime::get)
+			.build();
+	}
+
+	@Test
+	void answersEqualQueryFromCache() {
+		assertEquals(1, (int) cachingBehavior.reactTo(new ListTasks("list1")).get());
+		assertEquals(1, (int) cachingBehavior.reactTo(new ListTasks("list1")).get());
+
+		CacheStatistics statistics = cachingBehavior.statistics();
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(1, listQueryCount.get());
+	}
+
+	@Test
+	void invalidatesCachedResponseForSameAggregate() {
+		cachingBehavior.reactTo(new ListTasks("list1"));
+		cachingBehavior.reactTo(new ListTasks("list2"));
+		cachingBehavior.reactTo(new AddTask("list1"));
+
+		assertEquals(3, (int) cachingBehavior.reactTo(new ListTasks("list1")).get());
+		assertEquals(2, (int) cachingBehavior.reactTo(new ListTasks("list2")).get());
+	}
+
+	@Test
+	void expiresCachedResponseAfterTimeToLive() {
+		cachingBehavior.reactTo(new ListTasks("list1"));
+		nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+		assertEquals(2, (int) cachingBehavior.reactTo(new ListTasks("list1")).get());
+		assertEquals(1, cachingBehavior.statistics().getEvictionCount());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedResponseIfFull() {
+		cachingBehavior.reactTo(new ListTasks("list1"));
+		cachingBehavior.reactTo(new ListTasks("list2"));
+		cachingBehavior.reactTo(new ListTasks("list1"));
+		cachingBehavior.reactTo(new ListTasks("list3"));
+
+		CacheStatistics statistics = cachingBehavior.statistics();
+		assertEquals(1, statistics.getEvictionCount());
+		assertEquals(2, statistics.getSize());
+
+		cachingBehavior.reactTo(new ListTasks("list1"));
+		assertEquals(2, cachingBehavior.statistics().getHitCount());
+	}
+
+	@Test
+	void changesVersionOnlyForCommandOnSameAggregate() {
+		String list1Version = cachingBehavior.versionOf(new ListTasks("list1")).get();
+		String list2Version = cachingBehavior.versionOf(new ListTasks("list2")).get();
+
+		cachingBehavior.reactTo(new AddTask("list1"));
+
+		assertNotEquals(list1Version, cachingBehavior.versionOf(new ListTasks("list1")).get());
+		assertEquals(list2Version, cachingBehavior.versionOf(new ListTasks("list2")).get());
+		assertFalse(cachingBehavior.versionOf(new AddTask("list1")).isPresent());
+		assertEquals(0, listQueryCount.get());
+	}
+
+	@Test
+	void versionsDifferForQueriesWithSameHashCode() {
+		FilterTasks completedTasks = new FilterTasks("list1", "completed");
+		FilterTasks openTasks = new FilterTasks("list1", "open");
+		assertEquals(completedTasks.hashCode(), openTasks.hashCode());
+
+		assertNotEquals(cachingBehavior.versionOf(completedTasks).get(), cachingBehavior.versionOf(openTasks).get());
+		assertEquals(cachingBehavior.versionOf(completedTasks).get(),
+			cachingBehavior.versionOf(new FilterTasks("list1", "completed")).get());
+	}
+
+	@Test
+	void invalidatesAggregateChangedWithoutCommand() {
+		cachingBehavior.reactTo(new ListTasks("list1"));
+		String list1Version = cachingBehavior.versionOf(new ListTasks("list1")).get();
+
+		cachingBehavior.invalidate("list1");
+
+		assertNotEquals(list1Version, cachingBehavior.versionOf(new ListTasks("list1")).get());
+		assertEquals(2, (int) cachingBehavior.reactTo(new ListTasks("list1")).get());
+	}
+
+	@Test
+	void invalidatesCachedResponseAgainAfterOuterTransaction() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cachingBehavior.reactTo(new AddTask("list1"));
+			// A concurrent query before the commit reads the data without the change
+			cachingBehavior.reactTo(new ListTasks("list1"));
+			String versionBeforeCommit = cachingBehavior.versionOf(new ListTasks("list1")).get();
+
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+
+			assertNotEquals(versionBeforeCommit, cachingBehavior.versionOf(new ListTasks("list1")).get());
+			assertEquals(2, (int) cachingBehavior.reactTo(new ListTasks("list1")).get());
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	static class ListTasks {
+		private final String listId;
+
+		ListTasks(String listId) {
+			this.listId = listId;
+		}
+
+		String getListId() {
+			return listId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ListTasks && Objects.equals(listId, ((ListTasks) obj).listId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(listId);
+		}
+	}
+
+	static class FilterTasks {
+		private final String listId;
+		private final String filter;
+
+		FilterTasks(String listId, String filter) {
+			this.listId = listId;
+			this.filter = filter;
+		}
+
+		String getListId() {
+			return listId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof FilterTasks && Objects.equals(listId, ((FilterTasks) obj).listId)
+				&& Objects.equals(filter, ((FilterTasks) obj).filter);
+		}
+
+		@Override
+		public int hashCode() {
+			// Collides for different filters, like any hash code can
+			return Objects.hashCode(listId);
+		}
+	}
+
+	static class AddTask {
+		private final String listId;
+
+		AddTask(String listId) {
+			this.listId = listId;
+		}
+
+		String getListId() {
+			return listId;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+
+class CoalescingBehaviorTest {
+	private static final int NUMBER_OF_COMMANDS = 10;
+
+	private List<Integer> batchSizes;
+	private AtomicInteger addedTasks;
+	private ExecutorService executor;
+	private Behavior behavior;
+	private CoalescingBehavior coalescingBehavior;
+
+	@BeforeEach
+	void setup() {
+		batchSizes = Collections.synchronizedList(new ArrayList<>());
+		addedTasks = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(NUMBER_OF_COMMANDS);
+
+		Model model = Model.builder()
+			.user(AddTask.class).systemPublish(addTask -> {
+				addedTasks.incrementAndGet();
+				if (addTask.task.isEmpty()) {
+					throw new IllegalArgumentException("Task must not be empty");
+				} else if (addTask.task.equals("error")) {
+					throw new TaskError();
+				}
+				return addTask.listId + ":" + addTask.task;
+			})
+			.user(ListTasks.class).systemPublish(listTasks -> "tasks")
+			.build();
+		behavior = StatelessBehavior.of(() -> model);
+		coalescingBehavior = coalescingBehaviorBuilder().build();
+	}
+
+	private CoalescingBehavior.Builder coalescingBehaviorBuilder() {
+		return CoalescingBehavior.builder(behavior, new RecordingBatchBehavior(behavior))
+			.coalesce(AddTask.class, addTask -> addTask.listId)
+			.window(Duration.ofSeconds(10))
+			.maximumGroupSize(NUMBER_OF_COMMANDS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void reactsToConcurrentCommandsForSameAggregateInOneBatch() throws Exception {
+		List<Future<Optional<String>>> responses = sendConcurrently("list1", "task");
+
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			assertEquals("list1:task" + i, responses.get(i).get().get());
+		}
+		assertEquals(Collections.singletonList(NUMBER_OF_COMMANDS), batchSizes);
+	}
+
+	@Test
+	void onlyFailingCommandThrowsException() throws Exception {
+		List<Future<Optional<String>>> responses = sendConcurrentlyWithFailingTask("");
+
+		assertOnlyFailingCommandThrows(responses, IllegalArgumentException.class);
+	}
+
+	@Test
+	void completesAllCommandsIfBehaviorThrowsError() throws Exception {
+		List<Future<Optional<String>>> responses = sendConcurrentlyWithFailingTask("error");
+
+		assertOnlyFailingCommandThrows(responses, TaskError.class);
+	}
+
+	@Test
+	void failsRolledBackCommandsIfConfigured() throws Exception {
+		coalescingBehavior = coalescingBehaviorBuilder().failRolledBackCommands().build();
+
+		List<Future<Optional<String>>> responses = sendConcurrentlyWithFailingTask("");
+
+		assertOnlyFailingAndRolledBackCommandsThrow(responses, IllegalArgumentException.class);
+	}
+
+	private List<Future<Optional<String>>> sendConcurrentlyWithFailingTask(String failingTask) {
+		List<Future<Optional<String>>> responses = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			String task = i == 3 ? failingTask : "task" + i;
+			responses.add(executor.submit(() -> coalescingBehavior.reactTo(new AddTask("list1", task))));
+		}
+		return responses;
+	}
+
+	private void assertOnlyFailingCommandThrows(List<Future<Optional<String>>> responses,
+		Class<? extends Throwable> exceptionClass) throws Exception {
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			Future<Optional<String>> response = responses.get(i);
+			if (i == 3) {
+				ExecutionException e = assertThrows(ExecutionException.class, () -> response.get(10, TimeUnit.SECONDS));
+				assertTrue(exceptionClass.isInstance(e.getCause()));
+			} else {
+				assertEquals("list1:task" + i, response.get(10, TimeUnit.SECONDS).get());
+			}
+		}
+
+		// The rolled back commands before the failing one have been reacted to again
+		// in a second batch, and the ones after it in a third batch
+		int rolledBackCommands = addedTasks.get() - NUMBER_OF_COMMANDS;
+		int commandsAfterFailingOne = NUMBER_OF_COMMANDS - rolledBackCommands - 1;
+		List<Integer> expectedBatchSizes = new ArrayList<>(Collections.singletonList(NUMBER_OF_COMMANDS));
+		if (rolledBackCommands > 0) {
+			expectedBatchSizes.add(rolledBackCommands);
+		}
+		if (commandsAfterFailingOne > 0) {
+			expectedBatchSizes.add(commandsAfterFailingOne);
+		}
+		assertEquals(expectedBatchSizes, batchSizes);
+	}
+
+	private void assertOnlyFailingAndRolledBackCommandsThrow(List<Future<Optional<String>>> responses,
+		Class<? extends Throwable> exceptionClass) throws Exception {
+		int rolledBackCommands = 0;
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			Future<Optional<String>> response = responses.get(i);
+			if (i == 3) {
+				ExecutionException e = assertThrows(ExecutionException.class, () -> response.get(10, TimeUnit.SECONDS));
+				assertTrue(exceptionClass.isInstance(e.getCause()));
+				continue;
+			}
+			try {
+				assertEquals("list1:task" + i, response.get(10, TimeUnit.SECONDS).get());
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof GroupRolledBackException);
+				assertTrue(exceptionClass.isInstance(e.getCause().getCause()));
+				rolledBackCommands++;
+			}
+		}
+
+		// Each command has been reacted to once: the failing one, the rolled back
+		// ones before it, and the ones after it in a second batch
+		assertEquals(NUMBER_OF_COMMANDS, addedTasks.get());
+		int commandsAfterFailingOne = NUMBER_OF_COMMANDS - rolledBackCommands - 1;
+		assertEquals(commandsAfterFailingOne == 0 ? Collections.singletonList(NUMBER_OF_COMMANDS)
+			: Arrays.asList(NUMBER_OF_COMMANDS, commandsAfterFailingOne), batchSizes);
+	}
+
+	@Test
+	void passesOtherMessagesDirectlyToBehavior() {
+		Optional<String> response = coalescingBehavior.reactTo(new ListTasks());
+
+		assertEquals("tasks", response.get());
+		assertTrue(batchSizes.isEmpty());
+	}
+
+	private List<Future<Optional<String>>> sendConcurrently(String listId, String taskPrefix) {
+		List<Future<Optional<String>>> responses = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			AddTask addTask = new AddTask(listId, taskPrefix + i);
+			responses.add(executor.submit(() -> coalescingBehavior.reactTo(addTask)));
+		}
+		return responses;
+	}
+
+	private class RecordingBatchBehavior extends BatchBehavior {
+		RecordingBatchBehavior(Behavior behavior) {
+			super(behavior);
+		}
+
+		@Override
+		public List<Optional<Object>> reactToAll(List<?> messages) {
+			batchSizes.add(messages.size());
+			return super.reactToAll(messages);
+		}
+	}
+
+	static class AddTask {
+		private final String listId;
+		private final String task;
+
+		AddTask(String listId, String task) {
+			this.listId = listId;
+			this.task = task;
+		}
+	}
+
+	static class ListTasks {
+	}
+
+	static class TaskError extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,174 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorException;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestAddTaskResponse;
+import org.requirementsascode.spring.testbehavior.TestBehaviorModel;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListResponse;
+import org.requirementsascode.spring.testbehavior.TestExceptionThrower;
+
+class CompiledBehaviorTest {
+	@Test
+	void compilesFlowlessModel() {
+		Behavior behavior = CompiledBehavior.of(new TestBehaviorModel());
+		assertTrue(behavior instanceof CompiledBehavior);
+	}
+
+	@Test
+	void fallsBackToStatelessBehaviorForModelWithFlow() {
+		BehaviorModel behaviorModel = () -> Model.builder()
+			.useCase("Create list")
+				.basicFlow()
+					.step("S1").user(TestCreateListRequest.class).system(() -> {})
+			.build();
+
+		Behavior behavior = CompiledBehavior.of(behaviorModel);
+		assertTrue(behavior instanceof StatelessBehavior);
+	}
+
+	@Test
+	void reactsLikeStatelessBehavior() {
+		BehaviorModel behaviorModel = new TestBehaviorModel();
+		Behavior compiledBehavior = CompiledBehavior.of(behaviorModel);
+		Behavior statelessBehavior = StatelessBehavior.of(behaviorModel);
+
+		for (Object message : Arrays.asList(new TestCreateListRequest(), new TestAddTaskRequest(), "unhandled")) {
+			Optional<Object> compiledResponse = compiledBehavior.reactTo(message);
+			Optional<Object> statelessResponse = statelessBehavior.reactTo(message);
+			assertEquals(statelessResponse.map(Object::getClass), compiledResponse.map(Object::getClass));
+		}
+	}
+
+	@Test
+	void reactsToSubclassOfMessageClass() {
+		Model model = Model.builder()
+			.user(Number.class).systemPublish(number -> "Number")
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		assertEquals(Optional.of("Number"), behavior.reactTo(1));
+		assertEquals(Optional.of("Number"), behavior.reactTo(1L));
+		assertFalse(behavior.reactTo(new TestCreateListRequest()).isPresent());
+	}
+
+	@Test
+	void evaluatesConditionsForEachMessage() {
+		List<Object> handledMessages = new ArrayList<>();
+		Model model = Model.builder()
+			.condition(handledMessages::isEmpty).user(TestCreateListRequest.class).system(handledMessages::add)
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		behavior.reactTo(new TestCreateListRequest());
+		behavior.reactTo(new TestCreateListRequest());
+		assertEquals(1, handledMessages.size());
+	}
+
+	@Test
+	void reactsToPublishedMessages() {
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).systemPublish(createList -> new TestCreateListResponse())
+			.on(TestCreateListResponse.class).systemPublish(createListResponse -> new TestAddTaskResponse())
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		Optional<Object> response = behavior.reactTo(new TestCreateListRequest());
+		assertTrue(response.get() instanceof TestAddTaskResponse);
+	}
+
+	@Test
+	void reactsToEachMessageOfCollection() {
+		List<Object> handledMessages = new ArrayList<>();
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).system(handledMessages::add)
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		behavior.reactTo(Arrays.asList(new TestCreateListRequest(), new TestCreateListRequest()));
+		assertEquals(2, handledMessages.size());
+	}
+
+	@Test
+	void handlesThrownExceptionInModel() {
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).system(createList -> {
+				throw new IllegalStateException();
+			})
+			.on(IllegalStateException.class).systemPublish(e -> "Handled")
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		assertEquals(Optional.of("Handled"), behavior.reactTo(new TestCreateListRequest()));
+	}
+
+	@Test
+	void rethrowsUnhandledException() {
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).system(createList -> {
+				throw new IllegalStateException();
+			})
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		assertThrows(IllegalStateException.class, () -> behavior.reactTo(new TestCreateListRequest()));
+	}
+
+	@Test
+	void throwsExceptionIfMoreThanOneStepCanReact() {
+		Model model = Model.builder()
+			.user(Number.class).system(() -> {})
+			.user(Integer.class).system(() -> {})
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		assertThrows(MoreThanOneStepCanReact.class, () -> behavior.reactTo(1));
+	}
+
+	@Test
+	void throwsInfiniteRepetitionExceptionForInfiniteRepetition() {
+		Behavior behavior = CompiledBehavior.of(new TestExceptionThrower());
+		assertThrows(InfiniteRepetitionException.class, () -> behavior.reactTo("Request"));
+	}
+
+	@Test
+	void throwsSameBehaviorExceptionMessageAsStatelessBehavior() {
+		String expectedMessage = assertThrows(BehaviorException.class,
+			() -> StatelessBehavior.of(new TestExceptionThrower()).reactTo("Request")).getMessage();
+		String message = assertThrows(InfiniteRepetitionException.class,
+			() -> CompiledBehavior.of(new TestExceptionThrower()).reactTo("Request")).getMessage();
+		assertEquals(expectedMessage, message);
+	}
+
+	@Test
+	void reactsOnlyOnceBeforeInfiniteRepetition() {
+		List<Object> createdLists = new ArrayList<>();
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).systemPublish(createList -> {
+				createdLists.add(createList);
+				return "List created";
+			})
+			.on(String.class).systemPublish(string -> string)
+			.build();
+		Behavior behavior = CompiledBehavior.of(() -> model);
+
+		assertThrows(InfiniteRepetitionException.class, () -> behavior.reactTo(new TestCreateListRequest()));
+		assertEquals(1, createdLists.size());
+	}
+}
@@ -0,0 +1,27 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class EntityTagsTest {
+	private static final String ENTITY_TAG = EntityTags.of("v1");
+
+	@Test
+	void matchesSameEntityTag() {
+		assertTrue(EntityTags.matches("\"v1\"", ENTITY_TAG));
+	}
+
+	@Test
+	void matchesWeakEntityTagInList() {
+		assertTrue(EntityTags.matches("\"v0\", W/\"v1\"", ENTITY_TAG));
+	}
+
+	@Test
+	void doesntMatchOtherEntityTags() {
+		assertFalse(EntityTags.matches("\"v0\", \"v2\"", ENTITY_TAG));
+		assertFalse(EntityTags.matches("*", ENTITY_TAG));
+		assertFalse(EntityTags.matches(null, ENTITY_TAG));
+	}
+}
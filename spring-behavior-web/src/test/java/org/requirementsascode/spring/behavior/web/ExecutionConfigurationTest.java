@@ -0,0 +1,69 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+
+class ExecutionConfigurationTest {
+	private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+		.withConfiguration(AutoConfigurations.of(ExecutionConfiguration.class, TaskExecutionAutoConfiguration.class));
+
+	@Test
+	void registersNoExecutorByDefault() {
+		contextRunner.run(context -> {
+			assertFalse(context.containsBean(ExecutionConfiguration.BEHAVIOR_EXECUTOR));
+			assertTrue(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).isEmpty());
+		});
+	}
+
+	@Test
+	void registersBehaviorExecutorForTomcatAndAsyncMethods() {
+		AtomicInteger decoratedTasks = new AtomicInteger();
+		contextRunner
+			.withPropertyValues("behavior.execution=virtual-threads")
+			.withBean(TaskDecorator.class, () -> runnable -> {
+				decoratedTasks.incrementAndGet();
+				return runnable;
+			})
+			.run(context -> {
+				assertTrue(context.containsBean(ExecutionConfiguration.BEHAVIOR_EXECUTOR));
+				assertEquals(1, context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).size());
+
+				CountDownLatch latch = new CountDownLatch(1);
+				context.getBean(TaskExecutor.class).execute(latch::countDown);
+				assertTrue(latch.await(10, TimeUnit.SECONDS));
+				assertEquals(1, decoratedTasks.get());
+			});
+	}
+
+	@Test
+	void boundsPlatformThreadsAndQueue() {
+		contextRunner
+			.withPropertyValues("behavior.execution=virtual-threads", "behavior.execution-pool-size=3",
+				"behavior.execution-queue-capacity=5")
+			.run(context -> {
+				ExecutorService executor = context.getBean(ExecutionConfiguration.BEHAVIOR_EXECUTOR,
+					ExecutorService.class);
+				assumeTrue(executor instanceof ThreadPoolExecutor, "JDK supports virtual threads");
+
+				ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executor;
+				assertEquals(3, threadPool.getMaximumPoolSize());
+				assertEquals(5, threadPool.getQueue().remainingCapacity());
+			});
+	}
+}
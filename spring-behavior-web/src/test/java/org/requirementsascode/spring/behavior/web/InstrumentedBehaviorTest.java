@@ -0,0 +1,62 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InstrumentedBehaviorTest {
+	private SimpleMeterRegistry meterRegistry;
+	private InstrumentedBehavior instrumentedBehavior;
+
+	@BeforeEach
+	void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		BehaviorModel behaviorModel = () -> Model.builder()
+			.user(TestCreateListRequest.class).system(() -> {})
+			.user(TestAddTaskRequest.class).system(() -> {
+				throw new IllegalStateException("Can't add task");
+			})
+			.build();
+		instrumentedBehavior = InstrumentedBehavior.of(StatelessBehavior.of(behaviorModel), meterRegistry);
+	}
+
+	@Test
+	void recordsHandledMessagesPerMessageClassOfModel() {
+		instrumentedBehavior.reactTo(new TestCreateListRequest());
+		instrumentedBehavior.reactTo(new TestCreateListRequest() {});
+
+		assertEquals(2, timer("TestCreateListRequest", InstrumentedBehavior.HANDLED).count());
+	}
+
+	@Test
+	void recordsUnhandledMessagesOfOtherClasses() {
+		instrumentedBehavior.reactTo("unhandled");
+		instrumentedBehavior.reactTo(42);
+
+		assertEquals(2, timer(InstrumentedBehavior.OTHER_MESSAGE_CLASS, InstrumentedBehavior.UNHANDLED).count());
+	}
+
+	@Test
+	void recordsFailedMessagesAndRethrowsException() {
+		assertThrows(IllegalStateException.class, () -> instrumentedBehavior.reactTo(new TestAddTaskRequest()));
+
+		assertEquals(1, timer("TestAddTaskRequest", InstrumentedBehavior.FAILED).count());
+		assertEquals(0, timer("TestAddTaskRequest", InstrumentedBehavior.HANDLED).count());
+	}
+
+	private Timer timer(String messageClassName, String outcome) {
+		return meterRegistry.get(InstrumentedBehavior.DEFAULT_METRIC_NAME)
+			.tags("message", messageClassName, "outcome", outcome)
+			.timer();
+	}
+}
@@ -0,0 +1,85 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+
+class LazyTransactionalBehaviorTest {
+	private List<Object> transactions;
+	private Behavior lazyTransactionalBehavior;
+
+	@BeforeEach
+	void setup() {
+		transactions = new ArrayList<>();
+		BehaviorModel behaviorModel = () -> Model.builder()
+			.user(TestAddTaskRequest.class).systemPublish(request -> "added")
+			.build();
+		lazyTransactionalBehavior = LazyTransactionalBehavior.of(new RecordingTransactionalBehavior(behaviorModel));
+	}
+
+	@Test
+	void startsTransactionForMessageWithMatchingStep() {
+		Optional<String> response = lazyTransactionalBehavior.reactTo(new TestAddTaskRequest());
+
+		assertEquals("added", response.get());
+		assertEquals(1, transactions.size());
+	}
+
+	@Test
+	void doesntStartTransactionForMessageWithoutMatchingStep() {
+		Optional<String> response = lazyTransactionalBehavior.reactTo(new TestCreateListRequest());
+
+		assertFalse(response.isPresent());
+		assertEquals(Collections.emptyList(), transactions);
+	}
+
+	@Test
+	void startsTransactionForSeveralMessagesAndExceptions() {
+		lazyTransactionalBehavior.reactTo(Arrays.asList(new TestCreateListRequest(), new TestAddTaskRequest()));
+		assertThrows(IllegalStateException.class, () -> lazyTransactionalBehavior.reactTo(new IllegalStateException()));
+
+		assertEquals(2, transactions.size());
+	}
+
+	@Test
+	void doesntWrapBehaviorWhoseModelCantBeCompiled() {
+		BehaviorModel behaviorModel = () -> Model.builder()
+			.useCase("Add task").basicFlow()
+				.step("S1").user(TestAddTaskRequest.class).system(() -> {})
+			.build();
+		Behavior transactionalBehavior = new RecordingTransactionalBehavior(behaviorModel);
+
+		assertSame(transactionalBehavior, LazyTransactionalBehavior.of(transactionalBehavior));
+	}
+
+	/**
+	 * Records the messages of the transactions, instead of starting them like the
+	 * Spring proxy would.
+	 */
+	private class RecordingTransactionalBehavior extends TransactionalBehavior {
+		RecordingTransactionalBehavior(BehaviorModel behaviorModel) {
+			super(CompiledBehavior.of(behaviorModel));
+		}
+
+		@Override
+		public <T> Optional<T> reactTo(Object message) {
+			transactions.add(message);
+			return super.reactTo(message);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.serialization.MessageSerializationModule;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class MessageStreamTest {
+	private static final String CREATE_LIST = "{\"@type\":\"TestCreateListRequest\"}";
+	private static final String ADD_TASK = "{\"@type\":\"TestAddTaskRequest\"}";
+	private static final String CREATE_LIST_RESPONSE = "{\"@type\":\"TestCreateListResponse\"}";
+
+	private final AtomicInteger createdLists = new AtomicInteger();
+	private final Model model = Model.builder()
+		.user(TestCreateListRequest.class).systemPublish(createList -> {
+			createdLists.incrementAndGet();
+			return new TestCreateListResponse();
+		})
+		.user(TestAddTaskRequest.class).system(addTask -> {
+			throw new IllegalStateException("Task can't be added");
+		})
+		.build();
+
+	@Test
+	void writesOneResponseLinePerMessage() throws Exception {
+		String responses = reactTo(2, CREATE_LIST, CREATE_LIST, CREATE_LIST);
+		assertEquals(CREATE_LIST_RESPONSE + "\n" + CREATE_LIST_RESPONSE + "\n" + CREATE_LIST_RESPONSE + "\n", responses);
+	}
+
+	@Test
+	void stopsAtFailedMessageWithoutReactingToChunkAgain() throws Exception {
+		String[] responses = reactTo(10, CREATE_LIST, ADD_TASK, CREATE_LIST).split("\n");
+		assertEquals(1, responses.length);
+		assertTrue(responses[0].contains("\"error\":\"IllegalStateException\""));
+		assertTrue(responses[0].contains("\"index\":1"));
+		assertEquals(1, createdLists.get());
+	}
+
+	@Test
+	void writesResponsesOfCommittedChunksBeforeFailedMessage() throws Exception {
+		String[] responses = reactTo(2, CREATE_LIST, CREATE_LIST, CREATE_LIST, ADD_TASK, CREATE_LIST).split("\n");
+		assertEquals(3, responses.length);
+		assertEquals(CREATE_LIST_RESPONSE, responses[0]);
+		assertEquals(CREATE_LIST_RESPONSE, responses[1]);
+		assertTrue(responses[2].contains("\"index\":3"));
+		assertEquals(3, createdLists.get());
+	}
+
+	@Test
+	void stopsAtMessageThatCantBeRead() throws Exception {
+		String[] responses = reactTo(10, CREATE_LIST, "{\"@type\":\"UnknownRequest\"}", CREATE_LIST).split("\n");
+		assertEquals(2, responses.length);
+		assertEquals(CREATE_LIST_RESPONSE, responses[0]);
+		assertTrue(responses[1].contains("\"@type\":\"BatchErrorResponse\""));
+		assertTrue(responses[1].contains("\"index\":1"));
+		assertEquals(1, createdLists.get());
+	}
+
+	private String reactTo(int commitInterval, String... messageLines) throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new MessageSerializationModule(model));
+		BatchBehavior batchBehavior = new BatchBehavior(StatelessBehavior.of(() -> model));
+		MessageStream messageStream = new MessageStream(batchBehavior, objectMapper, commitInterval);
+
+		byte[] messages = String.join("\n", messageLines).getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream responses = new ByteArrayOutputStream();
+		messageStream.reactTo(new ByteArrayInputStream(messages), responses);
+		return new String(responses.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
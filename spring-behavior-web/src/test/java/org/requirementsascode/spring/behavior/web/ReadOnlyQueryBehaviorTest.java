@@ -0,0 +1,84 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+
+class ReadOnlyQueryBehaviorTest {
+	private List<String> transactions;
+	private ReadOnlyQueryBehavior readOnlyQueryBehavior;
+
+	@BeforeEach
+	void setup() {
+		transactions = new ArrayList<>();
+		BehaviorModel behaviorModel = () -> Model.builder()
+			.user(ListTasks.class).systemPublish(listTasks -> "tasks")
+			.user(TestAddTaskRequest.class).system(() -> {})
+			.build();
+		readOnlyQueryBehavior = ReadOnlyQueryBehavior.of(new RecordingTransactionalBehavior(behaviorModel),
+			Collections.singletonList(Query.class));
+	}
+
+	@Test
+	void reactsToQueryInReadOnlyTransaction() {
+		Optional<String> response = readOnlyQueryBehavior.reactTo(new ListTasks());
+
+		assertEquals("tasks", response.get());
+		assertEquals(Arrays.asList("read-only"), transactions);
+	}
+
+	@Test
+	void reactsToOtherMessagesInReadWriteTransaction() {
+		readOnlyQueryBehavior.reactTo(new TestAddTaskRequest());
+		readOnlyQueryBehavior.reactTo(new TestCreateListRequest());
+
+		assertEquals(Arrays.asList("read-write", "read-write"), transactions);
+	}
+
+	@Test
+	void checksWhetherMessageIsQuery() {
+		assertTrue(readOnlyQueryBehavior.isQuery(new ListTasks() {}));
+		assertFalse(readOnlyQueryBehavior.isQuery(new TestAddTaskRequest()));
+	}
+
+	interface Query {
+	}
+
+	static class ListTasks implements Query {
+	}
+
+	/**
+	 * Records the kind of transaction, instead of starting it like the Spring
+	 * proxy would.
+	 */
+	private class RecordingTransactionalBehavior extends TransactionalBehavior {
+		RecordingTransactionalBehavior(BehaviorModel behaviorModel) {
+			super(behaviorModel);
+		}
+
+		@Override
+		public <T> Optional<T> reactTo(Object message) {
+			transactions.add("read-write");
+			return super.reactTo(message);
+		}
+
+		@Override
+		public <T> Optional<T> reactToQuery(Object query) {
+			transactions.add("read-only");
+			return super.reactToQuery(query);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RetryingBehaviorTest {
+	private AtomicInteger attemptCount;
+	private AtomicInteger failuresLeft;
+	private SimpleMeterRegistry meterRegistry;
+	private BehaviorModel behaviorModel;
+	private RetryingBehavior retryingBehavior;
+
+	@BeforeEach
+	void setup() {
+		attemptCount = new AtomicInteger();
+		failuresLeft = new AtomicInteger();
+		meterRegistry = new SimpleMeterRegistry();
+
+		behaviorModel = () -> Model.builder()
+			.user(TestCreateListRequest.class).systemPublish(() -> {
+				attemptCount.incrementAndGet();
+				if (failuresLeft.getAndDecrement() > 0) {
+					throw new IllegalStateException("Commit failed",
+						new OptimisticLockingFailureException("Row was updated by another transaction"));
+				}
+				return "created";
+			})
+			.user(TestAddTaskRequest.class).system(() -> {
+				attemptCount.incrementAndGet();
+				throw new IllegalArgumentException("Invalid task");
+			})
+			.build();
+
+		retryingBehavior = RetryingBehavior.builder(StatelessBehavior.of(behaviorModel))
+			.maxAttempts(3)
+			.backoff(Duration.ZERO, Duration.ofMillis(1))
+			.listener(RetryMetrics.of(behaviorModel, meterRegistry))
+			.build();
+	}
+
+	@Test
+	void reactsAgainAfterOptimisticLockingFailure() {
+		failuresLeft.set(2);
+
+		assertEquals("created", retryingBehavior.reactTo(new TestCreateListRequest()).get());
+		assertEquals(3, attemptCount.get());
+		assertEquals(2, count("TestCreateListRequest", "retried"));
+		assertEquals(1, count("TestCreateListRequest", "recovered"));
+	}
+
+	@Test
+	void throwsOptimisticLockingFailureAfterMaxAttempts() {
+		failuresLeft.set(5);
+
+		RuntimeException exception = assertThrows(RuntimeException.class,
+			() -> retryingBehavior.reactTo(new TestCreateListRequest()));
+		assertTrue(RetryingBehavior.isOptimisticLockingFailure(exception));
+		assertEquals(3, attemptCount.get());
+		assertEquals(1, count("TestCreateListRequest", "exhausted"));
+	}
+
+	@Test
+	void doesntRetryInsideOfTransaction() {
+		failuresLeft.set(2);
+
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			RuntimeException exception = assertThrows(RuntimeException.class,
+				() -> retryingBehavior.reactTo(new TestCreateListRequest()));
+			assertTrue(RetryingBehavior.isOptimisticLockingFailure(exception));
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+		assertEquals(1, attemptCount.get());
+		assertTrue(meterRegistry.find(RetryMetrics.METRIC_NAME).counters().isEmpty());
+	}
+
+	@Test
+	void throwsOtherExceptionsImmediately() {
+		assertThrows(IllegalArgumentException.class, () -> retryingBehavior.reactTo(new TestAddTaskRequest()));
+		assertEquals(1, attemptCount.get());
+	}
+
+	@Test
+	void usesMaxAttemptsOfMessageClass() {
+		failuresLeft.set(5);
+		RetryingBehavior noRetryBehavior = RetryingBehavior.builder(StatelessBehavior.of(behaviorModel))
+			.maxAttempts(5)
+			.maxAttempts(TestCreateListRequest.class, 1)
+			.build();
+
+		assertThrows(IllegalStateException.class, () -> noRetryBehavior.reactTo(new TestCreateListRequest()));
+		assertEquals(1, attemptCount.get());
+	}
+
+	private double count(String messageClassName, String outcome) {
+		return meterRegistry.get(RetryMetrics.METRIC_NAME)
+			.tags("message", messageClassName, "outcome", outcome)
+			.counter()
+			.count();
+	}
+}
@@ -0,0 +1,40 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.serialization.MessageSerializationModule;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SerializationWarmUpTest {
+	@Test
+	void warmsUpEachMessageClass() {
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).system(() -> {})
+			.user(TestAddTaskRequest.class).system(() -> {})
+			.on(TestAddTaskRequest.class).system(() -> {})
+			.build();
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new MessageSerializationModule(model));
+		SerializationWarmUp serializationWarmUp = new SerializationWarmUp(objectMapper, model, 3);
+
+		assertEquals(2, serializationWarmUp.warmUp());
+		assertFalse(serializationWarmUp.duration().isZero());
+	}
+
+	@Test
+	void skipsMessageClassThatCantBeDeserialized() {
+		Model model = Model.builder()
+			.user(TestCreateListRequest.class).system(() -> {})
+			.on(Runnable.class).system(() -> {})
+			.build();
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new MessageSerializationModule(model));
+		SerializationWarmUp serializationWarmUp = new SerializationWarmUp(objectMapper, model, 1);
+
+		assertEquals(1, serializationWarmUp.warmUp());
+	}
+}
@@ -0,0 +1,261 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+
+class StripedBehaviorTest {
+	private static final int NUMBER_OF_AGGREGATES = 4;
+	private static final int NUMBER_OF_COMMANDS = 400;
+
+	private AtomicInteger runningCommands;
+	private Map<String, AtomicInteger> runningCommandsPerAggregate;
+	private AtomicInteger maximumRunningCommands;
+	private AtomicInteger maximumRunningCommandsPerAggregate;
+	private CountDownLatch parallelCommands;
+	private List<Integer> addedTasks;
+	private ExecutorService callers;
+	private Model model;
+	private StripedBehavior stripedBehavior;
+
+	@BeforeEach
+	void setup() {
+		runningCommandsPerAggregate = new ConcurrentHashMap<>();
+		maximumRunningCommands = new AtomicInteger();
+		maximumRunningCommandsPerAggregate = new AtomicInteger();
+		parallelCommands = new CountDownLatch(NUMBER_OF_AGGREGATES);
+		addedTasks = Collections.synchronizedList(new ArrayList<>());
+		callers = Executors.newFixedThreadPool(16);
+
+		runningCommands = new AtomicInteger();
+		model = Model.builder()
+			.user(ChangeList.class).systemPublish(this::changeList)
+			.user(ListTasks.class).systemPublish(listTasks -> Thread.currentThread().getName())
+			.user(AddTask.class).system(addTask -> addedTasks.add(addTask.task))
+			.user(ChangeOtherList.class).systemPublish(
+				changeOtherList -> stripedBehavior.<String>reactTo(new ChangeList(changeOtherList.otherListId)).get())
+			.user(AddTasksLater.class).systemPublish(this::addTasksLater)
+			.user(BlockList.class).system(blockList -> awaitUninterruptibly(blockList.unblock))
+			.build();
+
+		stripedBehavior = stripedBehaviorBuilder().build();
+	}
+
+	private StripedBehavior.Builder stripedBehaviorBuilder() {
+		return StripedBehavior.builder(StatelessBehavior.of(() -> model))
+			.route(ChangeList.class, changeList -> changeList.listId)
+			.route(AddTask.class, addTask -> addTask.listId)
+			.route(ChangeOtherList.class, changeOtherList -> changeOtherList.listId)
+			.route(AddTasksLater.class, addTasksLater -> addTasksLater.listId)
+			.route(BlockList.class, blockList -> blockList.listId)
+			.lanes(NUMBER_OF_AGGREGATES * 4);
+	}
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+		stripedBehavior.close();
+	}
+
+	@Test
+	void reactsToCommandsForSameAggregateOneAfterTheOther() throws Exception {
+		List<Future<?>> responses = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			ChangeList changeList = new ChangeList("list" + (i % NUMBER_OF_AGGREGATES));
+			responses.add(callers.submit(() -> stripedBehavior.reactTo(changeList)));
+		}
+		for (Future<?> response : responses) {
+			response.get(10, TimeUnit.SECONDS);
+		}
+
+		assertEquals(1, maximumRunningCommandsPerAggregate.get());
+		assertTrue(maximumRunningCommands.get() > 1);
+	}
+
+	@Test
+	void reactsToCommandForSameAggregateInSameLane() {
+		String lane1 = stripedBehavior.<String>reactTo(new ChangeList("list1")).get();
+		String lane2 = stripedBehavior.<String>reactTo(new ChangeList("list1")).get();
+
+		assertEquals(lane1, lane2);
+		assertTrue(lane1.startsWith("behavior-lane-"));
+	}
+
+	@Test
+	void reactsToOtherMessageInCallerThread() {
+		String thread = stripedBehavior.<String>reactTo(new ListTasks()).get();
+
+		assertEquals(Thread.currentThread().getName(), thread);
+	}
+
+	@Test
+	void reactsLaterInOrderOfCalls() throws Exception {
+		List<CompletableFuture<Optional<Object>>> responses = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+			responses.add(stripedBehavior.reactToLater(new AddTask("list1", i)));
+		}
+		CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+		assertEquals(IntStream.range(0, NUMBER_OF_COMMANDS).boxed().collect(Collectors.toList()), addedTasks);
+	}
+
+	@Test
+	void laneDoesntWaitForOtherLane() {
+		String otherListId = listIdInOtherLaneThan("list1");
+
+		assertThrows(IllegalStateException.class,
+			() -> stripedBehavior.reactTo(new ChangeOtherList("list1", otherListId)));
+		String lane1 = stripedBehavior.<String>reactTo(new ChangeList("list1")).get();
+		assertEquals(lane1, stripedBehavior.<String>reactTo(new ChangeOtherList("list1", "list1")).get());
+	}
+
+	@Test
+	void laneReactsLaterToMessagesForSameLaneDirectly() {
+		stripedBehavior.close();
+		stripedBehavior = stripedBehaviorBuilder().queueCapacity(1).build();
+
+		List<CompletableFuture<Optional<Object>>> responses = stripedBehavior
+			.<List<CompletableFuture<Optional<Object>>>>reactTo(new AddTasksLater("list1", "list1", 10)).get();
+
+		assertTrue(responses.stream().allMatch(response -> response.isDone() && !response.isCompletedExceptionally()));
+		assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()), addedTasks);
+	}
+
+	@Test
+	void laneDoesntWaitForSpaceInOtherLane() throws Exception {
+		stripedBehavior.close();
+		stripedBehavior = stripedBehaviorBuilder().queueCapacity(1).build();
+		String otherListId = listIdInOtherLaneThan("list1");
+		CountDownLatch unblockOtherList = new CountDownLatch(1);
+
+		// The other lane's thread is blocked, and its queue is full
+		stripedBehavior.reactToLater(new BlockList(otherListId, unblockOtherList));
+		CompletableFuture<Optional<Object>> queuedResponse = stripedBehavior.reactToLater(new AddTask(otherListId, 0));
+		List<CompletableFuture<Optional<Object>>> responses = stripedBehavior
+			.<List<CompletableFuture<Optional<Object>>>>reactTo(new AddTasksLater("list1", otherListId, 1)).get();
+		unblockOtherList.countDown();
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> responses.get(0).get(10, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof RejectedExecutionException);
+		queuedResponse.get(10, TimeUnit.SECONDS);
+		assertEquals(Collections.singletonList(0), addedTasks);
+	}
+
+	private String listIdInOtherLaneThan(String listId) {
+		String lane = stripedBehavior.<String>reactTo(new ChangeList(listId)).get();
+		return IntStream.range(2, 100)
+			.mapToObj(i -> "list" + i)
+			.filter(otherListId -> !lane.equals(stripedBehavior.<String>reactTo(new ChangeList(otherListId)).get()))
+			.findFirst().get();
+	}
+
+	private List<CompletableFuture<Optional<Object>>> addTasksLater(AddTasksLater addTasksLater) {
+		return IntStream.range(0, addTasksLater.numberOfTasks)
+			.mapToObj(task -> stripedBehavior.<Object>reactToLater(new AddTask(addTasksLater.otherListId, task)))
+			.collect(Collectors.toList());
+	}
+
+	private void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String changeList(ChangeList changeList) {
+		AtomicInteger runningForAggregate = runningCommandsPerAggregate.computeIfAbsent(changeList.listId,
+			listId -> new AtomicInteger());
+		maximumRunningCommandsPerAggregate.accumulateAndGet(runningForAggregate.incrementAndGet(), Math::max);
+		maximumRunningCommands.accumulateAndGet(runningCommands.incrementAndGet(), Math::max);
+
+		// Waits until commands for other aggregates run in parallel, or the timeout elapses
+		parallelCommands.countDown();
+		try {
+			parallelCommands.await(100, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		runningCommands.decrementAndGet();
+		runningForAggregate.decrementAndGet();
+		return Thread.currentThread().getName();
+	}
+
+	static class ChangeList {
+		private final String listId;
+
+		ChangeList(String listId) {
+			this.listId = listId;
+		}
+	}
+
+	static class ListTasks {
+	}
+
+	static class AddTask {
+		private final String listId;
+		private final int task;
+
+		AddTask(String listId, int task) {
+			this.listId = listId;
+			this.task = task;
+		}
+	}
+
+	static class AddTasksLater {
+		private final String listId;
+		private final String otherListId;
+		private final int numberOfTasks;
+
+		AddTasksLater(String listId, String otherListId, int numberOfTasks) {
+			this.listId = listId;
+			this.otherListId = otherListId;
+			this.numberOfTasks = numberOfTasks;
+		}
+	}
+
+	static class BlockList {
+		private final String listId;
+		private final CountDownLatch unblock;
+
+		BlockList(String listId, CountDownLatch unblock) {
+			this.listId = listId;
+			this.unblock = unblock;
+		}
+	}
+
+	static class ChangeOtherList {
+		private final String listId;
+		private final String otherListId;
+
+		ChangeOtherList(String listId, String otherListId) {
+			this.listId = listId;
+			this.otherListId = otherListId;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.spring.testbehavior.TestAddTaskRequest;
+import org.requirementsascode.spring.testbehavior.TestCreateListRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+class TracingBehaviorTest {
+	private InMemorySpanExporter spanExporter;
+	private Tracer tracer;
+	private BehaviorModel behaviorModel;
+
+	@BeforeEach
+	void setup() {
+		spanExporter = InMemorySpanExporter.create();
+		tracer = SdkTracerProvider.builder()
+			.addSpanProcessor(SimpleSpanProcessor.create(spanExporter))
+			.build()
+			.get("test");
+		behaviorModel = () -> Model.builder()
+			.user(TestCreateListRequest.class).system(() -> {})
+			.user(TestAddTaskRequest.class).system(() -> {
+				throw new IllegalStateException("Can't add task");
+			})
+			.build();
+	}
+
+	@Test
+	void createsSpanPerMessage() {
+		TracingBehavior.of(StatelessBehavior.of(behaviorModel), tracer).reactTo(new TestCreateListRequest() {});
+
+		SpanData span = spanExporter.getFinishedSpanItems().get(0);
+		assertEquals("TestCreateListRequest", span.getName());
+		assertEquals("S1", span.getAttributes().get(TracingBehavior.STEP));
+		assertEquals(StatusCode.UNSET, span.getStatus().getStatusCode());
+	}
+
+	@Test
+	void recordsExceptionInSpan() {
+		Behavior tracingBehavior = TracingBehavior.of(StatelessBehavior.of(behaviorModel), tracer);
+		assertThrows(IllegalStateException.class, () -> tracingBehavior.reactTo(new TestAddTaskRequest()));
+
+		SpanData span = spanExporter.getFinishedSpanItems().get(0);
+		assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+		assertEquals("exception", span.getEvents().get(0).getName());
+	}
+
+	@Test
+	void addsTransactionBoundariesToSpan() {
+		Behavior transactionEvents = TracingBehavior.transactionEvents().decorate(StatelessBehavior.of(behaviorModel));
+		Behavior tracingBehavior = TracingBehavior.of(new InTransaction(transactionEvents), tracer);
+		tracingBehavior.reactTo(new TestCreateListRequest());
+
+		List<String> eventNames = spanExporter.getFinishedSpanItems().get(0).getEvents().stream()
+			.map(EventData::getName)
+			.collect(Collectors.toList());
+		assertEquals(Arrays.asList(TracingBehavior.TRANSACTION_BEGIN, TracingBehavior.TRANSACTION_COMMIT), eventNames);
+	}
+
+	/**
+	 * Simulates the synchronization of a transaction that is committed.
+	 */
+	private static class InTransaction implements Behavior {
+		private final Behavior behavior;
+
+		InTransaction(Behavior behavior) {
+			this.behavior = behavior;
+		}
+
+		@Override
+		public <T> Optional<T> reactTo(Object message) {
+			TransactionSynchronizationManager.initSynchronization();
+			try {
+				return behavior.reactTo(message);
+			} finally {
+				for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+					synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+				}
+				TransactionSynchronizationManager.clearSynchronization();
+			}
+		}
+
+		@Override
+		public BehaviorModel behaviorModel() {
+			return behavior.behaviorModel();
+		}
+	}
+}
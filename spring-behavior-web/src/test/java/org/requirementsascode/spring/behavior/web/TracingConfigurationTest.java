@@ -0,0 +1,35 @@
+package org.requirementsascode.spring.behavior.web;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.opentelemetry.api.OpenTelemetry;
+
+class TracingConfigurationTest {
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+		.withUserConfiguration(BehaviorConfiguration.TracingConfiguration.class)
+		.withBean(OpenTelemetry.class, OpenTelemetry::noop);
+
+	@Test
+	void registersTransactionEventsDecoratorWithSpringTransactions() {
+		contextRunner.run(context -> {
+			assertTrue(context.containsBean("tracingBehaviorDecorator"));
+			assertTrue(context.containsBean("transactionEventsDecorator"));
+		});
+	}
+
+	@Test
+	void doesntRegisterTransactionEventsDecoratorWithoutSpringTransactions() {
+		contextRunner
+			.withClassLoader(new FilteredClassLoader(TransactionSynchronizationManager.class))
+			.run(context -> {
+				assertTrue(context.containsBean("tracingBehaviorDecorator"));
+				assertFalse(context.containsBean("transactionEventsDecorator"));
+			});
+	}
+}
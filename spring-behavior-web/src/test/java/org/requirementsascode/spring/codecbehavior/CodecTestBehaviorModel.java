@@ -0,0 +1,196 @@
+package org.requirementsascode.spring.codecbehavior;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.serialization.GenerateMessageCodecs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+@GenerateMessageCodecs(CodecTestBehaviorModel.Item.class)
+public class CodecTestBehaviorModel implements BehaviorModel {
+	@Override
+	public Model model() {
+		return Model.builder()
+			.user(ImmutableRequest.class).systemPublish(request -> new Response(request.getName(), true))
+			.user(MutableRequest.class).systemPublish(request -> {
+				ResponseFactory responseFactory = new ResponseFactory();
+				return responseFactory.responseTo(request);
+			})
+			.user(AnnotatedRequest.class).system(() -> {})
+			.build();
+	}
+
+	@Override
+	public Object defaultResponse() {
+		return null;
+	}
+
+	public static class ImmutableRequest {
+		private final String name;
+		private final int count;
+		private final char initial;
+		private final List<Item> items;
+		private final Object payload;
+
+		public ImmutableRequest(String name, int count, char initial, List<Item> items, Object payload) {
+			this.name = name;
+			this.count = count;
+			this.initial = initial;
+			this.items = items;
+			this.payload = payload;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public char getInitial() {
+			return initial;
+		}
+
+		public List<Item> getItems() {
+			return items;
+		}
+
+		public Object getPayload() {
+			return payload;
+		}
+
+		public boolean isEmpty() {
+			return items == null || items.isEmpty();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ImmutableRequest)) {
+				return false;
+			}
+			ImmutableRequest other = (ImmutableRequest) obj;
+			return Objects.equals(name, other.name) && count == other.count && initial == other.initial
+				&& Objects.equals(items, other.items) && Objects.equals(payload, other.payload);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, count, initial, items, payload);
+		}
+	}
+
+	public static class MutableRequest {
+		String name;
+		long[] numbers;
+		private Double ratio;
+
+		public MutableRequest() {
+		}
+
+		public static MutableRequest of(String name, long[] numbers, Double ratio) {
+			MutableRequest request = new MutableRequest();
+			request.name = name;
+			request.numbers = numbers;
+			request.ratio = ratio;
+			return request;
+		}
+
+		public Double getRatio() {
+			return ratio;
+		}
+
+		public void setRatio(Double ratio) {
+			this.ratio = ratio;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MutableRequest)) {
+				return false;
+			}
+			MutableRequest other = (MutableRequest) obj;
+			return Objects.equals(name, other.name) && Arrays.equals(numbers, other.numbers)
+				&& Objects.equals(ratio, other.ratio);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, Arrays.hashCode(numbers), ratio);
+		}
+	}
+
+	public static class AnnotatedRequest {
+		@JsonIgnore
+		private final String secret;
+
+		public AnnotatedRequest(String secret) {
+			this.secret = secret;
+		}
+
+		public String getSecret() {
+			return secret;
+		}
+	}
+
+	public static class Response {
+		private final String name;
+		private final boolean immutable;
+
+		public Response(String name, boolean immutable) {
+			this.name = name;
+			this.immutable = immutable;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isImmutable() {
+			return immutable;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Response && Objects.equals(name, ((Response) obj).name)
+				&& immutable == ((Response) obj).immutable;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, immutable);
+		}
+	}
+
+	public static class ResponseFactory {
+		public Response responseTo(MutableRequest request) {
+			return new Response(request.name, false);
+		}
+	}
+
+	public static class Item {
+		private final String description;
+
+		public Item(String description) {
+			this.description = description;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Item && Objects.equals(description, ((Item) obj).description);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(description);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package org.requirementsascode.spring.behavior.webflux;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * This class registers the scheduler that the reactive endpoint uses to call
+ * the behavior (if there isn't any yet). Since request handlers may block, e.g.
+ * when accessing a database, the behavior is never called on an event loop
+ * thread.
+ * 
+ * @author b_muth
+ *
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+class ReactiveBehaviorConfiguration {
+	static final String BEHAVIOR_SCHEDULER = "behaviorScheduler";
+	private static final String BEHAVIOR_EXECUTOR = "behaviorExecutor";
+	private static final String VIRTUAL_THREADS = "virtual-threads";
+
+	/**
+	 * Registers the scheduler for calling the behavior. If the
+	 * <code>behavior.execution</code> property is set to
+	 * <code>virtual-threads</code>, the scheduler calls the behavior with the
+	 * behavior executor. Otherwise, it's a bounded scheduler: if all threads are
+	 * busy, calls are queued. If the queue is full as well, calls are rejected.
+	 * 
+	 * @param execution        the value of the <code>behavior.execution</code>
+	 *                         property
+	 * @param behaviorExecutor the executor registered by spring-behavior-web, if
+	 *                         virtual threads are used
+	 * @param threadCap        the maximum number of threads calling the behavior
+	 * @param queuedTaskCap    the maximum number of calls waiting for a thread
+	 * @return the registered scheduler
+	 */
+	@Bean(name = BEHAVIOR_SCHEDULER, destroyMethod = "dispose")
+	@ConditionalOnMissingBean(name = BEHAVIOR_SCHEDULER)
+	Scheduler behaviorScheduler(@Value("${behavior.execution:}") String execution,
+		@Qualifier(BEHAVIOR_EXECUTOR) ObjectProvider<ExecutorService> behaviorExecutor,
+		@Value("${behavior.scheduler.thread-cap:#{T(reactor.core.scheduler.Schedulers).DEFAULT_BOUNDED_ELASTIC_SIZE}}") int threadCap,
+		@Value("${behavior.scheduler.queued-task-cap:#{T(reactor.core.scheduler.Schedulers).DEFAULT_BOUNDED_ELASTIC_QUEUESIZE}}") int queuedTaskCap) {
+		Scheduler scheduler = VIRTUAL_THREADS.equals(execution)
+			? Schedulers.fromExecutorService(behaviorExecutor.getObject(), "behavior")
+			: Schedulers.newBoundedElastic(threadCap, queuedTaskCap, "behavior");
+		return scheduler;
+	}
+}
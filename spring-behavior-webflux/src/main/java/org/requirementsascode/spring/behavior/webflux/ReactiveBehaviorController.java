@@ -0,0 +1,68 @@
+package org.requirementsascode.spring.behavior.webflux;
+
+import static org.requirementsascode.spring.behavior.webflux.ReactiveBehaviorConfiguration.BEHAVIOR_SCHEDULER;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.requirementsascode.Behavior;
+import org.requirementsascode.spring.behavior.web.BatchBehavior;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+@RestController
+@ConditionalOnProperty(prefix = "behavior", name = "endpoint")
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+class ReactiveBehaviorController {
+	private static final String EMPTY_STRING_RESPONSE = "";
+
+	private final Behavior behavior;
+	private final BatchBehavior batchBehavior;
+	private final boolean isBatchAtomic;
+	private final Scheduler scheduler;
+
+	public ReactiveBehaviorController(Behavior behavior, BatchBehavior batchBehavior,
+		@Value("${behavior.batch.atomic:false}") boolean isBatchAtomic,
+		@Qualifier(BEHAVIOR_SCHEDULER) Scheduler scheduler) {
+		this.behavior = behavior;
+		this.batchBehavior = batchBehavior;
+		this.isBatchAtomic = isBatchAtomic;
+		this.scheduler = scheduler;
+	}
+
+	@PostMapping("${behavior.endpoint}")
+	public Mono<Object> handleRequest(@RequestBody Mono<Object> request) {
+		Mono<Object> response = request
+			.publishOn(scheduler)
+			.map(r -> behavior.reactTo(r).orElse(EMPTY_STRING_RESPONSE));
+		return response;
+	}
+
+	@PostMapping("${behavior.endpoint}/batch")
+	public Mono<List<Object>> handleBatchRequest(@RequestBody Mono<List<Object>> requests) {
+		Mono<List<Object>> responses = requests
+			.publishOn(scheduler)
+			.map(this::reactToBatch);
+		return responses;
+	}
+
+	private List<Object> reactToBatch(List<Object> requests) {
+		List<Optional<Object>> optionalResponses = isBatchAtomic ? batchBehavior.reactToAll(requests)
+			: batchBehavior.reactToEach(requests);
+
+		List<Object> responses = optionalResponses.stream()
+			.map(r -> r.orElse(EMPTY_STRING_RESPONSE))
+			.collect(Collectors.toList());
+		return responses;
+	}
+}
@@ -0,0 +1,61 @@
+package org.requirementsascode.spring.behavior.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+class ReactiveBehaviorConfigurationTest {
+	private final ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+		.withConfiguration(AutoConfigurations.of(ReactiveBehaviorConfiguration.class));
+
+	@Test
+	void registersBoundedSchedulerByDefault() {
+		contextRunner.run(context -> {
+			assertTrue(threadNameOf(context.getBean(ReactiveBehaviorConfiguration.BEHAVIOR_SCHEDULER, Scheduler.class))
+				.startsWith("behavior-"));
+		});
+	}
+
+	@Test
+	void registersSchedulerOfBehaviorExecutorForVirtualThreads() {
+		contextRunner
+			.withPropertyValues("behavior.execution=virtual-threads")
+			.withBean("behaviorExecutor", ExecutorService.class,
+				() -> Executors.newSingleThreadExecutor(new CustomizableThreadFactory("test-executor-")))
+			.run(context -> {
+				assertTrue(threadNameOf(context.getBean(ReactiveBehaviorConfiguration.BEHAVIOR_SCHEDULER, Scheduler.class))
+					.startsWith("test-executor-"));
+			});
+	}
+
+	@Test
+	void doesntRegisterSchedulerIfThereIsOne() {
+		Scheduler scheduler = Schedulers.immediate();
+		contextRunner
+			.withPropertyValues("behavior.execution=virtual-threads")
+			.withBean(ReactiveBehaviorConfiguration.BEHAVIOR_SCHEDULER, Scheduler.class, () -> scheduler)
+			.run(context -> {
+				assertEquals(1, context.getBeansOfType(Scheduler.class).size());
+				assertSame(scheduler, context.getBean(ReactiveBehaviorConfiguration.BEHAVIOR_SCHEDULER));
+			});
+	}
+
+	private String threadNameOf(Scheduler scheduler) {
+		return Mono.fromCallable(() -> Thread.currentThread().getName())
+			.subscribeOn(scheduler)
+			.block(Duration.ofSeconds(10));
+	}
+}
@@ -0,0 +1,109 @@
+package org.requirementsascode.spring.behavior.webflux;
+
+import static org.hamcrest.Matchers.startsWith;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(properties = { "behavior.endpoint=/behavior", "spring.main.web-application-type=reactive" })
+@AutoConfigureWebTestClient
+class ReactiveBehaviorControllerTest {
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void respondsToHandledMessage() {
+		post("{\"@type\":\"CreateList\",\"listName\":\"list1\"}")
+			.expectStatus().isOk()
+			.expectBody().jsonPath("$.listName").isEqualTo("list1");
+	}
+
+	@Test
+	void respondsWithEmptyStringToMessageWithoutResponse() {
+		post("{\"@type\":\"CompleteTask\"}")
+			.expectStatus().isOk()
+			.expectBody().jsonPath("$").isEqualTo("");
+	}
+
+	@Test
+	void respondsWithServerErrorToException() {
+		post("{\"@type\":\"FailingRequest\"}")
+			.expectStatus().is5xxServerError();
+	}
+
+	@Test
+	void callsBehaviorOnBehaviorScheduler() {
+		post("{\"@type\":\"GetThreadName\"}")
+			.expectStatus().isOk()
+			.expectBody().jsonPath("$").value(startsWith("behavior-"));
+	}
+
+	@Test
+	void respondsToBatch() {
+		webTestClient.post().uri("/behavior/batch")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("[{\"@type\":\"CreateList\",\"listName\":\"list1\"},{\"@type\":\"CompleteTask\"}]")
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$[0].listName").isEqualTo("list1")
+			.jsonPath("$[1]").isEqualTo("");
+	}
+
+	private WebTestClient.ResponseSpec post(String json) {
+		return webTestClient.post().uri("/behavior")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(json)
+			.exchange();
+	}
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration
+	static class TestApplication {
+		@Bean
+		BehaviorModel behaviorModel() {
+			return () -> Model.builder()
+				.user(CreateList.class).systemPublish(createList -> new ListCreated(createList.listName))
+				.user(CompleteTask.class).system(() -> {})
+				.user(FailingRequest.class).system(() -> {
+					throw new IllegalStateException("Request failed");
+				})
+				.user(GetThreadName.class).systemPublish(() -> Thread.currentThread().getName())
+				.build();
+		}
+	}
+
+	static class CreateList {
+		private String listName;
+	}
+
+	static class CompleteTask {
+	}
+
+	static class FailingRequest {
+	}
+
+	static class GetThreadName {
+	}
+
+	static class ListCreated {
+		private final String listName;
+
+		ListCreated(String listName) {
+			this.listName = listName;
+		}
+
+		public String getListName() {
+			return listName;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.eventbus.EventBus;
+import org.requirementsascode.eventbus.ringbuffer.RingBufferEventBus;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Compares the throughput of the Spring event bus and the ring buffer event
+ * bus, with a single and with several publishing threads. Both pass the events
+ * to two listener behaviors.
+ *
+ * The Spring event bus publishes the events via the application event
+ * publisher to {@link EventListeners}, whose <code>@Async</code> method runs on
+ * a pool of 8 threads with an unbounded queue (like Spring Boot's default task
+ * executor). The ring buffer event bus passes them to a thread per listener
+ * behavior. Each operation publishes 1000 events, and waits until the
+ * listener behaviors have reacted to them.
+ *
+ * Run with: <code>gradle :spring-eventbus:jmh -PjmhArgs=EventBusBenchmark</code>
+ *
+ * @author b_muth
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+	private static final int EVENTS_PER_OPERATION = 1000;
+	private static final int MULTIPLE_PRODUCERS = 4;
+
+	private AtomicLong publishedCount;
+	private List<AtomicLong> reactedCounts;
+	private AnnotationConfigApplicationContext context;
+	private SpringEventBus springEventBus;
+	private RingBufferEventBus ringBufferEventBus;
+
+	@Setup
+	public void setup() {
+		publishedCount = new AtomicLong();
+		reactedCounts = Arrays.asList(new AtomicLong(), new AtomicLong());
+		List<BehaviorModel> listenerModels = Arrays.asList(listenerModel(reactedCounts.get(0)),
+			listenerModel(reactedCounts.get(1)));
+
+		context = new AnnotationConfigApplicationContext();
+		context.register(AsyncConfiguration.class);
+		context.registerBean(EventListeners.class, () -> EventListeners.of(listenerModels));
+		context.refresh();
+		springEventBus = new SpringEventBus(new EventBusBehaviorModel(context));
+
+		ringBufferEventBus = RingBufferEventBus
+			.builder(listenerModels.stream().map(StatelessBehavior::of).collect(Collectors.toList()))
+			.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		ringBufferEventBus.close();
+		context.close();
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(EVENTS_PER_OPERATION)
+	public void springEventBusSingleProducer() {
+		publishTo(springEventBus);
+	}
+
+	@Benchmark
+	@Threads(MULTIPLE_PRODUCERS)
+	@OperationsPerInvocation(EVENTS_PER_OPERATION)
+	public void springEventBusMultipleProducers() {
+		publishTo(springEventBus);
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(EVENTS_PER_OPERATION)
+	public void ringBufferEventBusSingleProducer() {
+		publishTo(ringBufferEventBus);
+	}
+
+	@Benchmark
+	@Threads(MULTIPLE_PRODUCERS)
+	@OperationsPerInvocation(EVENTS_PER_OPERATION)
+	public void ringBufferEventBusMultipleProducers() {
+		publishTo(ringBufferEventBus);
+	}
+
+	private void publishTo(EventBus eventBus) {
+		TaskAdded event = new TaskAdded();
+		for (int i = 0; i < EVENTS_PER_OPERATION; i++) {
+			eventBus.reactTo(event);
+		}
+		long publishedSoFar = publishedCount.addAndGet(EVENTS_PER_OPERATION);
+		for (AtomicLong reactedCount : reactedCounts) {
+			while (reactedCount.get() < publishedSoFar) {
+				Thread.yield();
+			}
+		}
+	}
+
+	private BehaviorModel listenerModel(AtomicLong reactedCount) {
+		return () -> Model.builder()
+			.on(TaskAdded.class).system(reactedCount::incrementAndGet)
+			.build();
+	}
+
+	@Configuration
+	@EnableAsync
+	static class AsyncConfiguration {
+		@Bean
+		ThreadPoolTaskExecutor taskExecutor() {
+			ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+			taskExecutor.setCorePoolSize(8);
+			taskExecutor.setMaxPoolSize(8);
+			return taskExecutor;
+		}
+	}
+
+	static class TaskAdded {
+	}
+}
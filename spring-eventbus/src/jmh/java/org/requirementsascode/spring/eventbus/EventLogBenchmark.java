@@ -0,0 +1,146 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+
+/**
+ * Measures the throughput of appending events to an event log, and of
+ * replaying them to a listener behavior. The replay reads a log of 100000
+ * events, in segments of 4 MB.
+ *
+ * Run with: <code>gradle :spring-eventbus:jmh -PjmhArgs=EventLogBenchmark</code>
+ *
+ * @author b_muth
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLogBenchmark {
+	private static final int SEGMENT_SIZE = 4 * 1024 * 1024;
+	private static final int REPLAYED_EVENTS = 100_000;
+
+	@Benchmark
+	public void append(AppendState state) {
+		state.eventLog.append(state.event);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(REPLAYED_EVENTS)
+	public void replay(ReplayState state, ReactedEvents reactedEvents) {
+		reactedEvents.events += state.eventLog.replayTo(state.listeners);
+	}
+
+	@State(Scope.Benchmark)
+	public static class AppendState {
+		private Path directory;
+		private EventLog eventLog;
+		private TaskAdded event;
+
+		@Setup
+		public void setup() throws IOException {
+			directory = Files.createTempDirectory("event-log-append");
+			// Full segments are deleted right away, so that the benchmark doesn't fill up the disk
+			eventLog = createEventLog(directory).retention(Duration.ZERO).build();
+			event = new TaskAdded("list1", "task1");
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			eventLog.close();
+			delete(directory);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ReplayState {
+		private Path directory;
+		private EventLog eventLog;
+		private List<Behavior> listeners;
+
+		@Setup
+		public void setup() throws IOException {
+			directory = Files.createTempDirectory("event-log-replay");
+			eventLog = createEventLog(directory).build();
+			for (int i = 0; i < REPLAYED_EVENTS; i++) {
+				eventLog.append(new TaskAdded("list" + i % 100, "task" + i));
+			}
+			eventLog.flush();
+			listeners = Collections.singletonList(StatelessBehavior.of(listenerModel()));
+		}
+
+		@TearDown
+		public void tearDown() throws IOException {
+			eventLog.close();
+			delete(directory);
+		}
+	}
+
+	/**
+	 * Counts the events read by the replays.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class ReactedEvents {
+		public long events;
+	}
+
+	private static EventLog.Builder createEventLog(Path directory) {
+		return EventLog.builder(directory, Collections.singletonList(listenerModel()))
+			.segmentSize(SEGMENT_SIZE);
+	}
+
+	private static BehaviorModel listenerModel() {
+		return () -> Model.builder()
+			.on(TaskAdded.class).system(() -> {})
+			.build();
+	}
+
+	private static void delete(Path directory) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+		for (Path path : paths) {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	static class TaskAdded {
+		private final String listId;
+		private final String taskName;
+
+		TaskAdded(String listId, String taskName) {
+			this.listId = listId;
+			this.taskName = taskName;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package org.requirementsascode.spring.eventbus;
+
+import org.requirementsascode.BehaviorModel;
+
+/**
+ * The model of a listener behavior that wants bursts of events to be coalesced,
+ * before it reacts to them. The coalescing is done by an {@link EventCoalescer},
+ * which must be the decorator of the event listeners.
+ *
+ * @author b_muth
+ *
+ */
+public interface CoalescingListenerModel extends BehaviorModel {
+	/**
+	 * Returns which events are coalesced, before the listener behavior reacts to
+	 * them.
+	 *
+	 * @return the event coalescing
+	 */
+	EventCoalescing eventCoalescing();
+}
@@ -1,15 +1,65 @@
 package org.requirementsascode.spring.eventbus;
 
 import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.eventbus.EventBus;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Registers an event bus that publishes the events to the Spring event
+ * listeners right away, if there isn't any event bus yet (e.g. an
+ * {@link OutboxEventBus}). If there is an {@link EventLog} bean, the event bus
+ * appends each event to it.
+ *
+ * @author b_muth
+ *
+ */
 @Configuration
+@ConditionalOnMissingBean(EventBus.class)
 class EventBusConfiguration {
-	@Bean
-	SpringEventBus springEventBus(ApplicationEventPublisher eventPublisher) {
-		BehaviorModel behaviorModel = new EventBusBehaviorModel(eventPublisher);
-		return new SpringEventBus(behaviorModel);
+	private static final String METER_REGISTRY = "io.micrometer.core.instrument.MeterRegistry";
+
+	@Configuration
+	@ConditionalOnMissingClass(METER_REGISTRY)
+	static class PlainEventBusConfiguration {
+		@Bean
+		SpringEventBus springEventBus(ApplicationEventPublisher eventPublisher, ObjectProvider<EventLog> eventLog) {
+			BehaviorModel behaviorModel = new EventBusBehaviorModel(eventPublisher);
+			return new SpringEventBus(behaviorModel, eventLogDecorator(eventLog));
+		}
+	}
+
+	/**
+	 * Records the metrics of the event bus, if a meter registry bean exists.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = METER_REGISTRY)
+	static class InstrumentedEventBusConfiguration {
+		@Bean
+		SpringEventBus springEventBus(ApplicationEventPublisher eventPublisher,
+			ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<EventLog> eventLog) {
+			BehaviorModel behaviorModel = new EventBusBehaviorModel(eventPublisher);
+			MeterRegistry registry = meterRegistry.getIfUnique();
+			BehaviorDecorator eventLogDecorator = eventLogDecorator(eventLog);
+			return registry == null ? new SpringEventBus(behaviorModel, eventLogDecorator)
+				: new SpringEventBus(behaviorModel, eventLogDecorator.andThen(EventBusMetrics.eventBus(registry)));
+		}
+	}
+
+	/**
+	 * Returns a decorator that appends each event to the event log, if there is
+	 * an event log bean.
+	 */
+	private static BehaviorDecorator eventLogDecorator(ObjectProvider<EventLog> eventLog) {
+		EventLog uniqueEventLog = eventLog.getIfUnique();
+		return uniqueEventLog == null ? behavior -> behavior : uniqueEventLog.decorator();
 	}
 }
@@ -0,0 +1,59 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.util.Objects;
+
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.requirementsascode.spring.behavior.web.InstrumentedBehavior;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Creates decorators that record the metrics of the event bus and its
+ * listeners, see {@link InstrumentedBehavior}.
+ *
+ * @author b_muth
+ *
+ */
+public class EventBusMetrics {
+	/**
+	 * The name of the timers of the event bus.
+	 */
+	public static final String EVENT_BUS_METRIC_NAME = "eventbus.events";
+
+	/**
+	 * The name of the timers of the listeners. They're tagged with the simple
+	 * class name of the listener's behavior model.
+	 */
+	public static final String LISTENER_METRIC_NAME = "eventbus.listener.events";
+
+	private EventBusMetrics() {
+	}
+
+	/**
+	 * Creates a decorator for the event bus.
+	 *
+	 * @param meterRegistry the registry of the timers
+	 * @return the decorator
+	 */
+	public static BehaviorDecorator eventBus(MeterRegistry meterRegistry) {
+		Objects.requireNonNull(meterRegistry, "meterRegistry must be non-null!");
+		return behavior -> InstrumentedBehavior.of(behavior, meterRegistry, EVENT_BUS_METRIC_NAME, Tags.empty());
+	}
+
+	/**
+	 * Creates a decorator for each listener of {@link EventListeners} or
+	 * {@link ParallelEventListeners}.
+	 *
+	 * @param meterRegistry the registry of the timers
+	 * @return the decorator
+	 */
+	public static BehaviorDecorator listeners(MeterRegistry meterRegistry) {
+		Objects.requireNonNull(meterRegistry, "meterRegistry must be non-null!");
+		return behavior -> {
+			String listenerName = behavior.behaviorModel().getClass().getSimpleName();
+			return InstrumentedBehavior.of(behavior, meterRegistry, LISTENER_METRIC_NAME,
+				Tags.of("listener", listenerName));
+		};
+	}
+}
@@ -0,0 +1,259 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.requirementsascode.spring.behavior.web.StripedBehavior;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Decorates the listener behaviors whose models implement
+ * {@link CoalescingListenerModel}, so that bursts of events are coalesced
+ * before the listener behaviors react to them. That cuts the work of
+ * listeners that e.g. recompute a projection for each event.
+ *
+ * The first event for a key starts a window. Later events of the same class
+ * with the same key, published within the window, are coalesced with it. At
+ * the end of the window, one of the coalescer's threads passes the coalesced
+ * event to the listener behavior. So a coalesced event may be reacted to after
+ * events that have been published later, and that aren't coalesced.
+ *
+ * The coalescer's threads react to the coalesced events of all listener
+ * behaviors. With a single thread (the default), they are reacted to one after
+ * the other. With more threads, a listener behavior may react to several
+ * coalesced events concurrently, so it must be thread-safe. If the coalescer
+ * decorates a {@link StripedBehavior}, it passes each coalesced event to the
+ * lane of its aggregate instead, without waiting for the response.
+ *
+ * All other events, and the listener behaviors of other models, aren't
+ * affected.
+ *
+ * Pass the coalescer as decorator to the event listeners, e.g.
+ * <code>EventListeners.of(listenerModels, eventCoalescer)</code>. Call
+ * {@link #awaitCompletion(Duration)} to wait until the coalesced events of the
+ * open windows have been reacted to. {@link ParallelEventListeners} does that
+ * when it awaits completion, if the coalescer is its decorator. Call
+ * {@link #close()} to stop the threads when the coalescer is no longer needed.
+ * The events of open windows are still reacted to. Spring does that
+ * automatically for beans.
+ *
+ * @author b_muth
+ *
+ */
+public class EventCoalescer implements BehaviorDecorator, AutoCloseable {
+	private static final Log log = LogFactory.getLog(EventCoalescer.class);
+	private static final String THREAD_NAME_PREFIX = "event-coalescer-";
+	private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+	private final ScheduledThreadPoolExecutor scheduler;
+	private int pendingEvents;
+
+	private EventCoalescer(int numberOfThreads) {
+		this.scheduler = new ScheduledThreadPoolExecutor(numberOfThreads,
+			new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+	}
+
+	/**
+	 * Creates an event coalescer, with its own thread.
+	 *
+	 * @return the created event coalescer
+	 */
+	public static EventCoalescer create() {
+		return create(1);
+	}
+
+	/**
+	 * Creates an event coalescer, with the specified number of threads that react
+	 * to the coalesced events.
+	 *
+	 * @param numberOfThreads the number of threads
+	 * @return the created event coalescer
+	 */
+	public static EventCoalescer create(int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads must be positive, but was " + numberOfThreads);
+		}
+		return new EventCoalescer(numberOfThreads);
+	}
+
+	@Override
+	public Behavior decorate(Behavior behavior) {
+		Objects.requireNonNull(behavior, "behavior must not be null!");
+		BehaviorModel behaviorModel = behavior.behaviorModel();
+		if (!(behaviorModel instanceof CoalescingListenerModel)) {
+			return behavior;
+		}
+		EventCoalescing eventCoalescing = ((CoalescingListenerModel) behaviorModel).eventCoalescing();
+		return new CoalescingListener(behavior, Objects.requireNonNull(eventCoalescing,
+			"eventCoalescing must not be null!"));
+	}
+
+	/**
+	 * Waits until the listener behaviors have reacted to the coalesced events of
+	 * all windows opened so far. Useful in tests.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @return true if all coalesced events have been reacted to, false if the
+	 *         timeout elapsed
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting
+	 */
+	public synchronized boolean awaitCompletion(Duration timeout) throws InterruptedException {
+		Objects.requireNonNull(timeout, "timeout must be non-null!");
+		long deadline = System.nanoTime() + timeout.toNanos();
+		long remainingNanos = timeout.toNanos();
+		while (pendingEvents > 0) {
+			if (remainingNanos <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+			remainingNanos = deadline - System.nanoTime();
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the threads, after the listener behaviors have reacted to the events of
+	 * the open windows (or 30 seconds have elapsed).
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A listener behavior, and the coalesced events of its open windows.
+	 */
+	private class CoalescingListener implements Behavior {
+		private final Behavior behavior;
+		private final EventCoalescing eventCoalescing;
+		private final ConcurrentMap<WindowKey, Object> coalescedEvents;
+		private final long windowNanos;
+
+		CoalescingListener(Behavior behavior, EventCoalescing eventCoalescing) {
+			this.behavior = behavior;
+			this.eventCoalescing = eventCoalescing;
+			this.coalescedEvents = new ConcurrentHashMap<>();
+			this.windowNanos = eventCoalescing.window().toNanos();
+		}
+
+		@Override
+		public <T> Optional<T> reactTo(Object event) {
+			Objects.requireNonNull(event, "event must not be null!");
+
+			Optional<EventCoalescing.Rule<?>> rule = eventCoalescing.ruleFor(event.getClass());
+			if (!rule.isPresent()) {
+				return behavior.reactTo(event);
+			}
+			WindowKey windowKey = new WindowKey(rule.get(), rule.get().keyOf(event));
+			boolean[] opensWindow = { false };
+			coalescedEvents.compute(windowKey, (key, coalescedEvent) -> {
+				if (coalescedEvent == null) {
+					opensWindow[0] = true;
+					return event;
+				}
+				return key.rule.merge(coalescedEvent, event);
+			});
+			if (opensWindow[0]) {
+				addPendingEvent();
+				try {
+					scheduler.schedule(() -> closeWindow(windowKey), windowNanos, TimeUnit.NANOSECONDS);
+				} catch (RejectedExecutionException e) {
+					coalescedEvents.remove(windowKey);
+					removePendingEvent();
+					throw new RejectedExecutionException("Event coalescer has been closed", e);
+				}
+			}
+			return Optional.empty();
+		}
+
+		@Override
+		public BehaviorModel behaviorModel() {
+			return behavior.behaviorModel();
+		}
+
+		private void closeWindow(WindowKey windowKey) {
+			Object coalescedEvent = coalescedEvents.remove(windowKey);
+			if (behavior instanceof StripedBehavior) {
+				reactInLane((StripedBehavior) behavior, coalescedEvent);
+				return;
+			}
+			try {
+				behavior.reactTo(coalescedEvent);
+			} catch (RuntimeException | Error e) {
+				logFailure(coalescedEvent, e);
+			} finally {
+				removePendingEvent();
+			}
+		}
+
+		private void reactInLane(StripedBehavior stripedBehavior, Object coalescedEvent) {
+			stripedBehavior.reactToLater(coalescedEvent).whenComplete((response, e) -> {
+				if (e != null) {
+					logFailure(coalescedEvent, e instanceof CompletionException ? e.getCause() : e);
+				}
+				removePendingEvent();
+			});
+		}
+
+		private void logFailure(Object coalescedEvent, Throwable e) {
+			log.error("Listener " + behaviorModel().getClass().getName() + " failed to react to "
+				+ coalescedEvent.getClass().getName(), e);
+		}
+	}
+
+	private synchronized void addPendingEvent() {
+		pendingEvents++;
+	}
+
+	private synchronized void removePendingEvent() {
+		pendingEvents--;
+		if (pendingEvents == 0) {
+			notifyAll();
+		}
+	}
+
+	private static class WindowKey {
+		private final EventCoalescing.Rule<?> rule;
+		private final Object key;
+
+		WindowKey(EventCoalescing.Rule<?> rule, Object key) {
+			this.rule = rule;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof WindowKey)) {
+				return false;
+			}
+			WindowKey other = (WindowKey) obj;
+			return rule == other.rule && Objects.equals(key, other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(rule) + Objects.hashCode(key);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Specifies which events a listener behavior wants to be coalesced, before it
+ * reacts to them (see {@link CoalescingListenerModel}). Events of the same
+ * class with the same key, e.g. the id of an aggregate, that are published
+ * within the window are coalesced into a single event: either the latest one,
+ * or the result of merging them.
+ *
+ * Create the event coalescing with {@link #builder()}.
+ *
+ * @author b_muth
+ *
+ */
+public class EventCoalescing {
+	private final List<Rule<?>> rules;
+	private final Duration window;
+	private final ClassValue<Optional<Rule<?>>> rulesByEventClass;
+
+	private EventCoalescing(Builder builder) {
+		this.rules = new ArrayList<>(builder.rules);
+		this.window = builder.window;
+		this.rulesByEventClass = new ClassValue<Optional<Rule<?>>>() {
+			@Override
+			protected Optional<Rule<?>> computeValue(Class<?> eventClass) {
+				return rules.stream()
+					.filter(rule -> rule.eventClass.isAssignableFrom(eventClass))
+					.findFirst();
+			}
+		};
+	}
+
+	/**
+	 * Starts building an event coalescing.
+	 *
+	 * @return the builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns how long events are collected, after the first event for a key has
+	 * been published.
+	 *
+	 * @return the window
+	 */
+	public Duration window() {
+		return window;
+	}
+
+	Optional<Rule<?>> ruleFor(Class<?> eventClass) {
+		return rulesByEventClass.get(eventClass);
+	}
+
+	/**
+	 * Builds an event coalescing.
+	 */
+	public static class Builder {
+		private final List<Rule<?>> rules;
+		private Duration window;
+
+		private Builder() {
+			this.rules = new ArrayList<>();
+			this.window = Duration.ofMillis(100);
+		}
+
+		/**
+		 * Coalesces the events of the specified class (or its subclasses) with the
+		 * same key, so that only the latest one is reacted to.
+		 *
+		 * @param <T>        the type of event
+		 * @param eventClass the class of events
+		 * @param key        the function that returns the key of an event, e.g. the
+		 *                   id of the aggregate that has changed
+		 * @return this builder
+		 */
+		public <T> Builder latest(Class<T> eventClass, Function<? super T, ?> key) {
+			return merged(eventClass, key, (earlierEvent, laterEvent) -> laterEvent);
+		}
+
+		/**
+		 * Coalesces the events of the specified class (or its subclasses) with the
+		 * same key, by merging them into a single event that is reacted to.
+		 *
+		 * @param <T>        the type of event
+		 * @param eventClass the class of events
+		 * @param key        the function that returns the key of an event, e.g. the
+		 *                   id of the aggregate that has changed
+		 * @param merge      the function that merges an earlier and a later event
+		 * @return this builder
+		 */
+		public <T> Builder merged(Class<T> eventClass, Function<? super T, ?> key, BinaryOperator<T> merge) {
+			rules.add(new Rule<>(eventClass, key, merge));
+			return this;
+		}
+
+		/**
+		 * Sets how long events are collected, after the first event for a key has
+		 * been published (default: 100 milliseconds). The window isn't extended by
+		 * later events, so a steady stream of events is reacted to at least once per
+		 * window.
+		 *
+		 * @param window the time to collect events
+		 * @return this builder
+		 */
+		public Builder window(Duration window) {
+			Objects.requireNonNull(window, "window must not be null!");
+			if (window.isNegative()) {
+				throw new IllegalArgumentException("window must not be negative, but was " + window);
+			}
+			this.window = window;
+			return this;
+		}
+
+		/**
+		 * Builds the event coalescing.
+		 *
+		 * @return the event coalescing
+		 */
+		public EventCoalescing build() {
+			return new EventCoalescing(this);
+		}
+	}
+
+	static class Rule<T> {
+		private final Class<T> eventClass;
+		private final Function<? super T, ?> key;
+		private final BinaryOperator<T> merge;
+
+		Rule(Class<T> eventClass, Function<? super T, ?> key, BinaryOperator<T> merge) {
+			this.eventClass = Objects.requireNonNull(eventClass, "eventClass must not be null!");
+			this.key = Objects.requireNonNull(key, "key must not be null!");
+			this.merge = Objects.requireNonNull(merge, "merge must not be null!");
+		}
+
+		Object keyOf(Object event) {
+			return key.apply(eventClass.cast(event));
+		}
+
+		Object merge(Object earlierEvent, Object laterEvent) {
+			return merge.apply(eventClass.cast(earlierEvent), eventClass.cast(laterEvent));
+		}
+	}
+}
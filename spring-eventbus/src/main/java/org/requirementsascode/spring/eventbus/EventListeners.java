@@ -7,32 +7,69 @@ import java.util.stream.Collectors;
 
 import org.requirementsascode.Behavior;
 import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.requirementsascode.spring.behavior.web.StripedBehavior;
 import org.requirementsascode.spring.behavior.web.TransactionalBehavior;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 
+/**
+ * Passes each event published by the event bus to the behaviors of the
+ * specified listener models, asynchronously, one listener behavior after the
+ * other.
+ *
+ * An event is only passed to the listener behaviors whose models have a step
+ * for the event's class, so no transaction is started for the others. Spring's
+ * own application events are ignored.
+ *
+ * Since the events are passed on asynchronously, events published one after
+ * the other may be reacted to in a different order. To keep the order of events
+ * for the same aggregate while reacting to them in parallel, use
+ * {@link ParallelEventListeners} with a {@link StripedBehavior} instead.
+ *
+ * @author b_muth
+ *
+ */
 public class EventListeners{
 	private final List<Behavior> behaviors;
+	private final EventRoutes routes;
 
-	private EventListeners(Collection<BehaviorModel> behaviorModels) {
-		this.behaviors = createTransactionalBehaviorsFor(behaviorModels);
+	// Not private, so that Spring can create a class based proxy for the @Async method
+	EventListeners(Collection<BehaviorModel> behaviorModels, BehaviorDecorator decorator) {
+		this.behaviors = createTransactionalBehaviorsFor(behaviorModels, decorator);
+		this.routes = EventRoutes.of(behaviorModels);
 	}
 	
-	@Async @EventListener
+	@Async @EventListener(condition = EventRoutes.NO_APPLICATION_EVENT)
 	public void on(Object event) {
-		for (Behavior behavior : behaviors) {
-			behavior.reactTo(event);
+		for (int listener : routes.listenersOf(event.getClass())) {
+			behaviors.get(listener).reactTo(event);
 		}
 	}
 	
 	public static EventListeners of(Collection<BehaviorModel> behaviorModels) {
+		return of(behaviorModels, behavior -> behavior);
+	}
+
+	/**
+	 * Creates event listeners whose behaviors are wrapped by the specified
+	 * decorator, e.g. {@link EventBusMetrics#listeners(io.micrometer.core.instrument.MeterRegistry)}.
+	 *
+	 * @param behaviorModels the models of the listener behaviors
+	 * @param decorator      the decorator of each transactional listener behavior
+	 * @return the created event listeners
+	 */
+	public static EventListeners of(Collection<BehaviorModel> behaviorModels, BehaviorDecorator decorator) {
 		Objects.requireNonNull(behaviorModels, "behaviorModels must be non-null!");
-		return new EventListeners(behaviorModels);
+		Objects.requireNonNull(decorator, "decorator must be non-null!");
+		return new EventListeners(behaviorModels, decorator);
 	}
 	
-	private List<Behavior> createTransactionalBehaviorsFor(Collection<BehaviorModel> behaviorModels) {
+	private List<Behavior> createTransactionalBehaviorsFor(Collection<BehaviorModel> behaviorModels,
+		BehaviorDecorator decorator) {
 		return behaviorModels.stream()
 			.map(TransactionalBehavior::new)
+			.map(decorator::decorate)
 			.collect(Collectors.toList());
 	}
 }
@@ -0,0 +1,512 @@
+package org.requirementsascode.spring.eventbus;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.serialization.MessageSerializationModule;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.requirementsascode.spring.behavior.web.DispatchTable;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An append-only log of the events published by an event bus, e.g. to rebuild
+ * read models after a restart. Decorate the event bus with
+ * {@link #decorator()} so that it appends each event before publishing it.
+ * Call {@link #replayTo(Collection)} to pass the logged events to listener
+ * behaviors again, in the order they have been appended.
+ *
+ * The log consists of segment files in a directory. Each segment is mapped
+ * into memory, so appending an event doesn't need a system call. When the
+ * current segment is full, a new one is started, and the segments that are
+ * older than the retention period are deleted. The mapped memory is written
+ * to disk by the operating system, so the events survive a crash of the
+ * application. Call {@link #flush()} to write them to disk right away.
+ *
+ * Each event is stored as a record with its length, a checksum, its simple
+ * class name and its JSON payload. The events are (de)serialized by a
+ * {@link MessageSerializationModule}, based on the event classes of the
+ * listener models. When the log is opened again, it continues after the last
+ * complete record.
+ *
+ * Create an event log with {@link #builder(Path, Collection)}. Only one event
+ * log should use a directory at a time. Call {@link #close()} when the event
+ * log is no longer needed. Spring does that automatically for beans.
+ *
+ * @author b_muth
+ *
+ */
+public class EventLog implements AutoCloseable {
+	private static final Log log = LogFactory.getLog(EventLog.class);
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final int HEADER_SIZE = 8;
+	private static final int TYPE_LENGTH_SIZE = 2;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final Duration retention;
+	private final ObjectMapper objectMapper;
+	private final Map<String, Class<?>> eventClassesByName;
+	private final List<Path> closedSegments;
+	private final CRC32 appendChecksum;
+
+	private Path activeSegment;
+	private MappedByteBuffer activeBuffer;
+	private int activePosition;
+
+	private EventLog(Builder builder) throws IOException {
+		this.directory = builder.directory;
+		this.segmentSize = builder.segmentSize;
+		this.retention = builder.retention;
+		this.objectMapper = new ObjectMapper().registerModule(new MessageSerializationModule(builder.eventModel));
+		this.eventClassesByName = eventClassesByNameOf(builder.eventModel);
+		this.closedSegments = new ArrayList<>();
+		this.appendChecksum = new CRC32();
+
+		Files.createDirectories(directory);
+		List<Path> segments = existingSegments();
+		if (segments.isEmpty()) {
+			openActiveSegment(segmentPath(0));
+		} else {
+			closedSegments.addAll(segments.subList(0, segments.size() - 1));
+			openActiveSegment(segments.get(segments.size() - 1));
+			ByteBuffer records = ((ByteBuffer) activeBuffer).duplicate();
+			activePosition = readRecords(records, (buffer, typeOffset, typeLength, payloadOffset, payloadLength) -> {});
+		}
+		deleteExpiredSegments();
+	}
+
+	/**
+	 * Starts building an event log.
+	 *
+	 * @param directory      the directory of the segment files, which is created
+	 *                       if it doesn't exist
+	 * @param listenerModels the models of the listener behaviors, whose message
+	 *                       classes are the event classes
+	 * @return the builder
+	 */
+	public static Builder builder(Path directory, Collection<BehaviorModel> listenerModels) {
+		return new Builder(directory, listenerModels);
+	}
+
+	/**
+	 * Returns a decorator for an event bus, so that it appends each event to this
+	 * log before publishing it.
+	 *
+	 * @return the decorator
+	 */
+	public BehaviorDecorator decorator() {
+		return AppendingBehavior::new;
+	}
+
+	/**
+	 * Appends the specified event to the end of the log. If it doesn't fit into
+	 * the current segment, a new segment is started.
+	 *
+	 * @param event the event
+	 * @throws UncheckedIOException if the event can't be serialized or written
+	 */
+	public synchronized void append(Object event) {
+		Objects.requireNonNull(event, "event must not be null!");
+		checkOpen();
+
+		byte[] type = event.getClass().getSimpleName().getBytes(UTF_8);
+		byte[] payload = serialize(event);
+		int length = TYPE_LENGTH_SIZE + type.length + payload.length;
+		if (HEADER_SIZE + length > segmentSize) {
+			throw new IllegalArgumentException("Event of type " + event.getClass().getName() + " with " + length
+				+ " bytes doesn't fit into a segment of " + segmentSize + " bytes");
+		}
+		if (activePosition + HEADER_SIZE + length > activeBuffer.capacity()) {
+			rollSegment();
+		}
+
+		int bodyOffset = activePosition + HEADER_SIZE;
+		// The buffers are cast to Buffer (and ByteBuffer), because compiled with a
+		// newer JDK, their covariant overrides don't exist on a Java 8 runtime
+		((Buffer) activeBuffer).position(bodyOffset);
+		activeBuffer.putShort((short) type.length);
+		activeBuffer.put(type);
+		activeBuffer.put(payload);
+		int checksum = checksumOf(activeBuffer, bodyOffset, length, appendChecksum);
+		activeBuffer.putInt(activePosition + 4, checksum);
+		// The length is written last, so a record is only complete when it's set
+		activeBuffer.putInt(activePosition, length);
+		activePosition = bodyOffset + length;
+	}
+
+	/**
+	 * Passes all events of the log to the specified listener behaviors, in the
+	 * order they have been appended, on the current thread. Events that a
+	 * listener behavior's model has no step for are skipped without
+	 * deserializing them. Events that are appended in the meantime aren't
+	 * replayed.
+	 *
+	 * @param listeners the listener behaviors, e.g. projections of read models
+	 * @return the number of events read from the log
+	 * @throws UncheckedIOException if a segment can't be read
+	 */
+	public long replayTo(Collection<? extends Behavior> listeners) {
+		Objects.requireNonNull(listeners, "listeners must not be null!");
+
+		List<Path> segments;
+		ByteBuffer activeRecords;
+		synchronized (this) {
+			checkOpen();
+			segments = new ArrayList<>(closedSegments);
+			activeRecords = ((ByteBuffer) activeBuffer).duplicate();
+			((Buffer) activeRecords).position(0).limit(activePosition);
+		}
+
+		Replay replay = new Replay(listeners);
+		for (Path segment : segments) {
+			try {
+				readRecords(mapReadOnly(segment), replay);
+			} catch (NoSuchFileException e) {
+				// Deleted by the retention in the meantime
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		readRecords(activeRecords, replay);
+		return replay.eventCount;
+	}
+
+	/**
+	 * Writes the appended events to disk, instead of waiting for the operating
+	 * system to do it.
+	 */
+	public synchronized void flush() {
+		checkOpen();
+		activeBuffer.force();
+	}
+
+	/**
+	 * Writes the appended events to disk, and closes the log. Events appended
+	 * afterwards are rejected.
+	 */
+	@Override
+	public synchronized void close() {
+		if (activeBuffer != null) {
+			activeBuffer.force();
+			activeBuffer = null;
+		}
+	}
+
+	private void checkOpen() {
+		if (activeBuffer == null) {
+			throw new IllegalStateException("Event log has been closed");
+		}
+	}
+
+	private byte[] serialize(Object event) {
+		try {
+			return objectMapper.writeValueAsBytes(event);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void rollSegment() {
+		try {
+			activeBuffer.force();
+			Files.setLastModifiedTime(activeSegment, FileTime.from(Instant.now()));
+			closedSegments.add(activeSegment);
+			openActiveSegment(segmentPath(numberOf(activeSegment) + 1));
+			deleteExpiredSegments();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void openActiveSegment(Path segment) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE)) {
+			long size = Math.max(channel.size(), segmentSize);
+			activeBuffer = channel.map(MapMode.READ_WRITE, 0, size);
+		}
+		activeSegment = segment;
+		activePosition = 0;
+	}
+
+	private void deleteExpiredSegments() throws IOException {
+		if (retention == null) {
+			return;
+		}
+		Instant expiry = Instant.now().minus(retention);
+		Iterator<Path> segments = closedSegments.iterator();
+		while (segments.hasNext()) {
+			Path segment = segments.next();
+			if (Files.getLastModifiedTime(segment).toInstant().isBefore(expiry)) {
+				Files.deleteIfExists(segment);
+				segments.remove();
+				log.info("Deleted event log segment " + segment + " after retention period");
+			}
+		}
+	}
+
+	private List<Path> existingSegments() throws IOException {
+		List<Path> segments = new ArrayList<>();
+		try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+			paths.forEach(segments::add);
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+	private Path segmentPath(long number) {
+		return directory.resolve(String.format("%020d", number) + SEGMENT_SUFFIX);
+	}
+
+	private static long numberOf(Path segment) {
+		String fileName = segment.getFileName().toString();
+		return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private static ByteBuffer mapReadOnly(Path segment) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Reads the complete records from the position to the limit of the specified
+	 * buffer, and passes them to the handler.
+	 *
+	 * @return the position after the last complete record
+	 */
+	private static int readRecords(ByteBuffer buffer, RecordHandler handler) {
+		CRC32 checksum = new CRC32();
+		int position = buffer.position();
+		while (buffer.limit() - position >= HEADER_SIZE) {
+			int length = buffer.getInt(position);
+			int bodyOffset = position + HEADER_SIZE;
+			if (length < TYPE_LENGTH_SIZE || length > buffer.limit() - bodyOffset
+				|| buffer.getInt(position + 4) != checksumOf(buffer, bodyOffset, length, checksum)) {
+				// End of the log, or a record that hasn't been completely written
+				break;
+			}
+			int typeLength = buffer.getShort(bodyOffset);
+			int typeOffset = bodyOffset + TYPE_LENGTH_SIZE;
+			int payloadOffset = typeOffset + typeLength;
+			handler.handle(buffer, typeOffset, typeLength, payloadOffset, bodyOffset + length - payloadOffset);
+			position = bodyOffset + length;
+		}
+		return position;
+	}
+
+	private static int checksumOf(ByteBuffer buffer, int offset, int length, CRC32 checksum) {
+		ByteBuffer body = buffer.duplicate();
+		((Buffer) body).limit(offset + length).position(offset);
+		checksum.reset();
+		checksum.update(body);
+		return (int) checksum.getValue();
+	}
+
+	private static Map<String, Class<?>> eventClassesByNameOf(Model eventModel) {
+		Map<String, Class<?>> eventClassesByName = new HashMap<>();
+		for (Class<?> eventClass : DispatchTable.of(eventModel).messageClasses()) {
+			eventClassesByName.put(eventClass.getSimpleName(), eventClass);
+		}
+		return eventClassesByName;
+	}
+
+	@FunctionalInterface
+	private interface RecordHandler {
+		void handle(ByteBuffer buffer, int typeOffset, int typeLength, int payloadOffset, int payloadLength);
+	}
+
+	/**
+	 * Passes the records of a replay to the listener behaviors that can react to
+	 * them.
+	 */
+	private class Replay implements RecordHandler {
+		private final List<? extends Behavior> listeners;
+		private final List<DispatchTable> dispatchTables;
+		private final Map<String, List<Behavior>> listenersByTypeName;
+		private byte[] bytes;
+		private long eventCount;
+
+		Replay(Collection<? extends Behavior> listeners) {
+			this.listeners = new ArrayList<>(listeners);
+			this.dispatchTables = new ArrayList<>(listeners.size());
+			for (Behavior listener : listeners) {
+				dispatchTables.add(DispatchTable.of(listener.behaviorModel().model()));
+			}
+			this.listenersByTypeName = new HashMap<>();
+			this.bytes = new byte[256];
+		}
+
+		@Override
+		public void handle(ByteBuffer buffer, int typeOffset, int typeLength, int payloadOffset, int payloadLength) {
+			eventCount++;
+			String typeName = new String(read(buffer, typeOffset, typeLength), 0, typeLength, UTF_8);
+			List<Behavior> interestedListeners = listenersByTypeName.computeIfAbsent(typeName, this::listenersOf);
+			if (interestedListeners.isEmpty()) {
+				return;
+			}
+
+			Optional<Object> event = deserialize(read(buffer, payloadOffset, payloadLength), payloadLength, typeName);
+			if (event.isPresent()) {
+				for (Behavior listener : interestedListeners) {
+					listener.reactTo(event.get());
+				}
+			}
+		}
+
+		private List<Behavior> listenersOf(String typeName) {
+			Class<?> eventClass = eventClassesByName.get(typeName);
+			if (eventClass == null) {
+				log.warn("Skipping events of type " + typeName + ", because it's no event class of the listener models");
+				return Collections.emptyList();
+			}
+			List<Behavior> interestedListeners = new ArrayList<>();
+			for (int i = 0; i < listeners.size(); i++) {
+				if (!dispatchTables.get(i).stepsFor(eventClass).isEmpty()) {
+					interestedListeners.add(listeners.get(i));
+				}
+			}
+			return interestedListeners;
+		}
+
+		private Optional<Object> deserialize(byte[] payload, int payloadLength, String typeName) {
+			try {
+				return Optional.of(objectMapper.readValue(payload, 0, payloadLength, Object.class));
+			} catch (IOException e) {
+				log.error("Skipping event of type " + typeName + ", because it can't be deserialized", e);
+				return Optional.empty();
+			}
+		}
+
+		/**
+		 * Copies the specified bytes of the buffer into an array that is reused for
+		 * all records.
+		 */
+		private byte[] read(ByteBuffer buffer, int offset, int length) {
+			if (bytes.length < length) {
+				bytes = new byte[Math.max(length, bytes.length * 2)];
+			}
+			ByteBuffer source = buffer.duplicate();
+			((Buffer) source).limit(offset + length).position(offset);
+			source.get(bytes, 0, length);
+			return bytes;
+		}
+	}
+
+	/**
+	 * An event bus that appends each event to the log, before publishing it.
+	 */
+	private class AppendingBehavior implements Behavior {
+		private final Behavior eventBus;
+
+		AppendingBehavior(Behavior eventBus) {
+			this.eventBus = Objects.requireNonNull(eventBus, "eventBus must not be null!");
+		}
+
+		@Override
+		public <T> Optional<T> reactTo(Object event) {
+			append(event);
+			return eventBus.reactTo(event);
+		}
+
+		@Override
+		public BehaviorModel behaviorModel() {
+			return eventBus.behaviorModel();
+		}
+	}
+
+	/**
+	 * Builds an event log.
+	 */
+	public static class Builder {
+		private final Path directory;
+		private final Model eventModel;
+		private int segmentSize;
+		private Duration retention;
+
+		private Builder(Path directory, Collection<BehaviorModel> listenerModels) {
+			this.directory = Objects.requireNonNull(directory, "directory must not be null!");
+			Objects.requireNonNull(listenerModels, "listenerModels must not be null!");
+			this.eventModel = EventModels.of(Collections.unmodifiableCollection(listenerModels));
+			this.segmentSize = 64 * 1024 * 1024;
+		}
+
+		/**
+		 * Sets the size of each segment file (default: 64 MB). An event must fit into
+		 * a single segment.
+		 *
+		 * @param segmentSize the size in bytes
+		 * @return this builder
+		 */
+		public Builder segmentSize(int segmentSize) {
+			if (segmentSize <= HEADER_SIZE) {
+				throw new IllegalArgumentException("segmentSize must be greater than " + HEADER_SIZE + ", but was "
+					+ segmentSize);
+			}
+			this.segmentSize = segmentSize;
+			return this;
+		}
+
+		/**
+		 * Sets how long full segments are kept, after the last event has been
+		 * appended to them (default: forever). Expired segments are deleted when a
+		 * new segment is started, and when the log is opened.
+		 *
+		 * @param retention the retention period
+		 * @return this builder
+		 */
+		public Builder retention(Duration retention) {
+			Objects.requireNonNull(retention, "retention must not be null!");
+			if (retention.isNegative()) {
+				throw new IllegalArgumentException("retention must not be negative, but was " + retention);
+			}
+			this.retention = retention;
+			return this;
+		}
+
+		/**
+		 * Builds the event log, and opens its directory.
+		 *
+		 * @return the event log
+		 * @throws UncheckedIOException if the directory can't be opened
+		 */
+		public EventLog build() {
+			try {
+				return new EventLog(this);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
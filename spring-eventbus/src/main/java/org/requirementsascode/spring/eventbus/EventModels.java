@@ -0,0 +1,44 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.builder.FlowlessSystemPart;
+import org.requirementsascode.builder.ModelBuilder;
+
+/**
+ * Creates models with a step for each event class that listener behaviors
+ * react to. The (de)serialization of events is based on them.
+ *
+ * @author b_muth
+ *
+ */
+class EventModels {
+	private EventModels() {
+	}
+
+	/**
+	 * Creates a model with a step for each message class of the specified
+	 * listener models.
+	 *
+	 * @param listenerModels the models of the listener behaviors
+	 * @return the created model
+	 */
+	static Model of(Collection<BehaviorModel> listenerModels) {
+		Set<Class<?>> eventClasses = new LinkedHashSet<>();
+		for (BehaviorModel listenerModel : listenerModels) {
+			listenerModel.model().getSteps().forEach(step -> eventClasses.add(step.getMessageClass()));
+		}
+		// All steps must be added to the same use case, so each step continues the previous one
+		ModelBuilder modelBuilder = Model.builder();
+		FlowlessSystemPart<?> latestStep = null;
+		for (Class<?> eventClass : eventClasses) {
+			latestStep = latestStep == null ? modelBuilder.on(eventClass).system(() -> {})
+				: latestStep.on(eventClass).system(() -> {});
+		}
+		return latestStep == null ? modelBuilder.build() : latestStep.build();
+	}
+}
@@ -0,0 +1,82 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.DispatchTable;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Maps event classes to the listener behaviors that can react to them, i.e.
+ * whose models have a step for the event class. Spring's own application
+ * events are never routed to a listener behavior.
+ *
+ * The listener behaviors are looked up once per concrete event class, and then
+ * remembered.
+ *
+ * @author b_muth
+ *
+ */
+class EventRoutes {
+	/**
+	 * Condition of an event listener method that excludes Spring's own
+	 * application events, e.g. the context refreshed event.
+	 */
+	static final String NO_APPLICATION_EVENT = "!(#root.args[0] instanceof T(org.springframework.context.ApplicationEvent))";
+
+	private static final int[] NO_LISTENERS = new int[0];
+
+	private final List<DispatchTable> dispatchTables;
+	private final ClassValue<int[]> listenersByEventClass;
+
+	private EventRoutes(Collection<BehaviorModel> behaviorModels) {
+		this.dispatchTables = behaviorModels.stream()
+			.map(behaviorModel -> DispatchTable.of(behaviorModel.model()))
+			.collect(Collectors.toList());
+		this.listenersByEventClass = new ClassValue<int[]>() {
+			@Override
+			protected int[] computeValue(Class<?> eventClass) {
+				return listenersThatCanReactTo(eventClass);
+			}
+		};
+	}
+
+	/**
+	 * Creates the routes to the listener behaviors of the specified models.
+	 *
+	 * @param behaviorModels the models of the listener behaviors
+	 * @return the created routes
+	 */
+	static EventRoutes of(Collection<BehaviorModel> behaviorModels) {
+		Objects.requireNonNull(behaviorModels, "behaviorModels must be non-null!");
+		return new EventRoutes(behaviorModels);
+	}
+
+	/**
+	 * Returns the indexes of the listener behaviors that can react to events of
+	 * the specified class, in the order of the behavior models.
+	 *
+	 * @param eventClass the concrete class of an event
+	 * @return the indexes, or an empty array if no listener behavior can react
+	 */
+	int[] listenersOf(Class<?> eventClass) {
+		return listenersByEventClass.get(eventClass);
+	}
+
+	private int[] listenersThatCanReactTo(Class<?> eventClass) {
+		if (ApplicationEvent.class.isAssignableFrom(eventClass)) {
+			return NO_LISTENERS;
+		}
+		List<Integer> listeners = new ArrayList<>(1);
+		for (int i = 0; i < dispatchTables.size(); i++) {
+			if (!dispatchTables.get(i).stepsFor(eventClass).isEmpty()) {
+				listeners.add(i);
+			}
+		}
+		return listeners.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
@@ -0,0 +1,452 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.eventbus.EventBus;
+import org.requirementsascode.serialization.MessageSerializationModule;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An event bus that writes each event into an outbox table, inside of the
+ * publisher's transaction. After the transaction has been committed, a
+ * dispatcher thread reads the events from the table in batches, passes each
+ * event to the listener behaviors whose models have a step for the event's
+ * class, one after the other, and deletes the event from the table after all of
+ * them have reacted to it.
+ *
+ * So the events of a rolled back transaction are never published, and the
+ * events of a committed transaction are published even if the application
+ * stops before that. When it's started again, the dispatcher publishes the
+ * remaining events. In the meantime, it polls the table in a fixed interval.
+ * An event may be published more than once, if the application stops after
+ * publishing it, but before deleting it.
+ *
+ * If a listener behavior throws an exception, the event and the ones after it
+ * remain in the table. After the poll interval, the event is passed again to
+ * the failed listener behavior and the ones after it, but not to the ones that
+ * have already reacted to it (unless the application has been restarted in the
+ * meantime). After the maximum number of attempts, the failed listener behavior
+ * is skipped for the event, so that a single event can't stall the outbox
+ * forever. Each failed attempt and each skipped event is logged.
+ *
+ * The dispatcher thread calls the listener behaviors directly, so they should
+ * start their own transactions, e.g. be transactional behavior beans. Don't
+ * register other event listeners for them, or they react to the events twice.
+ *
+ * The events are (de)serialized to and from JSON by a
+ * {@link MessageSerializationModule}, based on the event classes of the
+ * listener models. The table needs the columns <code>id</code> (generated by
+ * the database, in ascending order), <code>event_type</code> and
+ * <code>payload</code>, e.g.:
+ *
+ * <pre>
+ * CREATE TABLE event_outbox (
+ *   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+ *   event_type VARCHAR(255) NOT NULL,
+ *   payload CLOB NOT NULL
+ * )
+ * </pre>
+ *
+ * Only one application instance should dispatch the events of a table. Call
+ * {@link #close()} to stop the dispatcher thread. Spring does that
+ * automatically for beans. Create an outbox event bus with
+ * {@link #builder(DataSource, Collection)}.
+ *
+ * @author b_muth
+ *
+ */
+public class OutboxEventBus implements EventBus, AutoCloseable {
+	private static final Log log = LogFactory.getLog(OutboxEventBus.class);
+	private static final String THREAD_NAME_PREFIX = "event-outbox-";
+	private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+	private final Behavior behavior;
+	private final JdbcTemplate jdbcTemplate;
+	private final JdbcTemplate dispatchJdbcTemplate;
+	private final List<Behavior> listenerBehaviors;
+	private final EventRoutes routes;
+	private final ObjectMapper objectMapper;
+	private final String insertSql;
+	private final String selectSql;
+	private final String deleteSql;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final long dispatchDelayNanos;
+	private final long pollIntervalNanos;
+	private final TransactionSynchronization dispatchAfterCommit;
+	private final Thread dispatcher;
+
+	private boolean isSignaled;
+	private boolean isClosed;
+	private FailedDispatch failedDispatch;
+
+	private OutboxEventBus(Builder builder) {
+		this.behavior = StatelessBehavior.of(() -> Model.builder().on(Object.class).system(this::append).build());
+		this.jdbcTemplate = new JdbcTemplate(builder.dataSource);
+		this.dispatchJdbcTemplate = new JdbcTemplate(builder.dataSource);
+		this.dispatchJdbcTemplate.setMaxRows(builder.batchSize);
+		this.dispatchJdbcTemplate.setFetchSize(builder.batchSize);
+		this.listenerBehaviors = builder.listenerBehaviors;
+		this.routes = EventRoutes.of(builder.listenerModels);
+		this.objectMapper = new ObjectMapper()
+			.registerModule(new MessageSerializationModule(EventModels.of(builder.listenerModels)));
+		this.insertSql = "INSERT INTO " + builder.tableName + " (event_type, payload) VALUES (?, ?)";
+		this.selectSql = "SELECT id, event_type, payload FROM " + builder.tableName + " ORDER BY id";
+		this.deleteSql = "DELETE FROM " + builder.tableName + " WHERE id = ?";
+		this.batchSize = builder.batchSize;
+		this.maxAttempts = builder.maxAttempts;
+		this.dispatchDelayNanos = builder.dispatchDelay.toNanos();
+		this.pollIntervalNanos = builder.pollInterval.toNanos();
+		this.dispatchAfterCommit = new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				signal();
+			}
+		};
+
+		// Dispatch the events that remained in the table right away
+		this.isSignaled = true;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+		threadFactory.setDaemon(true);
+		this.dispatcher = threadFactory.newThread(this::dispatchUntilClosed);
+		this.dispatcher.start();
+	}
+
+	/**
+	 * Starts building an outbox event bus.
+	 *
+	 * @param dataSource        the data source of the outbox table, the same as
+	 *                          the one of the publishers' transactions
+	 * @param listenerBehaviors the behaviors that react to the events, whose
+	 *                          models' message classes are the event classes
+	 * @return the builder
+	 */
+	public static Builder builder(DataSource dataSource, Collection<? extends Behavior> listenerBehaviors) {
+		return new Builder(dataSource, listenerBehaviors);
+	}
+
+	@Override
+	public <T> Optional<T> reactTo(Object event) {
+		return behavior.reactTo(event);
+	}
+
+	@Override
+	public BehaviorModel behaviorModel() {
+		return behavior.behaviorModel();
+	}
+
+	/**
+	 * Stops the dispatcher thread, after it has published the current batch of
+	 * events (or 30 seconds have elapsed). Events that haven't been published yet
+	 * remain in the outbox table.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			isClosed = true;
+			notifyAll();
+		}
+		try {
+			dispatcher.join(CLOSE_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void append(Object event) {
+		jdbcTemplate.update(insertSql, event.getClass().getSimpleName(), serialize(event));
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(dispatchAfterCommit);
+		} else {
+			signal();
+		}
+	}
+
+	private String serialize(Object event) {
+		try {
+			return objectMapper.writeValueAsString(event);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private synchronized void signal() {
+		isSignaled = true;
+		notifyAll();
+	}
+
+	private void dispatchUntilClosed() {
+		try {
+			while (awaitSignalOrPollInterval()) {
+				try {
+					while (dispatchBatch() == batchSize) {
+						// Dispatch the next batch right away
+					}
+				} catch (RuntimeException | Error e) {
+					log.error("Failed to dispatch events of outbox, retrying after poll interval", e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits until events have been committed, or the poll interval has elapsed.
+	 * After a commit, waits for the dispatch delay, so that more events can be
+	 * dispatched in the same batch.
+	 *
+	 * @return false if the event bus has been closed, true otherwise
+	 */
+	private synchronized boolean awaitSignalOrPollInterval() throws InterruptedException {
+		long deadline = System.nanoTime() + pollIntervalNanos;
+		long remainingNanos = pollIntervalNanos;
+		while (!isSignaled && !isClosed && remainingNanos > 0) {
+			TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+			remainingNanos = deadline - System.nanoTime();
+		}
+		if (isSignaled && !isClosed && dispatchDelayNanos > 0) {
+			TimeUnit.NANOSECONDS.timedWait(this, dispatchDelayNanos);
+		}
+		isSignaled = false;
+		return !isClosed;
+	}
+
+	/**
+	 * Passes the oldest events of the outbox table to the listener behaviors, and
+	 * deletes the events the listener behaviors have reacted to.
+	 *
+	 * @return the number of events read from the table
+	 */
+	private int dispatchBatch() {
+		List<OutboxEntry> entries = dispatchJdbcTemplate.query(selectSql,
+			(resultSet, rowNumber) -> new OutboxEntry(resultSet.getLong(1), resultSet.getString(2),
+				resultSet.getString(3)));
+
+		List<Object[]> dispatchedIds = new ArrayList<>(entries.size());
+		try {
+			for (OutboxEntry entry : entries) {
+				Optional<Object> event = deserialize(entry);
+				if (event.isPresent()) {
+					passToListeners(entry, event.get());
+				}
+				dispatchedIds.add(new Object[] { entry.id });
+			}
+		} finally {
+			if (!dispatchedIds.isEmpty()) {
+				dispatchJdbcTemplate.batchUpdate(deleteSql, dispatchedIds);
+			}
+		}
+		return entries.size();
+	}
+
+	/**
+	 * Passes the event to its listener behaviors, starting with the one that
+	 * failed to react to it in the previous attempt, if any.
+	 */
+	private void passToListeners(OutboxEntry entry, Object event) {
+		int[] listeners = routes.listenersOf(event.getClass());
+		FailedDispatch previousDispatch = failedDispatch != null && failedDispatch.id == entry.id ? failedDispatch
+			: null;
+		failedDispatch = null;
+
+		int attempt = previousDispatch == null ? 1 : previousDispatch.attempts + 1;
+		for (int i = previousDispatch == null ? 0 : previousDispatch.listener; i < listeners.length; i++) {
+			Behavior listenerBehavior = listenerBehaviors.get(listeners[i]);
+			try {
+				listenerBehavior.reactTo(event);
+			} catch (RuntimeException | Error e) {
+				String failure = "Listener " + listenerBehavior.behaviorModel().getClass().getName()
+					+ " failed to react to event " + entry.id + " of type " + entry.eventType + " in attempt " + attempt
+					+ " of " + maxAttempts;
+				if (attempt >= maxAttempts) {
+					log.error(failure + ", skipping the listener for the event", e);
+				} else {
+					log.warn(failure + ", the outbox stalls until the listener reacts to it");
+					failedDispatch = new FailedDispatch(entry.id, i, attempt);
+					throw e;
+				}
+			}
+			attempt = 1;
+		}
+	}
+
+	private Optional<Object> deserialize(OutboxEntry entry) {
+		try {
+			return Optional.of(objectMapper.readValue(entry.payload, Object.class));
+		} catch (IOException e) {
+			log.error("Discarding event " + entry.id + " of type " + entry.eventType
+				+ " from outbox, because it can't be deserialized: " + entry.payload, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Builds an outbox event bus.
+	 */
+	public static class Builder {
+		private final DataSource dataSource;
+		private final List<Behavior> listenerBehaviors;
+		private final List<BehaviorModel> listenerModels;
+		private String tableName;
+		private int batchSize;
+		private int maxAttempts;
+		private Duration dispatchDelay;
+		private Duration pollInterval;
+
+		private Builder(DataSource dataSource, Collection<? extends Behavior> listenerBehaviors) {
+			this.dataSource = Objects.requireNonNull(dataSource, "dataSource must not be null!");
+			Objects.requireNonNull(listenerBehaviors, "listenerBehaviors must not be null!");
+			this.listenerBehaviors = Collections.unmodifiableList(new ArrayList<>(listenerBehaviors));
+			this.listenerModels = this.listenerBehaviors.stream()
+				.map(Behavior::behaviorModel)
+				.collect(Collectors.toList());
+			this.tableName = "event_outbox";
+			this.batchSize = 100;
+			this.maxAttempts = 100;
+			this.dispatchDelay = Duration.ZERO;
+			this.pollInterval = Duration.ofSeconds(1);
+		}
+
+		/**
+		 * Sets the name of the outbox table (default: <code>event_outbox</code>).
+		 *
+		 * @param tableName the table name
+		 * @return this builder
+		 */
+		public Builder tableName(String tableName) {
+			this.tableName = Objects.requireNonNull(tableName, "tableName must not be null!");
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of events that are read from the table, and
+		 * deleted, at once (default: 100).
+		 *
+		 * @param batchSize the maximum number of events per batch
+		 * @return this builder
+		 */
+		public Builder batchSize(int batchSize) {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException("batchSize must be positive, but was " + batchSize);
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of attempts of a listener behavior to react to an
+		 * event, including the first one (default: 100). After that, the listener
+		 * behavior is skipped for the event, and the dispatcher continues with the
+		 * next listener behavior or event. Specify {@link Integer#MAX_VALUE} to never
+		 * skip an event.
+		 *
+		 * @param maxAttempts the maximum number of attempts per listener behavior and
+		 *                    event
+		 * @return this builder
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			if (maxAttempts < 1) {
+				throw new IllegalArgumentException("maxAttempts must be positive, but was " + maxAttempts);
+			}
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Sets how long the dispatcher waits after a commit, before it reads the
+		 * events (default: zero). A longer delay increases the latency of the events,
+		 * but more events are dispatched per batch.
+		 *
+		 * @param dispatchDelay the time to wait after a commit
+		 * @return this builder
+		 */
+		public Builder dispatchDelay(Duration dispatchDelay) {
+			Objects.requireNonNull(dispatchDelay, "dispatchDelay must not be null!");
+			if (dispatchDelay.isNegative()) {
+				throw new IllegalArgumentException("dispatchDelay must not be negative, but was " + dispatchDelay);
+			}
+			this.dispatchDelay = dispatchDelay;
+			return this;
+		}
+
+		/**
+		 * Sets the interval in which the dispatcher reads the table, if there are no
+		 * commits (default: 1 second). That way, the events are dispatched that
+		 * remained in the table when the application stopped, or when dispatching
+		 * failed.
+		 *
+		 * @param pollInterval the time between reads of the table
+		 * @return this builder
+		 */
+		public Builder pollInterval(Duration pollInterval) {
+			Objects.requireNonNull(pollInterval, "pollInterval must not be null!");
+			if (pollInterval.isNegative() || pollInterval.isZero()) {
+				throw new IllegalArgumentException("pollInterval must be positive, but was " + pollInterval);
+			}
+			this.pollInterval = pollInterval;
+			return this;
+		}
+
+		/**
+		 * Builds the outbox event bus, and starts its dispatcher thread.
+		 *
+		 * @return the outbox event bus
+		 */
+		public OutboxEventBus build() {
+			return new OutboxEventBus(this);
+		}
+	}
+
+	/**
+	 * The event that a listener behavior failed to react to, and the position of
+	 * that listener behavior among the event's listener behaviors.
+	 */
+	private static class FailedDispatch {
+		private final long id;
+		private final int listener;
+		private final int attempts;
+
+		FailedDispatch(long id, int listener, int attempts) {
+			this.id = id;
+			this.listener = listener;
+			this.attempts = attempts;
+		}
+	}
+
+	private static class OutboxEntry {
+		private final long id;
+		private final String eventType;
+		private final String payload;
+
+		OutboxEntry(long id, String eventType, String payload) {
+			this.id = id;
+			this.eventType = eventType;
+			this.payload = payload;
+		}
+	}
+}
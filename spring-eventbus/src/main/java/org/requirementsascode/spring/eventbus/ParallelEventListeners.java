@@ -0,0 +1,230 @@
+package org.requirementsascode.spring.eventbus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.requirementsascode.spring.behavior.web.LaneExecutor;
+import org.requirementsascode.spring.behavior.web.StripedBehavior;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Passes each event published by the event bus to the specified listener
+ * behaviors, in parallel. In contrast to {@link EventListeners}, a slow
+ * listener behavior doesn't delay the others.
+ *
+ * Each listener behavior has its own thread and bounded queue, and reacts to
+ * the events in the order they have been published. If a listener behavior's
+ * queue is full, publishing waits until there is space again. Only if the
+ * listener behavior publishes an event to its own full queue, it reacts to the
+ * event directly, as it would wait for itself forever otherwise. An event is
+ * only queued for the listener behaviors whose models have a step for the
+ * event's class. Spring's own application events are ignored.
+ *
+ * Each listener behavior reacts in its own thread, so it must start its own
+ * transactions, e.g. be a transactional behavior bean.
+ *
+ * If the decorator wraps a listener behavior in a {@link StripedBehavior}, the
+ * events that the striped behavior routes are passed to the lane of their
+ * aggregate directly, in the publishing thread. So the listener behavior reacts
+ * to events for different aggregates in parallel, and to the events for the
+ * same aggregate in the order they have been published. For that, the striped
+ * behavior must be the outermost decorator.
+ *
+ * Call {@link #close()} to stop the threads when the event listeners are no
+ * longer needed. Spring does that automatically for beans.
+ *
+ * @author b_muth
+ *
+ */
+public class ParallelEventListeners implements AutoCloseable {
+	private static final Log log = LogFactory.getLog(ParallelEventListeners.class);
+	private static final String THREAD_NAME_PREFIX = "event-listener-";
+	private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+	private final BehaviorDecorator decorator;
+	private final List<Behavior> behaviors;
+	private final List<LaneExecutor> lanes;
+	private final EventRoutes routes;
+	private final Set<CompletableFuture<?>> stripedEvents;
+
+	private ParallelEventListeners(Collection<? extends Behavior> listenerBehaviors, int queueCapacity,
+		BehaviorDecorator decorator) {
+		this.decorator = decorator;
+		this.behaviors = decorate(listenerBehaviors, decorator);
+		this.lanes = createLanesFor(behaviors, queueCapacity);
+		this.routes = EventRoutes.of(modelsOf(behaviors));
+		this.stripedEvents = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * Creates parallel event listeners.
+	 *
+	 * @param listenerBehaviors the behaviors that react to the events
+	 * @param queueCapacity     the maximum number of events waiting for each
+	 *                          listener behavior
+	 * @return the created event listeners
+	 */
+	public static ParallelEventListeners of(Collection<? extends Behavior> listenerBehaviors, int queueCapacity) {
+		return of(listenerBehaviors, queueCapacity, behavior -> behavior);
+	}
+
+	/**
+	 * Creates parallel event listeners whose behaviors are wrapped by the
+	 * specified decorator, e.g.
+	 * {@link EventBusMetrics#listeners(io.micrometer.core.instrument.MeterRegistry)}.
+	 *
+	 * @param listenerBehaviors the behaviors that react to the events
+	 * @param queueCapacity     the maximum number of events waiting for each
+	 *                          listener behavior
+	 * @param decorator         the decorator of each listener behavior
+	 * @return the created event listeners
+	 */
+	public static ParallelEventListeners of(Collection<? extends Behavior> listenerBehaviors, int queueCapacity,
+		BehaviorDecorator decorator) {
+		Objects.requireNonNull(listenerBehaviors, "listenerBehaviors must be non-null!");
+		Objects.requireNonNull(decorator, "decorator must be non-null!");
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queueCapacity must be positive, but was " + queueCapacity);
+		}
+		return new ParallelEventListeners(listenerBehaviors, queueCapacity, decorator);
+	}
+
+	@EventListener(condition = EventRoutes.NO_APPLICATION_EVENT)
+	public void on(Object event) {
+		for (int listener : routes.listenersOf(event.getClass())) {
+			Behavior behavior = behaviors.get(listener);
+			if (behavior instanceof StripedBehavior && ((StripedBehavior) behavior).isRouted(event)) {
+				reactToLater((StripedBehavior) behavior, event);
+			} else {
+				lanes.get(listener).execute(() -> reactTo(behavior, event));
+			}
+		}
+	}
+
+	/**
+	 * Waits until the listener behaviors have reacted to all events published so
+	 * far. Useful in tests.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @return true if all events have been reacted to, false if the timeout elapsed
+	 * @throws InterruptedException if the current thread is interrupted while
+	 *                              waiting
+	 */
+	public boolean awaitCompletion(Duration timeout) throws InterruptedException {
+		Objects.requireNonNull(timeout, "timeout must be non-null!");
+		long deadline = System.nanoTime() + timeout.toNanos();
+
+		// Each lane has a single thread, so the marker completes after all earlier events
+		List<Future<?>> markers = new ArrayList<>(lanes.size());
+		for (LaneExecutor lane : lanes) {
+			markers.add(lane.submit(() -> {}));
+		}
+		try {
+			for (Future<?> marker : markers) {
+				marker.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			}
+			for (CompletableFuture<?> stripedEvent : new ArrayList<>(stripedEvents)) {
+				try {
+					stripedEvent.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				} catch (ExecutionException e) {
+					// Has been logged already
+				}
+			}
+			// The listener behaviors may have opened windows while reacting
+			if (decorator instanceof EventCoalescer) {
+				return ((EventCoalescer) decorator).awaitCompletion(Duration.ofNanos(deadline - System.nanoTime()));
+			}
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the threads of the listener behaviors, and of their striped behaviors,
+	 * after they have reacted to the events published so far (or 30 seconds have
+	 * elapsed).
+	 */
+	@Override
+	public void close() {
+		for (LaneExecutor lane : lanes) {
+			lane.shutdown();
+		}
+		try {
+			for (LaneExecutor lane : lanes) {
+				lane.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (Behavior behavior : behaviors) {
+			if (behavior instanceof StripedBehavior) {
+				((StripedBehavior) behavior).close();
+			}
+		}
+	}
+
+	private void reactTo(Behavior behavior, Object event) {
+		try {
+			behavior.reactTo(event);
+		} catch (RuntimeException e) {
+			logFailure(behavior, event, e);
+		}
+	}
+
+	private void reactToLater(StripedBehavior behavior, Object event) {
+		CompletableFuture<?> stripedEvent = behavior.reactToLater(event);
+		stripedEvents.add(stripedEvent);
+		stripedEvent.whenComplete((response, e) -> {
+			stripedEvents.remove(stripedEvent);
+			if (e != null) {
+				logFailure(behavior, event, e instanceof CompletionException ? e.getCause() : e);
+			}
+		});
+	}
+
+	private void logFailure(Behavior behavior, Object event, Throwable e) {
+		log.error("Listener " + behavior.behaviorModel().getClass().getName() + " failed to react to "
+			+ event.getClass().getName(), e);
+	}
+
+	private List<Behavior> decorate(Collection<? extends Behavior> listenerBehaviors, BehaviorDecorator decorator) {
+		return listenerBehaviors.stream()
+			.map(decorator::decorate)
+			.collect(Collectors.toList());
+	}
+
+	private List<BehaviorModel> modelsOf(List<Behavior> behaviors) {
+		return behaviors.stream()
+			.map(Behavior::behaviorModel)
+			.collect(Collectors.toList());
+	}
+
+	private List<LaneExecutor> createLanesFor(List<Behavior> behaviors, int queueCapacity) {
+		List<LaneExecutor> lanes = new ArrayList<>(behaviors.size());
+		for (int i = 0; i < behaviors.size(); i++) {
+			lanes.add(new LaneExecutor(THREAD_NAME_PREFIX + i + "-", queueCapacity));
+		}
+		return Collections.unmodifiableList(lanes);
+	}
+}
@@ -7,13 +7,19 @@ import org.requirementsascode.Behavior;
 import org.requirementsascode.BehaviorModel;
 import org.requirementsascode.StatelessBehavior;
 import org.requirementsascode.eventbus.EventBus;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
 
 class SpringEventBus implements EventBus {
 	private final Behavior behavior;
 	
 	SpringEventBus(BehaviorModel eventBusBehaviorModel) {
+		this(eventBusBehaviorModel, behavior -> behavior);
+	}
+
+	SpringEventBus(BehaviorModel eventBusBehaviorModel, BehaviorDecorator decorator) {
 		Objects.requireNonNull(eventBusBehaviorModel, "behaviorModel must not be null!");
-		this.behavior = StatelessBehavior.of(eventBusBehaviorModel);
+		Objects.requireNonNull(decorator, "decorator must not be null!");
+		this.behavior = decorator.decorate(StatelessBehavior.of(eventBusBehaviorModel));
 	}
 
 	@Override
@@ -26,4 +32,3 @@ class SpringEventBus implements EventBus {
 		return behavior.behaviorModel();
 	}
 }
-
@@ -0,0 +1,180 @@
+package org.requirementsascode.spring.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.spring.behavior.web.StripedBehavior;
+
+class EventCoalescerTest {
+	private List<Object> events;
+	private EventCoalescer eventCoalescer;
+
+	@BeforeEach
+	void setup() {
+		events = Collections.synchronizedList(new ArrayList<>());
+		eventCoalescer = EventCoalescer.create();
+	}
+
+	@AfterEach
+	void tearDown() {
+		eventCoalescer.close();
+	}
+
+	@Test
+	void reactsToLatestEventPerKeyWithinWindow() throws Exception {
+		EventListeners eventListeners = EventListeners.of(Collections.singletonList(
+			listenerModel(EventCoalescing.builder().latest(TaskToggled.class, event -> event.listId))), eventCoalescer);
+
+		for (int i = 0; i < 10; i++) {
+			eventListeners.on(new TaskToggled("list1", i));
+		}
+		eventListeners.on(new TaskToggled("list2", 0));
+
+		assertEquals(2, awaitEvents(2).size());
+		assertEquals(Arrays.asList(new TaskToggled("list1", 9), new TaskToggled("list2", 0)), events);
+	}
+
+	@Test
+	void reactsToMergedEventPerKeyWithinWindow() throws Exception {
+		EventListeners eventListeners = EventListeners.of(Collections.singletonList(
+			listenerModel(EventCoalescing.builder().merged(TaskToggled.class, event -> event.listId,
+				(earlier, later) -> new TaskToggled(earlier.listId, earlier.toggleCount + later.toggleCount)))),
+			eventCoalescer);
+
+		for (int i = 0; i < 10; i++) {
+			eventListeners.on(new TaskToggled("list1", 1));
+		}
+
+		assertEquals(Collections.singletonList(new TaskToggled("list1", 10)), awaitEvents(1));
+	}
+
+	@Test
+	void reactsToOtherEventsRightAway() {
+		EventListeners eventListeners = EventListeners.of(Collections.singletonList(
+			listenerModel(EventCoalescing.builder().latest(TaskToggled.class, event -> event.listId))), eventCoalescer);
+
+		eventListeners.on("event");
+
+		assertEquals(Collections.singletonList("event"), events);
+	}
+
+	@Test
+	void parallelEventListenersAwaitCoalescedEvents() throws Exception {
+		BehaviorModel listenerModel = listenerModel(EventCoalescing.builder().latest(TaskToggled.class, event -> event.listId));
+
+		try (ParallelEventListeners eventListeners = ParallelEventListeners
+			.of(Collections.singletonList(StatelessBehavior.of(listenerModel)), 10, eventCoalescer)) {
+			for (int i = 0; i < 10; i++) {
+				eventListeners.on(new TaskToggled("list1", i));
+			}
+			assertTrue(eventListeners.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		assertEquals(Collections.singletonList(new TaskToggled("list1", 9)), events);
+	}
+
+	@Test
+	void passesCoalescedEventToLaneOfStripedBehavior() throws Exception {
+		BehaviorModel listenerModel = listenerModel(EventCoalescing.builder().latest(TaskToggled.class, event -> event.listId));
+		List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+		BehaviorModel threadRecordingModel = new CoalescingListenerModel() {
+			@Override
+			public Model model() {
+				return Model.builder().on(Object.class).system(event -> threadNames.add(Thread.currentThread().getName()))
+					.build();
+			}
+
+			@Override
+			public EventCoalescing eventCoalescing() {
+				return ((CoalescingListenerModel) listenerModel).eventCoalescing();
+			}
+		};
+
+		try (StripedBehavior stripedBehavior = StripedBehavior.builder(StatelessBehavior.of(threadRecordingModel))
+			.route(TaskToggled.class, event -> event.listId)
+			.build()) {
+			Behavior coalescingBehavior = eventCoalescer.decorate(stripedBehavior);
+			coalescingBehavior.reactTo(new TaskToggled("list1", 0));
+			coalescingBehavior.reactTo(new TaskToggled("list1", 1));
+			assertTrue(eventCoalescer.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		assertEquals(1, threadNames.size());
+		assertTrue(threadNames.get(0).startsWith("behavior-lane-"));
+	}
+
+	@Test
+	void doesntDecorateListenerWithoutEventCoalescing() {
+		BehaviorModel listenerModel = () -> Model.builder().on(Object.class).system(events::add).build();
+		Behavior behavior = StatelessBehavior.of(listenerModel);
+
+		assertSame(behavior, eventCoalescer.decorate(behavior));
+	}
+
+	private BehaviorModel listenerModel(EventCoalescing.Builder eventCoalescing) {
+		EventCoalescing builtEventCoalescing = eventCoalescing.window(Duration.ofMillis(100)).build();
+		return new CoalescingListenerModel() {
+			@Override
+			public Model model() {
+				return Model.builder().on(Object.class).system(events::add).build();
+			}
+
+			@Override
+			public EventCoalescing eventCoalescing() {
+				return builtEventCoalescing;
+			}
+		};
+	}
+
+	private List<Object> awaitEvents(int size) throws InterruptedException {
+		for (int i = 0; i < 1000 && events.size() < size; i++) {
+			Thread.sleep(10);
+		}
+		// Wait a little longer, to detect events that shouldn't have been reacted to
+		Thread.sleep(200);
+		return events;
+	}
+
+	static class TaskToggled {
+		private final String listId;
+		private final int toggleCount;
+
+		TaskToggled(String listId, int toggleCount) {
+			this.listId = listId;
+			this.toggleCount = toggleCount;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TaskToggled)) {
+				return false;
+			}
+			TaskToggled other = (TaskToggled) obj;
+			return listId.equals(other.listId) && toggleCount == other.toggleCount;
+		}
+
+		@Override
+		public int hashCode() {
+			return listId.hashCode() * 31 + toggleCount;
+		}
+
+		@Override
+		public String toString() {
+			return listId + ":" + toggleCount;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package org.requirementsascode.spring.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.spring.behavior.web.BehaviorDecorator;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+class EventListenersTest {
+	private final List<String> reactions = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	void passesEventsOnlyToListenersWithStepForEventClass() {
+		BehaviorModel integerListenerModel = () -> Model.builder().on(Integer.class).system(() -> {}).build();
+		BehaviorModel numberListenerModel = () -> Model.builder().on(Number.class).system(() -> {}).build();
+		EventListeners eventListeners = EventListeners.of(Arrays.asList(integerListenerModel, numberListenerModel),
+			recordingDecorator());
+
+		eventListeners.on(1);
+		eventListeners.on(1L);
+		eventListeners.on("unknown");
+
+		assertEquals(Arrays.asList("Integer", "Integer", "Long"), reactions);
+	}
+
+	@Test
+	void ignoresSpringApplicationEvents() {
+		BehaviorModel objectListenerModel = () -> Model.builder().on(Object.class).system(() -> {}).build();
+		EventListeners eventListeners = EventListeners.of(Collections.singletonList(objectListenerModel),
+			recordingDecorator());
+
+		try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+			context.registerBean(EventListeners.class, () -> eventListeners);
+			context.refresh();
+			context.publishEvent("event");
+		}
+
+		assertEquals(Collections.singletonList("String"), reactions);
+	}
+
+	private BehaviorDecorator recordingDecorator() {
+		return behavior -> new Behavior() {
+			@Override
+			public <T> Optional<T> reactTo(Object message) {
+				reactions.add(message.getClass().getSimpleName());
+				return behavior.reactTo(message);
+			}
+
+			@Override
+			public BehaviorModel behaviorModel() {
+				return behavior.behaviorModel();
+			}
+		};
+	}
+}
@@ -0,0 +1,153 @@
+package org.requirementsascode.spring.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+
+class EventLogTest {
+	private static final int SEGMENT_SIZE = 256;
+
+	@TempDir
+	Path directory;
+
+	private final List<String> taskNames = new ArrayList<>();
+	private final BehaviorModel listenerModel = () -> Model.builder()
+		.on(TaskAdded.class).system(event -> taskNames.add(event.taskName))
+		.build();
+	private final BehaviorModel otherListenerModel = () -> Model.builder()
+		.on(TaskRemoved.class).system(() -> {})
+		.build();
+	private EventLog eventLog;
+
+	@AfterEach
+	void tearDown() {
+		eventLog.close();
+	}
+
+	@Test
+	void replaysEventsOfSeveralSegmentsInAppendedOrder() throws IOException {
+		eventLog = createEventLog().build();
+		List<String> expectedTaskNames = appendTaskAddedEvents(0, 20);
+
+		long eventCount = eventLog.replayTo(listeners());
+
+		assertEquals(20, eventCount);
+		assertEquals(expectedTaskNames, taskNames);
+		assertTrue(segments().size() > 1);
+	}
+
+	@Test
+	void continuesAfterLastEventWhenOpenedAgain() {
+		eventLog = createEventLog().build();
+		List<String> expectedTaskNames = appendTaskAddedEvents(0, 3);
+		eventLog.close();
+
+		eventLog = createEventLog().build();
+		expectedTaskNames.addAll(appendTaskAddedEvents(3, 1));
+
+		assertEquals(4, eventLog.replayTo(listeners()));
+		assertEquals(expectedTaskNames, taskNames);
+	}
+
+	@Test
+	void skipsEventsThatListenerHasNoStepFor() {
+		eventLog = createEventLog().build();
+		eventLog.append(new TaskRemoved("task0"));
+		eventLog.append(new TaskAdded("task1"));
+
+		assertEquals(2, eventLog.replayTo(listeners()));
+		assertEquals(Collections.singletonList("task1"), taskNames);
+	}
+
+	@Test
+	void deletesSegmentsAfterRetentionPeriod() throws IOException {
+		eventLog = createEventLog().retention(Duration.ofHours(1)).build();
+		appendTaskAddedEvents(0, 20);
+		List<Path> segments = segments();
+		Path oldestSegment = segments.get(0);
+		Files.setLastModifiedTime(oldestSegment, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+		appendTaskAddedEvents(20, 20);
+
+		assertFalse(Files.exists(oldestSegment));
+		assertTrue(Files.exists(segments.get(1)));
+		eventLog.replayTo(listeners());
+		assertFalse(taskNames.contains("task0"));
+		assertTrue(taskNames.contains("task39"));
+	}
+
+	@Test
+	void eventBusAppendsEventsBeforePublishingThem() {
+		eventLog = createEventLog().build();
+		List<Object> publishedEvents = new ArrayList<>();
+		Behavior eventBus = eventLog.decorator()
+			.decorate(StatelessBehavior.of(() -> Model.builder().on(Object.class).system(publishedEvents::add).build()));
+
+		eventBus.reactTo(new TaskAdded("task0"));
+
+		assertEquals(1, publishedEvents.size());
+		assertEquals(1, eventLog.replayTo(listeners()));
+		assertEquals(Collections.singletonList("task0"), taskNames);
+	}
+
+	private EventLog.Builder createEventLog() {
+		return EventLog.builder(directory, Arrays.asList(listenerModel, otherListenerModel))
+			.segmentSize(SEGMENT_SIZE);
+	}
+
+	private List<Behavior> listeners() {
+		return Collections.singletonList(StatelessBehavior.of(listenerModel));
+	}
+
+	private List<String> appendTaskAddedEvents(int firstNumber, int count) {
+		List<String> appendedTaskNames = IntStream.range(firstNumber, firstNumber + count)
+			.mapToObj(number -> "task" + number)
+			.collect(Collectors.toList());
+		appendedTaskNames.forEach(taskName -> eventLog.append(new TaskAdded(taskName)));
+		return appendedTaskNames;
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> paths = Files.list(directory)) {
+			return paths.sorted().collect(Collectors.toList());
+		}
+	}
+
+	static class TaskAdded {
+		private final String taskName;
+
+		TaskAdded(String taskName) {
+			this.taskName = taskName;
+		}
+	}
+
+	static class TaskRemoved {
+		private final String taskName;
+
+		TaskRemoved(String taskName) {
+			this.taskName = taskName;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package org.requirementsascode.spring.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class OutboxEventBusTest {
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private JdbcDataSource dataSource;
+	private TransactionTemplate transactionTemplate;
+	private BlockingQueue<Object> publishedEvents;
+	private BehaviorModel listenerModel;
+	private OutboxEventBus eventBus;
+
+	@BeforeEach
+	void setup() {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1");
+		new JdbcTemplate(dataSource).execute("CREATE TABLE event_outbox (id BIGINT GENERATED BY DEFAULT AS IDENTITY "
+			+ "PRIMARY KEY, event_type VARCHAR(255) NOT NULL, payload CLOB NOT NULL)");
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		publishedEvents = new LinkedBlockingQueue<>();
+		listenerModel = () -> Model.builder().on(TaskAdded.class).system(publishedEvents::add).build();
+		eventBus = createEventBus();
+	}
+
+	@AfterEach
+	void tearDown() {
+		eventBus.close();
+		new JdbcTemplate(dataSource).execute("DROP TABLE event_outbox");
+	}
+
+	@Test
+	void publishesEventsAfterCommitInOrder() throws Exception {
+		transactionTemplate.executeWithoutResult(status -> {
+			eventBus.reactTo(new TaskAdded("task1"));
+			eventBus.reactTo(new TaskAdded("task2"));
+			eventBus.reactTo(new TaskAdded("task3"));
+		});
+
+		assertEquals("task1", nextTaskName());
+		assertEquals("task2", nextTaskName());
+		assertEquals("task3", nextTaskName());
+	}
+
+	@Test
+	void doesntPublishEventsOfRolledBackTransaction() throws Exception {
+		transactionTemplate.executeWithoutResult(status -> {
+			eventBus.reactTo(new TaskAdded("rolledBack"));
+			status.setRollbackOnly();
+		});
+		transactionTemplate.executeWithoutResult(status -> eventBus.reactTo(new TaskAdded("committed")));
+
+		assertEquals("committed", nextTaskName());
+		assertNull(publishedEvents.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void publishesRemainingEventsAfterRestart() throws Exception {
+		eventBus.close();
+		transactionTemplate.executeWithoutResult(status -> eventBus.reactTo(new TaskAdded("remaining")));
+		assertNull(publishedEvents.poll(100, TimeUnit.MILLISECONDS));
+
+		eventBus = createEventBus();
+
+		assertEquals("remaining", nextTaskName());
+	}
+
+	@Test
+	void publishesEventsInSeveralBatches() throws Exception {
+		List<String> expectedTaskNames = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			expectedTaskNames.add("task" + i);
+		}
+		transactionTemplate.executeWithoutResult(
+			status -> expectedTaskNames.forEach(taskName -> eventBus.reactTo(new TaskAdded(taskName))));
+
+		List<String> taskNames = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			taskNames.add(nextTaskName());
+		}
+		assertEquals(expectedTaskNames, taskNames);
+	}
+
+	@Test
+	void publishesEventsOfSeveralClasses() throws Exception {
+		eventBus.close();
+		BehaviorModel otherListenerModel = () -> Model.builder()
+			.on(TaskRemoved.class).system(publishedEvents::add)
+			.on(TaskRenamed.class).system(publishedEvents::add)
+			.build();
+		eventBus = createEventBus(Arrays.asList(listenerModel, otherListenerModel));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			eventBus.reactTo(new TaskAdded("task1"));
+			eventBus.reactTo(new TaskRenamed("task1", "task2"));
+			eventBus.reactTo(new TaskRemoved("task2"));
+		});
+
+		assertEquals("task1", nextTaskName());
+		assertEquals("task2", ((TaskRenamed) publishedEvents.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).newTaskName);
+		assertEquals("task2", ((TaskRemoved) publishedEvents.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).taskName);
+	}
+
+	@Test
+	void keepsEventInOutboxIfListenerFails() throws Exception {
+		eventBus.close();
+		AtomicInteger failures = new AtomicInteger();
+		BehaviorModel failingListenerModel = () -> Model.builder()
+			.on(TaskAdded.class).system(event -> {
+				if (failures.incrementAndGet() <= 2) {
+					throw new IllegalStateException("Listener failed");
+				}
+			})
+			.build();
+		eventBus = createEventBus(Arrays.asList(listenerModel, failingListenerModel));
+
+		transactionTemplate.executeWithoutResult(status -> eventBus.reactTo(new TaskAdded("task1")));
+		assertEquals("task1", nextTaskName());
+		assertEquals(1, outboxSize());
+
+		// Only the failed listener reacts to the event again after the poll interval
+		assertTrue(awaitEmptyOutbox());
+		assertEquals(3, failures.get());
+		assertNull(publishedEvents.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void skipsFailingListenerAfterMaxAttempts() throws Exception {
+		eventBus.close();
+		AtomicInteger failures = new AtomicInteger();
+		BehaviorModel failingListenerModel = () -> Model.builder()
+			.on(TaskAdded.class).system(event -> {
+				if (event.taskName.equals("poison")) {
+					failures.incrementAndGet();
+					throw new IllegalStateException("Listener failed");
+				}
+			})
+			.build();
+		eventBus = createEventBusBuilder(Arrays.asList(failingListenerModel, listenerModel))
+			.maxAttempts(3)
+			.build();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			eventBus.reactTo(new TaskAdded("poison"));
+			eventBus.reactTo(new TaskAdded("task2"));
+		});
+
+		assertEquals("poison", nextTaskName());
+		assertEquals("task2", nextTaskName());
+		assertTrue(awaitEmptyOutbox());
+		assertEquals(3, failures.get());
+	}
+
+	private int outboxSize() {
+		return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM event_outbox", Integer.class);
+	}
+
+	private boolean awaitEmptyOutbox() throws InterruptedException {
+		for (int i = 0; i < 1000 && outboxSize() > 0; i++) {
+			Thread.sleep(10);
+		}
+		return outboxSize() == 0;
+	}
+
+	private OutboxEventBus createEventBus() {
+		return createEventBus(Collections.singletonList(listenerModel));
+	}
+
+	private OutboxEventBus createEventBus(List<BehaviorModel> listenerModels) {
+		return createEventBusBuilder(listenerModels).build();
+	}
+
+	private OutboxEventBus.Builder createEventBusBuilder(List<BehaviorModel> listenerModels) {
+		List<StatelessBehavior> listenerBehaviors = listenerModels.stream()
+			.map(StatelessBehavior::of)
+			.collect(Collectors.toList());
+		return OutboxEventBus.builder(dataSource, listenerBehaviors)
+			.batchSize(3)
+			.pollInterval(Duration.ofMillis(100));
+	}
+
+	private String nextTaskName() throws InterruptedException {
+		TaskAdded event = (TaskAdded) publishedEvents.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		return event == null ? null : event.taskName;
+	}
+
+	static class TaskAdded {
+		private final String taskName;
+
+		TaskAdded(String taskName) {
+			this.taskName = taskName;
+		}
+	}
+
+	static class TaskRenamed {
+		private final String taskName;
+		private final String newTaskName;
+
+		TaskRenamed(String taskName, String newTaskName) {
+			this.taskName = taskName;
+			this.newTaskName = newTaskName;
+		}
+	}
+
+	static class TaskRemoved {
+		private final String taskName;
+
+		TaskRemoved(String taskName) {
+			this.taskName = taskName;
+		}
+	}
+}
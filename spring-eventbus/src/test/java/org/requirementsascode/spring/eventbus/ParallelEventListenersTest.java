@@ -0,0 +1,150 @@
+package org.requirementsascode.spring.eventbus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.requirementsascode.Behavior;
+import org.requirementsascode.BehaviorModel;
+import org.requirementsascode.Model;
+import org.requirementsascode.StatelessBehavior;
+import org.requirementsascode.spring.behavior.web.StripedBehavior;
+
+class ParallelEventListenersTest {
+	private static final int NUMBER_OF_EVENTS = 100;
+	private static final int NUMBER_OF_AGGREGATES = 4;
+
+	@Test
+	void eachListenerReactsToEventsInPublishedOrder() throws Exception {
+		List<Object> eventsOfListener1 = Collections.synchronizedList(new ArrayList<>());
+		List<Object> eventsOfListener2 = Collections.synchronizedList(new ArrayList<>());
+
+		try (ParallelEventListeners eventListeners = ParallelEventListeners
+			.of(behaviorsOf(listenerModel(eventsOfListener1), listenerModel(eventsOfListener2)), 10)) {
+			publishEventsTo(eventListeners);
+			assertTrue(eventListeners.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		List<Integer> expectedEvents = IntStream.range(0, NUMBER_OF_EVENTS).boxed().collect(Collectors.toList());
+		assertEquals(expectedEvents, eventsOfListener1);
+		assertEquals(expectedEvents, eventsOfListener2);
+	}
+
+	@Test
+	void blockedListenerDoesntDelayOtherListener() throws Exception {
+		CountDownLatch unblockListener = new CountDownLatch(1);
+		BehaviorModel blockedListenerModel = () -> Model.builder()
+			.on(Integer.class).system(event -> awaitUninterruptibly(unblockListener))
+			.build();
+		List<Object> eventsOfListener = Collections.synchronizedList(new ArrayList<>());
+
+		try (ParallelEventListeners eventListeners = ParallelEventListeners
+			.of(behaviorsOf(blockedListenerModel, listenerModel(eventsOfListener)), NUMBER_OF_EVENTS)) {
+			publishEventsTo(eventListeners);
+			assertTrue(awaitSize(eventsOfListener, NUMBER_OF_EVENTS));
+			unblockListener.countDown();
+			assertTrue(eventListeners.awaitCompletion(Duration.ofSeconds(10)));
+		}
+	}
+
+	@Test
+	void stripedListenerReactsToEventsOfSameAggregateInPublishedOrder() throws Exception {
+		Map<Integer, List<Integer>> eventsPerAggregate = new ConcurrentHashMap<>();
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		BehaviorModel listenerModel = () -> Model.builder()
+			.on(Integer.class).system(event -> {
+				threadNames.add(Thread.currentThread().getName());
+				eventsPerAggregate.computeIfAbsent(event % NUMBER_OF_AGGREGATES,
+					aggregate -> Collections.synchronizedList(new ArrayList<>())).add(event);
+			})
+			.build();
+
+		try (ParallelEventListeners eventListeners = ParallelEventListeners.of(behaviorsOf(listenerModel), 10,
+			behavior -> StripedBehavior.builder(behavior).route(Integer.class, event -> event % NUMBER_OF_AGGREGATES)
+				.build())) {
+			publishEventsTo(eventListeners);
+			assertTrue(eventListeners.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		for (int aggregate = 0; aggregate < NUMBER_OF_AGGREGATES; aggregate++) {
+			int firstEvent = aggregate;
+			List<Integer> expectedEvents = IntStream.range(0, NUMBER_OF_EVENTS / NUMBER_OF_AGGREGATES)
+				.mapToObj(i -> firstEvent + i * NUMBER_OF_AGGREGATES)
+				.collect(Collectors.toList());
+			assertEquals(expectedEvents, eventsPerAggregate.get(aggregate));
+		}
+		assertTrue(threadNames.stream().allMatch(threadName -> threadName.startsWith("behavior-lane-")));
+	}
+
+	@Test
+	void listenerReactsToEventsPublishedToItsOwnFullQueue() throws Exception {
+		AtomicReference<ParallelEventListeners> eventListenersRef = new AtomicReference<>();
+		List<Object> events = Collections.synchronizedList(new ArrayList<>());
+		BehaviorModel selfPublishingListenerModel = () -> Model.builder()
+			.on(Integer.class).system(event -> {
+				events.add(event);
+				if (event == 0) {
+					for (int i = 1; i < NUMBER_OF_EVENTS; i++) {
+						eventListenersRef.get().on(i);
+					}
+				}
+			})
+			.build();
+
+		try (ParallelEventListeners eventListeners = ParallelEventListeners.of(behaviorsOf(selfPublishingListenerModel),
+			1)) {
+			eventListenersRef.set(eventListeners);
+			eventListeners.on(0);
+			assertTrue(eventListeners.awaitCompletion(Duration.ofSeconds(10)));
+		}
+
+		List<Object> expectedEvents = IntStream.range(0, NUMBER_OF_EVENTS).boxed().collect(Collectors.toList());
+		assertEquals(expectedEvents, events.stream().sorted().collect(Collectors.toList()));
+	}
+
+	private List<Behavior> behaviorsOf(BehaviorModel... listenerModels) {
+		return Arrays.stream(listenerModels)
+			.map(StatelessBehavior::of)
+			.collect(Collectors.toList());
+	}
+
+	private BehaviorModel listenerModel(List<Object> events) {
+		return () -> Model.builder()
+			.on(Integer.class).system(events::add)
+			.build();
+	}
+
+	private void publishEventsTo(ParallelEventListeners eventListeners) {
+		for (int i = 0; i < NUMBER_OF_EVENTS; i++) {
+			eventListeners.on(i);
+		}
+	}
+
+	private boolean awaitSize(List<Object> events, int size) throws InterruptedException {
+		for (int i = 0; i < 1000 && events.size() < size; i++) {
+			Thread.sleep(10);
+		}
+		return events.size() == size;
+	}
+
+	private void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}